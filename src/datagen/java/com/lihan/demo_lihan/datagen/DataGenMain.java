@@ -0,0 +1,298 @@
+package com.lihan.demo_lihan.datagen;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * 生产规模数据生成入口：mvn -Pdatagen verify [-Ddatagen.args="--users=2000000 --orders=20000000 --format=tsv"]
+ * 依次生成用户（含角色关联）、订单（含选课记录）、课程（学生数取自已支付订单），按分块并行写出。
+ * jdbc 模式直接多行 INSERT 写入目标库；tsv 模式写出 LOAD DATA 格式文件和导入脚本 load.sql。
+ */
+@Slf4j
+public class DataGenMain {
+
+    private static final int CHUNK_SIZE = 50_000;
+    private static final List<Table> TRUNCATE_ORDER =
+            List.of(Table.USER_COURSE, Table.USER_ROLE, Table.ORDER, Table.COURSE, Table.USER);
+
+    private final DataGenOptions options;
+    private final DatasetModel model;
+    private final List<String> loadStatements = new ArrayList<>();
+    private Map<String, Long> roleIds = Map.of();
+
+    public DataGenMain(DataGenOptions options) {
+        this.options = options;
+        this.model = new DatasetModel(options);
+    }
+
+    public static void main(String[] args) throws Exception {
+        DataGenOptions options = DataGenOptions.parse(args);
+        log.info("开始生成数据: format={}, users={}, courses={}, orders={}, seed={}, threads={}",
+                options.format(), options.users(), options.courses(), options.orders(), options.seed(),
+                options.threads());
+        new DataGenMain(options).run();
+    }
+
+    public void run() throws Exception {
+        if (isJdbc()) {
+            prepareDatabase();
+        } else {
+            Files.createDirectories(options.out());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(options.threads());
+        try {
+            long startNanos = System.nanoTime();
+            runPhase(executor, "users", chunks(options.users()).stream().map(chunk -> (Callable<Long>) () -> {
+                try (RowSink users = open(Table.USER, "users-" + chunk[0]);
+                     RowSink userRoles = open(Table.USER_ROLE, "users-" + chunk[0])) {
+                    for (long id = chunk[0]; id <= chunk[1]; id++) {
+                        users.add(model.userRow(id));
+                        userRoles.add(id, roleValue(DatasetModel.roleOf(id)));
+                    }
+                    return users.count();
+                }
+            }).toList());
+
+            AtomicIntegerArray paidCounts = new AtomicIntegerArray(Math.toIntExact(options.courses()) + 1);
+            List<Callable<Long>> partitions = new ArrayList<>();
+            for (int partition = 0; partition < options.partitions(); partition++) {
+                int current = partition;
+                partitions.add(() -> {
+                    try (RowSink orders = open(Table.ORDER, "partition-" + current);
+                         RowSink enrollments = open(Table.USER_COURSE, "partition-" + current)) {
+                        model.orders(current, orders, enrollments, paidCounts);
+                        return orders.count();
+                    }
+                });
+            }
+            runPhase(executor, "orders", partitions);
+
+            int hotThreshold = hotThreshold(paidCounts);
+            runPhase(executor, "courses", chunks(options.courses()).stream().map(chunk -> (Callable<Long>) () -> {
+                try (RowSink courses = open(Table.COURSE, "courses-" + chunk[0])) {
+                    for (long id = chunk[0]; id <= chunk[1]; id++) {
+                        int students = paidCounts.get((int) id);
+                        courses.add(model.courseRow(id, students, students > 0 && students >= hotThreshold));
+                    }
+                    return courses.count();
+                }
+            }).toList());
+
+            if (isJdbc()) {
+                finishDatabase();
+            } else {
+                writeLoadScript();
+            }
+            log.info("数据生成完成: elapsed={}s", (System.nanoTime() - startNanos) / 1_000_000_000);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void runPhase(ExecutorService executor, String phase, List<Callable<Long>> tasks)
+            throws InterruptedException, ExecutionException {
+        long startNanos = System.nanoTime();
+        long rows = 0;
+        for (Future<Long> future : executor.invokeAll(tasks)) {
+            rows += future.get();
+        }
+        double seconds = Math.max(1e-9, (System.nanoTime() - startNanos) / 1e9);
+        log.info("阶段完成: {}, rows={}, elapsed={}s, rate={}/s", phase, rows, String.format("%.1f", seconds),
+                (long) (rows / seconds));
+    }
+
+    /**
+     * 按 [起始ID, 结束ID] 切分
+     */
+    private static List<long[]> chunks(long total) {
+        List<long[]> chunks = new ArrayList<>();
+        for (long first = 1; first <= total; first += CHUNK_SIZE) {
+            chunks.add(new long[]{first, Math.min(total, first + CHUNK_SIZE - 1)});
+        }
+        return chunks;
+    }
+
+    /**
+     * 支付人数前 1% 的课程标记为热门
+     */
+    private int hotThreshold(AtomicIntegerArray paidCounts) {
+        int[] counts = new int[paidCounts.length() - 1];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = paidCounts.get(i + 1);
+        }
+        Arrays.sort(counts);
+        return counts[Math.max(0, counts.length - 1 - counts.length / 100)];
+    }
+
+    private RowSink open(Table table, String part) throws SQLException {
+        if (isJdbc()) {
+            Connection connection = connect();
+            disableChecks(connection);
+            return new RowSink.Jdbc(connection, table, options.batchSize());
+        }
+        Path file = options.out().resolve(table.getTableName() + "-" + part + ".tsv").toAbsolutePath();
+        synchronized (loadStatements) {
+            loadStatements.add(loadStatement(table, file));
+        }
+        return new RowSink.Tsv(file);
+    }
+
+    /**
+     * jdbc 模式写角色ID；tsv 模式写角色编码，由 load.sql 换成目标库中的角色ID
+     */
+    private Object roleValue(String roleCode) {
+        return isJdbc() ? roleIds.get(roleCode) : roleCode;
+    }
+
+    private void prepareDatabase() throws SQLException {
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            disableChecks(connection);
+            if (options.truncate()) {
+                for (Table table : TRUNCATE_ORDER) {
+                    statement.execute((isMySql() ? "TRUNCATE TABLE " : "DELETE FROM ") + table.getTableName());
+                }
+            } else {
+                for (Table table : TRUNCATE_ORDER) {
+                    try (ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM " + table.getTableName())) {
+                        rs.next();
+                        if (rs.getLong(1) > 0) {
+                            throw new IllegalStateException(table.getTableName()
+                                    + " 非空，生成的数据使用固定ID，请清空目标表或指定 --truncate=true");
+                        }
+                    }
+                }
+            }
+            ensureRoles(connection);
+        }
+    }
+
+    private void ensureRoles(Connection connection) throws SQLException {
+        Map<String, Long> ids = new HashMap<>();
+        for (String roleCode : List.of(DatasetModel.ROLE_STUDENT, DatasetModel.ROLE_TEACHER, DatasetModel.ROLE_ADMIN)) {
+            try (PreparedStatement select = connection.prepareStatement("SELECT id FROM edu_role WHERE role_code = ?")) {
+                select.setString(1, roleCode);
+                try (ResultSet rs = select.executeQuery()) {
+                    if (rs.next()) {
+                        ids.put(roleCode, rs.getLong(1));
+                        continue;
+                    }
+                }
+            }
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO edu_role (role_name, role_code, is_enabled, created_time, updated_time) "
+                            + "VALUES (?, ?, ?, ?, ?)", Statement.RETURN_GENERATED_KEYS)) {
+                LocalDateTime now = LocalDateTime.now();
+                insert.setString(1, roleCode);
+                insert.setString(2, roleCode);
+                insert.setBoolean(3, true);
+                insert.setObject(4, now);
+                insert.setObject(5, now);
+                insert.executeUpdate();
+                try (ResultSet keys = insert.getGeneratedKeys()) {
+                    keys.next();
+                    ids.put(roleCode, keys.getLong(1));
+                }
+            }
+        }
+        roleIds = ids;
+    }
+
+    /**
+     * 批量写入后刷新索引统计信息，避免优化器按空表时的统计选择执行计划；H2 恢复外键检查
+     */
+    private void finishDatabase() throws SQLException {
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            if (isMySql()) {
+                statement.execute("ANALYZE TABLE edu_user, edu_user_role, edu_course, edu_order, edu_user_course");
+            } else if (isH2()) {
+                statement.execute("SET REFERENTIAL_INTEGRITY TRUE");
+            }
+        }
+    }
+
+    /**
+     * 写入期间关闭唯一性、外键检查（选课记录先于课程写入），由生成逻辑保证数据一致
+     * MySQL 为会话级设置；H2（查询基准的冒烟运行）为库级设置，由 finishDatabase 恢复
+     */
+    private void disableChecks(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            if (isMySql()) {
+                statement.execute("SET unique_checks = 0, foreign_key_checks = 0");
+            } else if (isH2()) {
+                statement.execute("SET REFERENTIAL_INTEGRITY FALSE");
+            }
+        }
+    }
+
+    private Connection connect() throws SQLException {
+        return DriverManager.getConnection(options.url(), options.username(), options.password());
+    }
+
+    private String loadStatement(Table table, Path file) {
+        String path = file.toString().replace("\\", "/");
+        if (table == Table.USER_ROLE) {
+            return "LOAD DATA LOCAL INFILE '" + path + "' INTO TABLE edu_user_role (user_id, @role_code) "
+                    + "SET role_id = (SELECT id FROM edu_role WHERE role_code = @role_code);";
+        }
+        return "LOAD DATA LOCAL INFILE '" + path + "' INTO TABLE " + table.getTableName()
+                + " CHARACTER SET utf8mb4 (" + String.join(", ", table.getColumns()) + ");";
+    }
+
+    /**
+     * 导入脚本：mysql --local-infile=1 -u root eduplatform &lt; load.sql
+     */
+    private void writeLoadScript() {
+        List<String> lines = new ArrayList<>();
+        lines.add("-- 由 DataGenMain 生成：seed=" + options.seed() + ", users=" + options.users()
+                + ", courses=" + options.courses() + ", orders=" + options.orders());
+        lines.add("SET unique_checks = 0, foreign_key_checks = 0;");
+        for (String roleCode : List.of(DatasetModel.ROLE_STUDENT, DatasetModel.ROLE_TEACHER, DatasetModel.ROLE_ADMIN)) {
+            lines.add("INSERT IGNORE INTO edu_role (role_name, role_code, is_enabled, created_time, updated_time) "
+                    + "VALUES ('" + roleCode + "', '" + roleCode + "', 1, NOW(), NOW());");
+        }
+        lines.addAll(loadStatements.stream().sorted().toList());
+        lines.add("SET unique_checks = 1, foreign_key_checks = 1;");
+        lines.add("ANALYZE TABLE edu_user, edu_user_role, edu_course, edu_order, edu_user_course;");
+        try {
+            Files.write(options.out().resolve("load.sql"), lines);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        log.info("导入脚本已写入: {}", options.out().resolve("load.sql").toAbsolutePath());
+    }
+
+    private boolean isH2() {
+        return options.url().startsWith("jdbc:h2:");
+    }
+
+    private boolean isMySql() {
+        return options.url().startsWith("jdbc:mysql:");
+    }
+
+    private boolean isJdbc() {
+        return "jdbc".equals(options.format());
+    }
+}
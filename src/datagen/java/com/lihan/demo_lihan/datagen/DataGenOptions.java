@@ -0,0 +1,94 @@
+package com.lihan.demo_lihan.datagen;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 数据生成参数，命令行以 --name=value 形式覆盖，例如 -Ddatagen.args="--users=100000 --orders=1000000"
+ *
+ * @param format     输出方式：jdbc 直接多行 INSERT 写库；tsv 写出批量导入文件和 load.sql
+ * @param url        jdbc 模式的目标库
+ * @param out        tsv 模式的输出目录
+ * @param seed       随机种子，相同种子和规模生成完全相同的数据
+ * @param threads    并行线程数
+ * @param partitions 订单按用户ID分区数，同一用户的订单由同一分区按时间顺序生成（去重已支付课程）
+ * @param batchSize  jdbc 模式每条 INSERT 的行数
+ * @param end        数据时间范围的结束时刻，开始时刻为 end 往前 months 个月
+ * @param userSkew   用户购买频次的 Zipf 指数
+ * @param courseSkew 课程热度的 Zipf 指数
+ * @param shards     订单号中的分片号按 用户ID % shards 计算，与 datasource.sharding 保持一致
+ * @param truncate   jdbc 模式下先清空目标表，否则目标表非空时拒绝写入
+ */
+public record DataGenOptions(String format, String url, String username, String password, Path out,
+                             long users, long courses, long orders, long seed, int threads, int partitions,
+                             int batchSize, LocalDateTime end, int months, double userSkew, double courseSkew,
+                             int shards, boolean truncate) {
+
+    private static final String DEFAULT_URL = "jdbc:mysql://localhost:3306/eduplatform?useSSL=false"
+            + "&serverTimezone=Asia/Shanghai&allowPublicKeyRetrieval=true&useUnicode=true&characterEncoding=utf8";
+
+    public static DataGenOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("参数格式应为 --name=value: " + arg);
+            }
+            int separator = arg.indexOf('=');
+            values.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        String format = values.getOrDefault("format", "jdbc");
+        if (!format.equals("jdbc") && !format.equals("tsv")) {
+            throw new IllegalArgumentException("format 只支持 jdbc、tsv: " + format);
+        }
+        DataGenOptions options = new DataGenOptions(
+                format,
+                values.getOrDefault("url", DEFAULT_URL),
+                values.getOrDefault("username", "root"),
+                values.getOrDefault("password", System.getenv().getOrDefault("DB_PASSWORD", "")),
+                Path.of(values.getOrDefault("out", "target/dataset")),
+                longValue(values, "users", 2_000_000),
+                longValue(values, "courses", 200_000),
+                longValue(values, "orders", 20_000_000),
+                longValue(values, "seed", 42),
+                (int) longValue(values, "threads", Runtime.getRuntime().availableProcessors()),
+                (int) longValue(values, "partitions", 16),
+                (int) longValue(values, "batch-size", 1000),
+                LocalDateTime.parse(values.getOrDefault("end", "2026-01-01T00:00:00")),
+                (int) longValue(values, "months", 24),
+                Double.parseDouble(values.getOrDefault("user-skew", "0.8")),
+                Double.parseDouble(values.getOrDefault("course-skew", "1.1")),
+                (int) longValue(values, "shards", 1),
+                Boolean.parseBoolean(values.getOrDefault("truncate", "false")));
+        options.validate();
+        return options;
+    }
+
+    public LocalDateTime start() {
+        return end.minusMonths(months);
+    }
+
+    private void validate() {
+        if (users < 20 || courses < 1 || orders < 0) {
+            throw new IllegalArgumentException("至少需要 20 个用户（含教师）和 1 门课程");
+        }
+        if (users >= 1_000_000_000L) {
+            throw new IllegalArgumentException("用户数需小于 10 亿（手机号按用户ID生成）");
+        }
+        if (threads <= 0 || partitions <= 0 || batchSize <= 0 || shards <= 0 || months <= 0) {
+            throw new IllegalArgumentException("threads、partitions、batch-size、shards、months 必须为正数");
+        }
+        // 订单号 = 创建时间毫秒 + 订单ID后 4 位；同一毫秒内的订单ID连续，不超过 10000 个才能保证唯一
+        long spanMillis = Duration.between(start(), end).toMillis();
+        if (orders / 5_000 > spanMillis) {
+            throw new IllegalArgumentException("订单数相对时间范围过大，订单号可能重复，请增大 months");
+        }
+    }
+
+    private static long longValue(Map<String, String> values, String name, long defaultValue) {
+        String value = values.get(name);
+        return value == null ? defaultValue : Long.parseLong(value.replace("_", ""));
+    }
+}
@@ -0,0 +1,390 @@
+package com.lihan.demo_lihan.datagen;
+
+import com.lihan.demo_lihan.common.Constants;
+import com.lihan.demo_lihan.common.ZipfSampler;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * 数据模型：每一行由 (种子, 表, 行ID) 派生独立的随机源，生成结果与线程数、执行顺序无关
+ * <ul>
+ *     <li>时间分布：按线性增长的业务量铺满时间范围，第 i 行（共 n 行）落在 start + sqrt((i - 0.5) / n) * 跨度，ID 与时间同序</li>
+ *     <li>热度：用户购买频次、课程销量都服从 Zipf 分布，排名经固定置换打散到ID上，热门数据不集中在ID开头</li>
+ *     <li>订单：只从创建时刻已注册的用户、已发布的课程中选取；同一用户不会重复支付同一门课程</li>
+ * </ul>
+ */
+public class DatasetModel {
+
+    /**
+     * 所有生成用户的密码均为 Password123（BCrypt 结果固定，保证可重现）
+     */
+    static final String PASSWORD_HASH = "$2a$10$QcY1r7zlnSfOBf8uNnPIcO/WVB/tTJ2BOjINcfxEdNAIgZpQcAMm6";
+    static final String ROLE_STUDENT = "STUDENT";
+    static final String ROLE_TEACHER = "TEACHER";
+    static final String ROLE_ADMIN = "ADMIN";
+
+    private static final long SALT_USER = 0x5553455255534552L;
+    private static final long SALT_COURSE = 0x434f55525345L;
+    private static final long SALT_ORDER = 0x4f52444552L;
+    private static final long[] STRIDES = {1_000_003L, 998_244_353L, 1_000_000_007L};
+    private static final ZoneId ZONE = ZoneId.of("Asia/Shanghai");
+
+    private static final String[] CATEGORIES = {"Java", "Spring", "MySQL", "Redis", "算法", "前端", "Python", "架构",
+            "Go", "Kubernetes", "大数据", "机器学习", "Android", "iOS", "测试", "运维", "产品", "设计", "英语", "考研"};
+    private static final int[] PRICE_CENTS = {4900, 9900, 14900, 19900, 29900, 39900, 59900};
+    private static final String[] PAYMENT_METHODS = {"ALIPAY", "WECHAT", "BANK_CARD"};
+    private static final byte DRAFT = 0;
+    private static final byte PUBLISHED = 1;
+    private static final byte OFFLINE = 2;
+    private static final int COURSE_ATTEMPTS = 8;
+    private static final long PENDING_WINDOW_MILLIS = Duration.ofMinutes(30).toMillis();
+
+    private final DataGenOptions options;
+    private final LocalDateTime start;
+    private final long spanMillis;
+    private final ZipfSampler userPopularity;
+    private final ZipfSampler coursePopularity;
+    private final long userStride;
+    private final long courseStride;
+
+    // 课程基础属性，下单时按课程ID查找
+    private final byte[] courseStatus;
+    private final long[] coursePublishedAt;
+    private final int[] coursePriceCents;
+    private final byte[] courseCategory;
+    private final long fallbackCourse;
+
+    public DatasetModel(DataGenOptions options) {
+        this.options = options;
+        this.start = options.start();
+        this.spanMillis = Duration.between(start, options.end()).toMillis();
+        this.userPopularity = new ZipfSampler(options.users(), options.userSkew());
+        this.coursePopularity = new ZipfSampler(options.courses(), options.courseSkew());
+        this.userStride = stride(options.users());
+        this.courseStride = stride(options.courses());
+
+        int courses = Math.toIntExact(options.courses());
+        this.courseStatus = new byte[courses + 1];
+        this.coursePublishedAt = new long[courses + 1];
+        this.coursePriceCents = new int[courses + 1];
+        this.courseCategory = new byte[courses + 1];
+        long firstPublished = 0;
+        for (int id = 1; id <= courses; id++) {
+            CourseBasics basics = courseBasics(id);
+            courseStatus[id] = basics.status;
+            coursePublishedAt[id] = basics.publishedAt;
+            coursePriceCents[id] = basics.priceCents;
+            courseCategory[id] = (byte) basics.category;
+            if (basics.status != DRAFT
+                    && (firstPublished == 0 || basics.publishedAt < coursePublishedAt[(int) firstPublished])) {
+                firstPublished = id;
+            }
+        }
+        this.fallbackCourse = firstPublished == 0 ? 1 : firstPublished;
+    }
+
+    public static String roleOf(long userId) {
+        if (userId % 100_000 == 1) {
+            return ROLE_ADMIN;
+        }
+        return userId % 20 == 0 ? ROLE_TEACHER : ROLE_STUDENT;
+    }
+
+    /**
+     * 购买频次排名第一的用户ID
+     */
+    public long hottestUser() {
+        return permute(1, options.users(), userStride);
+    }
+
+    /**
+     * 销量排名第一的课程ID
+     */
+    public long hottestCourse() {
+        return permute(1, options.courses(), courseStride);
+    }
+
+    public Object[] userRow(long id) {
+        SplittableRandom random = random(SALT_USER, id);
+        LocalDateTime created = time(offset(id, options.users()));
+        return new Object[]{id, username(id), PASSWORD_HASH, username(id) + "@example.com",
+                String.format("13%09d", id), "用户" + id, null,
+                random.nextInt(1000) >= 5, random.nextInt(1000) < 2, created, created};
+    }
+
+    /**
+     * 课程行；studentCount 为生成订单时统计的支付人数，hot 为是否处于销量前 1%
+     */
+    public Object[] courseRow(long id, int studentCount, boolean hot) {
+        CourseBasics basics = courseBasics(id);
+        SplittableRandom random = basics.random;
+        long createdAt = offset(id, options.courses());
+        int lessons = 5 + random.nextInt(76);
+        String level = switch (random.nextInt(20)) {
+            case 0, 1, 2 -> "ADVANCED";
+            case 3, 4, 5, 6, 7, 8, 9 -> "INTERMEDIATE";
+            default -> "BEGINNER";
+        };
+        long teacherCount = Math.max(1, usersCreatedBy(createdAt) / 20);
+        long teacherId = 20 * (1 + random.nextLong(teacherCount));
+        BigDecimal price = cents(basics.priceCents);
+        BigDecimal originalPrice = cents(basics.priceCents * (100 + 10 * random.nextInt(6)) / 100);
+        LocalDateTime published = basics.status == DRAFT ? null : time(basics.publishedAt);
+        String category = CATEGORIES[basics.category];
+        return new Object[]{id, category + " 课程 " + id, category + " 方向课程，共 " + lessons + " 课时",
+                "https://static.example.com/covers/" + id + ".png", teacherId, "教师" + teacherId,
+                (long) basics.category + 1, category, price, originalPrice,
+                switch (basics.status) {
+                    case DRAFT -> Constants.Course.STATUS_DRAFT;
+                    case OFFLINE -> Constants.Course.STATUS_OFFLINE;
+                    default -> Constants.Course.STATUS_PUBLISHED;
+                },
+                studentCount * (10 + random.nextInt(40)) + random.nextInt(100), studentCount,
+                lessons, lessons * (15 + random.nextInt(31)), level, category + "," + level.toLowerCase(),
+                basics.priceCents == 0, hot, random.nextInt(100) < 5, 0, null, null,
+                time(createdAt), published == null ? time(createdAt) : published, published};
+    }
+
+    /**
+     * 按订单ID顺序生成某个用户分区的订单和选课记录；paidCounts 累加每门课程的支付人数
+     * 分区内已支付的 (用户, 课程) 记入布隆过滤器，疑似重复时换一门课程，仍重复则记为已取消
+     */
+    public void orders(int partition, RowSink orderSink, RowSink enrollmentSink, AtomicIntegerArray paidCounts) {
+        BloomFilter paid = new BloomFilter(Math.max(1024, options.orders() * 3 / 4 / options.partitions()));
+        for (long id = 1; id <= options.orders(); id++) {
+            SplittableRandom random = random(SALT_ORDER, id);
+            long createdAt = offset(id, options.orders());
+            long userId = pickUser(random, createdAt);
+            if (userId % options.partitions() != partition) {
+                continue;
+            }
+
+            long courseId = pickCourse(random, createdAt);
+            String status = status(random, createdAt);
+            if (Constants.Order.STATUS_PAID.equals(status)) {
+                int attempts = 0;
+                while (paid.mightContain(userId, courseId) && attempts++ < 4) {
+                    courseId = pickCourse(random, createdAt);
+                }
+                if (paid.mightContain(userId, courseId)) {
+                    status = Constants.Order.STATUS_CANCELLED;
+                } else {
+                    paid.put(userId, courseId);
+                    paidCounts.incrementAndGet((int) courseId);
+                    enrollmentSink.add(userId, courseId);
+                }
+            }
+            orderSink.add(orderRow(id, userId, courseId, status, createdAt, random));
+        }
+    }
+
+    private Object[] orderRow(long id, long userId, long courseId, String status, long createdAt,
+                              SplittableRandom random) {
+        int priceCents = coursePriceCents[(int) courseId];
+        int discountCents = priceCents > 0 && random.nextInt(4) == 0 ? priceCents * (10 + random.nextInt(21)) / 100 : 0;
+        long createdMillis = start.atZone(ZONE).toInstant().toEpochMilli() + createdAt;
+        String orderNumber = String.format("ORDER%02d%013d%04d", userId % options.shards(), createdMillis, id % 10_000);
+
+        LocalDateTime created = time(createdAt);
+        LocalDateTime expire = created.plusMinutes(30);
+        LocalDateTime payTime = null;
+        LocalDateTime cancelTime = null;
+        LocalDateTime refundTime = null;
+        LocalDateTime updated = created;
+        String paymentMethod = null;
+        String paymentNo = null;
+        String remark = null;
+        switch (status) {
+            case Constants.Order.STATUS_PAID, Constants.Order.STATUS_REFUNDED -> {
+                payTime = time(Math.min(spanMillis, createdAt + 5_000 + random.nextLong(600_000)));
+                int method = random.nextInt(20);
+                paymentMethod = PAYMENT_METHODS[method < 11 ? 0 : method < 19 ? 1 : 2];
+                paymentNo = "PAY" + orderNumber.substring(5);
+                updated = payTime;
+                if (Constants.Order.STATUS_REFUNDED.equals(status)) {
+                    refundTime = payTime.plusHours(1 + random.nextInt(7 * 24));
+                    if (refundTime.isAfter(options.end())) {
+                        refundTime = options.end();
+                    }
+                    remark = "用户申请退款";
+                    updated = refundTime;
+                }
+            }
+            case Constants.Order.STATUS_CANCELLED -> {
+                cancelTime = created.plusSeconds(30 + random.nextInt(1770));
+                remark = random.nextBoolean() ? "用户取消" : null;
+                updated = cancelTime;
+            }
+            case Constants.Order.STATUS_EXPIRED -> updated = expire;
+            default -> {
+            }
+        }
+        return new Object[]{id, orderNumber, userId, username(userId), courseId,
+                CATEGORIES[courseCategory[(int) courseId]] + " 课程 " + courseId,
+                cents(priceCents), discountCents == 0 ? null : cents(discountCents), cents(priceCents - discountCents),
+                status, paymentMethod, paymentNo, remark, payTime, cancelTime, refundTime, expire, created, updated};
+    }
+
+    /**
+     * 状态占比：已支付 72%、已取消 12%、已过期 11%、已退款 5%；结束前 30 分钟内的订单大多待支付
+     */
+    private String status(SplittableRandom random, long createdAt) {
+        int roll = random.nextInt(100);
+        if (spanMillis - createdAt < PENDING_WINDOW_MILLIS) {
+            return roll < 70 ? Constants.Order.STATUS_PENDING : Constants.Order.STATUS_PAID;
+        }
+        if (roll < 72) {
+            return Constants.Order.STATUS_PAID;
+        }
+        if (roll < 84) {
+            return Constants.Order.STATUS_CANCELLED;
+        }
+        return roll < 95 ? Constants.Order.STATUS_EXPIRED : Constants.Order.STATUS_REFUNDED;
+    }
+
+    /**
+     * 按购买频次的 Zipf 分布选用户，只取下单时刻已注册的用户；多次落空后在已注册用户中均匀选取
+     */
+    private long pickUser(SplittableRandom random, long createdAt) {
+        long registered = Math.max(1, usersCreatedBy(createdAt));
+        for (int i = 0; i < COURSE_ATTEMPTS; i++) {
+            long userId = permute(userPopularity.sample(random), options.users(), userStride);
+            if (userId <= registered) {
+                return userId;
+            }
+        }
+        return 1 + random.nextLong(registered);
+    }
+
+    /**
+     * 按热度的 Zipf 分布选课程，只取下单时刻已发布的课程
+     */
+    private long pickCourse(SplittableRandom random, long createdAt) {
+        for (int i = 0; i < COURSE_ATTEMPTS; i++) {
+            long courseId = permute(coursePopularity.sample(random), options.courses(), courseStride);
+            if (courseStatus[(int) courseId] != DRAFT && coursePublishedAt[(int) courseId] <= createdAt) {
+                return courseId;
+            }
+        }
+        return fallbackCourse;
+    }
+
+    /**
+     * 课程状态、价格、分类、发布时间，下单时需要按ID查找，因此最先从随机源中取出
+     */
+    private CourseBasics courseBasics(long id) {
+        SplittableRandom random = random(SALT_COURSE, id);
+        int statusRoll = random.nextInt(100);
+        byte status = statusRoll < 85 ? PUBLISHED : statusRoll < 95 ? DRAFT : OFFLINE;
+        int priceCents = random.nextInt(100) < 5 ? 0 : PRICE_CENTS[random.nextInt(PRICE_CENTS.length)];
+        int category = random.nextInt(CATEGORIES.length);
+        long publishedAt = Math.min(spanMillis, offset(id, options.courses())
+                + random.nextLong(Duration.ofDays(14).toMillis()));
+        return new CourseBasics(random, status, priceCents, category, publishedAt);
+    }
+
+    /**
+     * 第 index 行（共 total 行）相对开始时刻的毫秒偏移，业务量线性增长
+     */
+    private long offset(long index, long total) {
+        return (long) (Math.sqrt((index - 0.5) / total) * spanMillis);
+    }
+
+    /**
+     * offset 时刻已注册的用户数（offset 的反函数）
+     */
+    private long usersCreatedBy(long offset) {
+        double fraction = (double) offset / spanMillis;
+        return Math.min(options.users(), (long) (fraction * fraction * options.users() + 0.5));
+    }
+
+    private LocalDateTime time(long offset) {
+        return start.plus(Duration.ofMillis(offset));
+    }
+
+    private SplittableRandom random(long salt, long id) {
+        return new SplittableRandom(mix(options.seed() * 0x9E3779B97F4A7C15L + salt) ^ mix(id));
+    }
+
+    private static String username(long userId) {
+        return "user" + userId;
+    }
+
+    private static BigDecimal cents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    /**
+     * 把热度排名置换为ID：rank -> (rank - 1) * stride mod n + 1，stride 与 n 互素时是一一映射
+     */
+    private static long permute(long rank, long n, long stride) {
+        return (rank - 1) * stride % n + 1;
+    }
+
+    private static long stride(long n) {
+        for (long stride : STRIDES) {
+            if (gcd(stride, n) == 1) {
+                return stride;
+            }
+        }
+        return 1;
+    }
+
+    private static long gcd(long a, long b) {
+        return b == 0 ? a : gcd(b, a % b);
+    }
+
+    /**
+     * SplitMix64 的混合函数
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private record CourseBasics(SplittableRandom random, byte status, int priceCents, int category, long publishedAt) {
+    }
+
+    /**
+     * 定长布隆过滤器，按期望元素数分配 10 bit/元素、7 个哈希，误判率约 1%
+     */
+    private static final class BloomFilter {
+
+        private static final int HASHES = 7;
+
+        private final long[] bits;
+        private final long bitCount;
+
+        BloomFilter(long expectedItems) {
+            this.bitCount = expectedItems * 10;
+            this.bits = new long[(int) ((bitCount + 63) / 64)];
+        }
+
+        boolean mightContain(long userId, long courseId) {
+            long hash1 = mix(mix(userId) + courseId);
+            long hash2 = mix(hash1);
+            for (int i = 0; i < HASHES; i++) {
+                long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+                if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void put(long userId, long courseId) {
+            long hash1 = mix(mix(userId) + courseId);
+            long hash2 = mix(hash1);
+            for (int i = 0; i < HASHES; i++) {
+                long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+                bits[(int) (bit >>> 6)] |= 1L << bit;
+            }
+        }
+    }
+}
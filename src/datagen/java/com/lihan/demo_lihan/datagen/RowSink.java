@@ -0,0 +1,190 @@
+package com.lihan.demo_lihan.datagen;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 生成行的写出目标，每个生成任务独占一个实例（非线程安全）
+ */
+public interface RowSink extends AutoCloseable {
+
+    void add(Object... values);
+
+    long count();
+
+    @Override
+    void close();
+
+    /**
+     * 多行 INSERT：攒满 batchSize 行后以一条语句写入并提交（连接为自动提交）
+     */
+    class Jdbc implements RowSink {
+
+        private final Connection connection;
+        private final Table table;
+        private final int batchSize;
+        private final List<Object[]> buffer;
+        private PreparedStatement fullBatch;
+        private long count;
+
+        public Jdbc(Connection connection, Table table, int batchSize) {
+            this.connection = connection;
+            this.table = table;
+            this.batchSize = batchSize;
+            this.buffer = new ArrayList<>(batchSize);
+        }
+
+        @Override
+        public void add(Object... values) {
+            buffer.add(values);
+            count++;
+            if (buffer.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        @Override
+        public long count() {
+            return count;
+        }
+
+        private void flush() {
+            if (buffer.isEmpty()) {
+                return;
+            }
+            try {
+                if (buffer.size() == batchSize) {
+                    if (fullBatch == null) {
+                        fullBatch = connection.prepareStatement(insertSql(batchSize));
+                    }
+                    execute(fullBatch);
+                } else {
+                    try (PreparedStatement statement = connection.prepareStatement(insertSql(buffer.size()))) {
+                        execute(statement);
+                    }
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException("写入 " + table.getTableName() + " 失败", e);
+            }
+            buffer.clear();
+        }
+
+        private void execute(PreparedStatement statement) throws SQLException {
+            int index = 1;
+            for (Object[] row : buffer) {
+                for (Object value : row) {
+                    statement.setObject(index++, value);
+                }
+            }
+            statement.executeUpdate();
+        }
+
+        private String insertSql(int rows) {
+            String placeholders = "(" + String.join(",", Collections.nCopies(table.getColumns().size(), "?")) + ")";
+            return "INSERT INTO " + table.getTableName() + " (" + String.join(",", table.getColumns()) + ") VALUES "
+                    + String.join(",", Collections.nCopies(rows, placeholders));
+        }
+
+        @Override
+        public void close() {
+            try {
+                flush();
+                if (fullBatch != null) {
+                    fullBatch.close();
+                }
+                connection.close();
+            } catch (SQLException e) {
+                throw new IllegalStateException("关闭连接失败", e);
+            }
+        }
+    }
+
+    /**
+     * LOAD DATA 默认格式的文本文件：制表符分隔、反斜杠转义、\N 表示 NULL
+     */
+    class Tsv implements RowSink {
+
+        private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+
+        private final BufferedWriter writer;
+        private final StringBuilder line = new StringBuilder(256);
+        private long count;
+
+        public Tsv(Path file) {
+            try {
+                this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void add(Object... values) {
+            line.setLength(0);
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    line.append('\t');
+                }
+                append(values[i]);
+            }
+            line.append('\n');
+            try {
+                writer.append(line);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            count++;
+        }
+
+        private void append(Object value) {
+            if (value == null) {
+                line.append("\\N");
+            } else if (value instanceof LocalDateTime time) {
+                line.append(DATE_TIME.format(time));
+            } else if (value instanceof Boolean flag) {
+                line.append(flag ? '1' : '0');
+            } else if (value instanceof BigDecimal decimal) {
+                line.append(decimal.toPlainString());
+            } else if (value instanceof String text) {
+                for (int i = 0; i < text.length(); i++) {
+                    char c = text.charAt(i);
+                    switch (c) {
+                        case '\\' -> line.append("\\\\");
+                        case '\t' -> line.append("\\t");
+                        case '\n' -> line.append("\\n");
+                        default -> line.append(c);
+                    }
+                }
+            } else {
+                line.append(value);
+            }
+        }
+
+        @Override
+        public long count() {
+            return count;
+        }
+
+        @Override
+        public void close() {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.lihan.demo_lihan.datagen;
+
+import java.util.List;
+
+/**
+ * 生成的目标表及列顺序（与实体映射的列名一致）
+ */
+public enum Table {
+
+    USER("edu_user", List.of("id", "username", "password", "email", "phone", "nickname", "avatar",
+            "is_enabled", "is_locked", "created_time", "updated_time")),
+
+    /**
+     * role_id 在 tsv 模式下先写角色编码，由 load.sql 按编码换成角色ID
+     */
+    USER_ROLE("edu_user_role", List.of("user_id", "role_id")),
+
+    COURSE("edu_course", List.of("id", "title", "description", "cover_image", "teacher_id", "teacher_name",
+            "category_id", "category_name", "price", "original_price", "status", "view_count", "student_count",
+            "lesson_count", "duration", "level", "tags", "is_free", "is_hot", "is_recommended", "sort_order",
+            "seat_capacity", "flash_sale_price", "created_time", "updated_time", "published_time")),
+
+    ORDER("edu_order", List.of("id", "order_number", "user_id", "username", "course_id", "course_title",
+            "original_price", "discount_price", "amount", "status", "payment_method", "payment_no", "remark",
+            "pay_time", "cancel_time", "refund_time", "expire_time", "created_time", "updated_time")),
+
+    USER_COURSE("edu_user_course", List.of("user_id", "course_id"));
+
+    private final String tableName;
+    private final List<String> columns;
+
+    Table(String tableName, List<String> columns) {
+        this.tableName = tableName;
+        this.columns = columns;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public List<String> getColumns() {
+        return columns;
+    }
+}
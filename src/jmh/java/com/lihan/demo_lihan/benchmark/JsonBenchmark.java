@@ -0,0 +1,76 @@
+package com.lihan.demo_lihan.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lihan.demo_lihan.common.Result;
+import com.lihan.demo_lihan.entity.Course;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 课程分页接口响应 Result<Page<Course>> 的 Jackson 序列化耗时（ObjectMapper 与 Spring Boot 默认配置一致）
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonBenchmark {
+
+    @Param({"10", "100"})
+    public int pageSize;
+
+    private ObjectMapper objectMapper;
+    private Result<Page<Course>> result;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        List<Course> courses = new ArrayList<>(pageSize);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < pageSize; i++) {
+            Course course = new Course();
+            course.setId((long) i);
+            course.setTitle("Java 并发编程实战 第" + i + "期");
+            course.setDescription("从线程基础到虚拟线程，覆盖锁、原子类、并发容器和线程池的原理与实践。");
+            course.setCoverImage("https://cdn.example.com/courses/" + i + ".png");
+            course.setTeacherId(100L + i % 10);
+            course.setTeacherName("讲师" + i % 10);
+            course.setCategoryId(1L + i % 5);
+            course.setCategoryName("后端开发");
+            course.setPrice(new BigDecimal("199.00"));
+            course.setOriginalPrice(new BigDecimal("299.00"));
+            course.setStatus("PUBLISHED");
+            course.setTags("java,concurrency,jvm");
+            course.setCreatedTime(now);
+            course.setUpdatedTime(now);
+            course.setPublishedTime(now);
+            courses.add(course);
+        }
+        result = Result.success(new PageImpl<>(courses, PageRequest.of(0, pageSize), 1000));
+    }
+
+    @Benchmark
+    public byte[] serialize() throws Exception {
+        return objectMapper.writeValueAsBytes(result);
+    }
+}
@@ -0,0 +1,96 @@
+package com.lihan.demo_lihan.benchmark;
+
+import com.lihan.demo_lihan.entity.User;
+import com.lihan.demo_lihan.jwt.JwtAuthenticationFilter;
+import com.lihan.demo_lihan.jwt.JwtProperties;
+import com.lihan.demo_lihan.jwt.JwtTokenUtil;
+import com.lihan.demo_lihan.security.UserDetailsServiceImpl;
+import com.lihan.demo_lihan.security.UserPrincipal;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT 签发、校验以及认证过滤器整体耗时（用户加载使用内存桩，不访问数据库）
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtBenchmark {
+
+    private static final String SECRET = "benchmark-secret-benchmark-secret-benchmark-secret-benchmark-secret";
+
+    private JwtTokenUtil jwtTokenUtil;
+    private JwtAuthenticationFilter filter;
+    private String token;
+    private MockHttpServletRequest request;
+    private final FilterChain chain = (req, res) -> {
+    };
+
+    @Setup
+    public void setUp() {
+        JwtProperties properties = new JwtProperties();
+        properties.setSecret(SECRET);
+        properties.setExpiration(3600L);
+        properties.setHeader("Authorization");
+        properties.setPrefix("Bearer ");
+
+        jwtTokenUtil = new JwtTokenUtil();
+        ReflectionTestUtils.setField(jwtTokenUtil, "jwtProperties", properties);
+        token = jwtTokenUtil.generateToken("alice", "STUDENT", 1L);
+
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("alice");
+        user.setPassword("{noop}secret");
+        UserDetailsServiceImpl userDetailsService = new UserDetailsServiceImpl(null, null) {
+            @Override
+            public UserDetails loadUserByUsername(String username) {
+                return new UserPrincipal(user);
+            }
+        };
+        filter = new JwtAuthenticationFilter(jwtTokenUtil, userDetailsService, properties, new SimpleMeterRegistry());
+
+        request = new MockHttpServletRequest("GET", "/api/v1/courses");
+        request.addHeader("Authorization", "Bearer " + token);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtTokenUtil.generateToken("alice", "STUDENT", 1L);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return jwtTokenUtil.validateToken(token);
+    }
+
+    @Benchmark
+    public Object filterPass() throws Exception {
+        try {
+            filter.doFilter(request, new MockHttpServletResponse(), chain);
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.lihan.demo_lihan.benchmark;
+
+import com.lihan.demo_lihan.common.BusinessException;
+import com.lihan.demo_lihan.common.Utils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 注册、修改资料时的邮箱、手机号、密码复杂度校验（正则）耗时，分别测合法和非法输入
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValidationBenchmark {
+
+    @Param({"valid", "invalid"})
+    public String input;
+
+    private String email;
+    private String phone;
+    private String password;
+
+    @Setup
+    public void setUp() {
+        boolean valid = "valid".equals(input);
+        email = valid ? "alice.zhang@example.com" : "alice.zhang@example";
+        phone = valid ? "13812345678" : "1381234567x";
+        password = valid ? "Passw0rdLonger" : "passwordlonger1";
+    }
+
+    @Benchmark
+    public boolean isValidEmail() {
+        return Utils.isValidEmail(email);
+    }
+
+    @Benchmark
+    public boolean isValidPhone() {
+        return Utils.isValidPhone(phone);
+    }
+
+    @Benchmark
+    public boolean validatePasswordComplexity() {
+        try {
+            Utils.validatePasswordComplexity(password);
+            return true;
+        } catch (BusinessException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.lihan.demo_lihan.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按接口记录延迟（HDR 直方图，微秒精度、3 位有效数字）和响应结果分布
+ * 结果以 HTTP 状态码计；HTTP 200 但业务码不是成功时记为 "code-业务码"
+ */
+public class LatencyRecorder {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private final List<ScenarioResult> scenarios = new ArrayList<>();
+
+    public void record(String endpoint, long elapsedNanos, String outcome, boolean success) {
+        Endpoint stats = endpoints.computeIfAbsent(endpoint, key -> new Endpoint());
+        stats.histogram.recordValue(Math.min(HIGHEST_TRACKABLE_MICROS, TimeUnit.NANOSECONDS.toMicros(elapsedNanos)));
+        stats.outcomes.computeIfAbsent(outcome, key -> new LongAdder()).increment();
+        if (!success) {
+            stats.errors.increment();
+        }
+    }
+
+    public synchronized void recordScenario(String name, long requests, long elapsedNanos) {
+        scenarios.add(new ScenarioResult(name, requests, elapsedNanos / 1_000_000,
+                elapsedNanos == 0 ? 0 : requests * 1_000_000_000.0 / elapsedNanos));
+    }
+
+    public synchronized List<ScenarioResult> scenarios() {
+        return List.copyOf(scenarios);
+    }
+
+    /**
+     * 各接口的延迟分位数（毫秒），按接口名排序
+     */
+    public List<EndpointResult> endpoints() {
+        List<EndpointResult> results = new ArrayList<>();
+        new TreeMap<>(endpoints).forEach((name, stats) -> {
+            Histogram histogram = stats.histogram.copy();
+            Map<String, Long> outcomes = new LinkedHashMap<>();
+            new TreeMap<>(stats.outcomes).forEach((outcome, count) -> outcomes.put(outcome, count.sum()));
+            results.add(new EndpointResult(name, histogram.getTotalCount(), stats.errors.sum(), outcomes,
+                    millis(histogram.getMean()),
+                    millis(histogram.getValueAtPercentile(50)),
+                    millis(histogram.getValueAtPercentile(90)),
+                    millis(histogram.getValueAtPercentile(99)),
+                    millis(histogram.getValueAtPercentile(99.9)),
+                    millis(histogram.getMaxValue())));
+        });
+        return results;
+    }
+
+    private static double millis(double micros) {
+        return Math.round(micros) / 1000.0;
+    }
+
+    private static class Endpoint {
+        private final Histogram histogram = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+        private final Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+        private final LongAdder errors = new LongAdder();
+    }
+
+    /**
+     * 场景汇总：请求数、耗时（毫秒）、吞吐（请求/秒）
+     */
+    public record ScenarioResult(String name, long requests, long elapsedMs, double throughput) {
+    }
+
+    /**
+     * 接口汇总，延迟单位为毫秒
+     */
+    public record EndpointResult(String endpoint, long count, long errors, Map<String, Long> outcomes,
+                                 double mean, double p50, double p90, double p99, double p999, double max) {
+    }
+}
@@ -0,0 +1,108 @@
+package com.lihan.demo_lihan.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import com.lihan.demo_lihan.common.ResultCode;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+
+/**
+ * 压测 HTTP 客户端，每次请求按接口名记录延迟和结果
+ * 底层 HttpClient 的回调线程也使用虚拟线程，调用方在虚拟线程中同步发送
+ */
+public class LoadTestClient implements AutoCloseable {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final String baseUrl;
+    private final LatencyRecorder recorder;
+    private final ObjectMapper objectMapper;
+    private final HttpClient httpClient;
+
+    public LoadTestClient(String baseUrl, LatencyRecorder recorder, ObjectMapper objectMapper) {
+        this.baseUrl = baseUrl;
+        this.recorder = recorder;
+        this.objectMapper = objectMapper;
+        this.httpClient = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    public Response get(String endpoint, String path, String token) {
+        return send(endpoint, request(path, token).GET());
+    }
+
+    public Response post(String endpoint, String path, Object body, String token) {
+        return send(endpoint, request(path, token)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json(body))));
+    }
+
+    public Response put(String endpoint, String path, String token) {
+        return send(endpoint, request(path, token).PUT(HttpRequest.BodyPublishers.noBody()));
+    }
+
+    private HttpRequest.Builder request(String path, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(REQUEST_TIMEOUT);
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+
+    private Response send(String endpoint, HttpRequest.Builder builder) {
+        long start = System.nanoTime();
+        try {
+            HttpResponse<String> response = httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+            long elapsed = System.nanoTime() - start;
+            JsonNode body = parse(response.body());
+            int code = body.path("code").asInt(-1);
+            boolean success = response.statusCode() / 100 == 2 && code == ResultCode.SUCCESS.getCode();
+            String outcome = response.statusCode() == 200 && !success
+                    ? "code-" + code : String.valueOf(response.statusCode());
+            recorder.record(endpoint, elapsed, outcome, success);
+            return new Response(success, body.path("data"));
+        } catch (IOException e) {
+            recorder.record(endpoint, System.nanoTime() - start, e.getClass().getSimpleName(), false);
+            return new Response(false, MissingNode.getInstance());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Response(false, MissingNode.getInstance());
+        }
+    }
+
+    private JsonNode parse(String body) {
+        try {
+            return body == null || body.isEmpty() ? MissingNode.getInstance() : objectMapper.readTree(body);
+        } catch (IOException e) {
+            return MissingNode.getInstance();
+        }
+    }
+
+    private String json(Object body) {
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("请求体序列化失败", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        httpClient.close();
+    }
+
+    /**
+     * 响应结果，data 为 Result 中的 data 字段
+     */
+    public record Response(boolean success, JsonNode data) {
+    }
+}
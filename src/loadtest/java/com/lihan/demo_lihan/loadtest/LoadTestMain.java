@@ -0,0 +1,113 @@
+package com.lihan.demo_lihan.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.github.fppt.jedismock.RedisServer;
+import com.lihan.demo_lihan.DemoLihanApplication;
+import com.lihan.demo_lihan.entity.Course;
+import com.lihan.demo_lihan.entity.Role;
+import com.lihan.demo_lihan.enums.UserRole;
+import com.lihan.demo_lihan.jwt.JwtTokenUtil;
+import com.lihan.demo_lihan.repository.CourseRepository;
+import com.lihan.demo_lihan.repository.RoleRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 端到端压测入口：mvn -Ploadtest verify [-Dloadtest.args="--users=500 --clients=100"]
+ * 启动内存 Redis（jedis-mock）和使用 H2（MySQL 兼容模式）的应用实例，预置角色和课程后依次执行压测场景，
+ * 打印各接口的延迟分位数并写出 JSON 报告。全程不依赖外部 MySQL、Redis，可离线运行。
+ */
+@Slf4j
+public class LoadTestMain {
+
+    public static void main(String[] args) throws IOException {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        RedisServer redis = RedisServer.newRedisServer().start();
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(DemoLihanApplication.class)
+                .run("--spring.profiles.active=loadtest", "--spring.data.redis.port=" + redis.getBindPort())) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            List<Course> courses = seed(context, options);
+
+            LatencyRecorder recorder = new LatencyRecorder();
+            ObjectMapper objectMapper = context.getBean(ObjectMapper.class);
+            try (LoadTestClient client = new LoadTestClient("http://localhost:" + port, recorder, objectMapper)) {
+                new Scenarios(client, recorder, options, context.getBean(JwtTokenUtil.class), courses).runAll();
+            }
+
+            print(recorder);
+            writeReport(recorder, options, objectMapper);
+        } finally {
+            redis.stop();
+        }
+    }
+
+    /**
+     * 预置角色（注册时按角色编码查找）和已发布课程
+     */
+    private static List<Course> seed(ConfigurableApplicationContext context, LoadTestOptions options) {
+        RoleRepository roleRepository = context.getBean(RoleRepository.class);
+        for (UserRole userRole : UserRole.values()) {
+            Role role = new Role();
+            role.setRoleCode(userRole.name());
+            role.setRoleName(userRole.name());
+            roleRepository.save(role);
+        }
+
+        List<Course> courses = new ArrayList<>();
+        for (int i = 0; i < options.courses(); i++) {
+            Course course = new Course();
+            course.setTitle(Scenarios.TOPICS[i % Scenarios.TOPICS.length] + " 实战课程 " + i);
+            course.setDescription("压测预置课程 " + i);
+            course.setTeacherId(1L);
+            course.setTeacherName("loadtest");
+            course.setCategoryId((long) (i % Scenarios.TOPICS.length) + 1);
+            course.setPrice(BigDecimal.valueOf(99 + i % 10 * 50));
+            course.setOriginalPrice(course.getPrice());
+            course.setStatus("PUBLISHED");
+            course.setPublishedTime(LocalDateTime.now());
+            course.setIsHot(i % 10 == 0);
+            courses.add(course);
+        }
+        return context.getBean(CourseRepository.class).saveAll(courses);
+    }
+
+    private static void print(LatencyRecorder recorder) {
+        StringBuilder table = new StringBuilder("\n");
+        for (LatencyRecorder.ScenarioResult scenario : recorder.scenarios()) {
+            table.append(String.format("%-16s requests=%-8d elapsed=%-8dms throughput=%.1f/s%n",
+                    scenario.name(), scenario.requests(), scenario.elapsedMs(), scenario.throughput()));
+        }
+        table.append(String.format("%n%-32s %8s %7s %9s %9s %9s %9s %9s  %s%n",
+                "endpoint", "count", "errors", "p50(ms)", "p90", "p99", "p99.9", "max", "outcomes"));
+        for (LatencyRecorder.EndpointResult endpoint : recorder.endpoints()) {
+            table.append(String.format("%-32s %8d %7d %9.2f %9.2f %9.2f %9.2f %9.2f  %s%n",
+                    endpoint.endpoint(), endpoint.count(), endpoint.errors(), endpoint.p50(), endpoint.p90(),
+                    endpoint.p99(), endpoint.p999(), endpoint.max(), endpoint.outcomes()));
+        }
+        log.info("压测结果:{}", table);
+    }
+
+    private static void writeReport(LatencyRecorder recorder, LoadTestOptions options, ObjectMapper objectMapper)
+            throws IOException {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("generatedAt", LocalDateTime.now().toString());
+        report.put("options", options);
+        report.put("scenarios", recorder.scenarios());
+        report.put("endpoints", recorder.endpoints());
+        Files.createDirectories(options.report().toAbsolutePath().getParent());
+        objectMapper.writer(SerializationFeature.INDENT_OUTPUT).writeValue(options.report().toFile(), report);
+        log.info("压测报告已写入: {}", options.report().toAbsolutePath());
+    }
+}
@@ -0,0 +1,44 @@
+package com.lihan.demo_lihan.loadtest;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 压测参数，命令行以 --name=value 形式覆盖，例如 -Dloadtest.args="--users=500 --clients=100"
+ *
+ * @param users         注册、登录的用户数
+ * @param clients       同时在途的客户端数（每个客户端一个虚拟线程）
+ * @param courses       预置的已发布课程数
+ * @param browsePerUser 每个用户浏览课程列表、详情的次数
+ * @param searchPerUser 每个用户按关键字搜索的次数
+ * @param ordersPerUser 每个用户下单次数（一半支付，一半创建后过期）
+ * @param report        JSON 报告路径
+ */
+public record LoadTestOptions(int users, int clients, int courses, int browsePerUser,
+                              int searchPerUser, int ordersPerUser, Path report) {
+
+    public static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("参数格式应为 --name=value: " + arg);
+            }
+            int separator = arg.indexOf('=');
+            values.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return new LoadTestOptions(
+                intValue(values, "users", 200),
+                intValue(values, "clients", 50),
+                intValue(values, "courses", 100),
+                intValue(values, "browse-per-user", 10),
+                intValue(values, "search-per-user", 5),
+                intValue(values, "orders-per-user", 4),
+                Path.of(values.getOrDefault("report", "target/loadtest-report.json")));
+    }
+
+    private static int intValue(Map<String, String> values, String name, int defaultValue) {
+        String value = values.get(name);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+}
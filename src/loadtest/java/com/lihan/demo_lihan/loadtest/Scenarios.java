@@ -0,0 +1,169 @@
+package com.lihan.demo_lihan.loadtest;
+
+import com.lihan.demo_lihan.common.Constants;
+import com.lihan.demo_lihan.entity.Course;
+import com.lihan.demo_lihan.jwt.JwtTokenUtil;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+
+/**
+ * 压测场景：注册登录风暴、课程浏览、关键字搜索、下单支付与过期
+ * 每个场景按用户拆成任务，在虚拟线程上执行，同时在途的任务数不超过 clients
+ */
+@Slf4j
+public class Scenarios {
+
+    static final String[] TOPICS = {"Java", "Spring", "MySQL", "Redis", "算法", "前端", "Python", "架构"};
+    private static final String PASSWORD = "LoadTest123";
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+    private final LoadTestClient client;
+    private final LatencyRecorder recorder;
+    private final LoadTestOptions options;
+    private final JwtTokenUtil jwtTokenUtil;
+    private final List<Course> courses;
+    private final List<LoadUser> users = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicLong requests = new AtomicLong();
+
+    public Scenarios(LoadTestClient client, LatencyRecorder recorder, LoadTestOptions options,
+                     JwtTokenUtil jwtTokenUtil, List<Course> courses) {
+        this.client = client;
+        this.recorder = recorder;
+        this.options = options;
+        this.jwtTokenUtil = jwtTokenUtil;
+        this.courses = courses;
+    }
+
+    public void runAll() {
+        run("register-login", options.users(), this::registerAndLogin);
+        if (users.isEmpty()) {
+            log.warn("没有登录成功的用户，跳过后续场景");
+            return;
+        }
+        run("catalog-browse", users.size(), index -> browse(users.get(index)));
+        run("search", users.size(), index -> search(users.get(index)));
+        run("order", users.size(), index -> order(users.get(index), index));
+        run("order-expire", 1, index -> {
+            requests.incrementAndGet();
+            client.post("POST /orders/handle-expired", Constants.Api.API_PREFIX + "/orders/handle-expired",
+                    Map.of(), users.get(0).token());
+        });
+    }
+
+    private void registerAndLogin(int index) {
+        String username = "lt_user_" + index;
+        Map<String, Object> register = new LinkedHashMap<>();
+        register.put("username", username);
+        register.put("password", PASSWORD);
+        register.put("email", username + "@loadtest.local");
+        register.put("phone", String.format("138%08d", index));
+        register.put("role", "STUDENT");
+        requests.incrementAndGet();
+        client.post("POST /users/register", Constants.Api.API_PREFIX + "/users/register", register, null);
+
+        requests.incrementAndGet();
+        LoadTestClient.Response login = client.post("POST /users/login", Constants.Api.API_PREFIX + "/users/login",
+                Map.of("username", username, "password", PASSWORD), null);
+        if (login.success()) {
+            String token = login.data().asText();
+            users.add(new LoadUser(username, jwtTokenUtil.getUserIdFromToken(token), token));
+        }
+    }
+
+    private void browse(LoadUser user) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < options.browsePerUser(); i++) {
+            requests.addAndGet(2);
+            client.get("GET /courses", Constants.Api.API_PREFIX + "/courses?status=PUBLISHED&page="
+                    + random.nextInt(5) + "&size=10", user.token());
+            client.get("GET /courses/{id}", Constants.Api.API_PREFIX + "/courses/"
+                    + courses.get(random.nextInt(courses.size())).getId(), user.token());
+        }
+        requests.incrementAndGet();
+        client.get("GET /courses/hot", Constants.Api.API_PREFIX + "/courses/hot", user.token());
+    }
+
+    private void search(LoadUser user) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < options.searchPerUser(); i++) {
+            String keyword = URLEncoder.encode(TOPICS[random.nextInt(TOPICS.length)], StandardCharsets.UTF_8);
+            requests.incrementAndGet();
+            client.get("GET /courses?keyword", Constants.Api.API_PREFIX + "/courses?keyword=" + keyword
+                    + "&page=0&size=10", user.token());
+        }
+    }
+
+    /**
+     * 偶数次下单后立即支付，奇数次下单时把过期时间设为过去，留给过期处理场景
+     */
+    private void order(LoadUser user, int index) {
+        for (int i = 0; i < options.ordersPerUser(); i++) {
+            Course course = courses.get((index + i) % courses.size());
+            boolean pay = i % 2 == 0;
+            Map<String, Object> order = new LinkedHashMap<>();
+            order.put("userId", user.id());
+            order.put("username", user.username());
+            order.put("courseId", course.getId());
+            order.put("courseTitle", course.getTitle());
+            order.put("originalPrice", course.getPrice());
+            order.put("amount", course.getPrice());
+            if (!pay) {
+                order.put("expireTime", LocalDateTime.now().minusMinutes(1).format(DATE_TIME));
+            }
+            requests.incrementAndGet();
+            LoadTestClient.Response created = client.post("POST /orders", Constants.Api.API_PREFIX + "/orders",
+                    order, user.token());
+            if (pay && created.success()) {
+                String orderNumber = created.data().path("orderNumber").asText();
+                requests.incrementAndGet();
+                client.put("PUT /orders/{orderNumber}/pay", Constants.Api.API_PREFIX + "/orders/" + orderNumber
+                        + "/pay?paymentMethod=ALIPAY&paymentNo=LT" + orderNumber, user.token());
+            }
+        }
+    }
+
+    /**
+     * 执行一个场景，记录场景耗时和请求数
+     */
+    private void run(String name, int tasks, IntConsumer task) {
+        Semaphore clients = new Semaphore(options.clients());
+        long requestsBefore = requests.get();
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < tasks; i++) {
+                clients.acquireUninterruptibly();
+                int index = i;
+                executor.execute(() -> {
+                    try {
+                        task.accept(index);
+                    } catch (RuntimeException e) {
+                        log.warn("压测任务异常: scenario={}, index={}", name, index, e);
+                    } finally {
+                        clients.release();
+                    }
+                });
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        recorder.recordScenario(name, requests.get() - requestsBefore, elapsed);
+        log.info("场景完成: {}, tasks={}, elapsed={}ms", name, tasks, elapsed / 1_000_000);
+    }
+
+    private record LoadUser(String username, Long id, String token) {
+    }
+}
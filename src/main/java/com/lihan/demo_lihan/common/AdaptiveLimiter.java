@@ -0,0 +1,144 @@
+package com.lihan.demo_lihan.common;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 自适应并发限制器（梯度算法）
+ * 以长期平均延迟作为无负载基线，每凑满一个采样窗口计算一次短期平均延迟：
+ * 梯度 = 容忍系数 * 长期延迟 / 短期延迟（截断到 [0.5, 1]），新上限 = 上限 * 梯度 + sqrt(上限)。
+ * 延迟上升时上限随梯度收缩，延迟平稳且上限被用满时每个窗口增加 sqrt(上限) 的排队余量；
+ * 窗口内出现失败（超时、5xx）时按 AIMD 直接把上限乘以 0.9。超过上限的请求立即拒绝，不排队。
+ */
+public class AdaptiveLimiter {
+
+    private static final double MIN_GRADIENT = 0.5;
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double smoothing;
+    private final double tolerance;
+    private final int windowSize;
+    private final int longWindow;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+    private final ReentrantLock sampleLock = new ReentrantLock();
+    private volatile int limit;
+
+    // 以下字段由 sampleLock 保护
+    private double estimatedLimit;
+    private double longRttNanos;
+    private long windowRttSum;
+    private int windowCount;
+    private int windowMaxInFlight;
+    private boolean windowDropped;
+    private double lastShortRttNanos;
+
+    public AdaptiveLimiter(String name, int initialLimit, int minLimit, int maxLimit,
+                           double smoothing, double tolerance, int windowSize) {
+        if (minLimit <= 0 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("require 0 < minLimit <= initialLimit <= maxLimit");
+        }
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.smoothing = smoothing;
+        this.tolerance = tolerance;
+        this.windowSize = windowSize;
+        this.longWindow = windowSize * 20;
+        this.limit = initialLimit;
+        this.estimatedLimit = initialLimit;
+    }
+
+    /**
+     * 获取执行名额，在途请求数已达上限时返回 false
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                rejected.incrementAndGet();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 请求结束时归还名额并记录延迟，dropped 表示请求超时或失败
+     */
+    public void release(long rttNanos, boolean dropped) {
+        int inFlightAtRelease = inFlight.getAndDecrement();
+        sampleLock.lock();
+        try {
+            windowRttSum += rttNanos;
+            windowCount++;
+            windowMaxInFlight = Math.max(windowMaxInFlight, inFlightAtRelease);
+            windowDropped |= dropped;
+            if (windowCount >= windowSize) {
+                updateLimit();
+            }
+        } finally {
+            sampleLock.unlock();
+        }
+    }
+
+    private void updateLimit() {
+        double shortRtt = (double) windowRttSum / windowCount;
+        lastShortRttNanos = shortRtt;
+        if (longRttNanos == 0) {
+            longRttNanos = shortRtt;
+        } else {
+            longRttNanos += (shortRtt - longRttNanos) / longWindow * windowCount;
+            // 基线明显高于当前延迟（负载下降后恢复）时加速回落，避免长期维持偏高的基线
+            if (longRttNanos / shortRtt > 2) {
+                longRttNanos *= 0.95;
+            }
+        }
+
+        double newLimit;
+        if (windowDropped) {
+            newLimit = estimatedLimit * BACKOFF_RATIO;
+        } else if (windowMaxInFlight < estimatedLimit / 2) {
+            // 上限远未用满，延迟变化与并发无关，不调整
+            newLimit = estimatedLimit;
+        } else {
+            double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, tolerance * longRttNanos / shortRtt));
+            newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+            newLimit = estimatedLimit * (1 - smoothing) + newLimit * smoothing;
+        }
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+        limit = (int) estimatedLimit;
+
+        windowRttSum = 0;
+        windowCount = 0;
+        windowMaxInFlight = 0;
+        windowDropped = false;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public Stats stats() {
+        sampleLock.lock();
+        try {
+            return new Stats(name, limit, inFlight.get(), rejected.get(),
+                    (long) longRttNanos / 1_000, (long) lastShortRttNanos / 1_000);
+        } finally {
+            sampleLock.unlock();
+        }
+    }
+
+    /**
+     * 限制器状态快照，延迟单位为微秒
+     */
+    public record Stats(String name, int limit, int inFlight, long rejected, long longRttMicros, long shortRttMicros) {
+    }
+}
@@ -0,0 +1,81 @@
+package com.lihan.demo_lihan.common;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 基于公平信号量的并发隔板
+ * 限制同时使用某种下游资源（数据库连接、Redis 连接）的线程数，超过上限的线程排队等待，
+ * 等待超时则放弃。虚拟线程数量不受限制，下游资源的并发由这里兜底。
+ */
+public class Bulkhead {
+
+    private final String name;
+    private final int permits;
+    private final long acquireTimeoutMs;
+    private final Semaphore semaphore;
+    private final AtomicInteger peakInUse = new AtomicInteger();
+    private final AtomicLong acquired = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public Bulkhead(String name, int permits, long acquireTimeoutMs) {
+        if (permits <= 0) {
+            throw new IllegalArgumentException("permits must be positive: " + permits);
+        }
+        this.name = name;
+        this.permits = permits;
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.semaphore = new Semaphore(permits, true);
+    }
+
+    /**
+     * 获取一个许可，超时或被中断返回 false
+     */
+    public boolean tryAcquire() {
+        try {
+            if (!semaphore.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                rejected.incrementAndGet();
+                return false;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            rejected.incrementAndGet();
+            return false;
+        }
+        acquired.incrementAndGet();
+        peakInUse.accumulateAndGet(permits - semaphore.availablePermits(), Math::max);
+        return true;
+    }
+
+    public void release() {
+        semaphore.release();
+    }
+
+    public RejectedException rejection() {
+        return new RejectedException(name, acquireTimeoutMs);
+    }
+
+    public Stats stats() {
+        return new Stats(name, permits, permits - semaphore.availablePermits(), peakInUse.get(),
+                semaphore.getQueueLength(), acquired.get(), rejected.get());
+    }
+
+    /**
+     * 等待许可超时
+     */
+    public static class RejectedException extends RuntimeException {
+
+        public RejectedException(String name, long timeoutMs) {
+            super(name + " bulkhead full, waited " + timeoutMs + "ms");
+        }
+    }
+
+    /**
+     * 隔板状态快照
+     */
+    public record Stats(String name, int permits, int inUse, int peakInUse, int waiting,
+                        long acquired, long rejected) {
+    }
+}
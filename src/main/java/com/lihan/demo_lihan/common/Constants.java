@@ -37,6 +37,7 @@ public class Constants {
         public static final String STATUS_PAID = "PAID";
         public static final String STATUS_CANCELLED = "CANCELLED";
         public static final String STATUS_REFUNDED = "REFUNDED";
+        public static final String STATUS_EXPIRED = "EXPIRED";
         public static final int ORDER_NO_LENGTH = 20;
     }
 
@@ -61,9 +62,16 @@ public class Constants {
         public static final String USER_CACHE_PREFIX = "user:";
         public static final String COURSE_CACHE_PREFIX = "course:";
         public static final String HOT_COURSES_KEY = "hot_courses";
+        public static final String BESTSELLER_DAY_PREFIX = "bestseller:day:";
+        public static final String BESTSELLER_WINDOW_KEY = "bestseller:window";
+        public static final String PURCHASE_COURSES_PREFIX = "purchase:owned:";
+        public static final String PURCHASE_SPENDING_PREFIX = "purchase:spending:";
+        public static final String PURCHASE_GENERATION_PREFIX = "purchase:gen:";
+        public static final String FLASHSALE_PREFIX = "flashsale:";
         public static final int DEFAULT_EXPIRE_TIME = 3600; // 1小时
         public static final int USER_CACHE_EXPIRE_TIME = 1800; // 30分钟
         public static final int COURSE_CACHE_EXPIRE_TIME = 3600; // 1小时
+        public static final int PURCHASE_PROFILE_EXPIRE_TIME = 86400; // 1天
     }
 
     /**
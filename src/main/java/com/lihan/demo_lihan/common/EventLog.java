@@ -0,0 +1,330 @@
+package com.lihan.demo_lihan.common;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * 本地只追加事件日志
+ * 日志由若干个固定大小的内存映射段文件组成，文件名为段内第一条记录的偏移量；写满后滚动到新段，
+ * 超过保留段数时删除最旧的段。每条记录为 [长度 int][CRC32C int][偏移量 long][UTF-8 内容]，
+ * 偏移量从 0 连续递增，消费者按偏移量读取，可随时从任意保留范围内的偏移量重放。
+ * 单写多读：追加在锁内完成，批次写完并刷盘后才对读者可见；启动时逐条校验恢复写入位置，截掉不完整的尾部记录。
+ */
+public class EventLog implements Closeable {
+
+    private static final int HEADER_SIZE = 16;
+    private static final int INDEX_INTERVAL = 64;
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final boolean fsync;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private Segment active;
+
+    /**
+     * 已提交（对读者可见）的下一条记录偏移量
+     */
+    private volatile long endOffset;
+
+    public EventLog(Path directory, int segmentSize, int maxSegments, boolean fsync) throws IOException {
+        if (segmentSize <= HEADER_SIZE) {
+            throw new IllegalArgumentException("segmentSize too small: " + segmentSize);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSegments = Math.max(maxSegments, 1);
+        this.fsync = fsync;
+
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Long> baseOffsets = files
+                    .map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+            for (Long baseOffset : baseOffsets) {
+                Segment segment = Segment.open(segmentPath(baseOffset), baseOffset, segmentSize);
+                segment.recover();
+                segments.put(baseOffset, segment);
+            }
+        }
+
+        if (segments.isEmpty()) {
+            segments.put(0L, Segment.open(segmentPath(0), 0, segmentSize));
+        }
+        active = segments.lastEntry().getValue();
+        endOffset = active.nextOffset;
+    }
+
+    /**
+     * 批量追加记录，全部写入并刷盘后才对读者可见，返回第一条记录的偏移量
+     * 长度 0 表示段内记录结束，空内容会截断其后的记录，整批写入前先校验，有空内容或超长记录时整批拒绝
+     */
+    public long append(List<String> payloads) {
+        List<byte[]> records = new ArrayList<>(payloads.size());
+        for (String payload : payloads) {
+            byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length == 0) {
+                throw new IllegalArgumentException("empty record");
+            }
+            if (HEADER_SIZE + bytes.length > segmentSize) {
+                throw new IllegalArgumentException("record larger than segment: " + (HEADER_SIZE + bytes.length));
+            }
+            records.add(bytes);
+        }
+
+        writeLock.lock();
+        try {
+            long firstOffset = active.nextOffset;
+            for (byte[] bytes : records) {
+                int recordSize = HEADER_SIZE + bytes.length;
+                if (active.remaining() < recordSize) {
+                    roll();
+                }
+                active.write(bytes);
+            }
+            if (fsync) {
+                active.buffer.force();
+            }
+            endOffset = active.nextOffset;
+            return firstOffset;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 从指定偏移量开始读取最多 maxRecords 条已提交记录；偏移量早于最旧保留段时从最旧记录开始
+     */
+    public List<LogRecord> read(long fromOffset, int maxRecords) {
+        long end = endOffset;
+        List<LogRecord> records = new ArrayList<>(Math.min(Math.max(maxRecords, 0), 1024));
+        long offset = Math.max(fromOffset, firstOffset());
+        Map.Entry<Long, Segment> entry = segments.floorEntry(offset);
+
+        while (entry != null && offset < end && records.size() < maxRecords) {
+            Segment segment = entry.getValue();
+            int position = segment.positionOf(offset);
+            while (position >= 0 && offset < end && records.size() < maxRecords) {
+                int length = segment.buffer.getInt(position);
+                if (length <= 0) {
+                    break;
+                }
+                byte[] bytes = new byte[length];
+                segment.buffer.get(position + HEADER_SIZE, bytes);
+                records.add(new LogRecord(offset, new String(bytes, StandardCharsets.UTF_8)));
+                position += HEADER_SIZE + length;
+                offset++;
+                if (position + HEADER_SIZE > segmentSize) {
+                    break;
+                }
+            }
+            entry = segments.higherEntry(entry.getKey());
+            if (entry != null) {
+                offset = Math.max(offset, entry.getKey());
+            }
+        }
+        return records;
+    }
+
+    /**
+     * 最旧的保留记录偏移量
+     */
+    public long firstOffset() {
+        Map.Entry<Long, Segment> first = segments.firstEntry();
+        return first == null ? 0 : first.getKey();
+    }
+
+    /**
+     * 下一条待写入记录的偏移量（即已提交记录数）
+     */
+    public long endOffset() {
+        return endOffset;
+    }
+
+    public int segmentCount() {
+        return segments.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writeLock.lock();
+        try {
+            for (Segment segment : segments.values()) {
+                segment.buffer.force();
+                segment.channel.close();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 当前段写满后刷盘并滚动到新段，超过保留段数时删除最旧的段
+     */
+    private void roll() throws IOException {
+        active.buffer.force();
+        long baseOffset = active.nextOffset;
+        Segment next = Segment.open(segmentPath(baseOffset), baseOffset, segmentSize);
+        segments.put(baseOffset, next);
+        active = next;
+
+        while (segments.size() > maxSegments) {
+            Map.Entry<Long, Segment> oldest = segments.pollFirstEntry();
+            oldest.getValue().channel.close();
+            Files.deleteIfExists(oldest.getValue().path);
+        }
+    }
+
+    private Path segmentPath(long baseOffset) {
+        return directory.resolve(String.format("%020d%s", baseOffset, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * 日志记录
+     */
+    public record LogRecord(long offset, String payload) {
+    }
+
+    /**
+     * 单个段文件，维护稀疏索引（每 INDEX_INTERVAL 条记录一个偏移量到文件位置的映射）
+     */
+    private static final class Segment {
+
+        private final Path path;
+        private final long baseOffset;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private final ConcurrentSkipListMap<Long, Integer> index = new ConcurrentSkipListMap<>();
+        private final CRC32C crc = new CRC32C();
+
+        private int writePosition;
+        private long nextOffset;
+
+        private Segment(Path path, long baseOffset, FileChannel channel, MappedByteBuffer buffer) {
+            this.path = path;
+            this.baseOffset = baseOffset;
+            this.channel = channel;
+            this.buffer = buffer;
+            this.nextOffset = baseOffset;
+        }
+
+        static Segment open(Path path, long baseOffset, int size) throws IOException {
+            FileChannel channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            return new Segment(path, baseOffset, channel, buffer);
+        }
+
+        int remaining() {
+            return buffer.capacity() - writePosition;
+        }
+
+        void write(byte[] bytes) {
+            int position = writePosition;
+            buffer.putInt(position + 4, checksum(bytes));
+            buffer.putLong(position + 8, nextOffset);
+            buffer.put(position + HEADER_SIZE, bytes);
+            // 长度最后写入，恢复时长度为 0 即视为日志末尾
+            buffer.putInt(position, bytes.length);
+            indexRecord(nextOffset, position);
+            writePosition = position + HEADER_SIZE + bytes.length;
+            nextOffset++;
+        }
+
+        /**
+         * 逐条校验记录，确定写入位置；遇到不完整或损坏的记录时清零其后的内容
+         */
+        void recover() {
+            int position = 0;
+            long offset = baseOffset;
+            boolean corrupted = false;
+            while (position + HEADER_SIZE <= buffer.capacity()) {
+                int length = buffer.getInt(position);
+                if (length == 0) {
+                    break;
+                }
+                if (length < 0 || position + HEADER_SIZE + length > buffer.capacity()
+                        || buffer.getLong(position + 8) != offset
+                        || buffer.getInt(position + 4) != checksum(buffer, position + HEADER_SIZE, length)) {
+                    corrupted = true;
+                    break;
+                }
+                indexRecord(offset, position);
+                position += HEADER_SIZE + length;
+                offset++;
+            }
+            if (corrupted) {
+                for (int i = position; i < buffer.capacity(); i++) {
+                    buffer.put(i, (byte) 0);
+                }
+                buffer.force();
+            }
+            writePosition = position;
+            nextOffset = offset;
+        }
+
+        /**
+         * 定位偏移量所在的文件位置，超出本段时返回 -1
+         */
+        int positionOf(long offset) {
+            Map.Entry<Long, Integer> floor = index.floorEntry(offset);
+            if (floor == null) {
+                return -1;
+            }
+            long current = floor.getKey();
+            int position = floor.getValue();
+            while (current < offset) {
+                int length = buffer.getInt(position);
+                if (length <= 0) {
+                    return -1;
+                }
+                position += HEADER_SIZE + length;
+                current++;
+                if (position + HEADER_SIZE > buffer.capacity()) {
+                    return -1;
+                }
+            }
+            return position;
+        }
+
+        private void indexRecord(long offset, int position) {
+            if ((offset - baseOffset) % INDEX_INTERVAL == 0) {
+                index.put(offset, position);
+            }
+        }
+
+        private int checksum(byte[] bytes) {
+            crc.reset();
+            crc.update(bytes);
+            return (int) crc.getValue();
+        }
+
+        private int checksum(MappedByteBuffer source, int position, int length) {
+            crc.reset();
+            crc.update(source.slice(position, length));
+            return (int) crc.getValue();
+        }
+    }
+}
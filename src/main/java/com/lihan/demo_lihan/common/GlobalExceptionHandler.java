@@ -2,6 +2,7 @@ package com.lihan.demo_lihan.common;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.NestedExceptionUtils;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindException;
@@ -9,6 +10,7 @@ import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.ConstraintViolationException;
 
 import java.util.Map;
@@ -18,6 +20,12 @@ public class GlobalExceptionHandler {
 
     private static final Logger logger = LoggerFactory.getLogger(GlobalExceptionHandler.class);
 
+    /**
+     * 请求属性：请求因服务端故障（系统异常、下游资源繁忙）失败
+     * 错误响应的 HTTP 状态仍为 200，自适应限流据此属性判断请求失败
+     */
+    public static final String SERVER_ERROR_ATTRIBUTE = GlobalExceptionHandler.class.getName() + ".SERVER_ERROR";
+
     /**
      * 处理业务异常
      */
@@ -66,7 +74,12 @@ public class GlobalExceptionHandler {
      * 处理所有其他异常
      */
     @ExceptionHandler(Exception.class)
-    public Result<?> handleException(Exception e) {
+    public Result<?> handleException(Exception e, HttpServletRequest request) {
+        request.setAttribute(SERVER_ERROR_ATTRIBUTE, Boolean.TRUE);
+        if (NestedExceptionUtils.getRootCause(e) instanceof Bulkhead.RejectedException rejected) {
+            logger.warn("下游资源繁忙: {}", rejected.getMessage());
+            return Result.error(ResultCode.SYSTEM_BUSY);
+        }
         logger.error("系统异常:", e);
         return Result.error("服务器内部错误，请联系管理员");
     }
@@ -7,9 +7,17 @@ public enum ResultCode {
     SUCCESS(200, "操作成功"),
     ERROR(500, "服务器内部错误"),
     PARAM_ERROR(400, "参数错误"),
+    SYSTEM_BUSY(503, "系统繁忙，请稍后重试"),
     USER_NOT_FOUND(1001, "用户名不存在"),
     PASSWORD_ERROR(1002, "密码错误"),
-    USER_DISABLED(1003, "用户已被禁用");
+    USER_DISABLED(1003, "用户已被禁用"),
+    ORDER_NOT_FOUND(2001, "订单不存在"),
+    ORDER_STATUS_CONFLICT(2002, "订单状态错误"),
+    ORDER_EXPIRED(2003, "订单已过期"),
+    FLASH_SALE_NOT_OPEN(3001, "课程未开启限量抢购"),
+    FLASH_SALE_SOLD_OUT(3002, "课程名额已抢完"),
+    FLASH_SALE_ALREADY_RESERVED(3003, "您已抢到该课程名额"),
+    FLASH_SALE_PERSIST_FAILED(3004, "抢购订单创建失败，名额已释放");
 
     private final Integer code;
     private final String message;
@@ -0,0 +1,151 @@
+package com.lihan.demo_lihan.common;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-Saving 频繁项统计（非线程安全）
+ * 最多保留 capacity 个计数器，计数器满后新元素替换当前最小计数器并继承其计数，
+ * 因此每个计数都是真实次数的上界，误差不超过被替换时的最小值；
+ * 计数器组织为按计数排序的小顶堆，单次更新 O(log capacity)
+ */
+public class SpaceSavingSketch {
+
+    private final int capacity;
+    private final long[] keys;
+    private final long[] counts;
+    private final long[] errors;
+    private final Map<Long, Integer> positions;
+    private int size;
+
+    public SpaceSavingSketch(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.keys = new long[capacity];
+        this.counts = new long[capacity];
+        this.errors = new long[capacity];
+        this.positions = new HashMap<>(capacity * 2);
+    }
+
+    /**
+     * 记录一次出现，increment 为本次增加的次数
+     */
+    public void offer(long key, long increment) {
+        Integer position = positions.get(key);
+        if (position != null) {
+            counts[position] += increment;
+            siftDown(position);
+            return;
+        }
+        if (size < capacity) {
+            keys[size] = key;
+            counts[size] = increment;
+            errors[size] = 0;
+            positions.put(key, size);
+            siftUp(size++);
+            return;
+        }
+        // 替换堆顶（当前最小计数），新元素继承最小计数作为误差
+        long minCount = counts[0];
+        positions.remove(keys[0]);
+        keys[0] = key;
+        counts[0] = minCount + increment;
+        errors[0] = minCount;
+        positions.put(key, 0);
+        siftDown(0);
+    }
+
+    /**
+     * 按计数降序返回前 k 个元素
+     */
+    public List<Entry> topK(int k) {
+        List<Entry> entries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            entries.add(new Entry(keys[i], counts[i], errors[i]));
+        }
+        entries.sort(Comparator.comparingLong(Entry::count).reversed());
+        return entries.size() > k ? new ArrayList<>(entries.subList(0, k)) : entries;
+    }
+
+    /**
+     * 取出全部计数并清空
+     * 返回扣除继承误差后的计数（count - error，真实次数的下界），下界为 0 的元素不返回；
+     * 计数器未满时没有替换，结果即真实次数
+     */
+    public Map<Long, Long> drain() {
+        Map<Long, Long> snapshot = new LinkedHashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            long guaranteed = counts[i] - errors[i];
+            if (guaranteed > 0) {
+                snapshot.put(keys[i], guaranteed);
+            }
+        }
+        positions.clear();
+        Arrays.fill(counts, 0, size, 0);
+        Arrays.fill(errors, 0, size, 0);
+        size = 0;
+        return snapshot;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (counts[parent] <= counts[i]) {
+                break;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int left = (i << 1) + 1;
+            if (left >= size) {
+                break;
+            }
+            int right = left + 1;
+            int smallest = right < size && counts[right] < counts[left] ? right : left;
+            if (counts[i] <= counts[smallest]) {
+                break;
+            }
+            swap(i, smallest);
+            i = smallest;
+        }
+    }
+
+    private void swap(int i, int j) {
+        long key = keys[i];
+        long count = counts[i];
+        long error = errors[i];
+        keys[i] = keys[j];
+        counts[i] = counts[j];
+        errors[i] = errors[j];
+        keys[j] = key;
+        counts[j] = count;
+        errors[j] = error;
+        positions.put(keys[i], i);
+        positions.put(keys[j], j);
+    }
+
+    /**
+     * 统计结果：count 为计数上界，error 为最大高估量
+     */
+    public record Entry(long key, long count, long error) {
+    }
+}
@@ -0,0 +1,39 @@
+package com.lihan.demo_lihan.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 订单归档配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "archive.order")
+public class ArchiveProperties {
+
+    /**
+     * 是否启用定时归档
+     */
+    private boolean enabled = true;
+
+    /**
+     * 热表保留月数，早于该时间创建的终态订单会被迁入归档表
+     */
+    private int retentionMonths = 6;
+
+    /**
+     * 每批迁移的订单数，每批一个事务
+     */
+    private int batchSize = 500;
+
+    /**
+     * 批次之间的停顿（毫秒），降低对线上写入的影响
+     */
+    private long batchPauseMs = 50;
+
+    /**
+     * 定时归档的 cron 表达式
+     */
+    private String cron = "0 30 3 * * ?";
+}
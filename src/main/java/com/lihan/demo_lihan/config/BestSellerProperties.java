@@ -0,0 +1,44 @@
+package com.lihan.demo_lihan.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 畅销课程统计配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "bestseller")
+public class BestSellerProperties {
+
+    /**
+     * 本地 Space-Saving 计数器数量
+     */
+    private int capacity = 1024;
+
+    /**
+     * 缓存的榜单长度，即接口可返回的最大 K
+     */
+    private int topK = 50;
+
+    /**
+     * 每日 Redis 有序集合保留的候选课程数
+     */
+    private int dailyRetain = 1000;
+
+    /**
+     * 统计窗口天数
+     */
+    private int windowDays = 7;
+
+    /**
+     * 按天衰减系数，N 天前的销量权重为 decayFactor^N
+     */
+    private double decayFactor = 0.8;
+
+    /**
+     * 本地计数合并到 Redis 并刷新榜单的间隔（毫秒）
+     */
+    private long flushIntervalMs = 10000;
+}
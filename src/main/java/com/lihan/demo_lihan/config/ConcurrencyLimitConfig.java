@@ -0,0 +1,109 @@
+package com.lihan.demo_lihan.config;
+
+import com.lihan.demo_lihan.common.Bulkhead;
+import com.lihan.demo_lihan.datasource.BoundedDataSource;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 数据库、Redis 并发隔板配置（concurrency.limit-enabled=true 时生效，通常随虚拟线程一起开启）
+ * 主数据源包装为 BoundedDataSource；Redis 连接工厂包装为代理，取连接时获取许可、连接关闭时归还
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "concurrency", name = "limit-enabled", havingValue = "true")
+public class ConcurrencyLimitConfig {
+
+    private static final String DATA_SOURCE_BEAN = "dataSource";
+    private static final Set<String> REDIS_CONNECTION_METHODS =
+            Set.of("getConnection", "getClusterConnection", "getSentinelConnection");
+
+    @Bean
+    public static LimitPostProcessor concurrencyLimitPostProcessor(Environment environment) {
+        ConcurrencyProperties properties = Binder.get(environment)
+                .bind("concurrency", ConcurrencyProperties.class)
+                .orElseGet(ConcurrencyProperties::new);
+        return new LimitPostProcessor(
+                new Bulkhead("jdbc", properties.getJdbcPermits(), properties.getAcquireTimeoutMs()),
+                new Bulkhead("redis", properties.getRedisPermits(), properties.getAcquireTimeoutMs()));
+    }
+
+    /**
+     * 包装数据源和 Redis 连接工厂；需在分片、读写分离包装之后执行，因此不实现 Ordered
+     */
+    public static class LimitPostProcessor implements BeanPostProcessor {
+
+        private final Bulkhead jdbcBulkhead;
+        private final Bulkhead redisBulkhead;
+
+        LimitPostProcessor(Bulkhead jdbcBulkhead, Bulkhead redisBulkhead) {
+            this.jdbcBulkhead = jdbcBulkhead;
+            this.redisBulkhead = redisBulkhead;
+        }
+
+        public List<Bulkhead> getBulkheads() {
+            return List.of(jdbcBulkhead, redisBulkhead);
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (DATA_SOURCE_BEAN.equals(beanName) && bean instanceof DataSource dataSource
+                    && !(bean instanceof BoundedDataSource)) {
+                return new BoundedDataSource(dataSource, jdbcBulkhead);
+            }
+            if (bean instanceof RedisConnectionFactory) {
+                ProxyFactory proxyFactory = new ProxyFactory(bean);
+                proxyFactory.addAdvice((MethodInterceptor) invocation -> {
+                    if (!REDIS_CONNECTION_METHODS.contains(invocation.getMethod().getName())) {
+                        return invocation.proceed();
+                    }
+                    if (!redisBulkhead.tryAcquire()) {
+                        Bulkhead.RejectedException rejected = redisBulkhead.rejection();
+                        throw new RedisConnectionFailureException(rejected.getMessage(), rejected);
+                    }
+                    try {
+                        return bounded(invocation.proceed());
+                    } catch (Throwable e) {
+                        redisBulkhead.release();
+                        throw e;
+                    }
+                });
+                return proxyFactory.getProxy();
+            }
+            return bean;
+        }
+
+        /**
+         * 包装 Redis 连接，close 时归还许可（重复 close 只归还一次）
+         */
+        private Object bounded(Object connection) {
+            AtomicBoolean released = new AtomicBoolean();
+            ProxyFactory proxyFactory = new ProxyFactory(connection);
+            proxyFactory.addAdvice((MethodInterceptor) invocation -> {
+                if (!"close".equals(invocation.getMethod().getName())) {
+                    return invocation.proceed();
+                }
+                try {
+                    return invocation.proceed();
+                } finally {
+                    if (released.compareAndSet(false, true)) {
+                        redisBulkhead.release();
+                    }
+                }
+            });
+            return proxyFactory.getProxy();
+        }
+    }
+}
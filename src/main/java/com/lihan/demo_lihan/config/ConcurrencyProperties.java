@@ -0,0 +1,44 @@
+package com.lihan.demo_lihan.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 并发限制配置（虚拟线程模式下限制数据库、Redis 的并发使用量）
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "concurrency")
+public class ConcurrencyProperties {
+
+    /**
+     * 是否启用数据库、Redis 并发隔板
+     */
+    private boolean limitEnabled = false;
+
+    /**
+     * 同时持有数据库连接的最大线程数，不应超过连接池大小
+     */
+    private int jdbcPermits = 10;
+
+    /**
+     * 同时执行 Redis 命令的最大线程数
+     */
+    private int redisPermits = 8;
+
+    /**
+     * 等待许可的最长时间（毫秒），超时后请求失败
+     */
+    private long acquireTimeoutMs = 1000;
+
+    /**
+     * 是否通过 JFR 监控虚拟线程钉住载体线程
+     */
+    private boolean pinningMonitorEnabled = false;
+
+    /**
+     * 钉住时间超过该值（毫秒）才记录
+     */
+    private long pinningThresholdMs = 20;
+}
@@ -0,0 +1,29 @@
+package com.lihan.demo_lihan.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 限量抢购配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "flashsale")
+public class FlashSaleProperties {
+
+    /**
+     * 未启用入队下单时，异步写入订单的线程数
+     */
+    private int persistThreads = 4;
+
+    /**
+     * 未启用入队下单时，待写入订单的队列容量，队列满时释放名额并拒绝
+     */
+    private int persistQueueCapacity = 10000;
+
+    /**
+     * 本地缓存课程抢购信息的时间（秒）
+     */
+    private long courseCacheSeconds = 30;
+}
@@ -0,0 +1,39 @@
+package com.lihan.demo_lihan.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 入队下单配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "order.ingestion")
+public class OrderIngestionProperties {
+
+    /**
+     * 是否启用入队下单；关闭时下单请求直接在请求线程内完成
+     */
+    private boolean enabled = false;
+
+    /**
+     * 环形队列（及消费者线程）数量，按用户ID分片
+     */
+    private int shards = 2;
+
+    /**
+     * 每个环形队列的容量（2 的幂），队列满时直接拒绝
+     */
+    private int ringCapacity = 4096;
+
+    /**
+     * 每批最多合并提交的订单数
+     */
+    private int maxBatchSize = 128;
+
+    /**
+     * 队列为空时消费者的最长休眠时间（微秒）
+     */
+    private long idleParkMicros = 1000;
+}
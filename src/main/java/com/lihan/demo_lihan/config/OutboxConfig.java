@@ -0,0 +1,21 @@
+package com.lihan.demo_lihan.config;
+
+import com.lihan.demo_lihan.common.EventLog;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * 本地事件日志配置
+ */
+@Configuration
+public class OutboxConfig {
+
+    @Bean(destroyMethod = "close")
+    public EventLog eventLog(OutboxProperties properties) throws IOException {
+        return new EventLog(Path.of(properties.getLogDir()), properties.getSegmentSize(),
+                properties.getMaxSegments(), properties.isFsync());
+    }
+}
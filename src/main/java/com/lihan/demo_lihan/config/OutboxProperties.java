@@ -0,0 +1,49 @@
+package com.lihan.demo_lihan.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 事务发件箱与本地事件日志配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "outbox")
+public class OutboxProperties {
+
+    /**
+     * 是否在本实例运行转发任务，默认关闭；部署时只在一个实例开启，多个实例同时转发会重复投递
+     */
+    private boolean relayEnabled = false;
+
+    /**
+     * 转发任务轮询间隔（毫秒）
+     */
+    private long relayIntervalMs = 200;
+
+    /**
+     * 每批转发的事件数
+     */
+    private int batchSize = 500;
+
+    /**
+     * 事件日志目录
+     */
+    private String logDir = "data/outbox";
+
+    /**
+     * 单个段文件大小（字节）
+     */
+    private int segmentSize = 64 * 1024 * 1024;
+
+    /**
+     * 保留的段文件数，超出后删除最旧的段
+     */
+    private int maxSegments = 16;
+
+    /**
+     * 每批追加后是否强制刷盘
+     */
+    private boolean fsync = true;
+}
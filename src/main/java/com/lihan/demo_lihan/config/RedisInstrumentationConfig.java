@@ -0,0 +1,128 @@
+package com.lihan.demo_lihan.config;
+
+import com.lihan.demo_lihan.jfr.RedisCommandEvent;
+import com.lihan.demo_lihan.tracing.Span;
+import com.lihan.demo_lihan.tracing.Tracing;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+/**
+ * Redis 命令埋点（jfr.events-enabled 或 tracing.enabled 为 true 时生效）：连接工厂包装为代理，
+ * 每次命令调用提交 RedisCommandEvent，并在进行中的调用链下记录一个 CLIENT span
+ * 模板既直接调用连接上的命令方法（set、incr 等带参数的方法），也通过 stringCommands()、keyCommands() 等命令对象执行，
+ * 两者都要包装；连接上的默认方法在目标对象内部转调命令对象，不会重复记录
+ */
+@Configuration
+@ConditionalOnExpression("${jfr.events-enabled:true} or ${tracing.enabled:true}")
+public class RedisInstrumentationConfig {
+
+    private static final String COMMANDS_PACKAGE = "org.springframework.data.redis.connection";
+    private static final Set<String> NO_ARG_COMMANDS = Set.of("exec", "closePipeline", "ping", "dbSize");
+    private static final String REMOTE_SERVICE = "redis";
+    private static final int MAX_KEY_LENGTH = 100;
+
+    @Bean
+    public static BeanPostProcessor redisInstrumentationPostProcessor(Environment environment) {
+        Binder binder = Binder.get(environment);
+        boolean events = binder.bind("jfr.events-enabled", Boolean.class).orElse(true);
+        boolean tracing = binder.bind("tracing.enabled", Boolean.class).orElse(true);
+        MethodInterceptor recorder = invocation -> record(invocation, events, tracing);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof RedisConnectionFactory)) {
+                    return bean;
+                }
+                ProxyFactory proxyFactory = new ProxyFactory(bean);
+                proxyFactory.addAdvice((MethodInterceptor) invocation -> {
+                    Object result = invocation.proceed();
+                    return result instanceof RedisConnection connection ? connection(connection, recorder) : result;
+                });
+                return proxyFactory.getProxy();
+            }
+        };
+    }
+
+    private static Object connection(RedisConnection connection, MethodInterceptor recorder) {
+        ProxyFactory proxyFactory = new ProxyFactory(connection);
+        proxyFactory.addAdvice((MethodInterceptor) invocation -> {
+            Method method = invocation.getMethod();
+            if (method.getParameterCount() > 0 || NO_ARG_COMMANDS.contains(method.getName())) {
+                return recorder.invoke(invocation);
+            }
+            Object result = invocation.proceed();
+            return isCommands(method.getReturnType()) ? commands(result, recorder) : result;
+        });
+        return proxyFactory.getProxy();
+    }
+
+    private static Object commands(Object commands, MethodInterceptor recorder) {
+        ProxyFactory proxyFactory = new ProxyFactory(commands);
+        proxyFactory.addAdvice(recorder);
+        return proxyFactory.getProxy();
+    }
+
+    private static boolean isCommands(Class<?> type) {
+        return type.isInterface() && type.getPackageName().equals(COMMANDS_PACKAGE) && type.getSimpleName().endsWith("Commands");
+    }
+
+    private static Object record(MethodInvocation invocation, boolean events, boolean tracing) throws Throwable {
+        RedisCommandEvent event = new RedisCommandEvent();
+        if (events) {
+            event.begin();
+        }
+        Span span = tracing ? Tracing.startSpan(invocation.getMethod().getName(), Span.KIND_CLIENT) : Span.NOOP;
+        String exception = null;
+        try {
+            return invocation.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            span.error(e);
+            throw e;
+        } finally {
+            if (span.isRecording()) {
+                Object[] args = invocation.getArguments();
+                span.remoteService(REMOTE_SERVICE).tag("redis.key", args.length == 0 ? null : key(args[0]));
+            }
+            span.finish();
+            if (events) {
+                event.end();
+            }
+            if (events && event.shouldCommit()) {
+                event.command = invocation.getMethod().getName();
+                Object[] args = invocation.getArguments();
+                event.key = args.length == 0 ? null : key(args[0]);
+                event.exception = exception;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * 第一个参数作为键（多键命令取第一个键）
+     */
+    private static String key(Object arg) {
+        if (arg instanceof byte[][] keys && keys.length > 0) {
+            return key(keys[0]);
+        }
+        return arg instanceof byte[] key ? key(key) : null;
+    }
+
+    private static String key(byte[] key) {
+        String text = new String(key, 0, Math.min(key.length, MAX_KEY_LENGTH), StandardCharsets.UTF_8);
+        return key.length > MAX_KEY_LENGTH ? text + "..." : text;
+    }
+}
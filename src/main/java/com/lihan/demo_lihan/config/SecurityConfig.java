@@ -2,6 +2,8 @@ package com.lihan.demo_lihan.config;
 
 import com.lihan.demo_lihan.security.UserDetailsServiceImpl;
 import com.lihan.demo_lihan.jwt.JwtAuthenticationFilter;
+import com.lihan.demo_lihan.limit.AdaptiveLimitFilter;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -25,6 +27,9 @@ public class SecurityConfig {
     @Autowired
     private JwtAuthenticationFilter jwtAuthenticationFilter;
 
+    @Autowired
+    private AdaptiveLimitFilter adaptiveLimitFilter;
+
     /**
      * 密码加密器，使用 BCrypt
      */
@@ -53,8 +58,14 @@ public class SecurityConfig {
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 // 配置请求权限
                 .authorizeHttpRequests(authz -> authz
+                        // 异步派发（返回 CompletableFuture 的接口）和错误派发已在原始请求上完成鉴权，
+                        // JWT 过滤器不会在这两类派发上重新设置认证信息
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll()
                         // 允许注册、登录和公共资源无需认证访问
                         .requestMatchers("/api/v1/users/register", "/api/v1/users/login", "/public/**").permitAll()
+                        // 健康检查（含存活、就绪探针）公开，其余监控端点仅管理员可访问
+                        .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         // 其他所有请求必须认证
                         .anyRequest().authenticated()
                 )
@@ -65,6 +76,8 @@ public class SecurityConfig {
 
         // 把 JWT 过滤器加在 UsernamePasswordAuthenticationFilter 之前
         http.addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+        // 自适应限流放在 JWT 过滤器之前，过载时在认证（查询用户）之前拒绝
+        http.addFilterBefore(adaptiveLimitFilter, JwtAuthenticationFilter.class);
 
         return http.build();
     }
@@ -0,0 +1,39 @@
+package com.lihan.demo_lihan.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 启动预热配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "warmup")
+public class WarmupProperties {
+
+    /**
+     * 是否在就绪前预热（完成前就绪探针返回 REFUSING_TRAFFIC）
+     */
+    private boolean enabled = true;
+
+    /**
+     * 预热轮数，每轮执行一次令牌签发校验、课程分页查询和序列化
+     */
+    private int iterations = 300;
+
+    /**
+     * 预热最长时间（毫秒），超过后不再执行剩余轮次
+     */
+    private long maxDurationMs = 30000;
+
+    /**
+     * 执行 BCrypt 校验的轮数（单次约 100ms，只需让相关代码完成编译）
+     */
+    private int bcryptIterations = 5;
+
+    /**
+     * 预先建立的数据库连接数，不超过主库连接池上限
+     */
+    private int connections = 10;
+}
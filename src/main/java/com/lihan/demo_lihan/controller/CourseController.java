@@ -2,17 +2,25 @@ package com.lihan.demo_lihan.controller;
 
 import com.lihan.demo_lihan.common.Constants;
 import com.lihan.demo_lihan.common.Result;
+import com.lihan.demo_lihan.dto.BestSeller;
+import com.lihan.demo_lihan.dto.FlashSaleReservation;
 import com.lihan.demo_lihan.entity.Course;
+import com.lihan.demo_lihan.metrics.SqlBudget;
+import com.lihan.demo_lihan.service.BestSellerService;
 import com.lihan.demo_lihan.service.CourseService;
+import com.lihan.demo_lihan.service.FlashSaleService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @RestController
@@ -21,6 +29,8 @@ import java.util.List;
 public class CourseController {
 
     private final CourseService courseService;
+    private final BestSellerService bestSellerService;
+    private final FlashSaleService flashSaleService;
 
     /**
      * Hello World 接口 - 课程模块测试
@@ -34,6 +44,7 @@ public class CourseController {
      * 分页查询课程
      */
     @GetMapping
+    @SqlBudget(4)
     public Result<Page<Course>> getCourses(
             @RequestParam(value = "keyword", required = false) String keyword,
             @RequestParam(value = "status", required = false) String status,
@@ -49,6 +60,7 @@ public class CourseController {
      * 获取已发布的课程
      */
     @GetMapping("/published")
+    @SqlBudget(3)
     public Result<List<Course>> getPublishedCourses() {
         List<Course> courses = courseService.findPublishedCourses();
         return Result.success(courses);
@@ -58,15 +70,26 @@ public class CourseController {
      * 获取热门课程
      */
     @GetMapping("/hot")
+    @SqlBudget(3)
     public Result<List<Course>> getHotCourses() {
         List<Course> courses = courseService.findHotCourses();
         return Result.success(courses);
     }
 
+    /**
+     * 获取畅销课程榜单（近期销量按天衰减加权）
+     */
+    @GetMapping("/best-sellers")
+    public Result<List<BestSeller>> getBestSellers(
+            @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        return Result.success(bestSellerService.getBestSellers(limit));
+    }
+
     /**
      * 根据ID获取课程信息
      */
     @GetMapping("/{id}")
+    @SqlBudget(4)
     public Result<Course> getCourseById(@PathVariable Long id) {
         Course course = courseService.findById(id)
                 .orElseThrow(() -> new RuntimeException("课程不存在"));
@@ -121,4 +144,31 @@ public class CourseController {
         courseService.deleteCourse(id);
         return Result.success(null, "课程删除成功");
     }
+
+    /**
+     * 设置课程限量抢购名额和价格，管理员可访问
+     */
+    @PutMapping("/{id}/flash-sale")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Result<Long> openFlashSale(
+            @PathVariable Long id,
+            @RequestParam("seats") Integer seats,
+            @RequestParam("price") BigDecimal price) {
+
+        long remaining = flashSaleService.openFlashSale(id, seats, price);
+        return Result.success(remaining, "抢购名额设置成功");
+    }
+
+    /**
+     * 抢购课程名额，抢到后订单异步创建，订单写入后返回
+     */
+    @PostMapping("/{id}/flash-sale/reserve")
+    public CompletableFuture<Result<FlashSaleReservation>> reserveFlashSale(
+            @PathVariable Long id,
+            @RequestParam("userId") Long userId,
+            @RequestParam(value = "username", required = false) String username) {
+
+        return flashSaleService.reserve(userId, username, id)
+                .thenApply(reservation -> Result.success(reservation, "抢购成功"));
+    }
 }
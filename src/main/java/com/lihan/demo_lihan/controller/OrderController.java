@@ -3,17 +3,29 @@ package com.lihan.demo_lihan.controller;
 import com.lihan.demo_lihan.common.Constants;
 import com.lihan.demo_lihan.common.Result;
 import com.lihan.demo_lihan.entity.Order;
+import com.lihan.demo_lihan.metrics.SqlBudget;
+import com.lihan.demo_lihan.service.ExportService;
+import com.lihan.demo_lihan.service.OrderArchiveService;
+import com.lihan.demo_lihan.service.OrderIngestionService;
 import com.lihan.demo_lihan.service.OrderService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.security.access.prepost.PreAuthorize;
 
 import jakarta.validation.Valid;
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @RestController
@@ -22,6 +34,9 @@ import java.math.BigDecimal;
 public class OrderController {
 
     private final OrderService orderService;
+    private final ExportService exportService;
+    private final OrderArchiveService orderArchiveService;
+    private final OrderIngestionService orderIngestionService;
 
     /**
      * Hello World 接口 - 订单模块测试
@@ -67,18 +82,24 @@ public class OrderController {
     }
 
     /**
-     * 创建订单
+     * 创建订单（启用入队下单时异步返回）
      */
     @PostMapping
-    public Result<Order> createOrder(@Valid @RequestBody Order order) {
+    @SqlBudget(6)
+    public CompletableFuture<Result<Order>> createOrder(@Valid @RequestBody Order order) {
+        if (orderIngestionService.isEnabled()) {
+            return orderIngestionService.submit(order)
+                    .thenApply(createdOrder -> Result.success(createdOrder, "订单创建成功"));
+        }
         Order createdOrder = orderService.createOrder(order);
-        return Result.success(createdOrder, "订单创建成功");
+        return CompletableFuture.completedFuture(Result.success(createdOrder, "订单创建成功"));
     }
 
     /**
      * 支付订单
      */
     @PutMapping("/{orderNumber}/pay")
+    @SqlBudget(6)
     public Result<Void> payOrder(
             @PathVariable String orderNumber,
             @RequestParam("paymentMethod") String paymentMethod,
@@ -124,6 +145,18 @@ public class OrderController {
         return Result.success(purchased);
     }
 
+    /**
+     * 批量检查用户是否已购买一组课程（课程列表页使用）
+     */
+    @GetMapping("/check/batch")
+    public Result<Map<Long, Boolean>> checkUserPurchasedBatch(
+            @RequestParam("userId") Long userId,
+            @RequestParam("courseIds") List<Long> courseIds) {
+
+        Map<Long, Boolean> purchased = orderService.checkUserPurchasedCourses(userId, courseIds);
+        return Result.success(purchased);
+    }
+
     /**
      * 获取用户总消费
      */
@@ -137,8 +170,37 @@ public class OrderController {
      * 处理过期订单（系统调用）
      */
     @PostMapping("/handle-expired")
+    @SqlBudget(-1)
     public Result<Void> handleExpiredOrders() {
         orderService.handleExpiredOrders();
         return Result.success(null, "过期订单处理完成");
     }
+
+    /**
+     * 导出订单（gzip 压缩的 CSV，流式输出），管理员可访问
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public void exportOrders(
+            @RequestParam(value = "timeField", defaultValue = "created") String timeField,
+            @RequestParam("startTime") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime,
+            @RequestParam("endTime") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTime,
+            HttpServletResponse response) throws IOException {
+
+        String fileName = "orders-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss")) + ".csv.gz";
+        response.setContentType("application/gzip");
+        response.setHeader("Content-Disposition", "attachment; filename=\"" + fileName + "\"");
+        exportService.exportOrders(timeField, startTime, endTime, response.getOutputStream());
+    }
+
+    /**
+     * 立即执行订单归档（系统调用）
+     */
+    @PostMapping("/archive")
+    @PreAuthorize("hasRole('ADMIN')")
+    @SqlBudget(-1)
+    public Result<Integer> archiveOrders() {
+        int archived = orderArchiveService.archiveOrders();
+        return Result.success(archived, "订单归档完成");
+    }
 }
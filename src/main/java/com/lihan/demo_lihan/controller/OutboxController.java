@@ -0,0 +1,31 @@
+package com.lihan.demo_lihan.controller;
+
+import com.lihan.demo_lihan.common.Constants;
+import com.lihan.demo_lihan.common.Result;
+import com.lihan.demo_lihan.dto.EventLogPage;
+import com.lihan.demo_lihan.service.OutboxService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@Slf4j
+@RestController
+@RequestMapping(Constants.Api.API_PREFIX + "/outbox")
+@RequiredArgsConstructor
+public class OutboxController {
+
+    private final OutboxService outboxService;
+
+    /**
+     * 按偏移量读取领域事件日志，管理员可访问
+     */
+    @GetMapping("/events")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Result<EventLogPage> getEvents(
+            @RequestParam(value = "fromOffset", defaultValue = "0") long fromOffset,
+            @RequestParam(value = "limit", defaultValue = "100") int limit) {
+
+        return Result.success(outboxService.readLog(fromOffset, Math.min(limit, 1000)));
+    }
+}
@@ -0,0 +1,106 @@
+package com.lihan.demo_lihan.controller;
+
+import com.lihan.demo_lihan.common.Constants;
+import com.lihan.demo_lihan.common.Result;
+import com.lihan.demo_lihan.datasource.RoutingDataSource.PoolStats;
+import com.lihan.demo_lihan.dto.ConcurrencyStats;
+import com.lihan.demo_lihan.dto.RollupPoint;
+import com.lihan.demo_lihan.entity.OrderRollup.BucketType;
+import com.lihan.demo_lihan.entity.OrderRollup.Dimension;
+import com.lihan.demo_lihan.service.ConcurrencyStatsService;
+import com.lihan.demo_lihan.service.DataSourceStatsService;
+import com.lihan.demo_lihan.service.OrderRollupService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@RestController
+@RequestMapping(Constants.Api.API_PREFIX + "/stats")
+@RequiredArgsConstructor
+public class StatsController {
+
+    private final OrderRollupService orderRollupService;
+    private final DataSourceStatsService dataSourceStatsService;
+    private final ConcurrencyStatsService concurrencyStatsService;
+
+    /**
+     * 统计时间范围内的总收入，管理员可访问
+     */
+    @GetMapping("/revenue")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Result<BigDecimal> getRevenue(
+            @RequestParam("startTime") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime,
+            @RequestParam("endTime") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTime) {
+
+        return Result.success(orderRollupService.calculateRevenue(startTime, endTime));
+    }
+
+    /**
+     * 统计课程销量，管理员可访问
+     */
+    @GetMapping("/courses/{courseId}/sales")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Result<Long> getCourseSales(@PathVariable Long courseId) {
+        return Result.success(orderRollupService.countCourseSales(courseId));
+    }
+
+    /**
+     * 统计各状态订单数量，管理员可访问
+     */
+    @GetMapping("/orders/status")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Result<Map<String, Long>> getOrderStatusCount() {
+        return Result.success(orderRollupService.countOrdersByStatus());
+    }
+
+    /**
+     * 查询汇总时间序列（看板），管理员可访问
+     */
+    @GetMapping("/rollups")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Result<List<RollupPoint>> getRollupSeries(
+            @RequestParam(value = "bucketType", defaultValue = "DAY") BucketType bucketType,
+            @RequestParam(value = "dimension", defaultValue = "ALL") Dimension dimension,
+            @RequestParam(value = "dimensionKey", required = false) String dimensionKey,
+            @RequestParam("startTime") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime,
+            @RequestParam("endTime") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTime) {
+
+        return Result.success(orderRollupService.findSeries(bucketType, dimension, dimensionKey, startTime, endTime));
+    }
+
+    /**
+     * 根据历史订单重建汇总表（系统调用）
+     */
+    @PostMapping("/rollups/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Result<Integer> rebuildRollups() {
+        int rows = orderRollupService.rebuild();
+        return Result.success(rows, "订单汇总重建完成");
+    }
+
+    /**
+     * 数据库连接池状态（主库、从库），管理员可访问
+     */
+    @GetMapping("/datasources")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Result<Map<String, PoolStats>> getDataSourceStats() {
+        return Result.success(dataSourceStatsService.getPoolStats());
+    }
+
+    /**
+     * 并发运行状态（数据库、Redis 隔板占用，自适应限流上限，载体线程钉住统计），管理员可访问
+     */
+    @GetMapping("/concurrency")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Result<ConcurrencyStats> getConcurrencyStats() {
+        return Result.success(concurrencyStatsService.getStats());
+    }
+}
@@ -6,8 +6,11 @@ import com.lihan.demo_lihan.common.Result;
 import com.lihan.demo_lihan.dto.LoginRequest;
 import com.lihan.demo_lihan.dto.RegisterRequest;
 import com.lihan.demo_lihan.entity.User;
+import com.lihan.demo_lihan.metrics.SqlBudget;
+import com.lihan.demo_lihan.service.ExportService;
 import com.lihan.demo_lihan.service.RateLimiterService;
 import com.lihan.demo_lihan.service.UserService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -21,6 +24,9 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.security.access.prepost.PreAuthorize;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
 
 @Slf4j
@@ -32,6 +38,7 @@ public class UserController {
     private final UserService userService;
     private final AuthenticationManager authenticationManager;
     private final RateLimiterService rateLimiterService;
+    private final ExportService exportService;
 
     /**
      * 测试接口，任何登录用户都能访问
@@ -50,6 +57,7 @@ public class UserController {
      * 用户注册，公开接口，不需要权限
      */
     @PostMapping("/register")
+    @SqlBudget(6)
     public Result<User> register(@Valid @RequestBody RegisterRequest request) {
         User user = userService.register(request);
         return Result.success(user, "用户注册成功");
@@ -59,6 +67,7 @@ public class UserController {
      * 登录接口，公开接口，不需要权限
      */
     @PostMapping("/login")
+    @SqlBudget(3)
     public Result<String> login(@Valid @RequestBody LoginRequest loginRequest) {
         String jwt = userService.login(loginRequest.getUsername(), loginRequest.getPassword());
         return Result.success(jwt, "登录成功");
@@ -74,6 +83,18 @@ public class UserController {
         return Result.success(users);
     }
 
+    /**
+     * 导出全部用户（gzip 压缩的 CSV，流式输出），只有管理员角色能访问
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public void exportUsers(HttpServletResponse response) throws IOException {
+        String fileName = "users-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss")) + ".csv.gz";
+        response.setContentType("application/gzip");
+        response.setHeader("Content-Disposition", "attachment; filename=\"" + fileName + "\"");
+        exportService.exportUsers(response.getOutputStream());
+    }
+
     /**
      * 分页查询用户，管理员和教师可以访问
      */
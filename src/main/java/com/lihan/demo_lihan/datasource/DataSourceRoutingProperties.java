@@ -0,0 +1,46 @@
+package com.lihan.demo_lihan.datasource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 读写分离配置
+ * 主库沿用 spring.datasource，这里只配置从库
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "datasource.routing")
+public class DataSourceRoutingProperties {
+
+    /**
+     * 是否启用读写分离
+     */
+    private boolean enabled = false;
+
+    /**
+     * 写入后强制读主库的时间窗口（毫秒），应大于从库的正常复制延迟
+     */
+    private long readYourWritesWindowMs = 3000;
+
+    /**
+     * 主库连接池大小
+     */
+    private int primaryPoolSize = 10;
+
+    /**
+     * 从库列表，只读事务按轮询分配
+     */
+    private List<Replica> replicas = new ArrayList<>();
+
+    @Data
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+        private int poolSize = 10;
+    }
+}
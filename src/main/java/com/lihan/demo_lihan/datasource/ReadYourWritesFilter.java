@@ -0,0 +1,52 @@
+package com.lihan.demo_lihan.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * 读写一致过滤器
+ * 请求第一次提交读写事务后在响应头返回令牌（令牌过期时间戳），客户端在后续请求中带回，
+ * 令牌有效期内该客户端的读取都走主库，避免读到尚未复制到从库的旧数据
+ */
+@RequiredArgsConstructor
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    public static final String TOKEN_HEADER = "X-RW-Token";
+
+    private final DataSourceRoutingProperties properties;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        boolean forcePrimary = parseToken(request.getHeader(TOKEN_HEADER)) > System.currentTimeMillis();
+        RoutingContext.begin(forcePrimary, () -> {
+            if (!response.isCommitted()) {
+                response.setHeader(TOKEN_HEADER,
+                        String.valueOf(System.currentTimeMillis() + properties.getReadYourWritesWindowMs()));
+            }
+        });
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RoutingContext.clear();
+        }
+    }
+
+    private long parseToken(String token) {
+        if (token == null || token.isBlank()) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(token.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
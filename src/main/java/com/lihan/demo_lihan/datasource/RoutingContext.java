@@ -0,0 +1,56 @@
+package com.lihan.demo_lihan.datasource;
+
+/**
+ * 当前请求的读写路由状态
+ * 请求带有未过期的读写一致令牌，或本请求内已经发生过写入时，只读事务也走主库
+ */
+public final class RoutingContext {
+
+    private static final ThreadLocal<State> STATE = new ThreadLocal<>();
+
+    private RoutingContext() {
+    }
+
+    /**
+     * 请求开始时设置状态，onFirstWrite 在本请求第一次提交读写事务后回调
+     */
+    public static void begin(boolean forcePrimary, Runnable onFirstWrite) {
+        STATE.set(new State(forcePrimary, onFirstWrite));
+    }
+
+    public static void clear() {
+        STATE.remove();
+    }
+
+    public static boolean isForcePrimary() {
+        State state = STATE.get();
+        return state != null && state.forcePrimary;
+    }
+
+    /**
+     * 记录本请求发生了写入：之后的读取都走主库，并回调生成读写一致令牌
+     */
+    static void markWrite() {
+        State state = STATE.get();
+        if (state == null || state.written) {
+            return;
+        }
+        state.written = true;
+        state.forcePrimary = true;
+        if (state.onFirstWrite != null) {
+            state.onFirstWrite.run();
+        }
+    }
+
+    private static final class State {
+
+        private boolean forcePrimary;
+        private boolean written;
+        private final Runnable onFirstWrite;
+
+        private State(boolean forcePrimary, Runnable onFirstWrite) {
+            this.forcePrimary = forcePrimary;
+            this.onFirstWrite = onFirstWrite;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.lihan.demo_lihan.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 读写路由数据源
+ * 只读事务轮询分配到从库，其余（读写事务、事务外的连接、强制主库的请求）走主库。
+ * 只有读写事务提交后才记为本请求发生了写入，事务外的读取和回滚的事务不会触发读写一致令牌；
+ * 写操作须在事务内执行（事务外自动提交的写入不会被记录）。
+ * 需要包在 LazyConnectionDataSourceProxy 里使用，保证取物理连接时事务的只读标记已经设置。
+ */
+public class RoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    public static final String PRIMARY = "primary";
+
+    /**
+     * 读写事务提交后记录写入
+     */
+    private static final TransactionSynchronization MARK_WRITE_ON_COMMIT = new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+            RoutingContext.markWrite();
+        }
+    };
+
+    private final Map<String, HikariDataSource> pools = new LinkedHashMap<>();
+    private final Map<String, LongAdder> routedCounts = new HashMap<>();
+    private final List<String> replicaKeys = new ArrayList<>();
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    public RoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicas) {
+        pools.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            String key = "replica-" + i;
+            pools.put(key, replicas.get(i));
+            replicaKeys.add(key);
+        }
+        pools.keySet().forEach(key -> routedCounts.put(key, new LongAdder()));
+
+        setTargetDataSources(new HashMap<>(pools));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String key = route();
+        routedCounts.get(key).increment();
+        return key;
+    }
+
+    private String route() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return PRIMARY;
+        }
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(MARK_WRITE_ON_COMMIT);
+            }
+            return PRIMARY;
+        }
+        if (replicaKeys.isEmpty() || RoutingContext.isForcePrimary()) {
+            return PRIMARY;
+        }
+        int index = Math.floorMod(nextReplica.getAndIncrement(), replicaKeys.size());
+        return replicaKeys.get(index);
+    }
+
+    /**
+     * 各连接池状态
+     */
+    public Map<String, PoolStats> poolStats() {
+        Map<String, PoolStats> stats = new LinkedHashMap<>();
+        pools.forEach((key, pool) -> stats.put(key, PoolStats.of(pool, routedCounts.get(key).sum())));
+        return stats;
+    }
+
+    @Override
+    public void close() {
+        pools.values().forEach(HikariDataSource::close);
+    }
+
+    /**
+     * 连接池状态：活跃、空闲、总连接数、等待连接的线程数和累计路由次数
+     */
+    public record PoolStats(String poolName, int active, int idle, int total, int waiting, int maxSize,
+                            long routed) {
+
+        public static PoolStats of(HikariDataSource pool, long routed) {
+            HikariPoolMXBean mxBean = pool.getHikariPoolMXBean();
+            if (mxBean == null) {
+                return new PoolStats(pool.getPoolName(), 0, 0, 0, 0, pool.getMaximumPoolSize(), routed);
+            }
+            return new PoolStats(pool.getPoolName(), mxBean.getActiveConnections(), mxBean.getIdleConnections(),
+                    mxBean.getTotalConnections(), mxBean.getThreadsAwaitingConnection(),
+                    pool.getMaximumPoolSize(), routed);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.lihan.demo_lihan.datasource;
+
+/**
+ * 当前线程的订单分片
+ * 未设置时为 0 号分片（即原有数据库，保存课程、用户等非分片表）
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static int current() {
+        Integer shard = CURRENT.get();
+        return shard == null ? 0 : shard;
+    }
+
+    /**
+     * 切换到指定分片，关闭返回的 Scope 时恢复之前的分片。
+     * 必须在事务取得物理连接（执行第一条语句）之前切换才会生效；应先切换分片再开启事务，
+     * 使事务的语句、提交时的 flush 和提交后的回调都在该分片内执行，否则 ShardRoutingDataSource 会拒绝执行语句。
+     */
+    public static Scope use(int shard) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        return () -> {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,115 @@
+package com.lihan.demo_lihan.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分片路由数据源，按 ShardContext 选择分片
+ * 0 号分片为原有数据源，其余分片各自一个连接池。
+ * 分片在取物理连接时确定，之后连接一直绑定在该分片；在连接上创建语句时校验当前线程的分片与连接所属分片一致，
+ * 不一致（先取得连接再切换分片，例如事务开启后才切换）时直接失败，避免把订单读写到错误的分片。
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    private final DataSource defaultShard;
+    private final List<HikariDataSource> shardPools;
+
+    public ShardRoutingDataSource(DataSource defaultShard, List<HikariDataSource> shardPools) {
+        this.defaultShard = defaultShard;
+        this.shardPools = List.copyOf(shardPools);
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(0, defaultShard);
+        for (int i = 0; i < shardPools.size(); i++) {
+            targets.put(i + 1, shardPools.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(defaultShard);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardContext.current();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        int shard = ShardContext.current();
+        return bindToShard(super.getConnection(), shard);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        int shard = ShardContext.current();
+        return bindToShard(super.getConnection(username, password), shard);
+    }
+
+    /**
+     * 包装物理连接：创建语句时校验当前分片
+     */
+    private static Connection bindToShard(Connection connection, int shard) {
+        return (Connection) Proxy.newProxyInstance(ShardRoutingDataSource.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "createStatement", "prepareStatement", "prepareCall":
+                            int current = ShardContext.current();
+                            if (current != shard) {
+                                throw new IllegalStateException("连接属于分片 " + shard + "，当前分片为 " + current
+                                        + "：须先切换分片再开启事务或执行语句");
+                            }
+                            break;
+                        default:
+                            break;
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+
+    public DataSource getDefaultShard() {
+        return defaultShard;
+    }
+
+    /**
+     * 1..N-1 号分片的连接池状态
+     */
+    public Map<String, RoutingDataSource.PoolStats> shardPoolStats() {
+        Map<String, RoutingDataSource.PoolStats> stats = new LinkedHashMap<>();
+        for (HikariDataSource pool : shardPools) {
+            stats.put(pool.getPoolName(), RoutingDataSource.PoolStats.of(pool, 0));
+        }
+        return stats;
+    }
+
+    @Override
+    public void close() {
+        shardPools.forEach(HikariDataSource::close);
+        if (defaultShard instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                logger.warn("Failed to close default shard", e);
+            }
+        }
+    }
+}
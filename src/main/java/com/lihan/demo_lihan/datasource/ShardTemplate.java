@@ -0,0 +1,145 @@
+package com.lihan.demo_lihan.datasource;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * 订单分片工具
+ * 负责分片计算（按用户ID取模）、订单号编码分片号，以及在指定分片或所有分片上执行操作。
+ * 未启用分片时只有 0 号分片，所有操作直接在当前线程执行。
+ */
+@Component
+public class ShardTemplate implements DisposableBean {
+
+    /**
+     * 分片订单号：ORDER + 2 位分片号 + 13 位毫秒时间戳 + 2 位节点号 + 2 位毫秒内序号
+     */
+    private static final String ORDER_NUMBER_PREFIX = "ORDER";
+    private static final int ORDER_NUMBER_LENGTH = 24;
+    private static final int MAX_NODE_ID = 99;
+    private static final long SEQUENCES_PER_MILLI = 100;
+
+    private final int shardCount;
+    private final int nodeId;
+    private final ExecutorService executor;
+
+    /**
+     * 最近一次分配的 毫秒时间戳 * 100 + 序号；同一毫秒内序号用完时借用下一毫秒，时钟回拨时继续递增
+     */
+    private final AtomicLong lastSequence = new AtomicLong();
+
+    public ShardTemplate(ShardingProperties properties) {
+        if (properties.getNodeId() < 0 || properties.getNodeId() > MAX_NODE_ID) {
+            throw new IllegalStateException("datasource.sharding.node-id 必须在 0-" + MAX_NODE_ID + " 之间: "
+                    + properties.getNodeId());
+        }
+        this.shardCount = properties.isEnabled() ? properties.getShards().size() + 1 : 1;
+        this.nodeId = properties.getNodeId();
+        this.executor = shardCount > 1 ? Executors.newVirtualThreadPerTaskExecutor() : null;
+    }
+
+    public int shardCount() {
+        return shardCount;
+    }
+
+    /**
+     * 用户订单所在分片
+     */
+    public int shardOfUser(Long userId) {
+        return userId == null ? 0 : (int) Math.floorMod(userId, (long) shardCount);
+    }
+
+    /**
+     * 从订单号解析分片，旧格式订单号（不含分片号）返回空
+     */
+    public OptionalInt shardOfOrderNumber(String orderNumber) {
+        if (orderNumber == null || orderNumber.length() != ORDER_NUMBER_LENGTH
+                || !orderNumber.startsWith(ORDER_NUMBER_PREFIX)) {
+            return OptionalInt.empty();
+        }
+        int tens = Character.digit(orderNumber.charAt(5), 10);
+        int ones = Character.digit(orderNumber.charAt(6), 10);
+        if (tens < 0 || ones < 0 || tens * 10 + ones >= shardCount) {
+            return OptionalInt.empty();
+        }
+        return OptionalInt.of(tens * 10 + ones);
+    }
+
+    /**
+     * 生成带分片号的订单号，同一节点内严格递增，不同节点由节点号区分
+     */
+    public String newOrderNumber(Long userId) {
+        long now = System.currentTimeMillis() * SEQUENCES_PER_MILLI;
+        long sequence = lastSequence.updateAndGet(last -> Math.max(last + 1, now));
+        return String.format("%s%02d%d%02d%02d", ORDER_NUMBER_PREFIX, shardOfUser(userId),
+                sequence / SEQUENCES_PER_MILLI, nodeId, sequence % SEQUENCES_PER_MILLI);
+    }
+
+    /**
+     * 在指定分片上执行
+     */
+    public <T> T onShard(int shard, Supplier<T> action) {
+        try (ShardContext.Scope ignored = ShardContext.use(shard)) {
+            return action.get();
+        }
+    }
+
+    public void onShard(int shard, Runnable action) {
+        try (ShardContext.Scope ignored = ShardContext.use(shard)) {
+            action.run();
+        }
+    }
+
+    /**
+     * 在所有分片上并行执行，结果按分片号排列；每个分片在独立线程、独立事务中运行
+     */
+    public <T> List<T> scatter(IntFunction<T> action) {
+        if (shardCount == 1) {
+            return List.of(onShard(0, () -> action.apply(0)));
+        }
+        List<CompletableFuture<T>> futures = new ArrayList<>(shardCount);
+        for (int shard = 0; shard < shardCount; shard++) {
+            int target = shard;
+            futures.add(CompletableFuture.supplyAsync(() -> onShard(target, () -> action.apply(target)), executor));
+        }
+        List<T> results = new ArrayList<>(shardCount);
+        try {
+            for (CompletableFuture<T> future : futures) {
+                results.add(future.join());
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        return results;
+    }
+
+    /**
+     * 依次在每个分片上执行（用于批处理任务，避免同时占用所有分片的连接）
+     */
+    public void forEachShard(Runnable action) {
+        for (int shard = 0; shard < shardCount; shard++) {
+            onShard(shard, action);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+}
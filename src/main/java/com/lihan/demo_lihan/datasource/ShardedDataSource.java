@@ -0,0 +1,27 @@
+package com.lihan.demo_lihan.datasource;
+
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import java.io.Closeable;
+
+/**
+ * 对外暴露的分片数据源：延迟取连接，保证事务内第一条语句执行时才按当前分片选择物理连接
+ */
+public class ShardedDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+
+    private final ShardRoutingDataSource router;
+
+    public ShardedDataSource(ShardRoutingDataSource router) {
+        super(router);
+        this.router = router;
+    }
+
+    public ShardRoutingDataSource getRouter() {
+        return router;
+    }
+
+    @Override
+    public void close() {
+        router.close();
+    }
+}
@@ -0,0 +1,104 @@
+package com.lihan.demo_lihan.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayProperties;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 订单分片配置（datasource.sharding.enabled=true 时生效）
+ * 把应用的主数据源包装成分片路由数据源，原数据源（可能已经是读写分离数据源）作为 0 号分片
+ * Flyway 自动配置只迁移主数据源，1 号起的分片在这里按同一套 spring.flyway 配置迁移，迁移失败则启动失败
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "datasource.sharding", name = "enabled", havingValue = "true")
+public class ShardingConfig {
+
+    private static final String DATA_SOURCE_BEAN = "dataSource";
+
+    @Bean
+    public static BeanPostProcessor shardingDataSourcePostProcessor(Environment environment) {
+        return new ShardingPostProcessor(environment);
+    }
+
+    /**
+     * 实现 Ordered，保证先于并发隔板等不排序的包装执行，分片数据源总在内层
+     */
+    private static class ShardingPostProcessor implements BeanPostProcessor, Ordered {
+
+        private final Environment environment;
+
+        ShardingPostProcessor(Environment environment) {
+            this.environment = environment;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!DATA_SOURCE_BEAN.equals(beanName) || !(bean instanceof DataSource dataSource)
+                    || bean instanceof ShardedDataSource) {
+                return bean;
+            }
+            ShardingProperties properties = Binder.get(environment)
+                    .bind("datasource.sharding", ShardingProperties.class)
+                    .orElseGet(ShardingProperties::new);
+            List<HikariDataSource> pools = createPools(properties, environment);
+            migrate(pools, environment);
+            return new ShardedDataSource(new ShardRoutingDataSource(dataSource, pools));
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE;
+        }
+    }
+
+    private static List<HikariDataSource> createPools(ShardingProperties properties, Environment environment) {
+        String driverClassName = environment.getProperty("spring.datasource.driver-class-name");
+        List<HikariDataSource> pools = new ArrayList<>();
+        for (int i = 0; i < properties.getShards().size(); i++) {
+            ShardingProperties.Shard shard = properties.getShards().get(i);
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName("shard-" + (i + 1));
+            pool.setJdbcUrl(shard.getUrl());
+            pool.setUsername(shard.getUsername());
+            pool.setPassword(shard.getPassword());
+            if (driverClassName != null) {
+                pool.setDriverClassName(driverClassName);
+            }
+            pool.setMaximumPoolSize(shard.getPoolSize());
+            pools.add(pool);
+        }
+        return pools;
+    }
+
+    /**
+     * 与主库使用相同的脚本位置和基线设置，分片的表结构版本不会落后于主库（Hibernate 只校验主库）
+     */
+    private static void migrate(List<HikariDataSource> pools, Environment environment) {
+        FlywayProperties flyway = Binder.get(environment)
+                .bind("spring.flyway", FlywayProperties.class)
+                .orElseGet(FlywayProperties::new);
+        if (!flyway.isEnabled()) {
+            return;
+        }
+        for (HikariDataSource pool : pools) {
+            Flyway.configure()
+                    .dataSource(pool)
+                    .locations(flyway.getLocations().toArray(String[]::new))
+                    .baselineOnMigrate(flyway.isBaselineOnMigrate())
+                    .baselineVersion(flyway.getBaselineVersion())
+                    .load()
+                    .migrate();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.lihan.demo_lihan.datasource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 订单分片配置
+ * 0 号分片是原有数据源（spring.datasource），shards 依次配置 1..N-1 号分片。
+ * 每个分片都是完整的库结构；edu_course 需同步到所有分片（订单事务内的汇总统计会关联课程），
+ * 各分片的 auto_increment_increment 设为 N、auto_increment_offset 设为分片号 + 1，保证订单ID全局唯一。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "datasource.sharding")
+public class ShardingProperties {
+
+    /**
+     * 是否启用订单分片
+     */
+    private boolean enabled = false;
+
+    /**
+     * 本实例的节点号（0-99），写入订单号用于区分实例生成的序号；多实例部署时每个实例必须不同
+     */
+    private int nodeId = 0;
+
+    /**
+     * 1..N-1 号分片
+     */
+    private List<Shard> shards = new ArrayList<>();
+
+    @Data
+    public static class Shard {
+        private String url;
+        private String username;
+        private String password;
+        private int poolSize = 10;
+    }
+}
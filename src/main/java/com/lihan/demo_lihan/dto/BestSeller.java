@@ -0,0 +1,18 @@
+package com.lihan.demo_lihan.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BestSeller {
+
+    private Long courseId;
+
+    /**
+     * 按天衰减后的加权销量
+     */
+    private Double score;
+}
@@ -0,0 +1,51 @@
+package com.lihan.demo_lihan.dto;
+
+import com.lihan.demo_lihan.common.AdaptiveLimiter;
+import com.lihan.demo_lihan.common.Bulkhead;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConcurrencyStats {
+
+    /**
+     * 请求、异步任务是否运行在虚拟线程上
+     */
+    private Boolean virtualThreads;
+
+    /**
+     * 数据库、Redis 隔板状态（未启用时为空）
+     */
+    private List<Bulkhead.Stats> bulkheads;
+
+    /**
+     * 各限流组的自适应并发上限（未启用时为空）
+     */
+    private List<AdaptiveLimiter.Stats> adaptiveLimits;
+
+    /**
+     * 钉住监控是否运行
+     */
+    private Boolean pinningMonitorRunning;
+
+    /**
+     * 超过阈值的钉住次数
+     */
+    private Long pinnedCount;
+
+    /**
+     * 最长一次钉住时间（毫秒）
+     */
+    private Long maxPinnedMs;
+
+    /**
+     * 钉住位置 -> 次数
+     */
+    private Map<String, Long> pinnedSites;
+}
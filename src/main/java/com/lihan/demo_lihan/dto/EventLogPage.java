@@ -0,0 +1,31 @@
+package com.lihan.demo_lihan.dto;
+
+import com.lihan.demo_lihan.common.EventLog.LogRecord;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventLogPage {
+
+    private List<LogRecord> records;
+
+    /**
+     * 下次读取的起始偏移量
+     */
+    private Long nextOffset;
+
+    /**
+     * 日志中最旧的保留偏移量
+     */
+    private Long firstOffset;
+
+    /**
+     * 日志末尾偏移量（已提交记录数）
+     */
+    private Long endOffset;
+}
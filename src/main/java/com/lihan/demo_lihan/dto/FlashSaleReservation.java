@@ -0,0 +1,29 @@
+package com.lihan.demo_lihan.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FlashSaleReservation {
+
+    /**
+     * 预先分配的订单号，订单异步写入后可按此查询
+     */
+    private String orderNumber;
+
+    private Long courseId;
+
+    private Long userId;
+
+    private BigDecimal amount;
+
+    /**
+     * 抢到名额后剩余的名额数
+     */
+    private Long remainingSeats;
+}
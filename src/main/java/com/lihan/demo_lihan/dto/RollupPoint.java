@@ -0,0 +1,20 @@
+package com.lihan.demo_lihan.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RollupPoint {
+
+    private LocalDateTime bucketStart;
+
+    private Long orderCount;
+
+    private BigDecimal amount;
+}
@@ -1,9 +1,12 @@
 package com.lihan.demo_lihan.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -13,10 +16,12 @@ import java.util.Set;
 
 @Entity
 @Table(name = "edu_course", indexes = {
-        @Index(name = "idx_teacher_id", columnList = "teacher_id"),
-        @Index(name = "idx_category_id", columnList = "category_id"),
-        @Index(name = "idx_status", columnList = "status"),
-        @Index(name = "idx_created_time", columnList = "created_time")
+        @Index(name = "idx_course_teacher_id", columnList = "teacher_id"),
+        @Index(name = "idx_course_category_status", columnList = "category_id, status"),
+        @Index(name = "idx_course_status_created", columnList = "status, created_time"),
+        @Index(name = "idx_course_status_published", columnList = "status, published_time"),
+        @Index(name = "idx_course_recommended", columnList = "is_recommended, status, sort_order"),
+        @Index(name = "idx_course_created_time", columnList = "created_time")
 })
 @Data
 @NoArgsConstructor
@@ -87,6 +92,12 @@ public class Course {
     @Column(name = "sort_order", nullable = false)
     private Integer sortOrder = 0;
 
+    @Column(name = "seat_capacity")
+    private Integer seatCapacity; // 限量抢购名额，为空表示不限量
+
+    @Column(name = "flash_sale_price", precision = 10, scale = 2)
+    private BigDecimal flashSalePrice; // 限量抢购价格
+
     @CreationTimestamp
     @Column(name = "created_time")
     private LocalDateTime createdTime;
@@ -100,6 +111,9 @@ public class Course {
 
     // 多对多关系：一个课程可以被多个用户选择
     @ManyToMany(mappedBy = "enrolledCourses")
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private Set<User> enrolledUsers;
 
     // 课程状态枚举
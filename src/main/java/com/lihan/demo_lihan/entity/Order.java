@@ -10,13 +10,19 @@ import org.hibernate.annotations.UpdateTimestamp;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
+/**
+ * 表结构由 db/migration 下的迁移脚本维护，这里的索引与脚本保持一致（各索引服务的查询见 V6__query_indexes.sql）
+ */
 @Entity
 @Table(name = "edu_order", indexes = {
-        @Index(name = "idx_user_id", columnList = "user_id"),
-        @Index(name = "idx_course_id", columnList = "course_id"),
-        @Index(name = "idx_order_number", columnList = "order_number"),
-        @Index(name = "idx_status", columnList = "status"),
-        @Index(name = "idx_created_time", columnList = "created_time")
+        @Index(name = "idx_order_user_created", columnList = "user_id, created_time"),
+        @Index(name = "idx_order_user_status_created", columnList = "user_id, status, created_time"),
+        @Index(name = "idx_order_user_course_status", columnList = "user_id, course_id, status"),
+        @Index(name = "idx_order_status_expire", columnList = "status, expire_time"),
+        @Index(name = "idx_order_course_status", columnList = "course_id, status"),
+        @Index(name = "idx_order_pay_time", columnList = "pay_time, status, amount"),
+        @Index(name = "idx_order_payment_no", columnList = "payment_no"),
+        @Index(name = "idx_order_created_time", columnList = "created_time")
 })
 @Data
 @NoArgsConstructor
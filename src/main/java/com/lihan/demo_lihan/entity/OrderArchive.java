@@ -0,0 +1,85 @@
+package com.lihan.demo_lihan.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 归档订单（冷数据）
+ * 结构与 edu_order 相同，由归档任务把超过保留期的终态订单整行迁入
+ */
+@Entity
+@Table(name = "edu_order_archive", indexes = {
+        @Index(name = "idx_archive_user_created", columnList = "user_id, created_time"),
+        @Index(name = "idx_archive_order_number", columnList = "order_number"),
+        @Index(name = "idx_archive_pay_time", columnList = "pay_time, status, amount")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderArchive {
+
+    @Id
+    private Long id; // 沿用热表中的订单ID
+
+    @Column(name = "order_number", unique = true, nullable = false, length = 50)
+    private String orderNumber;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "username", length = 50)
+    private String username;
+
+    @Column(name = "course_id", nullable = false)
+    private Long courseId;
+
+    @Column(name = "course_title", length = 100)
+    private String courseTitle;
+
+    @Column(name = "original_price", nullable = false, precision = 10, scale = 2)
+    private BigDecimal originalPrice;
+
+    @Column(name = "discount_price", precision = 10, scale = 2)
+    private BigDecimal discountPrice;
+
+    @Column(name = "amount", nullable = false, precision = 10, scale = 2)
+    private BigDecimal amount; // 实际支付金额
+
+    @Column(name = "status", nullable = false, length = 20)
+    private String status = "PENDING"; // PENDING, PAID, CANCELLED, REFUNDED
+
+    @Column(name = "payment_method", length = 20)
+    private String paymentMethod; // ALIPAY, WECHAT, BANK_CARD
+
+    @Column(name = "payment_no", length = 100)
+    private String paymentNo; // 第三方支付流水号
+
+    @Column(name = "remark", length = 255)
+    private String remark;
+
+    @Column(name = "pay_time")
+    private LocalDateTime payTime;
+
+    @Column(name = "cancel_time")
+    private LocalDateTime cancelTime;
+
+    @Column(name = "refund_time")
+    private LocalDateTime refundTime;
+
+    @Column(name = "expire_time")
+    private LocalDateTime expireTime; // 订单过期时间
+
+    @Column(name = "created_time")
+    private LocalDateTime createdTime;
+
+    @Column(name = "updated_time")
+    private LocalDateTime updatedTime;
+
+    @Column(name = "archived_time")
+    private LocalDateTime archivedTime;
+}
@@ -0,0 +1,101 @@
+package com.lihan.demo_lihan.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 订单汇总表
+ * 按时间桶（小时/天/累计）和维度（全站/课程/教师/支付方式/订单状态）增量维护订单数与金额，
+ * 同一汇总项拆成多个 slot 分散热点行锁，读取时按 slot 求和
+ */
+@Entity
+@Table(name = "edu_order_rollup", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_rollup_bucket",
+                columnNames = {"bucket_type", "dimension", "dimension_key", "bucket_start", "slot"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "bucket_type", nullable = false, length = 10)
+    private String bucketType; // HOUR, DAY, TOTAL
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(name = "dimension", nullable = false, length = 20)
+    private String dimension; // ALL, COURSE, TEACHER, PAYMENT_METHOD, STATUS
+
+    @Column(name = "dimension_key", nullable = false, length = 50)
+    private String dimensionKey;
+
+    @Column(name = "slot", nullable = false)
+    private Integer slot = 0;
+
+    @Column(name = "order_count", nullable = false)
+    private Long orderCount = 0L;
+
+    @Column(name = "amount", nullable = false, precision = 16, scale = 2)
+    private BigDecimal amount = BigDecimal.ZERO;
+
+    @Column(name = "updated_time")
+    private LocalDateTime updatedTime;
+
+    // 时间桶类型枚举
+    public enum BucketType {
+        HOUR("HOUR", "小时"),
+        DAY("DAY", "天"),
+        TOTAL("TOTAL", "累计");
+
+        private final String code;
+        private final String name;
+
+        BucketType(String code, String name) {
+            this.code = code;
+            this.name = name;
+        }
+
+        public String getCode() {
+            return code;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    // 汇总维度枚举
+    public enum Dimension {
+        ALL("ALL", "全站"),
+        COURSE("COURSE", "课程"),
+        TEACHER("TEACHER", "教师"),
+        PAYMENT_METHOD("PAYMENT_METHOD", "支付方式"),
+        STATUS("STATUS", "订单状态");
+
+        private final String code;
+        private final String name;
+
+        Dimension(String code, String name) {
+            this.code = code;
+            this.name = name;
+        }
+
+        public String getCode() {
+            return code;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.lihan.demo_lihan.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * 事务发件箱
+ * 业务事务内写入领域事件，由转发任务按 ID 顺序批量追加到本地事件日志后删除
+ */
+@Entity
+@Table(name = "edu_outbox_event")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "aggregate_type", nullable = false, length = 20)
+    private String aggregateType; // ORDER, COURSE
+
+    @Column(name = "aggregate_id", nullable = false)
+    private Long aggregateId;
+
+    @Column(name = "event_type", nullable = false, length = 30)
+    private String eventType; // ORDER_CREATED, ORDER_PAID, ORDER_REFUNDED, COURSE_PUBLISHED, ...
+
+    @Column(name = "payload", nullable = false, columnDefinition = "TEXT")
+    private String payload; // JSON
+
+    @CreationTimestamp
+    @Column(name = "created_time")
+    private LocalDateTime createdTime;
+}
@@ -1,9 +1,12 @@
 package com.lihan.demo_lihan.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -43,5 +46,8 @@ public class Role {
 
     // 多对多关系：一个角色可以分配给多个用户
     @ManyToMany(mappedBy = "roles")
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private Set<User> users;
 }
\ No newline at end of file
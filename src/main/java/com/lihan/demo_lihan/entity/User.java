@@ -1,9 +1,12 @@
 package com.lihan.demo_lihan.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -12,9 +15,7 @@ import java.util.Set;
 
 @Entity
 @Table(name = "edu_user", indexes = {
-    @Index(name = "idx_username", columnList = "username"),
-    @Index(name = "idx_email", columnList = "email"),
-    @Index(name = "idx_phone", columnList = "phone")
+    @Index(name = "idx_user_created_time", columnList = "created_time")
 })
 @Data
 @NoArgsConstructor
@@ -66,8 +67,11 @@ public class User {
     )
     private Set<Role> roles;
 
-    // 多对多关系：一个用户可以选择多个课程
+    // 多对多关系：一个用户可以选择多个课程（延迟加载，事务外不可访问，不参与序列化）
     @ManyToMany
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     @JoinTable(
         name = "edu_user_course",
         joinColumns = @JoinColumn(name = "user_id"),
@@ -0,0 +1,20 @@
+package com.lihan.demo_lihan.event;
+
+import com.lihan.demo_lihan.entity.Course;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 课程状态变更事件（发布、下架）
+ * 在课程事务内同步发布，course 为变更后的课程
+ */
+@Getter
+@AllArgsConstructor
+public class CourseStatusChangedEvent {
+
+    private final Course course;
+
+    private final String fromStatus;
+
+    private final String toStatus;
+}
@@ -0,0 +1,20 @@
+package com.lihan.demo_lihan.event;
+
+import com.lihan.demo_lihan.entity.Order;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 订单状态变更事件
+ * 在订单事务内同步发布，order 为迁移完成后的订单快照；订单创建时 fromStatus 为 null
+ */
+@Getter
+@AllArgsConstructor
+public class OrderStatusChangedEvent {
+
+    private final Order order;
+
+    private final String fromStatus;
+
+    private final String toStatus;
+}
@@ -0,0 +1,30 @@
+package com.lihan.demo_lihan.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * JDBC 语句执行，持续时间不含逐行读取结果
+ * 由 SlowQueryDataSource 提交，关闭慢 SQL 记录（metrics.slow-query-enabled=false）时没有该事件
+ */
+@Name("com.lihan.JdbcStatement")
+@Label("JDBC Statement")
+@Category({"Demo Lihan", "JDBC"})
+@Description("JDBC 语句执行")
+@StackTrace(false)
+@Threshold("1 ms")
+public class JdbcStatementEvent extends Event {
+
+    @Label("SQL")
+    @Description("归一化后的 SQL（常量替换为占位符）")
+    public String sql;
+
+    @Label("Rows")
+    @Description("更新行数；查询为 -1")
+    public long rows;
+}
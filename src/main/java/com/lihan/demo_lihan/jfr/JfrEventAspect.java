@@ -0,0 +1,90 @@
+package com.lihan.demo_lihan.jfr;
+
+import com.lihan.demo_lihan.entity.Course;
+import com.lihan.demo_lihan.entity.Order;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+/**
+ * 为订单、课程服务的公共方法和登录提交 ServiceOperationEvent
+ * 未录制或事件未启用时 shouldCommit 返回 false，不提取业务 ID
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(prefix = "jfr", name = "events-enabled", havingValue = "true", matchIfMissing = true)
+public class JfrEventAspect {
+
+    @Around("execution(public * com.lihan.demo_lihan.service.OrderService.*(..))"
+            + " || execution(public * com.lihan.demo_lihan.service.CourseService.*(..))"
+            + " || execution(public * com.lihan.demo_lihan.service.UserService.login(..))")
+    public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+        ServiceOperationEvent event = new ServiceOperationEvent();
+        event.begin();
+        Object result = null;
+        String exception = null;
+        try {
+            result = joinPoint.proceed();
+            return result;
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+                event.service = signature.getDeclaringType().getSimpleName();
+                event.method = signature.getName();
+                event.ids = ids(signature.getParameterNames(), joinPoint.getArgs(), result);
+                event.exception = exception;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * 取名为 xxxId、id、xxxNumber 的参数，以及订单、课程参数和返回值中的 ID
+     */
+    static String ids(String[] names, Object[] args, Object result) {
+        StringBuilder ids = new StringBuilder();
+        for (int i = 0; i < args.length; i++) {
+            Object arg = args[i];
+            String name = names != null && i < names.length ? names[i] : "arg" + i;
+            if ((arg instanceof Number || arg instanceof String)
+                    && (name.endsWith("Id") || name.equals("id") || name.endsWith("Number"))) {
+                append(ids, name, arg);
+            } else {
+                entityIds(ids, arg);
+            }
+        }
+        if (!Arrays.asList(args).contains(result)) {
+            entityIds(ids, result);
+        }
+        return ids.toString();
+    }
+
+    private static void entityIds(StringBuilder ids, Object value) {
+        if (value instanceof Order order) {
+            append(ids, "orderNumber", order.getOrderNumber());
+            append(ids, "userId", order.getUserId());
+            append(ids, "courseId", order.getCourseId());
+        } else if (value instanceof Course course) {
+            append(ids, "courseId", course.getId());
+        }
+    }
+
+    private static void append(StringBuilder ids, String name, Object value) {
+        if (value == null) {
+            return;
+        }
+        if (!ids.isEmpty()) {
+            ids.append(' ');
+        }
+        ids.append(name).append('=').append(value);
+    }
+}
@@ -0,0 +1,44 @@
+package com.lihan.demo_lihan.jfr;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * JFR 自定义事件和按需录制配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "jfr")
+public class JfrProperties {
+
+    /**
+     * 是否提交业务方法、JWT 认证、Redis 命令、JDBC 语句的自定义事件（未录制时事件不写入，只有一次判断）
+     */
+    private boolean eventsEnabled = true;
+
+    /**
+     * 录制文件目录
+     */
+    private String directory = "data/jfr";
+
+    /**
+     * 未指定时长时的录制时长（秒）
+     */
+    private int defaultDurationSeconds = 60;
+
+    /**
+     * 单次录制的最长时长（秒）
+     */
+    private int maxDurationSeconds = 600;
+
+    /**
+     * 保留的录制数，超出时关闭最早的录制并删除其文件
+     */
+    private int maxRecordings = 5;
+
+    /**
+     * 默认录制配置：default（开销约 1%）或 profile（含更密的采样和分配事件，开销约 2%）
+     */
+    private String settings = "profile";
+}
@@ -0,0 +1,64 @@
+package com.lihan.demo_lihan.jfr;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JFR 录制端点 /actuator/jfr
+ * POST 开始录制（参数 durationSeconds、settings），GET 列出录制，
+ * GET /actuator/jfr/{id} 停止录制并下载 .jfr 文件，DELETE /actuator/jfr/{id} 删除录制
+ */
+@Component
+@WebEndpoint(id = "jfr")
+@RequiredArgsConstructor
+public class JfrRecordingEndpoint {
+
+    private final JfrRecordings recordings;
+
+    @ReadOperation
+    public List<JfrRecordings.RecordingInfo> list() {
+        return recordings.list();
+    }
+
+    @WriteOperation
+    public WebEndpointResponse<Object> start(@Nullable Integer durationSeconds, @Nullable String settings)
+            throws IOException {
+        try {
+            return new WebEndpointResponse<>(recordings.start(durationSeconds, settings));
+        } catch (IllegalArgumentException e) {
+            return new WebEndpointResponse<>(Map.of("message", e.getMessage()), WebEndpointResponse.STATUS_BAD_REQUEST);
+        } catch (IllegalStateException e) {
+            return new WebEndpointResponse<>(Map.of("message", e.getMessage()), WebEndpointResponse.STATUS_TOO_MANY_REQUESTS);
+        }
+    }
+
+    @ReadOperation(produces = "application/octet-stream")
+    public WebEndpointResponse<Resource> download(@Selector long id) {
+        Path file = recordings.stop(id);
+        if (file == null || !Files.exists(file)) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        return new WebEndpointResponse<>(new FileSystemResource(file));
+    }
+
+    @DeleteOperation
+    public WebEndpointResponse<Void> delete(@Selector long id) {
+        return new WebEndpointResponse<>(recordings.delete(id)
+                ? WebEndpointResponse.STATUS_NO_CONTENT : WebEndpointResponse.STATUS_NOT_FOUND);
+    }
+}
@@ -0,0 +1,157 @@
+package com.lihan.demo_lihan.jfr;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按需 JFR 录制：限定时长，到时自动停止并写入 jfr.directory 下的文件
+ * 同一时间只允许一个录制在进行；保留最近 jfr.max-recordings 个录制，更早的关闭并删除文件
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class JfrRecordings {
+
+    private static final String NAME_PREFIX = "demo-lihan-";
+
+    private final JfrProperties properties;
+    private final Map<Long, Entry> recordings = new LinkedHashMap<>();
+
+    /**
+     * 录制信息；size 为已写出文件的字节数，录制未结束时为 0
+     */
+    public record RecordingInfo(long id, String name, String settings, String state,
+                                Instant startTime, long durationSeconds, long size) {
+    }
+
+    private record Entry(Recording recording, String settings, Path file) {
+    }
+
+    /**
+     * 开始录制
+     *
+     * @param durationSeconds 时长，为空时使用默认值，超过上限时按上限
+     * @param settings        JFR 配置名（default、profile），为空时使用默认配置
+     * @throws IllegalArgumentException 配置名不存在
+     * @throws IllegalStateException    已有录制在进行
+     */
+    public synchronized RecordingInfo start(Integer durationSeconds, String settings) throws IOException {
+        if (recordings.values().stream().anyMatch(entry -> isRunning(entry.recording()))) {
+            throw new IllegalStateException("已有 JFR 录制在进行");
+        }
+        String settingsName = settings == null || settings.isBlank() ? properties.getSettings() : settings;
+        Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration(settingsName);
+        } catch (IOException | ParseException e) {
+            throw new IllegalArgumentException("JFR 配置不存在: " + settingsName, e);
+        }
+        int seconds = durationSeconds == null || durationSeconds <= 0
+                ? properties.getDefaultDurationSeconds()
+                : Math.min(durationSeconds, properties.getMaxDurationSeconds());
+
+        Path directory = Path.of(properties.getDirectory());
+        Files.createDirectories(directory);
+        Recording recording = new Recording(configuration);
+        recording.setName(NAME_PREFIX + recording.getId());
+        recording.setToDisk(true);
+        recording.setDuration(Duration.ofSeconds(seconds));
+        Path file = directory.resolve(recording.getName() + ".jfr");
+        recording.setDestination(file);
+        recording.start();
+        recordings.put(recording.getId(), new Entry(recording, settingsName, file));
+        evict();
+        log.info("JFR 录制已开始: id={}, settings={}, duration={}s, file={}", recording.getId(), settingsName, seconds, file);
+        return info(recordings.get(recording.getId()));
+    }
+
+    public synchronized List<RecordingInfo> list() {
+        List<RecordingInfo> list = new ArrayList<>();
+        recordings.values().forEach(entry -> list.add(info(entry)));
+        return list;
+    }
+
+    /**
+     * 取录制文件，录制仍在进行时先停止
+     *
+     * @return 录制不存在时返回 null
+     */
+    public synchronized Path stop(long id) {
+        Entry entry = recordings.get(id);
+        if (entry == null) {
+            return null;
+        }
+        if (isRunning(entry.recording())) {
+            entry.recording().stop();
+            log.info("JFR 录制已停止: id={}, file={}", id, entry.file());
+        }
+        return entry.file();
+    }
+
+    /**
+     * 关闭录制并删除文件
+     */
+    public synchronized boolean delete(long id) {
+        Entry entry = recordings.remove(id);
+        if (entry == null) {
+            return false;
+        }
+        close(entry);
+        return true;
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        recordings.values().forEach(entry -> entry.recording().close());
+        recordings.clear();
+    }
+
+    private void evict() {
+        while (recordings.size() > properties.getMaxRecordings()) {
+            Long oldest = recordings.keySet().iterator().next();
+            close(recordings.remove(oldest));
+        }
+    }
+
+    private static void close(Entry entry) {
+        entry.recording().close();
+        try {
+            Files.deleteIfExists(entry.file());
+        } catch (IOException e) {
+            log.warn("删除 JFR 录制文件失败: {}", entry.file(), e);
+        }
+    }
+
+    private static boolean isRunning(Recording recording) {
+        return recording.getState() == RecordingState.DELAYED || recording.getState() == RecordingState.RUNNING;
+    }
+
+    private static RecordingInfo info(Entry entry) {
+        Recording recording = entry.recording();
+        long size;
+        try {
+            size = Files.exists(entry.file()) ? Files.size(entry.file()) : 0;
+        } catch (IOException e) {
+            size = 0;
+        }
+        Duration duration = recording.getDuration();
+        return new RecordingInfo(recording.getId(), recording.getName(), entry.settings(), recording.getState().name(),
+                recording.getStartTime(), duration == null ? 0 : duration.toSeconds(), size);
+    }
+}
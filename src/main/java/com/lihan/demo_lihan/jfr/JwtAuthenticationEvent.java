@@ -0,0 +1,26 @@
+package com.lihan.demo_lihan.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JWT 认证：令牌解析、校验和用户加载，不含后续过滤链
+ */
+@Name("com.lihan.JwtAuthentication")
+@Label("JWT Authentication")
+@Category({"Demo Lihan", "Security"})
+@Description("JWT 令牌认证")
+@StackTrace(false)
+public class JwtAuthenticationEvent extends Event {
+
+    @Label("Username")
+    public String username;
+
+    @Label("Result")
+    @Description("absent、invalid 或 valid")
+    public String result;
+}
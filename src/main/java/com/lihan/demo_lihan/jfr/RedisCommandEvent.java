@@ -0,0 +1,30 @@
+package com.lihan.demo_lihan.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Redis 命令，持续时间为连接上同步调用的往返时间（流水线、事务中的命令只含入队时间）
+ */
+@Name("com.lihan.RedisCommand")
+@Label("Redis Command")
+@Category({"Demo Lihan", "Redis"})
+@Description("Redis 连接上执行的命令")
+@StackTrace(false)
+@Threshold("1 ms")
+public class RedisCommandEvent extends Event {
+
+    @Label("Command")
+    public String command;
+
+    @Label("Key")
+    public String key;
+
+    @Label("Exception")
+    public String exception;
+}
@@ -0,0 +1,32 @@
+package com.lihan.demo_lihan.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 业务方法调用（OrderService、CourseService、UserService.login），持续时间为方法执行时间
+ */
+@Name("com.lihan.ServiceOperation")
+@Label("Service Operation")
+@Category({"Demo Lihan", "Service"})
+@Description("业务方法调用及其涉及的业务 ID")
+@StackTrace(false)
+public class ServiceOperationEvent extends Event {
+
+    @Label("Service")
+    public String service;
+
+    @Label("Method")
+    public String method;
+
+    @Label("IDs")
+    @Description("参数和返回值中的业务 ID，如 userId=1 courseId=2")
+    public String ids;
+
+    @Label("Exception")
+    public String exception;
+}
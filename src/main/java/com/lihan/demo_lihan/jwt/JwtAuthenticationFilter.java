@@ -1,7 +1,9 @@
 package com.lihan.demo_lihan.jwt;
 
+import com.lihan.demo_lihan.jfr.JwtAuthenticationEvent;
 import com.lihan.demo_lihan.security.UserDetailsServiceImpl;
 import com.lihan.demo_lihan.security.UserPrincipal;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -14,6 +16,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 @Component
 @RequiredArgsConstructor
@@ -22,11 +25,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JwtTokenUtil jwtTokenUtil;
     private final UserDetailsServiceImpl userDetailsService;
     private final JwtProperties jwtProperties;
+    private final MeterRegistry meterRegistry;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
                                     HttpServletResponse response,
                                     FilterChain filterChain) throws ServletException, IOException {
+        JwtAuthenticationEvent event = new JwtAuthenticationEvent();
+        event.begin();
+        long start = System.nanoTime();
+        String result = "absent";
+        String username = null;
         String header = request.getHeader(jwtProperties.getHeader());
         String prefix = jwtProperties.getPrefix();
         String token = null;
@@ -35,8 +44,11 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             token = header.substring(prefix.length());
         }
 
+        if (token != null) {
+            result = "invalid";
+        }
         if (token != null && jwtTokenUtil.validateToken(token)) {
-            String username = jwtTokenUtil.getUsernameFromToken(token);
+            username = jwtTokenUtil.getUsernameFromToken(token);
             UserPrincipal userDetails = (UserPrincipal) userDetailsService.loadUserByUsername(username);
 
             UsernamePasswordAuthenticationToken authentication =
@@ -44,6 +56,16 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
             authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
             SecurityContextHolder.getContext().setAuthentication(authentication);
+            result = "valid";
+        }
+        // 只统计令牌解析、校验和用户加载的耗时，不含后续过滤链
+        meterRegistry.timer("security.jwt.authentication", "result", result)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        event.end();
+        if (event.shouldCommit()) {
+            event.username = username;
+            event.result = result;
+            event.commit();
         }
 
         filterChain.doFilter(request, response);
@@ -0,0 +1,175 @@
+package com.lihan.demo_lihan.limit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lihan.demo_lihan.common.AdaptiveLimiter;
+import com.lihan.demo_lihan.common.Constants;
+import com.lihan.demo_lihan.common.GlobalExceptionHandler;
+import com.lihan.demo_lihan.common.Result;
+import com.lihan.demo_lihan.common.ResultCode;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 自适应限流过滤器，位于 JWT 认证之前（认证需要查询用户，过载时应尽早拒绝）
+ * 请求按路径分为登录、课程浏览、订单写入三组，每组一个自适应并发限制器；
+ * 超过上限的请求立即返回 503，不占用后续的认证、数据库资源，放行请求的延迟不受排队影响。
+ * 其他请求不限流。异步请求（下单）在异步处理结束时才归还名额。
+ * 失败（触发退避）包括 5xx 响应，以及由全局异常处理转成错误结果的系统异常和下游繁忙（HTTP 状态为 200）。
+ */
+@Component
+public class AdaptiveLimitFilter extends OncePerRequestFilter {
+
+    private static final String USERS = Constants.Api.API_PREFIX + "/users/";
+    private static final String COURSES = Constants.Api.API_PREFIX + "/courses";
+    private static final String ORDERS = Constants.Api.API_PREFIX + "/orders";
+
+    private final AdaptiveLimitProperties properties;
+    private final ObjectMapper objectMapper;
+    private final AdaptiveLimiter loginLimiter;
+    private final AdaptiveLimiter catalogLimiter;
+    private final AdaptiveLimiter orderLimiter;
+
+    public AdaptiveLimitFilter(AdaptiveLimitProperties properties, ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.loginLimiter = newLimiter("login", properties.getLogin());
+        this.catalogLimiter = newLimiter("catalog", properties.getCatalog());
+        this.orderLimiter = newLimiter("order", properties.getOrder());
+    }
+
+    public List<AdaptiveLimiter> getLimiters() {
+        return List.of(loginLimiter, catalogLimiter, orderLimiter);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        AdaptiveLimiter limiter = properties.isEnabled() ? limiterFor(request) : null;
+        if (limiter == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        if (!limiter.tryAcquire()) {
+            reject(response);
+            return;
+        }
+
+        long start = System.nanoTime();
+        AtomicBoolean released = new AtomicBoolean();
+        boolean failed = true;
+        try {
+            filterChain.doFilter(request, response);
+            failed = false;
+        } finally {
+            if (!failed && request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleaseListener(limiter, start, released));
+            } else {
+                release(limiter, start, released, failed || serverError(request, response));
+            }
+        }
+    }
+
+    /**
+     * 请求所属限流组，不限流的请求返回 null
+     */
+    AdaptiveLimiter limiterFor(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        String method = request.getMethod();
+        if (path.startsWith(USERS)) {
+            boolean login = HttpMethod.POST.matches(method)
+                    && (path.endsWith("/login") || path.endsWith("/register"));
+            boolean password = HttpMethod.PUT.matches(method) && path.endsWith("/password");
+            return login || password ? loginLimiter : null;
+        }
+        if (path.startsWith(COURSES)) {
+            if (HttpMethod.GET.matches(method)) {
+                return catalogLimiter;
+            }
+            return path.endsWith("/flash-sale/reserve") ? orderLimiter : null;
+        }
+        if (path.startsWith(ORDERS)) {
+            return HttpMethod.GET.matches(method) ? null : orderLimiter;
+        }
+        return null;
+    }
+
+    private static boolean serverError(HttpServletRequest request, HttpServletResponse response) {
+        return response.getStatus() >= 500
+                || request.getAttribute(GlobalExceptionHandler.SERVER_ERROR_ATTRIBUTE) != null;
+    }
+
+    private void release(AdaptiveLimiter limiter, long start, AtomicBoolean released, boolean failed) {
+        if (!released.compareAndSet(false, true)) {
+            return;
+        }
+        long rtt = System.nanoTime() - start;
+        boolean slow = rtt > TimeUnit.MILLISECONDS.toNanos(properties.getSlowRequestMs());
+        limiter.release(rtt, failed || slow);
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader("Retry-After", "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write(objectMapper.writeValueAsString(Result.error(ResultCode.SYSTEM_BUSY)));
+    }
+
+    private AdaptiveLimiter newLimiter(String name, AdaptiveLimitProperties.Group group) {
+        return new AdaptiveLimiter(name, group.getInitialLimit(), group.getMinLimit(), group.getMaxLimit(),
+                properties.getSmoothing(), properties.getTolerance(), properties.getWindowSize());
+    }
+
+    /**
+     * 异步请求结束（完成、超时、出错）时归还名额
+     */
+    private class ReleaseListener implements AsyncListener {
+
+        private final AdaptiveLimiter limiter;
+        private final long start;
+        private final AtomicBoolean released;
+
+        ReleaseListener(AdaptiveLimiter limiter, long start, AtomicBoolean released) {
+            this.limiter = limiter;
+            this.start = start;
+            this.released = released;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            HttpServletRequest request = (HttpServletRequest) event.getSuppliedRequest();
+            HttpServletResponse response = (HttpServletResponse) event.getSuppliedResponse();
+            release(limiter, start, released, request != null && response != null && serverError(request, response));
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release(limiter, start, released, true);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release(limiter, start, released, true);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
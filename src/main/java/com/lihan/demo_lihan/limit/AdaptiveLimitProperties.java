@@ -0,0 +1,70 @@
+package com.lihan.demo_lihan.limit;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 自适应并发限制配置，登录、课程浏览、订单写入三组各自独立限流
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "adaptive-limit")
+public class AdaptiveLimitProperties {
+
+    /**
+     * 是否启用自适应限流
+     */
+    private boolean enabled = false;
+
+    /**
+     * 新上限的平滑系数（0~1），越小调整越平缓
+     */
+    private double smoothing = 0.2;
+
+    /**
+     * 延迟容忍系数，短期延迟不超过基线的该倍数时不收缩上限
+     */
+    private double tolerance = 1.5;
+
+    /**
+     * 每个采样窗口包含的请求数
+     */
+    private int windowSize = 50;
+
+    /**
+     * 判定为失败的请求耗时（毫秒），超过时按失败计入并收缩上限
+     */
+    private long slowRequestMs = 5000;
+
+    /**
+     * 登录、注册、修改密码（BCrypt 计算密集）
+     */
+    private Group login = new Group(8, 2, 32);
+
+    /**
+     * 课程浏览（GET /courses/**）
+     */
+    private Group catalog = new Group(100, 10, 1000);
+
+    /**
+     * 订单写入（下单、支付、取消、退款、抢购）
+     */
+    private Group order = new Group(50, 5, 500);
+
+    @Data
+    public static class Group {
+        private int initialLimit;
+        private int minLimit;
+        private int maxLimit;
+
+        public Group() {
+        }
+
+        public Group(int initialLimit, int minLimit, int maxLimit) {
+            this.initialLimit = initialLimit;
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+        }
+    }
+}
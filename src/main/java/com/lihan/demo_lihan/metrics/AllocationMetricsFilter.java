@@ -0,0 +1,119 @@
+package com.lihan.demo_lihan.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import com.sun.management.ThreadMXBean;
+import java.lang.management.ManagementFactory;
+
+/**
+ * 统计每个请求在处理线程上分配的字节数，指标名 http.server.allocated.bytes，标签 method、uri（路由模板）
+ * 用 HotSpot 的线程分配计数（TLAB 级别，开销为两次计数器读取），只计请求线程：异步请求只计到异步处理开始，
+ * 入队下单的消费者线程、@Async 线程上的分配不计入。
+ * 虚拟线程上线程分配计数不可用（返回 -1），载体线程的计数又混有其它虚拟线程的分配，因此开启虚拟线程时不统计，
+ * 需要时用 JFR 录制的分配采样事件（jdk.ObjectAllocationSample）分析
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+public class AllocationMetricsFilter extends OncePerRequestFilter {
+
+    public static final String METRIC_NAME = "http.server.allocated.bytes";
+    public static final String ALLOCATED_BYTES_HEADER = "X-Allocated-Bytes";
+    private static final String UNKNOWN_URI = "UNKNOWN";
+
+    private final MeterRegistry meterRegistry;
+    private final MetricsProperties properties;
+    private final ThreadMXBean threadMXBean;
+
+    public AllocationMetricsFilter(MeterRegistry meterRegistry, MetricsProperties properties) {
+        this.meterRegistry = meterRegistry;
+        this.properties = properties;
+        this.threadMXBean = ManagementFactory.getThreadMXBean() instanceof ThreadMXBean bean
+                && bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled() ? bean : null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        long start = allocatedBytes();
+        if (start < 0) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        try {
+            filterChain.doFilter(request,
+                    properties.isAllocationHeaderEnabled() ? new AllocationHeaderResponse(response, start) : response);
+        } finally {
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            DistributionSummary.builder(METRIC_NAME)
+                    .baseUnit("bytes")
+                    .tag("method", request.getMethod())
+                    .tag("uri", pattern != null ? pattern.toString() : UNKNOWN_URI)
+                    .register(meterRegistry)
+                    .record(allocatedBytes() - start);
+        }
+    }
+
+    /**
+     * 当前线程累计分配的字节数，未启用、不支持或在虚拟线程上时返回 -1
+     */
+    long allocatedBytes() {
+        if (threadMXBean == null || !properties.isAllocationEnabled() || Thread.currentThread().isVirtual()) {
+            return -1;
+        }
+        return threadMXBean.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * 开始写响应体时加上 X-Allocated-Bytes 响应头（提交响应后不能再加），不含序列化响应体本身的分配
+     */
+    private final class AllocationHeaderResponse extends HttpServletResponseWrapper {
+
+        private final long start;
+        private boolean headerWritten;
+
+        AllocationHeaderResponse(HttpServletResponse response, long start) {
+            super(response);
+            this.start = start;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            writeHeader();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeHeader();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeHeader();
+            super.flushBuffer();
+        }
+
+        private void writeHeader() {
+            if (!headerWritten && !isCommitted()) {
+                headerWritten = true;
+                setHeader(ALLOCATED_BYTES_HEADER, String.valueOf(allocatedBytes() - start));
+            }
+        }
+    }
+}
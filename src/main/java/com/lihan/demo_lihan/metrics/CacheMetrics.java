@@ -0,0 +1,41 @@
+package com.lihan.demo_lihan.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 本地缓存、Redis 缓存的命中统计，指标名 cache.gets，标签 cache、result（hit/miss），与 Micrometer 缓存指标一致
+ */
+@Component
+@RequiredArgsConstructor
+public class CacheMetrics {
+
+    public static final String METRIC_NAME = "cache.gets";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Counter[]> counters = new ConcurrentHashMap<>();
+
+    public void hit(String cache) {
+        counters(cache)[0].increment();
+    }
+
+    public void miss(String cache) {
+        counters(cache)[1].increment();
+    }
+
+    public void record(String cache, boolean hit) {
+        counters(cache)[hit ? 0 : 1].increment();
+    }
+
+    private Counter[] counters(String cache) {
+        return counters.computeIfAbsent(cache, name -> new Counter[]{
+                Counter.builder(METRIC_NAME).tag("cache", name).tag("result", "hit").register(meterRegistry),
+                Counter.builder(METRIC_NAME).tag("cache", name).tag("result", "miss").register(meterRegistry)
+        });
+    }
+}
@@ -0,0 +1,24 @@
+package com.lihan.demo_lihan.metrics;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * 热点路径指标端点 /actuator/hotpath
+ */
+@Component
+@Endpoint(id = "hotpath")
+@RequiredArgsConstructor
+public class HotPathEndpoint {
+
+    private final HotPathMetrics hotPathMetrics;
+
+    @ReadOperation
+    public Map<String, Object> hotPath() {
+        return hotPathMetrics.snapshot();
+    }
+}
@@ -0,0 +1,148 @@
+package com.lihan.demo_lihan.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 热点路径指标快照：接口延迟分位数、service 方法耗时、缓存命中率、Redis 命令延迟、每请求 SQL 数、每请求分配字节数、JWT 认证耗时
+ * 供 /actuator/hotpath 端点和定期写文件使用，只读取已注册的指标，不额外计时
+ */
+@Component
+@RequiredArgsConstructor
+public class HotPathMetrics {
+
+    private static final String HTTP_REQUESTS = "http.server.requests";
+    private static final String REDIS_COMMANDS = "lettuce.command.completion";
+    private static final String JWT_AUTHENTICATION = "security.jwt.authentication";
+
+    private final MeterRegistry meterRegistry;
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("timestamp", LocalDateTime.now().toString());
+        snapshot.put("endpoints", timers(HTTP_REQUESTS, "method", "uri", "status"));
+        snapshot.put("services", timers(ServiceTimingAspect.METRIC_NAME, "class", "method", "exception"));
+        snapshot.put("caches", caches());
+        snapshot.put("redis", timers(REDIS_COMMANDS, "command"));
+        snapshot.put("sql", sqlPerRequest());
+        snapshot.put("allocations", allocationsPerRequest());
+        snapshot.put("jwt", timers(JWT_AUTHENTICATION, "result"));
+        return snapshot;
+    }
+
+    private List<Map<String, Object>> timers(String name, String... tagKeys) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Timer timer : meterRegistry.find(name).timers()) {
+            HistogramSnapshot histogram = timer.takeSnapshot();
+            if (histogram.count() == 0) {
+                continue;
+            }
+            Map<String, Object> row = tags(timer, tagKeys);
+            row.put("count", histogram.count());
+            row.put("meanMs", round(histogram.mean(TimeUnit.MILLISECONDS)));
+            row.put("maxMs", round(histogram.max(TimeUnit.MILLISECONDS)));
+            for (ValueAtPercentile percentile : histogram.percentileValues()) {
+                row.put(percentileKey(percentile.percentile(), "Ms"), round(percentile.value(TimeUnit.MILLISECONDS)));
+            }
+            rows.add(row);
+        }
+        rows.sort(Comparator.comparingLong((Map<String, Object> row) -> (Long) row.get("count")).reversed());
+        return rows;
+    }
+
+    private List<Map<String, Object>> caches() {
+        Map<String, double[]> counts = new TreeMap<>();
+        for (Counter counter : meterRegistry.find(CacheMetrics.METRIC_NAME).counters()) {
+            double[] hitMiss = counts.computeIfAbsent(counter.getId().getTag("cache"), cache -> new double[2]);
+            hitMiss["hit".equals(counter.getId().getTag("result")) ? 0 : 1] += counter.count();
+        }
+        List<Map<String, Object>> rows = new ArrayList<>();
+        counts.forEach((cache, hitMiss) -> {
+            Map<String, Object> row = new LinkedHashMap<>();
+            double total = hitMiss[0] + hitMiss[1];
+            row.put("cache", cache);
+            row.put("hits", (long) hitMiss[0]);
+            row.put("misses", (long) hitMiss[1]);
+            row.put("hitRatio", total == 0 ? null : round(hitMiss[0] / total));
+            rows.add(row);
+        });
+        return rows;
+    }
+
+    private List<Map<String, Object>> sqlPerRequest() {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (DistributionSummary summary : meterRegistry.find(RequestMetricsFilter.METRIC_NAME).summaries()) {
+            HistogramSnapshot histogram = summary.takeSnapshot();
+            if (histogram.count() == 0) {
+                continue;
+            }
+            Map<String, Object> row = tags(summary, "method", "uri");
+            row.put("requests", histogram.count());
+            row.put("statements", (long) histogram.total());
+            row.put("mean", round(histogram.mean()));
+            row.put("max", (long) histogram.max());
+            rows.add(row);
+        }
+        rows.sort(Comparator.comparingLong((Map<String, Object> row) -> (Long) row.get("statements")).reversed());
+        return rows;
+    }
+
+    /**
+     * 按分配总量排序，排在前面的接口是 GC 压力的主要来源
+     */
+    private List<Map<String, Object>> allocationsPerRequest() {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (DistributionSummary summary : meterRegistry.find(AllocationMetricsFilter.METRIC_NAME).summaries()) {
+            HistogramSnapshot histogram = summary.takeSnapshot();
+            if (histogram.count() == 0) {
+                continue;
+            }
+            Map<String, Object> row = tags(summary, "method", "uri");
+            row.put("requests", histogram.count());
+            row.put("totalBytes", (long) histogram.total());
+            row.put("meanBytes", (long) histogram.mean());
+            row.put("maxBytes", (long) histogram.max());
+            for (ValueAtPercentile percentile : histogram.percentileValues()) {
+                row.put(percentileKey(percentile.percentile(), "Bytes"), (long) percentile.value());
+            }
+            rows.add(row);
+        }
+        rows.sort(Comparator.comparingLong((Map<String, Object> row) -> (Long) row.get("totalBytes")).reversed());
+        return rows;
+    }
+
+    private static Map<String, Object> tags(Meter meter, String... tagKeys) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (String key : tagKeys) {
+            row.put(key, meter.getId().getTag(key));
+        }
+        return row;
+    }
+
+    private static String percentileKey(double percentile, String unit) {
+        String digits = BigDecimal.valueOf(percentile).movePointRight(2).stripTrailingZeros()
+                .toPlainString().replace(".", "");
+        return "p" + digits + unit;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+}
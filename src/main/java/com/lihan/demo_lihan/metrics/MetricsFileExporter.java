@@ -0,0 +1,47 @@
+package com.lihan.demo_lihan.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 定期把热点路径指标快照追加到本地文件（每行一个 JSON），文件过大时轮转为 .1
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MetricsFileExporter {
+
+    private final HotPathMetrics hotPathMetrics;
+    private final MetricsProperties properties;
+    private final ObjectMapper objectMapper;
+
+    @Scheduled(fixedDelayString = "${metrics.file-interval-ms:60000}", initialDelayString = "${metrics.file-interval-ms:60000}")
+    public void export() {
+        if (!properties.isFileEnabled()) {
+            return;
+        }
+        try {
+            Path path = Path.of(properties.getFilePath());
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            if (Files.exists(path) && Files.size(path) > properties.getFileMaxBytes()) {
+                Files.move(path, path.resolveSibling(path.getFileName() + ".1"), StandardCopyOption.REPLACE_EXISTING);
+            }
+            String line = objectMapper.writeValueAsString(hotPathMetrics.snapshot()) + System.lineSeparator();
+            Files.writeString(path, line, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            log.warn("写入指标快照失败: {}", e.getMessage());
+        }
+    }
+}
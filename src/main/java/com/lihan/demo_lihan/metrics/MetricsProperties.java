@@ -0,0 +1,102 @@
+package com.lihan.demo_lihan.metrics;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 热点路径指标配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "metrics")
+public class MetricsProperties {
+
+    /**
+     * 是否为 service 包下的公共方法记录耗时
+     */
+    private boolean serviceTimersEnabled = true;
+
+    /**
+     * 是否定期把指标快照写入本地文件
+     */
+    private boolean fileEnabled = true;
+
+    /**
+     * 快照文件路径（每行一个 JSON）
+     */
+    private String filePath = "data/metrics/hotpath.jsonl";
+
+    /**
+     * 写入间隔（毫秒）
+     */
+    private long fileIntervalMs = 60000;
+
+    /**
+     * 快照文件超过该大小（字节）时轮转为 .1
+     */
+    private long fileMaxBytes = 50L * 1024 * 1024;
+
+    /**
+     * 是否检查每个请求的 SQL 语句数（上限由接口上的 @SqlBudget 声明）
+     */
+    private boolean sqlBudgetEnabled = true;
+
+    /**
+     * 未声明 @SqlBudget 的接口使用的上限，小于 0 表示不检查
+     */
+    private int sqlBudgetDefault = 20;
+
+    /**
+     * 同一形状的语句在一个请求内执行达到该次数视为 N+1 查询，即使未超出上限
+     */
+    private int sqlRepeatThreshold = 10;
+
+    /**
+     * 超出时抛出异常（测试环境开启，使 MockMvc 请求失败），否则只记录警告日志
+     */
+    private boolean sqlBudgetFail = false;
+
+    /**
+     * 是否记录慢 SQL（包装数据源，/actuator/slowqueries 查看）
+     */
+    private boolean slowQueryEnabled = true;
+
+    /**
+     * 语句执行耗时达到该值（毫秒）记为慢 SQL，按环境配置
+     */
+    private long slowQueryMs = 200;
+
+    /**
+     * 保留最近的慢 SQL 条数
+     */
+    private int slowQueryCapacity = 200;
+
+    /**
+     * 每种语句形状第一次变慢时是否异步执行一次 EXPLAIN
+     */
+    private boolean slowQueryExplain = true;
+
+    /**
+     * 最多保存的执行计划数（语句形状数），超出后新形状不再 EXPLAIN
+     */
+    private int slowQueryMaxPlans = 500;
+
+    /**
+     * 绑定参数脱敏的列名
+     */
+    private List<String> slowQueryRedactedColumns = new ArrayList<>(List.of("password", "email", "phone", "payment_no"));
+
+    /**
+     * 是否统计每个请求在处理线程上分配的字节数（虚拟线程不支持线程分配计数，不统计）
+     */
+    private boolean allocationEnabled = true;
+
+    /**
+     * 是否在响应头 X-Allocated-Bytes 中返回本次请求写响应前已分配的字节数，用于调试
+     */
+    private boolean allocationHeaderEnabled = false;
+}
@@ -0,0 +1,112 @@
+package com.lihan.demo_lihan.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * 统计每个请求执行的 SQL 语句数，指标名 http.server.sql.statements，标签 method、uri（路由模板）
+ * 排在安全过滤链之前，JWT 认证时的用户查询也计入
+ * 请求正常结束后按 @SqlBudget 检查语句数，超出上限或出现重复执行的语句（N+1）时记录警告，测试环境直接抛出异常
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class RequestMetricsFilter extends OncePerRequestFilter {
+
+    public static final String METRIC_NAME = "http.server.sql.statements";
+    private static final String UNKNOWN_URI = "UNKNOWN";
+    private static final int REPORTED_SHAPES = 5;
+    private static final int SHAPE_LENGTH = 200;
+
+    private final MeterRegistry meterRegistry;
+    private final MetricsProperties properties;
+    private final Map<Method, Integer> budgets = new ConcurrentHashMap<>();
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        SqlStatementCounter.Statements previous = SqlStatementCounter.begin();
+        SqlStatementCounter.Statements statements;
+        Object pattern;
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            statements = SqlStatementCounter.end(previous);
+            pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            DistributionSummary.builder(METRIC_NAME)
+                    .baseUnit("statements")
+                    .tag("method", request.getMethod())
+                    .tag("uri", pattern != null ? pattern.toString() : UNKNOWN_URI)
+                    .register(meterRegistry)
+                    .record(statements.count());
+        }
+        if (properties.isSqlBudgetEnabled()) {
+            checkBudget(request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI()),
+                    request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE), statements);
+        }
+    }
+
+    private void checkBudget(String endpoint, Object handler, SqlStatementCounter.Statements statements) {
+        int budget = budget(handler);
+        if (budget < 0) {
+            return;
+        }
+        boolean overBudget = statements.count() > budget;
+        List<Map.Entry<String, Integer>> repeated = statements.repeated(2);
+        boolean nPlusOne = !repeated.isEmpty() && repeated.get(0).getValue() >= properties.getSqlRepeatThreshold();
+        if (!overBudget && !nPlusOne) {
+            return;
+        }
+        String message = String.format("%s: %s, statements=%d, budget=%d, repeated=%s",
+                overBudget ? "SQL 语句数超出预算" : "疑似 N+1 查询", endpoint, statements.count(), budget,
+                repeated.stream().limit(REPORTED_SHAPES)
+                        .map(entry -> entry.getValue() + "x " + abbreviate(entry.getKey()))
+                        .collect(Collectors.joining(" | ", "[", "]")));
+        if (properties.isSqlBudgetFail()) {
+            throw new IllegalStateException(message);
+        }
+        log.warn(message);
+    }
+
+    private static String abbreviate(String sql) {
+        return sql.length() <= SHAPE_LENGTH ? sql : sql.substring(0, SHAPE_LENGTH) + "...";
+    }
+
+    /**
+     * 方法上的 @SqlBudget 优先于类上的；未声明或不是控制器方法（静态资源、404）时使用默认上限
+     */
+    private int budget(Object handler) {
+        if (!(handler instanceof HandlerMethod handlerMethod)) {
+            return properties.getSqlBudgetDefault();
+        }
+        return budgets.computeIfAbsent(handlerMethod.getMethod(), method -> {
+            SqlBudget budget = AnnotatedElementUtils.findMergedAnnotation(method, SqlBudget.class);
+            if (budget == null) {
+                budget = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getBeanType(), SqlBudget.class);
+            }
+            return budget != null ? budget.value() : properties.getSqlBudgetDefault();
+        });
+    }
+}
@@ -0,0 +1,64 @@
+package com.lihan.demo_lihan.metrics;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+/**
+ * 慢 SQL 记录配置（metrics.slow-query-enabled=true 时生效）：主数据源包装为 SlowQueryDataSource
+ * 包装在分片、读写分离之外，记录的是应用实际发出的语句
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "metrics", name = "slow-query-enabled", havingValue = "true", matchIfMissing = true)
+public class SlowQueryConfig {
+
+    private static final String DATA_SOURCE_BEAN = "dataSource";
+
+    @Bean
+    public static SlowQueryPostProcessor slowQueryPostProcessor(Environment environment) {
+        MetricsProperties properties = Binder.get(environment)
+                .bind("metrics", MetricsProperties.class)
+                .orElseGet(MetricsProperties::new);
+        return new SlowQueryPostProcessor(properties);
+    }
+
+    @Bean
+    public SlowQueryEndpoint slowQueryEndpoint(SlowQueryPostProcessor slowQueryPostProcessor) {
+        return new SlowQueryEndpoint(slowQueryPostProcessor);
+    }
+
+    /**
+     * 包装数据源；与并发隔板一样不实现 Ordered，在分片包装之后执行
+     */
+    public static class SlowQueryPostProcessor implements BeanPostProcessor {
+
+        private final MetricsProperties properties;
+        private volatile SlowQueryLog slowQueryLog;
+
+        SlowQueryPostProcessor(MetricsProperties properties) {
+            this.properties = properties;
+        }
+
+        /**
+         * 数据源尚未创建时返回 null
+         */
+        public SlowQueryLog getSlowQueryLog() {
+            return slowQueryLog;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (DATA_SOURCE_BEAN.equals(beanName) && bean instanceof DataSource dataSource
+                    && !(bean instanceof SlowQueryDataSource)) {
+                slowQueryLog = new SlowQueryLog(dataSource, properties);
+                return new SlowQueryDataSource(dataSource, slowQueryLog);
+            }
+            return bean;
+        }
+    }
+}
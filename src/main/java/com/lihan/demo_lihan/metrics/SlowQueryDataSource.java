@@ -0,0 +1,241 @@
+package com.lihan.demo_lihan.metrics;
+
+import com.lihan.demo_lihan.jfr.JdbcStatementEvent;
+import com.lihan.demo_lihan.tracing.Span;
+import com.lihan.demo_lihan.tracing.Tracing;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * 记录慢 SQL 的数据源：包装连接和语句，在 execute* 前后计时，超过阈值的交给 SlowQueryLog；JFR 录制时同时提交 JdbcStatementEvent，
+ * 有进行中的调用链时记录 CLIENT span
+ * 耗时只含语句执行，不含逐行读取结果；查询的行数在结果集读完或关闭时统计，之后才写入记录
+ * 未超过阈值的语句只多一次计时，不包装结果集
+ */
+public class SlowQueryDataSource extends DelegatingDataSource implements Closeable {
+
+    private static final String REMOTE_SERVICE = "mysql";
+
+    private final SlowQueryLog slowQueryLog;
+
+    public SlowQueryDataSource(DataSource targetDataSource, SlowQueryLog slowQueryLog) {
+        super(targetDataSource);
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    public SlowQueryLog getSlowQueryLog() {
+        return slowQueryLog;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return connection(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return connection(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    @Override
+    public void close() throws IOException {
+        slowQueryLog.close();
+        if (obtainTargetDataSource() instanceof Closeable closeable) {
+            closeable.close();
+        }
+    }
+
+    private Connection connection(Connection target) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (isIdentityMethod(method)) {
+                        return identity(proxy, method, args);
+                    }
+                    Object result = delegate(target, method, args);
+                    return switch (method.getName()) {
+                        case "prepareStatement", "prepareCall" -> statement(result, (String) args[0]);
+                        case "createStatement" -> statement(result, null);
+                        default -> result;
+                    };
+                });
+    }
+
+    private Object statement(Object target, String sql) {
+        Class<?> type = target instanceof CallableStatement ? CallableStatement.class
+                : target instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, new StatementHandler(target, sql));
+    }
+
+    /**
+     * 记录绑定参数并给 execute* 计时；每个语句对象由一个线程使用，不需要同步
+     */
+    private final class StatementHandler implements InvocationHandler {
+
+        private final Object target;
+        private final String sql;
+        private final TreeMap<Integer, Object> binds = new TreeMap<>();
+        private final List<List<Object>> batch = new ArrayList<>();
+
+        StatementHandler(Object target, String sql) {
+            this.target = target;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (isIdentityMethod(method)) {
+                return identity(proxy, method, args);
+            }
+            String name = method.getName();
+            if (name.startsWith("execute")) {
+                return execute(method, args);
+            }
+            if (sql != null && name.startsWith("set") && args != null && args.length >= 2
+                    && args[0] instanceof Integer index) {
+                binds.put(index, name.equals("setNull") ? null : args[1]);
+            } else if (name.equals("clearParameters")) {
+                binds.clear();
+            } else if (name.equals("addBatch") && (args == null || args.length == 0)) {
+                batch.add(new ArrayList<>(binds.values()));
+            } else if (name.equals("clearBatch")) {
+                batch.clear();
+            }
+            return delegate(target, method, args);
+        }
+
+        private Object execute(Method method, Object[] args) throws Throwable {
+            // Statement.execute*(String sql) 带 SQL 参数，没有绑定参数
+            boolean prepared = args == null || args.length == 0 || !(args[0] instanceof String);
+            String executed = prepared ? sql : (String) args[0];
+            List<Object> executedBinds = prepared ? executedBinds(method) : List.of();
+            JdbcStatementEvent event = new JdbcStatementEvent();
+            Span span = Tracing.startSpan("jdbc", Span.KIND_CLIENT);
+            event.begin();
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = delegate(target, method, args);
+            } catch (Throwable e) {
+                span.error(e);
+                throw e;
+            } finally {
+                if (span.isRecording() && executed != null) {
+                    span.remoteService(REMOTE_SERVICE).tag("sql.query", SlowQueryLog.normalize(executed));
+                }
+                span.finish();
+            }
+            long elapsed = System.nanoTime() - start;
+            event.end();
+            if (method.getName().contains("Batch")) {
+                batch.clear();
+            }
+            if (executed != null && event.shouldCommit()) {
+                event.sql = SlowQueryLog.normalize(executed);
+                event.rows = rows(result);
+                event.commit();
+            }
+            if (executed == null || !slowQueryLog.isSlow(elapsed)) {
+                return result;
+            }
+            if (result instanceof ResultSet resultSet) {
+                return resultSet(resultSet, executed, executedBinds, elapsed);
+            }
+            slowQueryLog.record(executed, executedBinds, elapsed, rows(result));
+            return result;
+        }
+
+        /**
+         * 批量执行时取第一组参数，用于 EXPLAIN 和展示
+         */
+        private List<Object> executedBinds(Method method) {
+            if (method.getName().contains("Batch") && !batch.isEmpty()) {
+                return batch.get(0);
+            }
+            return new ArrayList<>(binds.values());
+        }
+    }
+
+    private static long rows(Object result) {
+        if (result instanceof Integer count) {
+            return count;
+        }
+        if (result instanceof Long count) {
+            return count;
+        }
+        if (result instanceof int[] counts) {
+            long rows = 0;
+            for (int count : counts) {
+                rows += Math.max(count, 0);
+            }
+            return rows;
+        }
+        if (result instanceof long[] counts) {
+            long rows = 0;
+            for (long count : counts) {
+                rows += Math.max(count, 0);
+            }
+            return rows;
+        }
+        return -1;
+    }
+
+    /**
+     * 统计结果集的行数，读完（next 返回 false）或关闭时记录，只记录一次
+     */
+    private ResultSet resultSet(ResultSet target, String sql, List<Object> binds, long elapsed) {
+        long[] rows = new long[1];
+        boolean[] recorded = new boolean[1];
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    if (isIdentityMethod(method)) {
+                        return identity(proxy, method, args);
+                    }
+                    Object result = delegate(target, method, args);
+                    String name = method.getName();
+                    boolean finished = name.equals("close") || (name.equals("next") && !(Boolean) result);
+                    if (name.equals("next") && (Boolean) result) {
+                        rows[0]++;
+                    } else if (finished && !recorded[0]) {
+                        recorded[0] = true;
+                        slowQueryLog.record(sql, binds, elapsed, rows[0]);
+                    }
+                    return result;
+                });
+    }
+
+    /**
+     * 代理对象按自身判等：Hibernate 以语句、结果集为键登记资源，转发给目标对象会导致找不到登记项
+     */
+    private static boolean isIdentityMethod(Method method) {
+        return (method.getName().equals("equals") && method.getParameterCount() == 1)
+                || (method.getName().equals("hashCode") && method.getParameterCount() == 0);
+    }
+
+    private static Object identity(Object proxy, Method method, Object[] args) {
+        return method.getName().equals("equals") ? proxy == args[0] : System.identityHashCode(proxy);
+    }
+
+    private static Object delegate(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
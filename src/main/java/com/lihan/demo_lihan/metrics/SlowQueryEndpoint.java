@@ -0,0 +1,41 @@
+package com.lihan.demo_lihan.metrics;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 慢 SQL 端点 /actuator/slowqueries：GET 查看最近的慢语句和执行计划，DELETE 清空
+ */
+@Endpoint(id = "slowqueries")
+@RequiredArgsConstructor
+public class SlowQueryEndpoint {
+
+    private final SlowQueryConfig.SlowQueryPostProcessor slowQueryPostProcessor;
+
+    @ReadOperation
+    public Map<String, Object> slowQueries() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        SlowQueryLog slowQueryLog = slowQueryPostProcessor.getSlowQueryLog();
+        if (slowQueryLog == null) {
+            return snapshot;
+        }
+        snapshot.put("thresholdMs", slowQueryLog.getThresholdMs());
+        snapshot.put("slowCount", slowQueryLog.getSlowCount());
+        snapshot.put("recent", slowQueryLog.recent());
+        snapshot.put("plans", slowQueryLog.plans());
+        return snapshot;
+    }
+
+    @DeleteOperation
+    public void clear() {
+        SlowQueryLog slowQueryLog = slowQueryPostProcessor.getSlowQueryLog();
+        if (slowQueryLog != null) {
+            slowQueryLog.clear();
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.lihan.demo_lihan.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * 慢 SQL 记录：最近的慢语句保存在有界环形队列中，绑定参数按列名脱敏
+ * 每种语句形状第一次变慢时在后台线程用原始绑定参数执行一次 EXPLAIN，执行计划按形状保存
+ */
+@Slf4j
+public class SlowQueryLog implements AutoCloseable {
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(\\.\\d+)?\\b");
+    private static final Pattern INSERT_COLUMNS =
+            Pattern.compile("^insert\\s+into\\s+\\S+\\s*\\(([^)]*)\\)\\s*values\\s*\\(", Pattern.CASE_INSENSITIVE);
+    private static final Pattern COMPARED_COLUMN =
+            Pattern.compile("([\\w.]+)\\s*(?:=|<>|!=|<=|>=|<|>|\\blike)\\s*$", Pattern.CASE_INSENSITIVE);
+    private static final Pattern IN_LIST_COLUMN =
+            Pattern.compile("([\\w.]+)\\s+in\\s*\\([?\\s,]*$", Pattern.CASE_INSENSITIVE);
+    private static final Set<String> EXPLAINABLE = Set.of("select", "with", "update", "delete");
+    private static final String REDACTED = "***";
+    private static final int MAX_BIND_LENGTH = 64;
+    private static final int MAX_PLAN_ROWS = 50;
+
+    private final DataSource dataSource;
+    private final long thresholdNanos;
+    private final int capacity;
+    private final boolean explainEnabled;
+    private final int maxPlans;
+    private final Set<String> redactedColumns;
+
+    private final ArrayDeque<SlowQuery> entries = new ArrayDeque<>();
+    private final Map<String, Plan> plans = new ConcurrentHashMap<>();
+    private final LongAdder slowCount = new LongAdder();
+    private final ThreadPoolExecutor explainExecutor;
+
+    /**
+     * 一条慢语句；rows 为返回或影响的行数，未知时为 -1
+     */
+    public record SlowQuery(LocalDateTime time, String shape, List<String> binds, long durationMs, long rows) {
+    }
+
+    /**
+     * 某种语句形状的执行计划；rows 为 EXPLAIN 的结果行，失败时 error 为异常信息，time 为空表示 EXPLAIN 尚未完成
+     */
+    public record Plan(String shape, String sql, LocalDateTime time, List<Map<String, Object>> rows, String error) {
+    }
+
+    /**
+     * @param dataSource 执行 EXPLAIN 使用的数据源（被包装前的数据源，EXPLAIN 本身不再记录）
+     */
+    public SlowQueryLog(DataSource dataSource, MetricsProperties properties) {
+        this.dataSource = dataSource;
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(properties.getSlowQueryMs());
+        this.capacity = properties.getSlowQueryCapacity();
+        this.explainEnabled = properties.isSlowQueryExplain();
+        this.maxPlans = properties.getSlowQueryMaxPlans();
+        this.redactedColumns = properties.getSlowQueryRedactedColumns().stream()
+                .map(column -> column.toLowerCase(Locale.ROOT))
+                .collect(Collectors.toUnmodifiableSet());
+        // 单线程、有界队列，排不上的 EXPLAIN 直接丢弃，下次该形状变慢时重试
+        this.explainExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(16),
+                runnable -> Thread.ofPlatform().name("slow-query-explain").daemon().unstarted(runnable),
+                (runnable, executor) -> {
+                    if (runnable instanceof ExplainTask task) {
+                        plans.remove(task.shape);
+                    }
+                });
+    }
+
+    public boolean isSlow(long elapsedNanos) {
+        return elapsedNanos >= thresholdNanos;
+    }
+
+    /**
+     * 记录一条慢语句
+     *
+     * @param sql   驱动收到的 SQL
+     * @param binds 按占位符顺序排列的原始绑定参数（只用于 EXPLAIN，不保存）
+     */
+    public void record(String sql, List<Object> binds, long elapsedNanos, long rows) {
+        String shape = normalize(sql);
+        long durationMs = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        SlowQuery entry = new SlowQuery(LocalDateTime.now(), shape, redact(sql, binds), durationMs, rows);
+        synchronized (entries) {
+            if (entries.size() == capacity) {
+                entries.removeFirst();
+            }
+            entries.addLast(entry);
+        }
+        slowCount.increment();
+        log.debug("慢 SQL: {}ms, rows={}, {}", durationMs, rows, shape);
+        if (explainEnabled && explainable(sql) && plans.size() < maxPlans
+                && plans.putIfAbsent(shape, new Plan(shape, sql, null, List.of(), null)) == null) {
+            explainExecutor.execute(new ExplainTask(shape, sql, new ArrayList<>(binds)));
+        }
+    }
+
+    /**
+     * 最近的慢语句（新的在前）
+     */
+    public List<SlowQuery> recent() {
+        List<SlowQuery> recent;
+        synchronized (entries) {
+            recent = new ArrayList<>(entries);
+        }
+        return recent.reversed();
+    }
+
+    public Map<String, Plan> plans() {
+        return Map.copyOf(plans);
+    }
+
+    public long getSlowCount() {
+        return slowCount.sum();
+    }
+
+    public long getThresholdMs() {
+        return TimeUnit.NANOSECONDS.toMillis(thresholdNanos);
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+        plans.clear();
+    }
+
+    @Override
+    public void close() {
+        explainExecutor.shutdownNow();
+    }
+
+    /**
+     * 归一化 SQL：折叠空白和 IN 列表，字符串、数字常量替换为占位符（非预编译语句中的常量）
+     */
+    static String normalize(String sql) {
+        String shape = SqlStatementCounter.Statements.shape(sql);
+        shape = STRING_LITERAL.matcher(shape).replaceAll("?");
+        return NUMBER_LITERAL.matcher(shape).replaceAll("?");
+    }
+
+    /**
+     * 按占位符对应的列名脱敏绑定参数；列名取自 INSERT 的列清单或占位符前的比较表达式，识别不出列名的参数保留原值
+     */
+    List<String> redact(String sql, List<Object> binds) {
+        List<String> columns = placeholderColumns(sql);
+        List<String> redacted = new ArrayList<>(binds.size());
+        for (int i = 0; i < binds.size(); i++) {
+            String column = i < columns.size() ? columns.get(i) : null;
+            redacted.add(column != null && redactedColumns.contains(column) ? REDACTED : render(binds.get(i)));
+        }
+        return redacted;
+    }
+
+    private static List<String> placeholderColumns(String sql) {
+        List<String> columns = new ArrayList<>();
+        Matcher insert = INSERT_COLUMNS.matcher(sql.trim());
+        if (insert.find()) {
+            for (String column : insert.group(1).split(",")) {
+                columns.add(column.trim().toLowerCase(Locale.ROOT));
+            }
+            return columns;
+        }
+        for (int i = sql.indexOf('?'); i >= 0; i = sql.indexOf('?', i + 1)) {
+            String prefix = sql.substring(0, i);
+            Matcher compared = COMPARED_COLUMN.matcher(prefix);
+            Matcher inList = IN_LIST_COLUMN.matcher(prefix);
+            String column = compared.find() ? compared.group(1) : inList.find() ? inList.group(1) : null;
+            columns.add(column == null ? null
+                    : column.substring(column.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT));
+        }
+        return columns;
+    }
+
+    private static String render(Object value) {
+        if (value == null) {
+            return "null";
+        }
+        if (value instanceof byte[] bytes) {
+            return "<" + bytes.length + " bytes>";
+        }
+        String text = value.toString();
+        return text.length() <= MAX_BIND_LENGTH ? text : text.substring(0, MAX_BIND_LENGTH) + "...";
+    }
+
+    private static boolean explainable(String sql) {
+        String trimmed = sql.stripLeading();
+        int end = 0;
+        while (end < trimmed.length() && Character.isLetter(trimmed.charAt(end))) {
+            end++;
+        }
+        return EXPLAINABLE.contains(trimmed.substring(0, end).toLowerCase(Locale.ROOT));
+    }
+
+    private final class ExplainTask implements Runnable {
+
+        private final String shape;
+        private final String sql;
+        private final List<Object> binds;
+
+        ExplainTask(String shape, String sql, List<Object> binds) {
+            this.shape = shape;
+            this.sql = sql;
+            this.binds = binds;
+        }
+
+        @Override
+        public void run() {
+            try (Connection connection = dataSource.getConnection();
+                 PreparedStatement explain = connection.prepareStatement("EXPLAIN " + sql)) {
+                for (int i = 0; i < binds.size(); i++) {
+                    explain.setObject(i + 1, binds.get(i));
+                }
+                List<Map<String, Object>> rows = new ArrayList<>();
+                try (ResultSet rs = explain.executeQuery()) {
+                    ResultSetMetaData metaData = rs.getMetaData();
+                    while (rs.next() && rows.size() < MAX_PLAN_ROWS) {
+                        Map<String, Object> row = new LinkedHashMap<>();
+                        for (int column = 1; column <= metaData.getColumnCount(); column++) {
+                            row.put(metaData.getColumnLabel(column), rs.getObject(column));
+                        }
+                        rows.add(row);
+                    }
+                }
+                plans.put(shape, new Plan(shape, sql, LocalDateTime.now(), rows, null));
+            } catch (SQLException | RuntimeException e) {
+                log.debug("慢 SQL 执行计划获取失败: {}", shape, e);
+                plans.put(shape, new Plan(shape, sql, LocalDateTime.now(), List.of(),
+                        e.getClass().getSimpleName() + ": " + e.getMessage()));
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.lihan.demo_lihan.metrics;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 声明接口每个请求最多执行的 SQL 语句数，由 RequestMetricsFilter 在请求结束后检查
+ * 计数包含 JWT 认证时加载用户的语句；标在类上时作用于该控制器未单独声明的方法
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface SqlBudget {
+
+    /**
+     * 语句数上限；小于 0 表示不检查（逐条处理的批量任务接口）
+     */
+    int value();
+}
@@ -0,0 +1,101 @@
+package com.lihan.demo_lihan.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * 统计当前线程执行的 Hibernate SQL 语句数，并按语句形状记录次数，用于发现 N+1 查询
+ * 请求开始时由 RequestMetricsFilter 调用 begin()，结束时 end() 取出计数；不在请求内的语句不计数。
+ * JdbcTemplate 直接执行的语句不经过 Hibernate，不在统计范围内。
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<Statements> CURRENT = new ThreadLocal<>();
+
+    /**
+     * 开始计数，返回外层的计数（嵌套调用时由 end 恢复）
+     */
+    public static Statements begin() {
+        Statements previous = CURRENT.get();
+        CURRENT.set(new Statements());
+        return previous;
+    }
+
+    /**
+     * 结束计数并返回本次执行的语句
+     */
+    public static Statements end(Statements previous) {
+        Statements statements = CURRENT.get();
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+        return statements == null ? new Statements() : statements;
+    }
+
+    /**
+     * 当前线程已执行的语句数（未开始计数时返回 -1）
+     */
+    public static int current() {
+        Statements statements = CURRENT.get();
+        return statements == null ? -1 : statements.count;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        Statements statements = CURRENT.get();
+        if (statements != null) {
+            statements.add(sql);
+        }
+        return sql;
+    }
+
+    /**
+     * 一次计数范围内执行的语句：总数和每条 SQL 文本的次数
+     * Hibernate 生成的 SQL 参数都是占位符，相同文本即同一形状；IN 列表长度不同的在 repeated 中合并
+     */
+    public static final class Statements {
+
+        private static final Pattern IN_LIST = Pattern.compile("\\(\\?(\\s*,\\s*\\?)+\\)");
+        private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+        private int count;
+        private final Map<String, Integer> texts = new HashMap<>();
+
+        void add(String sql) {
+            count++;
+            texts.merge(sql, 1, Integer::sum);
+        }
+
+        public int count() {
+            return count;
+        }
+
+        /**
+         * 执行次数不少于 minTimes 的语句形状及次数，按次数降序
+         */
+        public List<Map.Entry<String, Integer>> repeated(int minTimes) {
+            Map<String, Integer> shapes = new HashMap<>();
+            texts.forEach((sql, times) -> shapes.merge(shape(sql), times, Integer::sum));
+            List<Map.Entry<String, Integer>> repeated = new ArrayList<>();
+            for (Map.Entry<String, Integer> entry : shapes.entrySet()) {
+                if (entry.getValue() >= minTimes) {
+                    repeated.add(entry);
+                }
+            }
+            repeated.sort(Map.Entry.<String, Integer>comparingByValue().reversed());
+            return repeated;
+        }
+
+        static String shape(String sql) {
+            String collapsed = WHITESPACE.matcher(sql.trim()).replaceAll(" ");
+            return IN_LIST.matcher(collapsed).replaceAll("(?, ...)");
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.lihan.demo_lihan.entity.Course;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -11,6 +12,7 @@ import org.springframework.stereotype.Repository;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface CourseRepository extends JpaRepository<Course, Long> {
@@ -74,6 +76,12 @@ public interface CourseRepository extends JpaRepository<Course, Long> {
                                        @Param("status") String status, 
                                        Pageable pageable);
 
+    /**
+     * 查询课程所属教师ID
+     */
+    @Query("SELECT c.teacherId FROM Course c WHERE c.id = :courseId")
+    Optional<Long> findTeacherIdById(@Param("courseId") Long courseId);
+
     /**
      * 根据创建时间范围查找课程
      */
@@ -118,12 +126,14 @@ public interface CourseRepository extends JpaRepository<Course, Long> {
     /**
      * 更新课程浏览量
      */
+    @Modifying
     @Query("UPDATE Course c SET c.viewCount = c.viewCount + 1 WHERE c.id = :courseId")
     void incrementViewCount(@Param("courseId") Long courseId);
 
     /**
      * 更新课程学生数量
      */
+    @Modifying
     @Query("UPDATE Course c SET c.studentCount = c.studentCount + :increment WHERE c.id = :courseId")
     void updateStudentCount(@Param("courseId") Long courseId, @Param("increment") int increment);
 }
@@ -0,0 +1,64 @@
+package com.lihan.demo_lihan.repository;
+
+import com.lihan.demo_lihan.entity.OrderArchive;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface OrderArchiveRepository extends JpaRepository<OrderArchive, Long> {
+
+    /**
+     * 根据订单号查找归档订单
+     */
+    Optional<OrderArchive> findByOrderNumber(String orderNumber);
+
+    /**
+     * 归档订单号是否存在
+     */
+    boolean existsByOrderNumber(String orderNumber);
+
+    /**
+     * 根据用户ID查找归档订单
+     */
+    List<OrderArchive> findByUserIdOrderByCreatedTimeDesc(Long userId);
+
+    /**
+     * 统计用户归档订单数量（状态为空时不过滤）
+     */
+    @Query("SELECT COUNT(a) FROM OrderArchive a WHERE a.userId = :userId " +
+           "AND (:status IS NULL OR a.status = :status)")
+    long countByUserIdAndOptionalStatus(@Param("userId") Long userId, @Param("status") String status);
+
+    /**
+     * 查询用户已支付归档订单的课程ID和金额
+     */
+    @Query("SELECT a.courseId, a.amount FROM OrderArchive a WHERE a.userId = :userId AND a.status = 'PAID'")
+    List<Object[]> findPaidCourseAmountsByUserId(@Param("userId") Long userId);
+
+    /**
+     * 检查用户是否有已支付的归档订单购买了指定课程
+     */
+    @Query("SELECT COUNT(a) > 0 FROM OrderArchive a WHERE " +
+           "a.userId = :userId AND a.courseId = :courseId AND a.status = 'PAID'")
+    boolean existsByUserIdAndCourseIdAndPaid(@Param("userId") Long userId, @Param("courseId") Long courseId);
+
+    /**
+     * 把热表中的订单整行复制到归档表，ID 或订单号已存在时抛出异常（调用方回滚，不删除热表订单）
+     */
+    @Modifying
+    @Query(value = "INSERT INTO edu_order_archive (id, order_number, user_id, username, course_id, " +
+                   "course_title, original_price, discount_price, amount, status, payment_method, payment_no, " +
+                   "remark, pay_time, cancel_time, refund_time, expire_time, created_time, updated_time, archived_time) " +
+                   "SELECT id, order_number, user_id, username, course_id, course_title, original_price, " +
+                   "discount_price, amount, status, payment_method, payment_no, remark, pay_time, cancel_time, " +
+                   "refund_time, expire_time, created_time, updated_time, :now " +
+                   "FROM edu_order WHERE id IN (:ids)", nativeQuery = true)
+    int copyFromOrders(@Param("ids") List<Long> ids, @Param("now") LocalDateTime now);
+}
@@ -1,10 +1,14 @@
 package com.lihan.demo_lihan.repository;
 
 import com.lihan.demo_lihan.entity.Order;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -12,6 +16,7 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
@@ -21,6 +26,11 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
      */
     Optional<Order> findByOrderNumber(String orderNumber);
 
+    /**
+     * 订单号是否存在
+     */
+    boolean existsByOrderNumber(String orderNumber);
+
     /**
      * 根据用户ID查找订单
      */
@@ -76,6 +86,30 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
      */
     List<Order> findByPayTimeBetween(LocalDateTime startTime, LocalDateTime endTime);
 
+    /**
+     * 流式读取创建时间范围内的订单（导出用，MySQL 驱动逐行返回结果，需在事务内消费并及时 detach）
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT o FROM Order o WHERE o.createdTime BETWEEN :startTime AND :endTime")
+    Stream<Order> streamByCreatedTimeBetween(@Param("startTime") LocalDateTime startTime,
+                                             @Param("endTime") LocalDateTime endTime);
+
+    /**
+     * 流式读取支付时间范围内的订单（导出用，MySQL 驱动逐行返回结果，需在事务内消费并及时 detach）
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT o FROM Order o WHERE o.payTime BETWEEN :startTime AND :endTime")
+    Stream<Order> streamByPayTimeBetween(@Param("startTime") LocalDateTime startTime,
+                                         @Param("endTime") LocalDateTime endTime);
+
     /**
      * 查找待支付且已过期的订单
      */
@@ -115,6 +149,12 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
            "o.userId = :userId AND o.status = 'PAID'")
     BigDecimal calculateUserTotalSpending(@Param("userId") Long userId);
 
+    /**
+     * 查询用户已支付订单的课程ID和金额（用于加载购买画像）
+     */
+    @Query("SELECT o.courseId, o.amount FROM Order o WHERE o.userId = :userId AND o.status = 'PAID'")
+    List<Object[]> findPaidCourseAmountsByUserId(@Param("userId") Long userId);
+
     /**
      * 查找热销课程（根据已支付订单数量排序）
      */
@@ -129,4 +169,72 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
            "o.userId = :userId AND o.courseId = :courseId AND o.status = 'PAID'")
     boolean existsByUserIdAndCourseIdAndPaid(@Param("userId") Long userId, 
                                            @Param("courseId") Long courseId);
+
+    /**
+     * 状态迁移：待支付 -> 已支付（以期望状态和过期时间为条件，返回受影响行数）
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Order o SET o.status = :target, o.paymentMethod = :paymentMethod, " +
+           "o.paymentNo = :paymentNo, o.payTime = :now, o.updatedTime = :now " +
+           "WHERE o.orderNumber = :orderNumber AND o.status = :expected " +
+           "AND (o.expireTime IS NULL OR o.expireTime >= :now)")
+    int transitionToPaid(@Param("orderNumber") String orderNumber,
+                         @Param("expected") String expected,
+                         @Param("target") String target,
+                         @Param("paymentMethod") String paymentMethod,
+                         @Param("paymentNo") String paymentNo,
+                         @Param("now") LocalDateTime now);
+
+    /**
+     * 状态迁移：待支付 -> 已取消（以期望状态为条件，返回受影响行数）
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Order o SET o.status = :target, o.cancelTime = :now, o.updatedTime = :now, " +
+           "o.remark = COALESCE(:remark, o.remark) " +
+           "WHERE o.orderNumber = :orderNumber AND o.status = :expected")
+    int transitionToCancelled(@Param("orderNumber") String orderNumber,
+                              @Param("expected") String expected,
+                              @Param("target") String target,
+                              @Param("remark") String remark,
+                              @Param("now") LocalDateTime now);
+
+    /**
+     * 状态迁移：已支付 -> 已退款（以期望状态为条件，返回受影响行数）
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Order o SET o.status = :target, o.refundTime = :now, o.updatedTime = :now, " +
+           "o.remark = COALESCE(:remark, o.remark) " +
+           "WHERE o.orderNumber = :orderNumber AND o.status = :expected")
+    int transitionToRefunded(@Param("orderNumber") String orderNumber,
+                             @Param("expected") String expected,
+                             @Param("target") String target,
+                             @Param("remark") String remark,
+                             @Param("now") LocalDateTime now);
+
+    /**
+     * 状态迁移：待支付 -> 已过期（以期望状态和过期时间为条件，返回受影响行数）
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Order o SET o.status = :target, o.updatedTime = :now " +
+           "WHERE o.id = :id AND o.status = :expected AND o.expireTime < :now")
+    int transitionToExpired(@Param("id") Long id,
+                            @Param("expected") String expected,
+                            @Param("target") String target,
+                            @Param("now") LocalDateTime now);
+
+    /**
+     * 锁定一批可归档的终态订单ID（早于截止时间创建）
+     */
+    @Query(value = "SELECT id FROM edu_order WHERE status IN (:statuses) AND created_time < :cutoff " +
+                   "ORDER BY id LIMIT :limit FOR UPDATE", nativeQuery = true)
+    List<Long> lockArchivableIds(@Param("statuses") List<String> statuses,
+                                 @Param("cutoff") LocalDateTime cutoff,
+                                 @Param("limit") int limit);
+
+    /**
+     * 按ID批量删除订单（归档迁移后调用）
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Order o WHERE o.id IN :ids")
+    int deleteByIdIn(@Param("ids") List<Long> ids);
 }
@@ -0,0 +1,61 @@
+package com.lihan.demo_lihan.repository;
+
+import com.lihan.demo_lihan.entity.OrderRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OrderRollupRepository extends JpaRepository<OrderRollup, Long> {
+
+    /**
+     * 汇总指定维度在时间范围内的金额（左闭右开）
+     */
+    @Query("SELECT COALESCE(SUM(r.amount), 0) FROM OrderRollup r WHERE " +
+           "r.bucketType = :bucketType AND r.dimension = :dimension AND r.dimensionKey = :dimensionKey " +
+           "AND r.bucketStart >= :startTime AND r.bucketStart < :endTime")
+    BigDecimal sumAmount(@Param("bucketType") String bucketType,
+                         @Param("dimension") String dimension,
+                         @Param("dimensionKey") String dimensionKey,
+                         @Param("startTime") LocalDateTime startTime,
+                         @Param("endTime") LocalDateTime endTime);
+
+    /**
+     * 汇总指定维度某个时间桶的订单数
+     */
+    @Query("SELECT COALESCE(SUM(r.orderCount), 0) FROM OrderRollup r WHERE " +
+           "r.bucketType = :bucketType AND r.dimension = :dimension AND r.dimensionKey = :dimensionKey " +
+           "AND r.bucketStart = :bucketStart")
+    long sumOrderCount(@Param("bucketType") String bucketType,
+                       @Param("dimension") String dimension,
+                       @Param("dimensionKey") String dimensionKey,
+                       @Param("bucketStart") LocalDateTime bucketStart);
+
+    /**
+     * 按维度值分组统计某个时间桶（用于订单状态分布等）
+     */
+    @Query("SELECT r.dimensionKey, SUM(r.orderCount), SUM(r.amount) FROM OrderRollup r WHERE " +
+           "r.bucketType = :bucketType AND r.dimension = :dimension AND r.bucketStart = :bucketStart " +
+           "GROUP BY r.dimensionKey")
+    List<Object[]> sumByDimensionKey(@Param("bucketType") String bucketType,
+                                     @Param("dimension") String dimension,
+                                     @Param("bucketStart") LocalDateTime bucketStart);
+
+    /**
+     * 查询指定维度的时间序列（合并 slot，左闭右开）
+     */
+    @Query("SELECT r.bucketStart, SUM(r.orderCount), SUM(r.amount) FROM OrderRollup r WHERE " +
+           "r.bucketType = :bucketType AND r.dimension = :dimension AND r.dimensionKey = :dimensionKey " +
+           "AND r.bucketStart >= :startTime AND r.bucketStart < :endTime " +
+           "GROUP BY r.bucketStart ORDER BY r.bucketStart")
+    List<Object[]> findSeries(@Param("bucketType") String bucketType,
+                              @Param("dimension") String dimension,
+                              @Param("dimensionKey") String dimensionKey,
+                              @Param("startTime") LocalDateTime startTime,
+                              @Param("endTime") LocalDateTime endTime);
+}
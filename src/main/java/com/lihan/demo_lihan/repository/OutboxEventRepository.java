@@ -0,0 +1,28 @@
+package com.lihan.demo_lihan.repository;
+
+import com.lihan.demo_lihan.entity.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * 按ID顺序取一批待转发事件
+     */
+    @Query("SELECT e FROM OutboxEvent e ORDER BY e.id ASC")
+    List<OutboxEvent> findBatch(Pageable pageable);
+
+    /**
+     * 删除已转发的事件
+     */
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.id IN :ids")
+    int deleteByIdIn(@Param("ids") List<Long> ids);
+}
@@ -1,18 +1,24 @@
 package com.lihan.demo_lihan.repository;
 
 import com.lihan.demo_lihan.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
+@Transactional(readOnly = true)
 public interface UserRepository extends JpaRepository<User, Long> {
 
     /**
@@ -72,6 +78,17 @@ public interface UserRepository extends JpaRepository<User, Long> {
      */
     List<User> findByCreatedTimeBetween(LocalDateTime startTime, LocalDateTime endTime);
 
+    /**
+     * 流式读取全部用户的基本字段（导出用，只取标量列，避免加载 EAGER 的角色集合）
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT u.id, u.username, u.nickname, u.email, u.phone, u.isEnabled, u.isLocked, u.createdTime " +
+           "FROM User u")
+    Stream<Object[]> streamAllForExport();
+
     /**
      * 统计用户总数
      */
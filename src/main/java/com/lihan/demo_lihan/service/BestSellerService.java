@@ -0,0 +1,205 @@
+package com.lihan.demo_lihan.service;
+
+import com.lihan.demo_lihan.common.Constants;
+import com.lihan.demo_lihan.common.SpaceSavingSketch;
+import com.lihan.demo_lihan.config.BestSellerProperties;
+import com.lihan.demo_lihan.dto.BestSeller;
+import com.lihan.demo_lihan.entity.Order;
+import com.lihan.demo_lihan.event.OrderStatusChangedEvent;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.zset.Aggregate;
+import org.springframework.data.redis.connection.zset.Weights;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 畅销课程统计服务
+ * 支付成功后在本地 Space-Saving 结构中计数，定时把增量（扣除替换误差后的下界）合并到 Redis 的按天有序集合，
+ * 再按天衰减加权合并最近若干天得到榜单并缓存在本地，查询只需 O(K)。
+ * 退款时从支付当天的有序集合中扣减一次销量（支付已移出统计窗口的不处理）；
+ * 订单只有待支付时可以取消，取消的订单从未计入销量
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BestSellerService {
+
+    private static final DateTimeFormatter DAY_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    /**
+     * 扣减一次销量，有序集合尚未创建时按剩余窗口设置过期：KEYS[1] 支付当天的有序集合；ARGV[1] 课程ID，ARGV[2] 过期秒数
+     */
+    private static final DefaultRedisScript<Long> REFUND_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('ZINCRBY', KEYS[1], -1, ARGV[1]) " +
+            "if redis.call('TTL', KEYS[1]) < 0 then redis.call('EXPIRE', KEYS[1], ARGV[2]) end " +
+            "return 1", Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final BestSellerProperties properties;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private SpaceSavingSketch sketch;
+    private volatile List<BestSeller> ranking = List.of();
+
+    @PostConstruct
+    public void init() {
+        sketch = new SpaceSavingSketch(properties.getCapacity());
+    }
+
+    /**
+     * 订单支付成功并提交后计入本地统计，已支付订单退款后扣减
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        if (Constants.Order.STATUS_PAID.equals(event.getToStatus())) {
+            record(event.getOrder().getCourseId(), 1);
+        } else if (Constants.Order.STATUS_PAID.equals(event.getFromStatus())) {
+            subtract(event.getOrder());
+        }
+    }
+
+    /**
+     * 获取畅销课程榜单（最多 bestseller.top-k 条）
+     */
+    public List<BestSeller> getBestSellers(int limit) {
+        List<BestSeller> current = ranking;
+        return limit >= current.size() ? current : current.subList(0, Math.max(limit, 0));
+    }
+
+    /**
+     * 把本地计数合并到 Redis 并刷新榜单
+     */
+    @Scheduled(fixedDelayString = "${bestseller.flush-interval-ms:10000}")
+    public void flushAndRefresh() {
+        Map<Long, Long> counts;
+        lock.lock();
+        try {
+            counts = sketch.isEmpty() ? Map.of() : sketch.drain();
+        } finally {
+            lock.unlock();
+        }
+
+        if (!counts.isEmpty()) {
+            try {
+                mergeIntoRedis(counts);
+            } catch (Exception e) {
+                // Redis 不可用时放回本地，下次重试
+                log.warn("畅销课程计数合并到Redis失败，稍后重试: {}", e.getMessage());
+                counts.forEach(this::record);
+            }
+        }
+
+        try {
+            refreshRanking();
+        } catch (Exception e) {
+            log.warn("刷新畅销课程榜单失败: {}", e.getMessage());
+        }
+    }
+
+    private void record(Long courseId, long count) {
+        if (courseId == null) {
+            return;
+        }
+        lock.lock();
+        try {
+            sketch.offer(courseId, count);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 从支付当天的有序集合中扣减（退款较少，直接写 Redis；本地尚未合并的支付计数在下次合并时补上，结果一致）
+     */
+    private void subtract(Order order) {
+        if (order.getCourseId() == null) {
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        LocalDate payDay = order.getPayTime() != null ? order.getPayTime().toLocalDate() : today;
+        long age = ChronoUnit.DAYS.between(payDay, today);
+        if (age >= properties.getWindowDays()) {
+            return;
+        }
+        long ttlSeconds = (properties.getWindowDays() + 1 - age) * 86400L;
+        try {
+            redisTemplate.execute(REFUND_SCRIPT, List.of(dayKey(payDay)),
+                    String.valueOf(order.getCourseId()), String.valueOf(ttlSeconds));
+        } catch (Exception e) {
+            log.warn("畅销课程退款扣减失败: orderNumber={}, error={}", order.getOrderNumber(), e.getMessage());
+        }
+    }
+
+    /**
+     * 一次 pipeline 写入当天有序集合，并裁剪到 dailyRetain 个候选
+     */
+    private void mergeIntoRedis(Map<Long, Long> counts) {
+        byte[] key = dayKey(LocalDate.now()).getBytes(StandardCharsets.UTF_8);
+        long ttlSeconds = (properties.getWindowDays() + 1) * 86400L;
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            zIncrBy(connection, key, counts);
+            connection.zSetCommands().zRemRange(key, 0, -(properties.getDailyRetain() + 1L));
+            connection.keyCommands().expire(key, ttlSeconds);
+            return null;
+        });
+    }
+
+    private void zIncrBy(RedisConnection connection, byte[] key, Map<Long, Long> counts) {
+        for (Map.Entry<Long, Long> entry : counts.entrySet()) {
+            connection.zSetCommands().zIncrBy(key, entry.getValue(),
+                    String.valueOf(entry.getKey()).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * 按天衰减加权合并窗口内的有序集合，取前 K 名缓存到本地
+     */
+    private void refreshRanking() {
+        LocalDate today = LocalDate.now();
+        int windowDays = properties.getWindowDays();
+        List<String> otherKeys = new ArrayList<>(windowDays - 1);
+        double[] weights = new double[windowDays];
+        weights[0] = 1.0;
+        for (int day = 1; day < windowDays; day++) {
+            otherKeys.add(dayKey(today.minusDays(day)));
+            weights[day] = Math.pow(properties.getDecayFactor(), day);
+        }
+
+        ZSetOperations<String, String> zSetOps = redisTemplate.opsForZSet();
+        zSetOps.unionAndStore(dayKey(today), otherKeys, Constants.Cache.BESTSELLER_WINDOW_KEY,
+                Aggregate.SUM, Weights.of(weights));
+        Set<ZSetOperations.TypedTuple<String>> top = zSetOps.reverseRangeWithScores(
+                Constants.Cache.BESTSELLER_WINDOW_KEY, 0, properties.getTopK() - 1L);
+
+        List<BestSeller> refreshed = new ArrayList<>();
+        if (top != null) {
+            for (ZSetOperations.TypedTuple<String> tuple : top) {
+                refreshed.add(new BestSeller(Long.valueOf(tuple.getValue()), tuple.getScore()));
+            }
+        }
+        ranking = List.copyOf(refreshed);
+    }
+
+    private String dayKey(LocalDate day) {
+        return Constants.Cache.BESTSELLER_DAY_PREFIX + day.format(DAY_FORMATTER);
+    }
+}
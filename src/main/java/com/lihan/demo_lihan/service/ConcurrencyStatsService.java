@@ -0,0 +1,46 @@
+package com.lihan.demo_lihan.service;
+
+import com.lihan.demo_lihan.common.AdaptiveLimiter;
+import com.lihan.demo_lihan.common.Bulkhead;
+import com.lihan.demo_lihan.config.ConcurrencyLimitConfig.LimitPostProcessor;
+import com.lihan.demo_lihan.dto.ConcurrencyStats;
+import com.lihan.demo_lihan.limit.AdaptiveLimitFilter;
+import com.lihan.demo_lihan.limit.AdaptiveLimitProperties;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * 并发运行状态查询：隔板占用、自适应限流上限、载体线程钉住统计
+ */
+@Service
+@RequiredArgsConstructor
+public class ConcurrencyStatsService {
+
+    private final Environment environment;
+    private final ObjectProvider<LimitPostProcessor> limitPostProcessor;
+    private final VirtualThreadPinningMonitor pinningMonitor;
+    private final AdaptiveLimitFilter adaptiveLimitFilter;
+    private final AdaptiveLimitProperties adaptiveLimitProperties;
+
+    public ConcurrencyStats getStats() {
+        LimitPostProcessor limits = limitPostProcessor.getIfAvailable();
+        List<Bulkhead.Stats> bulkheads = limits == null
+                ? List.of()
+                : limits.getBulkheads().stream().map(Bulkhead::stats).toList();
+        List<AdaptiveLimiter.Stats> adaptiveLimits = adaptiveLimitProperties.isEnabled()
+                ? adaptiveLimitFilter.getLimiters().stream().map(AdaptiveLimiter::stats).toList()
+                : List.of();
+        return new ConcurrencyStats(
+                environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false),
+                bulkheads,
+                adaptiveLimits,
+                pinningMonitor.isRunning(),
+                pinningMonitor.getPinnedCount(),
+                pinningMonitor.getMaxPinnedMs(),
+                pinningMonitor.getPinnedSites());
+    }
+}
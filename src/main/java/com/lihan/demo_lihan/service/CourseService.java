@@ -3,9 +3,11 @@ package com.lihan.demo_lihan.service;
 import com.lihan.demo_lihan.common.BusinessException;
 import com.lihan.demo_lihan.common.Utils;
 import com.lihan.demo_lihan.entity.Course;
+import com.lihan.demo_lihan.event.CourseStatusChangedEvent;
 import com.lihan.demo_lihan.repository.CourseRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -22,10 +24,12 @@ import java.util.Optional;
 public class CourseService {
 
     private final CourseRepository courseRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * 根据ID查找课程
      */
+    @Transactional(readOnly = true)
     public Optional<Course> findById(Long id) {
         if (id == null) {
             return Optional.empty();
@@ -36,6 +40,7 @@ public class CourseService {
     /**
      * 分页查询课程（支持关键字搜索）
      */
+    @Transactional(readOnly = true)
     public Page<Course> findByKeywordAndStatus(String keyword, String status, Pageable pageable) {
         return courseRepository.findByKeywordAndStatus(keyword, status, pageable);
     }
@@ -43,6 +48,7 @@ public class CourseService {
     /**
      * 获取所有已发布的课程
      */
+    @Transactional(readOnly = true)
     public List<Course> findPublishedCourses() {
         return courseRepository.findByStatusOrderByCreatedTimeDesc("PUBLISHED");
     }
@@ -50,6 +56,7 @@ public class CourseService {
     /**
      * 获取热门课程
      */
+    @Transactional(readOnly = true)
     public List<Course> findHotCourses() {
         return courseRepository.findByIsHotTrueAndStatusOrderByViewCountDesc("PUBLISHED");
     }
@@ -57,6 +64,7 @@ public class CourseService {
     /**
      * 获取推荐课程
      */
+    @Transactional(readOnly = true)
     public List<Course> findRecommendedCourses() {
         return courseRepository.findByIsRecommendedTrueAndStatusOrderBySortOrder("PUBLISHED");
     }
@@ -64,6 +72,7 @@ public class CourseService {
     /**
      * 根据教师ID查找课程
      */
+    @Transactional(readOnly = true)
     public List<Course> findByTeacherId(Long teacherId) {
         if (teacherId == null) {
             return List.of();
@@ -74,6 +83,7 @@ public class CourseService {
     /**
      * 根据分类ID查找课程
      */
+    @Transactional(readOnly = true)
     public List<Course> findByCategoryId(Long categoryId) {
         if (categoryId == null) {
             return List.of();
@@ -171,9 +181,11 @@ public class CourseService {
         Course course = courseRepository.findById(courseId)
                 .orElseThrow(() -> new BusinessException("课程不存在"));
         
+        String fromStatus = course.getStatus();
         course.setStatus("PUBLISHED");
         course.setPublishedTime(LocalDateTime.now());
         courseRepository.save(course);
+        eventPublisher.publishEvent(new CourseStatusChangedEvent(course, fromStatus, course.getStatus()));
         
         log.info("发布课程成功: id={}, title={}", courseId, course.getTitle());
     }
@@ -186,8 +198,10 @@ public class CourseService {
         Course course = courseRepository.findById(courseId)
                 .orElseThrow(() -> new BusinessException("课程不存在"));
         
+        String fromStatus = course.getStatus();
         course.setStatus("OFFLINE");
         courseRepository.save(course);
+        eventPublisher.publishEvent(new CourseStatusChangedEvent(course, fromStatus, course.getStatus()));
         
         log.info("下架课程成功: id={}, title={}", courseId, course.getTitle());
     }
@@ -0,0 +1,55 @@
+package com.lihan.demo_lihan.service;
+
+import com.lihan.demo_lihan.datasource.RoutingDataSource;
+import com.lihan.demo_lihan.datasource.RoutingDataSource.PoolStats;
+import com.lihan.demo_lihan.datasource.ShardedDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 数据库连接池状态查询，启用读写分离时按主库、从库分别统计，启用订单分片时追加各分片连接池
+ */
+@Service
+@RequiredArgsConstructor
+public class DataSourceStatsService {
+
+    private final DataSource dataSource;
+    private final ObjectProvider<RoutingDataSource> routingDataSource;
+
+    public Map<String, PoolStats> getPoolStats() {
+        try {
+            if (dataSource.isWrapperFor(ShardedDataSource.class)) {
+                ShardedDataSource sharded = dataSource.unwrap(ShardedDataSource.class);
+                Map<String, PoolStats> stats = new LinkedHashMap<>(defaultPoolStats(sharded.getRouter().getDefaultShard()));
+                stats.putAll(sharded.getRouter().shardPoolStats());
+                return stats;
+            }
+        } catch (SQLException e) {
+            // 按未分片处理
+        }
+        return defaultPoolStats(dataSource);
+    }
+
+    private Map<String, PoolStats> defaultPoolStats(DataSource target) {
+        RoutingDataSource routing = routingDataSource.getIfAvailable();
+        if (routing != null) {
+            return routing.poolStats();
+        }
+        try {
+            if (target.isWrapperFor(HikariDataSource.class)) {
+                HikariDataSource pool = target.unwrap(HikariDataSource.class);
+                return Map.of(RoutingDataSource.PRIMARY, PoolStats.of(pool, 0));
+            }
+        } catch (SQLException e) {
+            // 非 Hikari 连接池不提供统计
+        }
+        return Map.of();
+    }
+}
@@ -0,0 +1,137 @@
+package com.lihan.demo_lihan.service;
+
+import com.lihan.demo_lihan.common.BusinessException;
+import com.lihan.demo_lihan.common.CsvWriter;
+import com.lihan.demo_lihan.datasource.ShardTemplate;
+import com.lihan.demo_lihan.entity.Order;
+import com.lihan.demo_lihan.repository.OrderRepository;
+import com.lihan.demo_lihan.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 数据导出服务
+ * 结果集逐行流式读取，边读边写 CSV 并 gzip 压缩到输出流，每行写完即 detach 实体，
+ * 堆内存占用与导出行数无关
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ExportService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String UTF8_BOM = "\uFEFF";
+
+    private final OrderRepository orderRepository;
+    private final UserRepository userRepository;
+    private final EntityManager entityManager;
+    private final ShardTemplate shardTemplate;
+    private final PlatformTransactionManager transactionManager;
+
+    /**
+     * 导出订单，timeField 为 created（按创建时间）或 paid（按支付时间）
+     * 订单分片时依次流式读取各分片（每个分片一个只读事务），写入同一个文件
+     */
+    public long exportOrders(String timeField, LocalDateTime startTime, LocalDateTime endTime,
+                             OutputStream out) throws IOException {
+        if (startTime == null || endTime == null || startTime.isAfter(endTime)) {
+            throw new BusinessException("导出时间范围不正确");
+        }
+
+        long start = System.currentTimeMillis();
+        AtomicLong rows = new AtomicLong();
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        writeGzipCsv(out, csv -> {
+            csv.writeRow("订单号", "用户ID", "用户名", "课程ID", "课程名称", "原价", "优惠价", "实付金额",
+                    "状态", "支付方式", "支付流水号", "创建时间", "支付时间", "取消时间", "退款时间");
+            shardTemplate.forEachShard(() -> readOnly.executeWithoutResult(status -> {
+                try (Stream<Order> orders = "paid".equals(timeField)
+                        ? orderRepository.streamByPayTimeBetween(startTime, endTime)
+                        : orderRepository.streamByCreatedTimeBetween(startTime, endTime)) {
+                    orders.forEach(order -> {
+                        writeRow(csv, order.getOrderNumber(), order.getUserId(), order.getUsername(),
+                                order.getCourseId(), order.getCourseTitle(), order.getOriginalPrice(),
+                                order.getDiscountPrice(), order.getAmount(), order.getStatus(),
+                                order.getPaymentMethod(), order.getPaymentNo(), order.getCreatedTime(),
+                                order.getPayTime(), order.getCancelTime(), order.getRefundTime());
+                        entityManager.detach(order);
+                        rows.incrementAndGet();
+                    });
+                }
+            }));
+        });
+
+        log.info("订单导出完成: timeField={}, rows={}, cost={}ms", timeField, rows.get(),
+                System.currentTimeMillis() - start);
+        return rows.get();
+    }
+
+    /**
+     * 导出全部用户（不含密码）
+     */
+    @Transactional(readOnly = true)
+    public long exportUsers(OutputStream out) throws IOException {
+        long start = System.currentTimeMillis();
+        AtomicLong rows = new AtomicLong();
+        try (Stream<Object[]> users = userRepository.streamAllForExport()) {
+            writeGzipCsv(out, csv -> {
+                csv.writeRow("用户ID", "用户名", "昵称", "邮箱", "手机号", "是否启用", "是否锁定", "注册时间");
+                users.forEach(row -> {
+                    writeRow(csv, row);
+                    rows.incrementAndGet();
+                });
+            });
+        }
+
+        log.info("用户导出完成: rows={}, cost={}ms", rows.get(), System.currentTimeMillis() - start);
+        return rows.get();
+    }
+
+    private void writeGzipCsv(OutputStream out, CsvBody body) throws IOException {
+        GZIPOutputStream gzip = new GZIPOutputStream(out, BUFFER_SIZE);
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(gzip, StandardCharsets.UTF_8), BUFFER_SIZE);
+        writer.write(UTF8_BOM);
+        CsvWriter csv = new CsvWriter(writer);
+        try {
+            body.write(csv);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        csv.flush();
+        gzip.finish();
+        out.flush();
+    }
+
+    private void writeRow(CsvWriter csv, Object... values) {
+        try {
+            csv.writeRow(values);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * CSV 内容写入回调
+     */
+    @FunctionalInterface
+    private interface CsvBody {
+        void write(CsvWriter csv) throws IOException;
+    }
+}
@@ -0,0 +1,233 @@
+package com.lihan.demo_lihan.service;
+
+import com.lihan.demo_lihan.common.BusinessException;
+import com.lihan.demo_lihan.common.Constants;
+import com.lihan.demo_lihan.common.ResultCode;
+import com.lihan.demo_lihan.config.FlashSaleProperties;
+import com.lihan.demo_lihan.dto.FlashSaleReservation;
+import com.lihan.demo_lihan.entity.Course;
+import com.lihan.demo_lihan.entity.Order;
+import com.lihan.demo_lihan.event.OrderStatusChangedEvent;
+import com.lihan.demo_lihan.metrics.CacheMetrics;
+import com.lihan.demo_lihan.repository.CourseRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 限量抢购服务
+ * 每门抢购课程在 Redis 中保存剩余名额和“用户 -> 订单号”的持有表，抢购、释放都由 Lua 脚本原子完成，
+ * 超卖判断不经过数据库；抢到名额后订单异步写入 edu_order（优先走入队下单，未启用时使用有界线程池），
+ * 返回的 future 在订单写入后完成，写入失败时先释放名额再以失败结束；订单取消、过期时同样释放名额。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FlashSaleService {
+
+    /**
+     * 抢购：KEYS[1] 剩余名额，KEYS[2] 持有表；ARGV[1] 用户ID，ARGV[2] 订单号。
+     * 返回剩余名额，-1 已抢完，-2 已持有，-3 未开启
+     */
+    private static final DefaultRedisScript<Long> RESERVE_SCRIPT = new DefaultRedisScript<>(
+            "local stock = tonumber(redis.call('GET', KEYS[1])) " +
+            "if stock == nil then return -3 end " +
+            "if redis.call('HEXISTS', KEYS[2], ARGV[1]) == 1 then return -2 end " +
+            "if stock <= 0 then return -1 end " +
+            "redis.call('HSET', KEYS[2], ARGV[1], ARGV[2]) " +
+            "return redis.call('DECR', KEYS[1])", Long.class);
+
+    /**
+     * 释放：仅当持有表中该用户对应的正是此订单号时归还名额，重复调用无副作用
+     */
+    private static final DefaultRedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('HGET', KEYS[2], ARGV[1]) ~= ARGV[2] then return 0 end " +
+            "redis.call('HDEL', KEYS[2], ARGV[1]) " +
+            "redis.call('INCR', KEYS[1]) " +
+            "return 1", Long.class);
+
+    /**
+     * 设置名额：剩余名额 = 总名额 - 当前持有数，返回剩余名额
+     */
+    private static final DefaultRedisScript<Long> INIT_SCRIPT = new DefaultRedisScript<>(
+            "local remaining = tonumber(ARGV[1]) - redis.call('HLEN', KEYS[2]) " +
+            "if remaining < 0 then remaining = 0 end " +
+            "redis.call('SET', KEYS[1], remaining) " +
+            "return remaining", Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final CourseRepository courseRepository;
+    private final OrderService orderService;
+    private final OrderIngestionService orderIngestionService;
+    private final FlashSaleProperties properties;
+    private final CacheMetrics cacheMetrics;
+
+    private final Map<Long, CachedCourse> courseCache = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor persistExecutor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger counter = new AtomicInteger();
+        persistExecutor = new ThreadPoolExecutor(properties.getPersistThreads(), properties.getPersistThreads(),
+                0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(properties.getPersistQueueCapacity()),
+                runnable -> Thread.ofPlatform().name("flashsale-persist-" + counter.incrementAndGet()).unstarted(runnable));
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        persistExecutor.shutdown();
+        persistExecutor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 设置课程抢购名额和价格，返回当前剩余名额
+     */
+    @Transactional
+    public long openFlashSale(Long courseId, int seatCapacity, BigDecimal flashSalePrice) {
+        if (seatCapacity < 0 || flashSalePrice == null || flashSalePrice.compareTo(BigDecimal.ZERO) < 0) {
+            throw new BusinessException("抢购名额或价格不正确");
+        }
+        Course course = courseRepository.findById(courseId)
+                .orElseThrow(() -> new BusinessException("课程不存在"));
+        course.setSeatCapacity(seatCapacity);
+        course.setFlashSalePrice(flashSalePrice);
+        courseRepository.save(course);
+        courseCache.remove(courseId);
+
+        Long remaining = redisTemplate.execute(INIT_SCRIPT, keys(courseId), String.valueOf(seatCapacity));
+        log.info("设置课程抢购名额: courseId={}, seats={}, price={}, remaining={}",
+                courseId, seatCapacity, flashSalePrice, remaining);
+        return remaining == null ? 0 : remaining;
+    }
+
+    /**
+     * 抢购课程名额，抢到后异步创建订单，订单写入后完成
+     */
+    public CompletableFuture<FlashSaleReservation> reserve(Long userId, String username, Long courseId) {
+        Course course = flashSaleCourse(courseId);
+        if (course == null || !Constants.Course.STATUS_PUBLISHED.equals(course.getStatus())) {
+            throw new BusinessException(ResultCode.FLASH_SALE_NOT_OPEN);
+        }
+
+        String orderNumber = orderService.generateOrderNumber(userId);
+        Long result = redisTemplate.execute(RESERVE_SCRIPT, keys(courseId), String.valueOf(userId), orderNumber);
+        if (result == null || result == -3) {
+            throw new BusinessException(ResultCode.FLASH_SALE_NOT_OPEN);
+        }
+        if (result == -2) {
+            throw new BusinessException(ResultCode.FLASH_SALE_ALREADY_RESERVED);
+        }
+        if (result == -1) {
+            throw new BusinessException(ResultCode.FLASH_SALE_SOLD_OUT);
+        }
+
+        Order order = new Order();
+        order.setOrderNumber(orderNumber);
+        order.setUserId(userId);
+        order.setUsername(username);
+        order.setCourseId(courseId);
+        order.setCourseTitle(course.getTitle());
+        order.setOriginalPrice(course.getPrice());
+        order.setDiscountPrice(course.getPrice().subtract(course.getFlashSalePrice()).max(BigDecimal.ZERO));
+        order.setAmount(course.getFlashSalePrice());
+        long remainingSeats = result;
+        return persist(order).thenApply(saved ->
+                new FlashSaleReservation(orderNumber, courseId, userId, saved.getAmount(), remainingSeats));
+    }
+
+    /**
+     * 抢购订单取消或过期并提交后释放名额
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        String toStatus = event.getToStatus();
+        if (!Constants.Order.STATUS_CANCELLED.equals(toStatus) && !Constants.Order.STATUS_EXPIRED.equals(toStatus)) {
+            return;
+        }
+        Order order = event.getOrder();
+        if (flashSaleCourse(order.getCourseId()) != null) {
+            release(order);
+        }
+    }
+
+    private CompletableFuture<Order> persist(Order order) {
+        CompletableFuture<Order> future;
+        try {
+            future = orderIngestionService.isEnabled()
+                    ? orderIngestionService.submit(order)
+                    : CompletableFuture.supplyAsync(() -> orderService.createOrder(order), persistExecutor);
+        } catch (BusinessException | RejectedExecutionException e) {
+            release(order);
+            throw new BusinessException(ResultCode.SYSTEM_BUSY);
+        }
+
+        return future.handle((saved, error) -> {
+            if (error == null) {
+                return saved;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            log.warn("抢购订单写入失败，释放名额: orderNumber={}, error={}", order.getOrderNumber(), cause.getMessage());
+            release(order);
+            throw cause instanceof BusinessException businessException
+                    ? businessException
+                    : new BusinessException(ResultCode.FLASH_SALE_PERSIST_FAILED);
+        });
+    }
+
+    private void release(Order order) {
+        try {
+            Long released = redisTemplate.execute(RELEASE_SCRIPT, keys(order.getCourseId()),
+                    String.valueOf(order.getUserId()), order.getOrderNumber());
+            if (released != null && released == 1) {
+                log.info("释放课程抢购名额: courseId={}, orderNumber={}", order.getCourseId(), order.getOrderNumber());
+            }
+        } catch (Exception e) {
+            log.error("释放课程抢购名额失败: courseId={}, orderNumber={}", order.getCourseId(), order.getOrderNumber(), e);
+        }
+    }
+
+    /**
+     * 读取开启了限量抢购的课程（本地缓存，未开启时返回 null）
+     */
+    private Course flashSaleCourse(Long courseId) {
+        long now = System.currentTimeMillis();
+        CachedCourse cached = courseCache.get(courseId);
+        boolean hit = cached != null && now - cached.loadedAt() <= TimeUnit.SECONDS.toMillis(properties.getCourseCacheSeconds());
+        cacheMetrics.record("flashsale-course", hit);
+        if (!hit) {
+            Course course = courseRepository.findById(courseId)
+                    .filter(c -> c.getSeatCapacity() != null && c.getFlashSalePrice() != null)
+                    .orElse(null);
+            cached = new CachedCourse(course, now);
+            courseCache.put(courseId, cached);
+        }
+        return cached.course();
+    }
+
+    private static List<String> keys(Long courseId) {
+        String prefix = Constants.Cache.FLASHSALE_PREFIX + "{" + courseId + "}:";
+        return List.of(prefix + "stock", prefix + "holders");
+    }
+
+    private record CachedCourse(Course course, long loadedAt) {
+    }
+}
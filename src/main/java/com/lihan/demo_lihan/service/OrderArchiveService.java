@@ -0,0 +1,183 @@
+package com.lihan.demo_lihan.service;
+
+import com.lihan.demo_lihan.common.BusinessException;
+import com.lihan.demo_lihan.common.Constants;
+import com.lihan.demo_lihan.config.ArchiveProperties;
+import com.lihan.demo_lihan.datasource.ShardTemplate;
+import com.lihan.demo_lihan.entity.Order;
+import com.lihan.demo_lihan.entity.OrderArchive;
+import com.lihan.demo_lihan.repository.OrderArchiveRepository;
+import com.lihan.demo_lihan.repository.OrderRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 订单冷热分离服务
+ * 终态订单（已支付、已退款、已取消、已过期）创建超过保留期后分批迁入 edu_order_archive，
+ * 热表只保留近期订单，索引可以常驻内存；用户历史查询通过本服务透明地读取归档表。
+ * 迁移时对批内订单加行锁，归档后的订单不再接受状态变更（如退款）。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderArchiveService {
+
+    private static final List<String> TERMINAL_STATUSES = List.of(
+            Constants.Order.STATUS_PAID,
+            Constants.Order.STATUS_REFUNDED,
+            Constants.Order.STATUS_CANCELLED,
+            Constants.Order.STATUS_EXPIRED);
+
+    private final OrderRepository orderRepository;
+    private final OrderArchiveRepository orderArchiveRepository;
+    private final ArchiveProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final ShardTemplate shardTemplate;
+
+    private final ReentrantLock runLock = new ReentrantLock();
+
+    /**
+     * 定时归档
+     */
+    @Scheduled(cron = "${archive.order.cron:0 30 3 * * ?}")
+    public void scheduledArchive() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        try {
+            archiveOrders();
+        } catch (Exception e) {
+            log.error("订单归档失败: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 把超过保留期的终态订单分批迁入归档表（逐个分片），返回迁移的订单数
+     */
+    public int archiveOrders() {
+        if (!runLock.tryLock()) {
+            throw new BusinessException("订单归档任务正在执行");
+        }
+        try {
+            long start = System.currentTimeMillis();
+            LocalDateTime cutoff = LocalDateTime.now().minusMonths(properties.getRetentionMonths());
+            AtomicInteger total = new AtomicInteger();
+            shardTemplate.forEachShard(() -> {
+                while (true) {
+                    Integer moved = transactionTemplate.execute(status -> archiveBatch(cutoff));
+                    total.addAndGet(moved == null ? 0 : moved);
+                    if (moved == null || moved < properties.getBatchSize()) {
+                        break;
+                    }
+                    pause();
+                }
+            });
+            log.info("订单归档完成: cutoff={}, orders={}, cost={}ms", cutoff, total.get(),
+                    System.currentTimeMillis() - start);
+            return total.get();
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    /**
+     * 根据ID查找归档订单
+     */
+    public Optional<Order> findById(Long id) {
+        return orderArchiveRepository.findById(id).map(OrderArchiveService::toOrder);
+    }
+
+    /**
+     * 根据订单号查找归档订单
+     */
+    public Optional<Order> findByOrderNumber(String orderNumber) {
+        return orderArchiveRepository.findByOrderNumber(orderNumber).map(OrderArchiveService::toOrder);
+    }
+
+    /**
+     * 归档表中是否存在该订单号
+     */
+    public boolean existsByOrderNumber(String orderNumber) {
+        return orderArchiveRepository.existsByOrderNumber(orderNumber);
+    }
+
+    /**
+     * 查找用户全部归档订单（按创建时间倒序）
+     */
+    public List<Order> findByUserId(Long userId) {
+        return orderArchiveRepository.findByUserIdOrderByCreatedTimeDesc(userId).stream()
+                .map(OrderArchiveService::toOrder)
+                .toList();
+    }
+
+    /**
+     * 统计用户归档订单数量（状态为空时不过滤）
+     */
+    public long countByUserIdAndStatus(Long userId, String status) {
+        return orderArchiveRepository.countByUserIdAndOptionalStatus(userId, status);
+    }
+
+    /**
+     * 按偏移量查询用户归档订单（按创建时间倒序），用于与热表结果拼接分页
+     */
+    public List<Order> findByUserIdAndStatus(Long userId, String status, long offset, int limit) {
+        return entityManager.createQuery("SELECT a FROM OrderArchive a WHERE a.userId = :userId " +
+                        "AND (:status IS NULL OR a.status = :status) ORDER BY a.createdTime DESC, a.id DESC",
+                        OrderArchive.class)
+                .setParameter("userId", userId)
+                .setParameter("status", status)
+                .setFirstResult(Math.toIntExact(offset))
+                .setMaxResults(limit)
+                .getResultStream()
+                .map(OrderArchiveService::toOrder)
+                .toList();
+    }
+
+    /**
+     * 单批迁移：锁定一批订单，复制到归档表后从热表删除
+     * 复制的行数与锁定的订单数不一致时抛出异常回滚整批，不删除任何未归档的订单
+     */
+    private int archiveBatch(LocalDateTime cutoff) {
+        List<Long> ids = orderRepository.lockArchivableIds(TERMINAL_STATUSES, cutoff, properties.getBatchSize());
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        int copied = orderArchiveRepository.copyFromOrders(ids, LocalDateTime.now());
+        if (copied != ids.size()) {
+            throw new IllegalStateException(String.format("订单归档复制行数不一致: locked=%d, copied=%d",
+                    ids.size(), copied));
+        }
+        orderRepository.deleteByIdIn(ids);
+        return ids.size();
+    }
+
+    private void pause() {
+        if (properties.getBatchPauseMs() <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(properties.getBatchPauseMs());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException("订单归档被中断");
+        }
+    }
+
+    private static Order toOrder(OrderArchive archive) {
+        Order order = new Order();
+        BeanUtils.copyProperties(archive, order);
+        return order;
+    }
+}
@@ -0,0 +1,198 @@
+package com.lihan.demo_lihan.service;
+
+import com.lihan.demo_lihan.common.BusinessException;
+import com.lihan.demo_lihan.common.ResultCode;
+import com.lihan.demo_lihan.common.RingBuffer;
+import com.lihan.demo_lihan.config.OrderIngestionProperties;
+import com.lihan.demo_lihan.datasource.ShardTemplate;
+import com.lihan.demo_lihan.entity.Order;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 入队下单服务
+ * 下单请求按用户ID分片写入预分配的无锁环形队列，每个分片一个消费者线程：取出一批请求，
+ * 校验字段、按用户一次性批量检查购买记录，再在一个事务内插入整批订单（一次连接、一次提交），
+ * 最后逐个完成调用方的 future。同一用户的请求总在同一分片内按顺序处理。
+ * 整批提交失败时逐单重试，只让出错的请求失败。订单分库时一批请求按用户所在库拆成多个事务。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderIngestionService {
+
+    private final OrderService orderService;
+    private final PurchaseProfileService purchaseProfileService;
+    private final OrderIngestionProperties properties;
+    private final ShardTemplate shardTemplate;
+
+    private final List<Shard> shards = new ArrayList<>();
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        running = true;
+        for (int i = 0; i < properties.getShards(); i++) {
+            Shard shard = new Shard(new RingBuffer<>(properties.getRingCapacity()));
+            shard.consumer = Thread.ofPlatform().name("order-ingest-" + i).start(() -> consume(shard));
+            shards.add(shard);
+        }
+        log.info("入队下单已启用: shards={}, ringCapacity={}, maxBatchSize={}",
+                properties.getShards(), properties.getRingCapacity(), properties.getMaxBatchSize());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        for (Shard shard : shards) {
+            LockSupport.unpark(shard.consumer);
+        }
+        for (Shard shard : shards) {
+            shard.consumer.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    public boolean isEnabled() {
+        return running;
+    }
+
+    /**
+     * 提交下单请求，队列已满时立即拒绝
+     */
+    public CompletableFuture<Order> submit(Order order) {
+        if (!running) {
+            throw new BusinessException(ResultCode.SYSTEM_BUSY);
+        }
+        orderService.validateOrderFields(order);
+
+        Shard shard = shards.get((int) Math.floorMod(order.getUserId(), (long) shards.size()));
+        PendingOrder pending = new PendingOrder(order, new CompletableFuture<>());
+        if (!shard.ring.offer(pending)) {
+            log.warn("下单队列已满，拒绝请求: userId={}, courseId={}", order.getUserId(), order.getCourseId());
+            throw new BusinessException(ResultCode.SYSTEM_BUSY);
+        }
+        if (shard.sleeping) {
+            LockSupport.unpark(shard.consumer);
+        }
+        return pending.future();
+    }
+
+    private void consume(Shard shard) {
+        List<PendingOrder> batch = new ArrayList<>(properties.getMaxBatchSize());
+        long idleParkNanos = TimeUnit.MICROSECONDS.toNanos(properties.getIdleParkMicros());
+        while (running || !shard.ring.isEmpty()) {
+            if (shard.ring.drainTo(batch, properties.getMaxBatchSize()) == 0) {
+                shard.sleeping = true;
+                if (shard.ring.isEmpty() && running) {
+                    LockSupport.parkNanos(idleParkNanos);
+                }
+                shard.sleeping = false;
+                continue;
+            }
+            try {
+                process(batch);
+            } catch (Throwable e) {
+                log.error("入队下单批处理异常: size={}", batch.size(), e);
+                batch.forEach(pending -> pending.future().completeExceptionally(e));
+            }
+            batch.clear();
+        }
+    }
+
+    private void process(List<PendingOrder> batch) {
+        List<PendingOrder> accepted = rejectPurchased(batch);
+        if (accepted.isEmpty()) {
+            return;
+        }
+        if (shardTemplate.shardCount() == 1) {
+            persist(accepted);
+            return;
+        }
+
+        Map<Integer, List<PendingOrder>> byShard = new LinkedHashMap<>();
+        for (PendingOrder pending : accepted) {
+            byShard.computeIfAbsent(shardTemplate.shardOfUser(pending.order().getUserId()),
+                    shard -> new ArrayList<>()).add(pending);
+        }
+        byShard.values().forEach(this::persist);
+    }
+
+    private void persist(List<PendingOrder> accepted) {
+        try {
+            List<Order> saved = orderService.createOrders(accepted.stream().map(PendingOrder::order).toList());
+            for (int i = 0; i < accepted.size(); i++) {
+                accepted.get(i).future().complete(saved.get(i));
+            }
+        } catch (RuntimeException e) {
+            if (accepted.size() == 1) {
+                accepted.get(0).future().completeExceptionally(e);
+                return;
+            }
+            log.warn("批量创建订单失败，逐单重试: size={}, error={}", accepted.size(), e.getMessage());
+            for (PendingOrder pending : accepted) {
+                pending.order().setId(null);
+                try {
+                    pending.future().complete(orderService.createOrders(List.of(pending.order())).get(0));
+                } catch (RuntimeException single) {
+                    pending.future().completeExceptionally(single);
+                }
+            }
+        }
+    }
+
+    /**
+     * 按用户批量检查购买记录，已购买的请求直接失败
+     */
+    private List<PendingOrder> rejectPurchased(List<PendingOrder> batch) {
+        Map<Long, List<Long>> courseIdsByUser = new LinkedHashMap<>();
+        for (PendingOrder pending : batch) {
+            courseIdsByUser.computeIfAbsent(pending.order().getUserId(), userId -> new ArrayList<>())
+                    .add(pending.order().getCourseId());
+        }
+        Map<Long, Map<Long, Boolean>> ownership = new LinkedHashMap<>();
+        courseIdsByUser.forEach((userId, courseIds) ->
+                ownership.put(userId, purchaseProfileService.checkOwnership(userId, courseIds)));
+
+        List<PendingOrder> accepted = new ArrayList<>(batch.size());
+        for (PendingOrder pending : batch) {
+            Order order = pending.order();
+            if (ownership.get(order.getUserId()).getOrDefault(order.getCourseId(), false)) {
+                pending.future().completeExceptionally(new BusinessException("您已购买过该课程"));
+            } else {
+                accepted.add(pending);
+            }
+        }
+        return accepted;
+    }
+
+    /**
+     * 单个分片：一个环形队列和一个消费者线程
+     */
+    private static final class Shard {
+
+        private final RingBuffer<PendingOrder> ring;
+        private Thread consumer;
+        private volatile boolean sleeping;
+
+        private Shard(RingBuffer<PendingOrder> ring) {
+            this.ring = ring;
+        }
+    }
+
+    private record PendingOrder(Order order, CompletableFuture<Order> future) {
+    }
+}
@@ -0,0 +1,350 @@
+package com.lihan.demo_lihan.service;
+
+import com.lihan.demo_lihan.common.BusinessException;
+import com.lihan.demo_lihan.common.Constants;
+import com.lihan.demo_lihan.common.ResultCode;
+import com.lihan.demo_lihan.datasource.ShardTemplate;
+import com.lihan.demo_lihan.dto.RollupPoint;
+import com.lihan.demo_lihan.entity.Order;
+import com.lihan.demo_lihan.entity.OrderRollup.BucketType;
+import com.lihan.demo_lihan.entity.OrderRollup.Dimension;
+import com.lihan.demo_lihan.event.OrderStatusChangedEvent;
+import com.lihan.demo_lihan.metrics.CacheMetrics;
+import com.lihan.demo_lihan.repository.CourseRepository;
+import com.lihan.demo_lihan.repository.OrderRollupRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 订单汇总服务
+ * 订单状态变更时在同一事务内增量更新 edu_order_rollup，收入、销量、状态分布等统计直接读汇总表，
+ * 查询代价只与时间桶数量有关，与订单总量无关。
+ * 订单分片时每个分片维护自己的汇总表，查询并行读取各分片后合并。
+ * 教师维度在订单所在分片上按课程查教师（增量时查 edu_course，重建时关联 edu_course），
+ * 要求课程数据同步到每个分片，缺少课程行的订单不计入教师维度
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderRollupService {
+
+    /**
+     * 每个汇总项拆分的 slot 数，按订单ID取模，退款时命中与支付相同的行
+     */
+    private static final int SLOT_COUNT = 8;
+
+    /**
+     * 累计桶统一使用的起始时间
+     */
+    private static final LocalDateTime TOTAL_BUCKET_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private static final String ALL_KEY = "*";
+    private static final String UNKNOWN_KEY = "UNKNOWN";
+
+    /**
+     * 重建数据源：热表与归档表的并集
+     */
+    private static final String ORDER_SOURCE = "(SELECT id, course_id, status, amount, payment_method, pay_time " +
+            "FROM edu_order UNION ALL SELECT id, course_id, status, amount, payment_method, pay_time " +
+            "FROM edu_order_archive)";
+
+    private static final String UPSERT_PREFIX = "INSERT INTO edu_order_rollup " +
+            "(bucket_type, dimension, dimension_key, bucket_start, slot, order_count, amount, updated_time) VALUES ";
+    private static final String UPSERT_SUFFIX = " ON DUPLICATE KEY UPDATE " +
+            "order_count = order_count + VALUES(order_count), " +
+            "amount = amount + VALUES(amount), " +
+            "updated_time = VALUES(updated_time)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final OrderRollupRepository orderRollupRepository;
+    private final CourseRepository courseRepository;
+    private final ShardTemplate shardTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheMetrics cacheMetrics;
+
+    /**
+     * 课程ID -> 教师ID，课程的教师创建后不会修改，可以常驻缓存
+     */
+    private final Map<Long, Long> teacherIdCache = new ConcurrentHashMap<>();
+
+    /**
+     * 订单状态变更时增量更新汇总（与订单同一事务）
+     */
+    @EventListener
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        Order order = event.getOrder();
+        int slot = Math.floorMod(order.getId(), SLOT_COUNT);
+        BigDecimal amount = order.getAmount() != null ? order.getAmount() : BigDecimal.ZERO;
+
+        List<Delta> deltas = new ArrayList<>();
+        if (event.getFromStatus() != null) {
+            deltas.add(new Delta(BucketType.TOTAL, TOTAL_BUCKET_START, Dimension.STATUS,
+                    event.getFromStatus(), slot, -1, amount.negate()));
+        }
+        deltas.add(new Delta(BucketType.TOTAL, TOTAL_BUCKET_START, Dimension.STATUS,
+                event.getToStatus(), slot, 1, amount));
+
+        // 收入按支付时间归桶，退款时从原支付时间所在的桶中扣减
+        if (Constants.Order.STATUS_PAID.equals(event.getToStatus())) {
+            addSalesDeltas(deltas, order, slot, 1, amount);
+        } else if (Constants.Order.STATUS_PAID.equals(event.getFromStatus())) {
+            addSalesDeltas(deltas, order, slot, -1, amount.negate());
+        }
+
+        upsert(deltas);
+    }
+
+    /**
+     * 计算时间范围内的总收入（已支付订单，支付时间在 [startTime, endTime] 内，与按订单表直接求和的口径一致）
+     * 整小时部分读汇总表：中间整天读天桶，两端零散小时读小时桶；两端不足一小时的部分按支付时间直接查询订单
+     */
+    public BigDecimal calculateRevenue(LocalDateTime startTime, LocalDateTime endTime) {
+        if (startTime.isAfter(endTime)) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "统计时间范围不正确");
+        }
+        LocalDateTime start = ceilToHour(startTime);
+        LocalDateTime end = endTime.truncatedTo(ChronoUnit.HOURS);
+
+        return shardTemplate.scatter(shard -> {
+            if (!start.isBefore(end)) {
+                return sumPaidAmount(startTime, endTime, true);
+            }
+            BigDecimal edges = sumPaidAmount(startTime, start, false).add(sumPaidAmount(end, endTime, true));
+            LocalDateTime firstDay = ceilToDay(start);
+            LocalDateTime lastDay = end.truncatedTo(ChronoUnit.DAYS);
+            if (!firstDay.isBefore(lastDay)) {
+                return edges.add(sumAmount(BucketType.HOUR, start, end));
+            }
+            return edges.add(sumAmount(BucketType.HOUR, start, firstDay))
+                    .add(sumAmount(BucketType.DAY, firstDay, lastDay))
+                    .add(sumAmount(BucketType.HOUR, lastDay, end));
+        }).stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    /**
+     * 统计课程销量（已支付且未退款）
+     */
+    public long countCourseSales(Long courseId) {
+        return shardTemplate.scatter(shard -> orderRollupRepository.sumOrderCount(BucketType.TOTAL.getCode(),
+                        Dimension.COURSE.getCode(), String.valueOf(courseId), TOTAL_BUCKET_START))
+                .stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * 统计各状态订单数量
+     */
+    public Map<String, Long> countOrdersByStatus() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (List<Object[]> rows : shardTemplate.scatter(shard -> orderRollupRepository.sumByDimensionKey(
+                BucketType.TOTAL.getCode(), Dimension.STATUS.getCode(), TOTAL_BUCKET_START))) {
+            for (Object[] row : rows) {
+                result.merge((String) row[0], ((Number) row[1]).longValue(), Long::sum);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 查询指定维度的时间序列，供管理后台看板使用
+     */
+    public List<RollupPoint> findSeries(BucketType bucketType, Dimension dimension, String dimensionKey,
+                                        LocalDateTime startTime, LocalDateTime endTime) {
+        String key = dimension == Dimension.ALL ? ALL_KEY : dimensionKey;
+        Map<LocalDateTime, RollupPoint> points = new TreeMap<>();
+        for (List<Object[]> rows : shardTemplate.scatter(shard -> orderRollupRepository.findSeries(
+                bucketType.getCode(), dimension.getCode(), key, startTime, endTime))) {
+            for (Object[] row : rows) {
+                LocalDateTime bucketStart = (LocalDateTime) row[0];
+                long orderCount = ((Number) row[1]).longValue();
+                BigDecimal amount = (BigDecimal) row[2];
+                points.merge(bucketStart, new RollupPoint(bucketStart, orderCount, amount), (a, b) ->
+                        new RollupPoint(bucketStart, a.getOrderCount() + b.getOrderCount(), a.getAmount().add(b.getAmount())));
+            }
+        }
+        return new ArrayList<>(points.values());
+    }
+
+    /**
+     * 根据 edu_order 及归档表全量重建汇总表（历史数据回填）
+     * 重建期间的新订单变更会与重建结果冲突，应在低峰期执行；订单分片时逐个分片各自在一个事务内重建
+     */
+    public int rebuild() {
+        long start = System.currentTimeMillis();
+        int[] rows = new int[1];
+        shardTemplate.forEachShard(() -> rows[0] += transactionTemplate.execute(status -> rebuildCurrentShard()));
+        log.info("订单汇总重建完成: rows={}, cost={}ms", rows[0], System.currentTimeMillis() - start);
+        return rows[0];
+    }
+
+    private int rebuildCurrentShard() {
+        jdbcTemplate.update("DELETE FROM edu_order_rollup");
+
+        int rows = jdbcTemplate.update("INSERT INTO edu_order_rollup " +
+                "(bucket_type, dimension, dimension_key, bucket_start, slot, order_count, amount, updated_time) " +
+                "SELECT 'TOTAL', 'STATUS', o.status, '1970-01-01 00:00:00', MOD(o.id, " + SLOT_COUNT + "), " +
+                "COUNT(*), SUM(o.amount), NOW() FROM " + ORDER_SOURCE + " o GROUP BY o.status, MOD(o.id, " + SLOT_COUNT + ")");
+
+        for (BucketType bucketType : BucketType.values()) {
+            for (Dimension dimension : Dimension.values()) {
+                if (dimension != Dimension.STATUS) {
+                    rows += jdbcTemplate.update(buildRebuildSql(bucketType, dimension));
+                }
+            }
+        }
+
+        return rows;
+    }
+
+    private void addSalesDeltas(List<Delta> deltas, Order order, int slot, int count, BigDecimal amount) {
+        Map<Dimension, String> keys = new LinkedHashMap<>();
+        keys.put(Dimension.ALL, ALL_KEY);
+        keys.put(Dimension.COURSE, String.valueOf(order.getCourseId()));
+        Long teacherId = findTeacherId(order.getCourseId());
+        if (teacherId != null) {
+            keys.put(Dimension.TEACHER, String.valueOf(teacherId));
+        }
+        keys.put(Dimension.PAYMENT_METHOD, order.getPaymentMethod() != null ? order.getPaymentMethod() : UNKNOWN_KEY);
+
+        LocalDateTime payTime = order.getPayTime();
+        for (Map.Entry<Dimension, String> entry : keys.entrySet()) {
+            deltas.add(new Delta(BucketType.TOTAL, TOTAL_BUCKET_START, entry.getKey(), entry.getValue(), slot, count, amount));
+            if (payTime != null) {
+                deltas.add(new Delta(BucketType.HOUR, payTime.truncatedTo(ChronoUnit.HOURS),
+                        entry.getKey(), entry.getValue(), slot, count, amount));
+                deltas.add(new Delta(BucketType.DAY, payTime.truncatedTo(ChronoUnit.DAYS),
+                        entry.getKey(), entry.getValue(), slot, count, amount));
+            }
+        }
+    }
+
+    private Long findTeacherId(Long courseId) {
+        Long cached = teacherIdCache.get(courseId);
+        cacheMetrics.record("course-teacher", cached != null);
+        if (cached != null) {
+            return cached;
+        }
+        Long teacherId = courseRepository.findTeacherIdById(courseId).orElse(null);
+        if (teacherId != null) {
+            teacherIdCache.put(courseId, teacherId);
+        }
+        return teacherId;
+    }
+
+    /**
+     * 一条多行 INSERT ... ON DUPLICATE KEY UPDATE 写入全部增量
+     * 按唯一索引顺序排序后写入，避免并发事务以不同顺序加锁导致死锁
+     */
+    private void upsert(List<Delta> deltas) {
+        deltas.sort(Comparator.comparing((Delta d) -> d.bucketType.getCode())
+                .thenComparing(d -> d.dimension.getCode())
+                .thenComparing(d -> d.dimensionKey)
+                .thenComparing(d -> d.bucketStart)
+                .thenComparingInt(d -> d.slot));
+
+        LocalDateTime now = LocalDateTime.now();
+        StringBuilder sql = new StringBuilder(UPSERT_PREFIX);
+        List<Object> args = new ArrayList<>(deltas.size() * 8);
+        for (int i = 0; i < deltas.size(); i++) {
+            Delta delta = deltas.get(i);
+            sql.append(i == 0 ? "(?, ?, ?, ?, ?, ?, ?, ?)" : ", (?, ?, ?, ?, ?, ?, ?, ?)");
+            args.add(delta.bucketType.getCode());
+            args.add(delta.dimension.getCode());
+            args.add(delta.dimensionKey);
+            args.add(delta.bucketStart);
+            args.add(delta.slot);
+            args.add(delta.count);
+            args.add(delta.amount);
+            args.add(now);
+        }
+        sql.append(UPSERT_SUFFIX);
+        jdbcTemplate.update(sql.toString(), args.toArray());
+    }
+
+    private BigDecimal sumAmount(BucketType bucketType, LocalDateTime startTime, LocalDateTime endTime) {
+        if (!startTime.isBefore(endTime)) {
+            return BigDecimal.ZERO;
+        }
+        return orderRollupRepository.sumAmount(bucketType.getCode(), Dimension.ALL.getCode(), ALL_KEY,
+                startTime, endTime);
+    }
+
+    /**
+     * 按支付时间直接汇总热表与归档表中已支付订单的金额（只用于范围两端不足一小时的部分）
+     */
+    private BigDecimal sumPaidAmount(LocalDateTime startTime, LocalDateTime endTime, boolean endInclusive) {
+        if (startTime.isAfter(endTime) || (!endInclusive && startTime.equals(endTime))) {
+            return BigDecimal.ZERO;
+        }
+        String condition = " WHERE status = 'PAID' AND pay_time >= ? AND pay_time " + (endInclusive ? "<=" : "<") + " ?";
+        BigDecimal amount = jdbcTemplate.queryForObject("SELECT COALESCE(SUM(amount), 0) FROM (" +
+                        "SELECT amount FROM edu_order" + condition +
+                        " UNION ALL SELECT amount FROM edu_order_archive" + condition + ") t",
+                BigDecimal.class, startTime, endTime, startTime, endTime);
+        return amount != null ? amount : BigDecimal.ZERO;
+    }
+
+    private String buildRebuildSql(BucketType bucketType, Dimension dimension) {
+        String bucketExpr = switch (bucketType) {
+            case HOUR -> "DATE_FORMAT(o.pay_time, '%Y-%m-%d %H:00:00')";
+            case DAY -> "DATE(o.pay_time)";
+            case TOTAL -> "'1970-01-01 00:00:00'";
+        };
+        String keyExpr = switch (dimension) {
+            case COURSE -> "CAST(o.course_id AS CHAR)";
+            case TEACHER -> "CAST(c.teacher_id AS CHAR)";
+            case PAYMENT_METHOD -> "COALESCE(o.payment_method, '" + UNKNOWN_KEY + "')";
+            default -> "'" + ALL_KEY + "'";
+        };
+
+        List<String> groupBy = new ArrayList<>();
+        if (bucketType != BucketType.TOTAL) {
+            groupBy.add(bucketExpr);
+        }
+        if (dimension != Dimension.ALL) {
+            groupBy.add(keyExpr);
+        }
+        groupBy.add("MOD(o.id, " + SLOT_COUNT + ")");
+
+        return "INSERT INTO edu_order_rollup " +
+                "(bucket_type, dimension, dimension_key, bucket_start, slot, order_count, amount, updated_time) " +
+                "SELECT '" + bucketType.getCode() + "', '" + dimension.getCode() + "', " + keyExpr + ", " +
+                bucketExpr + ", MOD(o.id, " + SLOT_COUNT + "), COUNT(*), SUM(o.amount), NOW() " +
+                "FROM " + ORDER_SOURCE + " o " +
+                (dimension == Dimension.TEACHER ? "JOIN edu_course c ON c.id = o.course_id " : "") +
+                "WHERE o.status = 'PAID'" +
+                (bucketType != BucketType.TOTAL ? " AND o.pay_time IS NOT NULL" : "") +
+                " GROUP BY " + String.join(", ", groupBy);
+    }
+
+    private static LocalDateTime ceilToHour(LocalDateTime time) {
+        LocalDateTime floor = time.truncatedTo(ChronoUnit.HOURS);
+        return floor.equals(time) ? floor : floor.plusHours(1);
+    }
+
+    private static LocalDateTime ceilToDay(LocalDateTime time) {
+        LocalDateTime floor = time.truncatedTo(ChronoUnit.DAYS);
+        return floor.equals(time) ? floor : floor.plusDays(1);
+    }
+
+    /**
+     * 单个汇总项的增量
+     */
+    private record Delta(BucketType bucketType, LocalDateTime bucketStart, Dimension dimension,
+                         String dimensionKey, int slot, long count, BigDecimal amount) {
+    }
+}
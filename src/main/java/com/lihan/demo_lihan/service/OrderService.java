@@ -2,19 +2,27 @@ package com.lihan.demo_lihan.service;
 
 import com.lihan.demo_lihan.common.BusinessException;
 import com.lihan.demo_lihan.common.Utils;
+import com.lihan.demo_lihan.datasource.ShardTemplate;
 import com.lihan.demo_lihan.entity.Order;
+import com.lihan.demo_lihan.event.OrderStatusChangedEvent;
 import com.lihan.demo_lihan.repository.OrderRepository;
+import com.lihan.demo_lihan.service.OrderStateMachine.Transition;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 @Slf4j
 @Service
@@ -22,42 +30,74 @@ import java.util.Optional;
 public class OrderService {
 
     private final OrderRepository orderRepository;
+    private final OrderStateMachine orderStateMachine;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PurchaseProfileService purchaseProfileService;
+    private final OrderArchiveService orderArchiveService;
+    private final ShardTemplate shardTemplate;
+    private final TransactionTemplate transactionTemplate;
 
     /**
-     * 根据ID查找订单
+     * 根据ID查找订单（热表未命中时查归档表，分片时并行查询所有分片）
      */
     public Optional<Order> findById(Long id) {
         if (id == null) {
             return Optional.empty();
         }
-        return orderRepository.findById(id);
+        return shardTemplate.scatter(shard -> orderRepository.findById(id).or(() -> orderArchiveService.findById(id)))
+                .stream()
+                .flatMap(Optional::stream)
+                .findFirst();
     }
 
     /**
-     * 根据订单号查找订单
+     * 根据订单号查找订单（热表未命中时查归档表）
      */
     public Optional<Order> findByOrderNumber(String orderNumber) {
         if (Utils.isEmpty(orderNumber)) {
             return Optional.empty();
         }
-        return orderRepository.findByOrderNumber(orderNumber);
+        return readOnShard(resolveShard(orderNumber), () -> orderRepository.findByOrderNumber(orderNumber)
+                .or(() -> orderArchiveService.findByOrderNumber(orderNumber)));
     }
 
     /**
      * 分页查询用户订单
+     * 热表订单都比归档订单新，按“热表在前、归档在后”拼接：先取热表这一页，不足的部分从归档表按偏移量补齐
      */
     public Page<Order> findByUserIdAndStatus(Long userId, String status, Pageable pageable) {
-        return orderRepository.findByUserIdAndStatus(userId, status, pageable);
+        return readOnShard(shardTemplate.shardOfUser(userId), () -> findUserOrdersOnShard(userId, status, pageable));
+    }
+
+    private Page<Order> findUserOrdersOnShard(Long userId, String status, Pageable pageable) {
+        Page<Order> hotPage = orderRepository.findByUserIdAndStatus(userId, status, pageable);
+        long archivedTotal = orderArchiveService.countByUserIdAndStatus(userId, status);
+        if (archivedTotal == 0 || pageable.isUnpaged()) {
+            return hotPage;
+        }
+
+        long hotTotal = hotPage.getTotalElements();
+        List<Order> content = new ArrayList<>(hotPage.getContent());
+        int remaining = pageable.getPageSize() - content.size();
+        if (remaining > 0) {
+            long archiveOffset = Math.max(0, pageable.getOffset() - hotTotal);
+            content.addAll(orderArchiveService.findByUserIdAndStatus(userId, status, archiveOffset, remaining));
+        }
+        return new PageImpl<>(content, pageable, hotTotal + archivedTotal);
     }
 
     /**
-     * 根据用户ID查找订单
+     * 根据用户ID查找订单（包含归档订单）
      */
     public List<Order> findByUserId(Long userId) {
         if (userId == null) {
             return List.of();
         }
-        return orderRepository.findByUserId(userId);
+        return readOnShard(shardTemplate.shardOfUser(userId), () -> {
+            List<Order> orders = new ArrayList<>(orderRepository.findByUserId(userId));
+            orders.addAll(orderArchiveService.findByUserId(userId));
+            return orders;
+        });
     }
 
     /**
@@ -67,103 +107,80 @@ public class OrderService {
         if (courseId == null) {
             return List.of();
         }
-        return orderRepository.findByCourseId(courseId);
+        return shardTemplate.scatter(shard -> orderRepository.findByCourseId(courseId)).stream()
+                .flatMap(List::stream)
+                .toList();
     }
 
     /**
-     * 创建订单
+     * 创建订单（先切换到用户所在分片再开启事务，事务的连接、提交和提交后的回调都在该分片）
      */
-    @Transactional
     public Order createOrder(Order order) {
-        validateOrderForCreation(order);
-        
-        // 生成订单号
-        if (Utils.isEmpty(order.getOrderNumber())) {
-            order.setOrderNumber(generateOrderNumber());
-        }
-        
-        // 设置默认状态
-        if (Utils.isEmpty(order.getStatus())) {
-            order.setStatus("PENDING");
-        }
-        
-        // 设置订单过期时间（默认30分钟）
-        if (order.getExpireTime() == null) {
-            order.setExpireTime(LocalDateTime.now().plusMinutes(30));
+        validateOrderFields(order);
+        return shardTemplate.onShard(shardTemplate.shardOfUser(order.getUserId()),
+                () -> transactionTemplate.execute(status -> {
+                    validateOrderForCreation(order);
+                    applyCreationDefaults(order);
+
+                    Order savedOrder = orderRepository.save(order);
+                    orderStateMachine.remember(savedOrder);
+                    eventPublisher.publishEvent(new OrderStatusChangedEvent(savedOrder, null, savedOrder.getStatus()));
+                    log.info("创建订单成功: orderNumber={}, userId={}, courseId={}",
+                            savedOrder.getOrderNumber(), savedOrder.getUserId(), savedOrder.getCourseId());
+                    return savedOrder;
+                }));
+    }
+
+    /**
+     * 批量创建订单（入队下单的消费者调用），调用方已完成校验，整批在一个事务内提交；
+     * 整批订单必须属于同一分片
+     */
+    public List<Order> createOrders(List<Order> orders) {
+        int shard = shardTemplate.shardOfUser(orders.get(0).getUserId());
+        for (Order order : orders) {
+            if (shardTemplate.shardOfUser(order.getUserId()) != shard) {
+                throw new IllegalArgumentException("批量创建的订单不在同一分片");
+            }
         }
 
-        Order savedOrder = orderRepository.save(order);
-        log.info("创建订单成功: orderNumber={}, userId={}, courseId={}", 
-                savedOrder.getOrderNumber(), savedOrder.getUserId(), savedOrder.getCourseId());
-        return savedOrder;
+        return shardTemplate.onShard(shard, () -> transactionTemplate.execute(status -> {
+            for (Order order : orders) {
+                applyCreationDefaults(order);
+            }
+            List<Order> savedOrders = orderRepository.saveAll(orders);
+            for (Order savedOrder : savedOrders) {
+                orderStateMachine.remember(savedOrder);
+                eventPublisher.publishEvent(new OrderStatusChangedEvent(savedOrder, null, savedOrder.getStatus()));
+            }
+            log.info("批量创建订单成功: shard={}, count={}", shard, savedOrders.size());
+            return savedOrders;
+        }));
     }
 
     /**
      * 支付订单
      */
-    @Transactional
     public void payOrder(String orderNumber, String paymentMethod, String paymentNo) {
-        Order order = orderRepository.findByOrderNumber(orderNumber)
-                .orElseThrow(() -> new BusinessException("订单不存在"));
-        
-        if (!"PENDING".equals(order.getStatus())) {
-            throw new BusinessException("订单状态错误，无法支付");
-        }
-        
-        if (order.getExpireTime() != null && order.getExpireTime().isBefore(LocalDateTime.now())) {
-            throw new BusinessException("订单已过期");
-        }
-        
-        order.setStatus("PAID");
-        order.setPaymentMethod(paymentMethod);
-        order.setPaymentNo(paymentNo);
-        order.setPayTime(LocalDateTime.now());
-        
-        orderRepository.save(order);
+        shardTemplate.onShard(resolveShard(orderNumber), () -> transactionTemplate.executeWithoutResult(status ->
+                publishStatusChanged(orderStateMachine.pay(orderNumber, paymentMethod, paymentNo), Transition.PAY)));
         log.info("订单支付成功: orderNumber={}, paymentMethod={}", orderNumber, paymentMethod);
     }
 
     /**
      * 取消订单
      */
-    @Transactional
     public void cancelOrder(String orderNumber, String reason) {
-        Order order = orderRepository.findByOrderNumber(orderNumber)
-                .orElseThrow(() -> new BusinessException("订单不存在"));
-        
-        if (!"PENDING".equals(order.getStatus())) {
-            throw new BusinessException("订单状态错误，无法取消");
-        }
-        
-        order.setStatus("CANCELLED");
-        order.setCancelTime(LocalDateTime.now());
-        if (Utils.isNotEmpty(reason)) {
-            order.setRemark(reason);
-        }
-        
-        orderRepository.save(order);
+        shardTemplate.onShard(resolveShard(orderNumber), () -> transactionTemplate.executeWithoutResult(status ->
+                publishStatusChanged(orderStateMachine.cancel(orderNumber, reason), Transition.CANCEL)));
         log.info("订单取消成功: orderNumber={}, reason={}", orderNumber, reason);
     }
 
     /**
      * 退款订单
      */
-    @Transactional
     public void refundOrder(String orderNumber, String reason) {
-        Order order = orderRepository.findByOrderNumber(orderNumber)
-                .orElseThrow(() -> new BusinessException("订单不存在"));
-        
-        if (!"PAID".equals(order.getStatus())) {
-            throw new BusinessException("订单状态错误，无法退款");
-        }
-        
-        order.setStatus("REFUNDED");
-        order.setRefundTime(LocalDateTime.now());
-        if (Utils.isNotEmpty(reason)) {
-            order.setRemark(reason);
-        }
-        
-        orderRepository.save(order);
+        shardTemplate.onShard(resolveShard(orderNumber), () -> transactionTemplate.executeWithoutResult(status ->
+                publishStatusChanged(orderStateMachine.refund(orderNumber, reason), Transition.REFUND)));
         log.info("订单退款成功: orderNumber={}, reason={}", orderNumber, reason);
     }
 
@@ -174,19 +191,35 @@ public class OrderService {
         if (userId == null || courseId == null) {
             return false;
         }
-        return orderRepository.existsByUserIdAndCourseIdAndPaid(userId, courseId);
+        return purchaseProfileService.hasPurchased(userId, courseId);
     }
 
     /**
-     * 处理过期订单
+     * 批量检查用户对一组课程的购买状态
+     */
+    public Map<Long, Boolean> checkUserPurchasedCourses(Long userId, List<Long> courseIds) {
+        if (userId == null || Utils.isEmpty(courseIds)) {
+            return Map.of();
+        }
+        return purchaseProfileService.checkOwnership(userId, courseIds);
+    }
+
+    /**
+     * 处理过期订单（逐个分片，每个分片一个事务）
      */
-    @Transactional
     public void handleExpiredOrders() {
+        shardTemplate.forEachShard(() -> transactionTemplate.executeWithoutResult(status -> expireOnCurrentShard()));
+    }
+
+    private void expireOnCurrentShard() {
         List<Order> expiredOrders = orderRepository.findExpiredPendingOrders(LocalDateTime.now());
         for (Order order : expiredOrders) {
-            order.setStatus("EXPIRED");
-            orderRepository.save(order);
-            log.info("订单已过期: orderNumber={}", order.getOrderNumber());
+            if (orderStateMachine.expire(order.getId())) {
+                order.setStatus(Transition.EXPIRE.getTo().getCode());
+                eventPublisher.publishEvent(new OrderStatusChangedEvent(order,
+                        Transition.EXPIRE.getFrom().getCode(), Transition.EXPIRE.getTo().getCode()));
+                log.info("订单已过期: orderNumber={}", order.getOrderNumber());
+            }
         }
     }
 
@@ -197,13 +230,57 @@ public class OrderService {
         if (userId == null) {
             return BigDecimal.ZERO;
         }
-        return orderRepository.calculateUserTotalSpending(userId);
+        return purchaseProfileService.getTotalSpending(userId);
+    }
+
+    /**
+     * 订单所在分片：新订单号直接解析，旧格式订单号并行探测各分片
+     */
+    private int resolveShard(String orderNumber) {
+        return shardTemplate.shardOfOrderNumber(orderNumber).orElseGet(() -> {
+            if (shardTemplate.shardCount() == 1) {
+                return 0;
+            }
+            List<Boolean> found = shardTemplate.scatter(shard -> orderRepository.existsByOrderNumber(orderNumber)
+                    || orderArchiveService.existsByOrderNumber(orderNumber));
+            int shard = found.indexOf(Boolean.TRUE);
+            return Math.max(shard, 0);
+        });
+    }
+
+    /**
+     * 先切换到指定分片再开启只读事务
+     */
+    private <T> T readOnShard(int shard, Supplier<T> action) {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readOnly.setReadOnly(true);
+        return shardTemplate.onShard(shard, () -> readOnly.execute(status -> action.get()));
+    }
+
+    /**
+     * 用状态机返回的迁移后快照发布状态变更事件
+     */
+    private void publishStatusChanged(Order snapshot, Transition transition) {
+        eventPublisher.publishEvent(new OrderStatusChangedEvent(snapshot,
+                transition.getFrom().getCode(), transition.getTo().getCode()));
     }
 
     /**
      * 验证订单创建信息
      */
     private void validateOrderForCreation(Order order) {
+        validateOrderFields(order);
+
+        // 检查是否已购买过该课程
+        if (hasUserPurchasedCourse(order.getUserId(), order.getCourseId())) {
+            throw new BusinessException("您已购买过该课程");
+        }
+    }
+
+    /**
+     * 验证订单字段（不含购买记录检查）
+     */
+    void validateOrderFields(Order order) {
         if (order == null) {
             throw new BusinessException("订单信息不能为空");
         }
@@ -223,17 +300,32 @@ public class OrderService {
         if (order.getAmount().compareTo(BigDecimal.ZERO) < 0) {
             throw new BusinessException("订单金额不能为负数");
         }
+    }
+
+    /**
+     * 补全订单号、默认状态和过期时间
+     */
+    private void applyCreationDefaults(Order order) {
+        // 生成订单号
+        if (Utils.isEmpty(order.getOrderNumber())) {
+            order.setOrderNumber(generateOrderNumber(order.getUserId()));
+        }
         
-        // 检查是否已购买过该课程
-        if (hasUserPurchasedCourse(order.getUserId(), order.getCourseId())) {
-            throw new BusinessException("您已购买过该课程");
+        // 设置默认状态
+        if (Utils.isEmpty(order.getStatus())) {
+            order.setStatus("PENDING");
+        }
+        
+        // 设置订单过期时间（默认30分钟）
+        if (order.getExpireTime() == null) {
+            order.setExpireTime(LocalDateTime.now().plusMinutes(30));
         }
     }
 
     /**
-     * 生成订单号
+     * 生成订单号（编码用户所在分片）
      */
-    private String generateOrderNumber() {
-        return "ORDER" + System.currentTimeMillis() + String.format("%04d", (int)(Math.random() * 10000));
+    String generateOrderNumber(Long userId) {
+        return shardTemplate.newOrderNumber(userId);
     }
 }
@@ -0,0 +1,198 @@
+package com.lihan.demo_lihan.service;
+
+import com.lihan.demo_lihan.common.BusinessException;
+import com.lihan.demo_lihan.common.ResultCode;
+import com.lihan.demo_lihan.common.Utils;
+import com.lihan.demo_lihan.entity.Order;
+import com.lihan.demo_lihan.entity.Order.OrderStatus;
+import com.lihan.demo_lihan.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 订单状态机
+ * 每次状态迁移只执行一条带期望状态条件的 UPDATE（WHERE status = :expected），
+ * 由受影响行数决定并发竞争的胜者；失败方再查询一次当前状态，给出明确的错误信息。
+ * 成功的迁移返回迁移后的订单快照供状态变更事件使用：订单ID、用户、课程、金额创建后不变，支付方式和支付时间支付后不变，
+ * 这些字段在本节点创建或支付订单时记入有界的本地缓存，迁移时直接据此构造快照；
+ * 缓存记录的是写入时的状态，只有其状态等于迁移的起始状态时才可用（如在本节点创建、在其它节点支付的订单，
+ * 缓存仍是 PENDING，退款时没有支付方式和支付时间）；否则以及缓存未命中时回查一次订单。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderStateMachine {
+
+    /**
+     * 缓存的订单快照数，按访问顺序淘汰；待支付订单 30 分钟内完成迁移，容量覆盖这段时间内的新订单即可
+     */
+    private static final int SNAPSHOT_CAPACITY = 20_000;
+
+    private final OrderRepository orderRepository;
+
+    private final Map<String, Order> snapshots = Collections.synchronizedMap(
+            new LinkedHashMap<>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Order> eldest) {
+                    return size() > SNAPSHOT_CAPACITY;
+                }
+            });
+
+    /**
+     * 允许的状态迁移
+     */
+    public enum Transition {
+        PAY(OrderStatus.PENDING, OrderStatus.PAID, "支付"),
+        CANCEL(OrderStatus.PENDING, OrderStatus.CANCELLED, "取消"),
+        REFUND(OrderStatus.PAID, OrderStatus.REFUNDED, "退款"),
+        EXPIRE(OrderStatus.PENDING, OrderStatus.EXPIRED, "过期");
+
+        private final OrderStatus from;
+        private final OrderStatus to;
+        private final String action;
+
+        Transition(OrderStatus from, OrderStatus to, String action) {
+            this.from = from;
+            this.to = to;
+            this.action = action;
+        }
+
+        public OrderStatus getFrom() {
+            return from;
+        }
+
+        public OrderStatus getTo() {
+            return to;
+        }
+
+        public String getAction() {
+            return action;
+        }
+    }
+
+    /**
+     * 支付：PENDING -> PAID，订单已过期时失败
+     */
+    public Order pay(String orderNumber, String paymentMethod, String paymentNo) {
+        LocalDateTime now = LocalDateTime.now();
+        int updated = orderRepository.transitionToPaid(orderNumber,
+                Transition.PAY.getFrom().getCode(), Transition.PAY.getTo().getCode(),
+                paymentMethod, paymentNo, now);
+        if (updated == 0) {
+            throw rejected(orderNumber, Transition.PAY, now);
+        }
+        Order snapshot = snapshot(orderNumber, Transition.PAY);
+        snapshot.setPaymentMethod(paymentMethod);
+        snapshot.setPaymentNo(paymentNo);
+        snapshot.setPayTime(now);
+        remember(snapshot);
+        return snapshot;
+    }
+
+    /**
+     * 取消：PENDING -> CANCELLED
+     */
+    public Order cancel(String orderNumber, String reason) {
+        LocalDateTime now = LocalDateTime.now();
+        int updated = orderRepository.transitionToCancelled(orderNumber,
+                Transition.CANCEL.getFrom().getCode(), Transition.CANCEL.getTo().getCode(),
+                Utils.isNotEmpty(reason) ? reason : null, now);
+        if (updated == 0) {
+            throw rejected(orderNumber, Transition.CANCEL, now);
+        }
+        Order snapshot = snapshot(orderNumber, Transition.CANCEL);
+        snapshot.setCancelTime(now);
+        snapshots.remove(orderNumber);
+        return snapshot;
+    }
+
+    /**
+     * 退款：PAID -> REFUNDED
+     */
+    public Order refund(String orderNumber, String reason) {
+        LocalDateTime now = LocalDateTime.now();
+        int updated = orderRepository.transitionToRefunded(orderNumber,
+                Transition.REFUND.getFrom().getCode(), Transition.REFUND.getTo().getCode(),
+                Utils.isNotEmpty(reason) ? reason : null, now);
+        if (updated == 0) {
+            throw rejected(orderNumber, Transition.REFUND, now);
+        }
+        Order snapshot = snapshot(orderNumber, Transition.REFUND);
+        snapshot.setRefundTime(now);
+        snapshots.remove(orderNumber);
+        return snapshot;
+    }
+
+    /**
+     * 过期：PENDING -> EXPIRED
+     * 过期任务与用户支付可能同时发生，竞争失败时返回 false 而不抛异常
+     */
+    public boolean expire(Long orderId) {
+        int updated = orderRepository.transitionToExpired(orderId,
+                Transition.EXPIRE.getFrom().getCode(), Transition.EXPIRE.getTo().getCode(),
+                LocalDateTime.now());
+        if (updated == 0) {
+            log.debug("订单过期竞争失败，状态已被其他操作修改: orderId={}", orderId);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 记录新建订单的快照（须已分配ID），之后在本节点的状态迁移不再回查订单
+     */
+    public void remember(Order order) {
+        if (order.getId() != null && order.getOrderNumber() != null) {
+            snapshots.put(order.getOrderNumber(), copy(order));
+        }
+    }
+
+    /**
+     * 迁移后的订单快照：缓存的状态等于迁移的起始状态时由缓存构造，
+     * 否则回查（同一事务内，读到的已是迁移后的状态）
+     */
+    private Order snapshot(String orderNumber, Transition transition) {
+        Order cached = snapshots.get(orderNumber);
+        if (cached == null || !transition.getFrom().getCode().equals(cached.getStatus())) {
+            return orderRepository.findByOrderNumber(orderNumber)
+                    .orElseThrow(() -> new BusinessException(ResultCode.ORDER_NOT_FOUND));
+        }
+        Order snapshot = copy(cached);
+        snapshot.setStatus(transition.getTo().getCode());
+        return snapshot;
+    }
+
+    private static Order copy(Order order) {
+        return new Order(order.getId(), order.getOrderNumber(), order.getUserId(), order.getUsername(),
+                order.getCourseId(), order.getCourseTitle(), order.getOriginalPrice(), order.getDiscountPrice(),
+                order.getAmount(), order.getStatus(), order.getPaymentMethod(), order.getPaymentNo(),
+                order.getRemark(), order.getPayTime(), order.getCancelTime(), order.getRefundTime(),
+                order.getExpireTime(), order.getCreatedTime(), order.getUpdatedTime());
+    }
+
+    /**
+     * 条件更新未命中时，查询当前状态以区分“订单不存在”“订单已过期”和“状态已变更”
+     */
+    private BusinessException rejected(String orderNumber, Transition transition, LocalDateTime now) {
+        Order current = orderRepository.findByOrderNumber(orderNumber)
+                .orElseThrow(() -> new BusinessException(ResultCode.ORDER_NOT_FOUND));
+
+        if (transition == Transition.PAY
+                && transition.getFrom().getCode().equals(current.getStatus())
+                && current.getExpireTime() != null
+                && current.getExpireTime().isBefore(now)) {
+            return new BusinessException(ResultCode.ORDER_EXPIRED);
+        }
+
+        log.warn("订单状态迁移失败: orderNumber={}, transition={}, currentStatus={}",
+                orderNumber, transition, current.getStatus());
+        return new BusinessException(ResultCode.ORDER_STATUS_CONFLICT,
+                String.format("订单状态错误，无法%s（当前状态：%s）", transition.getAction(), current.getStatus()));
+    }
+}
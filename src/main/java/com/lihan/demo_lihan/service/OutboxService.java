@@ -0,0 +1,164 @@
+package com.lihan.demo_lihan.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.lihan.demo_lihan.common.BusinessException;
+import com.lihan.demo_lihan.common.EventLog;
+import com.lihan.demo_lihan.config.OutboxProperties;
+import com.lihan.demo_lihan.datasource.ShardContext;
+import com.lihan.demo_lihan.datasource.ShardTemplate;
+import com.lihan.demo_lihan.dto.EventLogPage;
+import com.lihan.demo_lihan.entity.Course;
+import com.lihan.demo_lihan.entity.Order;
+import com.lihan.demo_lihan.entity.OutboxEvent;
+import com.lihan.demo_lihan.event.CourseStatusChangedEvent;
+import com.lihan.demo_lihan.event.OrderStatusChangedEvent;
+import com.lihan.demo_lihan.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 事务发件箱服务
+ * 订单、课程状态变更时在业务事务内写入 edu_outbox_event，与业务数据同时提交或回滚；
+ * 转发任务按 ID 顺序批量追加到本地事件日志并刷盘后再删除已转发的行，保证至少一次投递。
+ * 日志记录携带事件所在分片和发件箱事件ID（各分片的ID独立自增），消费者按偏移量读取，以（分片，ID）去重。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+
+    private static final String AGGREGATE_ORDER = "ORDER";
+    private static final String AGGREGATE_COURSE = "COURSE";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final EventLog eventLog;
+    private final OutboxProperties properties;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardTemplate shardTemplate;
+
+    /**
+     * 订单创建、支付、取消、退款、过期时写入发件箱（与订单事务一同提交）
+     */
+    @EventListener
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        Order order = event.getOrder();
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("orderId", order.getId());
+        payload.put("orderNumber", order.getOrderNumber());
+        payload.put("userId", order.getUserId());
+        payload.put("courseId", order.getCourseId());
+        payload.put("amount", order.getAmount());
+        payload.put("paymentMethod", order.getPaymentMethod());
+        payload.put("fromStatus", event.getFromStatus());
+        payload.put("toStatus", event.getToStatus());
+
+        String eventType = event.getFromStatus() == null ? "ORDER_CREATED" : "ORDER_" + event.getToStatus();
+        save(AGGREGATE_ORDER, order.getId(), eventType, payload);
+    }
+
+    /**
+     * 课程发布、下架时写入发件箱（与课程事务一同提交）
+     */
+    @EventListener
+    public void onCourseStatusChanged(CourseStatusChangedEvent event) {
+        Course course = event.getCourse();
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("courseId", course.getId());
+        payload.put("teacherId", course.getTeacherId());
+        payload.put("categoryId", course.getCategoryId());
+        payload.put("fromStatus", event.getFromStatus());
+        payload.put("toStatus", event.getToStatus());
+
+        save(AGGREGATE_COURSE, course.getId(), "COURSE_" + event.getToStatus(), payload);
+    }
+
+    /**
+     * 转发发件箱事件到本地事件日志（订单分片时逐个分片转发）
+     */
+    @Scheduled(fixedDelayString = "${outbox.relay-interval-ms:200}")
+    public void relay() {
+        if (!properties.isRelayEnabled()) {
+            return;
+        }
+        try {
+            shardTemplate.forEachShard(() -> {
+                int relayed;
+                do {
+                    relayed = relayBatch();
+                } while (relayed >= properties.getBatchSize());
+            });
+        } catch (Exception e) {
+            log.warn("发件箱事件转发失败，稍后重试: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 按偏移量读取事件日志
+     */
+    public EventLogPage readLog(long fromOffset, int limit) {
+        if (fromOffset < 0 || limit <= 0) {
+            throw new BusinessException("读取偏移量或数量不正确");
+        }
+        List<EventLog.LogRecord> records = eventLog.read(fromOffset, limit);
+        long nextOffset = records.isEmpty()
+                ? Math.max(fromOffset, eventLog.firstOffset())
+                : records.get(records.size() - 1).offset() + 1;
+        return new EventLogPage(records, nextOffset, eventLog.firstOffset(), eventLog.endOffset());
+    }
+
+    private int relayBatch() {
+        List<OutboxEvent> batch = outboxEventRepository.findBatch(PageRequest.of(0, properties.getBatchSize()));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        long firstOffset = eventLog.append(batch.stream().map(this::toLogLine).toList());
+        List<Long> ids = batch.stream().map(OutboxEvent::getId).toList();
+        transactionTemplate.executeWithoutResult(status -> outboxEventRepository.deleteByIdIn(ids));
+        log.debug("发件箱事件已转发: count={}, firstOffset={}", batch.size(), firstOffset);
+        return batch.size();
+    }
+
+    private void save(String aggregateType, Long aggregateId, String eventType, Map<String, Object> payload) {
+        OutboxEvent outboxEvent = new OutboxEvent();
+        outboxEvent.setAggregateType(aggregateType);
+        outboxEvent.setAggregateId(aggregateId);
+        outboxEvent.setEventType(eventType);
+        try {
+            outboxEvent.setPayload(objectMapper.writeValueAsString(payload));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("序列化发件箱事件失败: " + eventType, e);
+        }
+        outboxEventRepository.save(outboxEvent);
+    }
+
+    /**
+     * 日志记录格式：{"shard":..,"id":..,"type":..,"aggregateType":..,"aggregateId":..,"createdTime":..,"payload":{..}}
+     */
+    private String toLogLine(OutboxEvent event) {
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("shard", ShardContext.current());
+        node.put("id", event.getId());
+        node.put("type", event.getEventType());
+        node.put("aggregateType", event.getAggregateType());
+        node.put("aggregateId", event.getAggregateId());
+        LocalDateTime createdTime = event.getCreatedTime();
+        node.put("createdTime", createdTime == null ? null : createdTime.toString());
+        node.putRawValue("payload", new RawValue(event.getPayload()));
+        return node.toString();
+    }
+}
@@ -0,0 +1,267 @@
+package com.lihan.demo_lihan.service;
+
+import com.lihan.demo_lihan.common.Constants;
+import com.lihan.demo_lihan.datasource.ShardTemplate;
+import com.lihan.demo_lihan.metrics.CacheMetrics;
+import com.lihan.demo_lihan.entity.Order;
+import com.lihan.demo_lihan.event.OrderStatusChangedEvent;
+import com.lihan.demo_lihan.repository.OrderArchiveRepository;
+import com.lihan.demo_lihan.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 用户购买画像缓存
+ * 每个用户在 Redis 中保存一个已购课程ID集合和累计消费金额（分）。
+ * 集合只存用户实际购买的课程，大小与课程ID的取值范围无关；成员都是整数且数量较少时 Redis 以紧凑的 intset 编码存储。
+ * 成员 0 是“已加载”标记，一次 SMISMEMBER 即可同时判断是否命中并批量查询一页课程的购买状态。
+ * 画像在首次访问时从订单表加载，之后由支付/退款事件增量维护（加入/移除课程，累计金额加减订单金额），
+ * 并带过期时间兜底纠正偶发的不一致。
+ * 每次变更先递增用户的画像版本号；加载在查询订单前读取版本号，写入时版本号已变化则放弃写入，
+ * 避免查询到提交前数据的加载覆盖掉更新后的画像。退款时按数据库重新计算该课程是否仍已购买。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PurchaseProfileService {
+
+    private static final String LOADED_FLAG = "0";
+
+    /**
+     * 递增版本号，画像已加载时加入/移除课程并累加金额，未加载时删除残留：KEYS[1] 课程集合，KEYS[2] 消费金额，KEYS[3] 版本号；
+     * ARGV[1] 课程ID，ARGV[2] 是否仍已购买，ARGV[3] 过期秒数，ARGV[4] 金额变化（分）
+     */
+    private static final DefaultRedisScript<Long> APPLY_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('INCR', KEYS[3]) " +
+            "redis.call('EXPIRE', KEYS[3], ARGV[3]) " +
+            "if redis.call('SISMEMBER', KEYS[1], '0') == 1 and redis.call('EXISTS', KEYS[2]) == 1 then " +
+            "  if ARGV[2] == '1' then redis.call('SADD', KEYS[1], ARGV[1]) else redis.call('SREM', KEYS[1], ARGV[1]) end " +
+            "  redis.call('INCRBY', KEYS[2], ARGV[4]) " +
+            "  return 1 " +
+            "end " +
+            "redis.call('DEL', KEYS[1], KEYS[2]) " +
+            "return 0", Long.class);
+
+    /**
+     * 版本号未变化时原子写入画像：KEYS[1] 课程集合，KEYS[2] 消费金额，KEYS[3] 版本号；
+     * ARGV[1] 加载前读到的版本号，ARGV[2] 金额（分），ARGV[3] 过期秒数，ARGV[4..] 已购课程ID
+     */
+    private static final DefaultRedisScript<Long> LOAD_SCRIPT = new DefaultRedisScript<>(
+            "if (redis.call('GET', KEYS[3]) or '0') ~= ARGV[1] then return 0 end " +
+            "redis.call('DEL', KEYS[1]) " +
+            "redis.call('SADD', KEYS[1], '0') " +
+            "for i = 4, #ARGV do redis.call('SADD', KEYS[1], ARGV[i]) end " +
+            "redis.call('SET', KEYS[2], ARGV[2]) " +
+            "redis.call('EXPIRE', KEYS[1], ARGV[3]) " +
+            "redis.call('EXPIRE', KEYS[2], ARGV[3]) " +
+            "return 1", Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final OrderRepository orderRepository;
+    private final OrderArchiveRepository orderArchiveRepository;
+    private final ShardTemplate shardTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final CacheMetrics cacheMetrics;
+
+    /**
+     * 检查用户是否已购买课程
+     */
+    public boolean hasPurchased(Long userId, Long courseId) {
+        return checkOwnership(userId, List.of(courseId)).getOrDefault(courseId, false);
+    }
+
+    /**
+     * 批量检查用户对一组课程的购买状态，命中缓存时只需一次 Redis 调用
+     */
+    public Map<Long, Boolean> checkOwnership(Long userId, Collection<Long> courseIds) {
+        Map<Long, Boolean> result = new LinkedHashMap<>();
+        if (courseIds.isEmpty()) {
+            return result;
+        }
+
+        try {
+            Map<Object, Boolean> members = readMembers(userId, courseIds);
+            if (members != null && Boolean.TRUE.equals(members.get(LOADED_FLAG))) {
+                for (Long courseId : courseIds) {
+                    result.put(courseId, Boolean.TRUE.equals(members.get(String.valueOf(courseId))));
+                }
+                cacheMetrics.hit("purchase-profile");
+                return result;
+            }
+        } catch (DataAccessException e) {
+            log.warn("读取购买画像失败，回退到数据库查询: userId={}, error={}", userId, e.getMessage());
+        }
+
+        cacheMetrics.miss("purchase-profile");
+        Set<Long> ownedCourseIds = load(userId).ownedCourseIds();
+        for (Long courseId : courseIds) {
+            result.put(courseId, ownedCourseIds.contains(courseId));
+        }
+        return result;
+    }
+
+    /**
+     * 获取用户累计消费金额
+     */
+    public BigDecimal getTotalSpending(Long userId) {
+        try {
+            String cents = redisTemplate.opsForValue().get(spendingKey(userId));
+            if (cents != null) {
+                cacheMetrics.hit("purchase-spending");
+                return BigDecimal.valueOf(Long.parseLong(cents), 2);
+            }
+        } catch (DataAccessException e) {
+            log.warn("读取消费金额缓存失败，回退到数据库查询: userId={}, error={}", userId, e.getMessage());
+        }
+        cacheMetrics.miss("purchase-spending");
+        return BigDecimal.valueOf(load(userId).spendingCents(), 2);
+    }
+
+    /**
+     * 支付、退款提交后增量更新已加载的画像；退款后用户可能仍有该课程的其它已支付订单，按数据库重新计算是否仍已购买
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        boolean paid = Constants.Order.STATUS_PAID.equals(event.getToStatus());
+        boolean refunded = Constants.Order.STATUS_PAID.equals(event.getFromStatus());
+        if (!paid && !refunded) {
+            return;
+        }
+
+        Order order = event.getOrder();
+        Long userId = order.getUserId();
+        Long courseId = order.getCourseId();
+        long cents = toCents(order.getAmount());
+        try {
+            boolean owned = paid || shardTemplate.onShard(shardTemplate.shardOfUser(userId),
+                    () -> orderRepository.existsByUserIdAndCourseIdAndPaid(userId, courseId)
+                            || orderArchiveRepository.existsByUserIdAndCourseIdAndPaid(userId, courseId));
+            redisTemplate.execute(APPLY_SCRIPT,
+                    List.of(coursesKey(userId), spendingKey(userId), generationKey(userId)),
+                    String.valueOf(courseId), owned ? "1" : "0",
+                    String.valueOf(Constants.Cache.PURCHASE_PROFILE_EXPIRE_TIME),
+                    String.valueOf(paid ? cents : -cents));
+        } catch (DataAccessException e) {
+            // 更新失败时删除画像，避免保留错误数据
+            log.warn("更新购买画像失败，删除缓存: userId={}, error={}", userId, e.getMessage());
+            evict(userId);
+        }
+    }
+
+    /**
+     * 删除用户购买画像
+     */
+    public void evict(Long userId) {
+        try {
+            redisTemplate.delete(List.of(coursesKey(userId), spendingKey(userId)));
+        } catch (DataAccessException e) {
+            log.warn("删除购买画像失败: userId={}, error={}", userId, e.getMessage());
+        }
+    }
+
+    private Map<Object, Boolean> readMembers(Long userId, Collection<Long> courseIds) {
+        Object[] members = new Object[courseIds.size() + 1];
+        members[0] = LOADED_FLAG;
+        int i = 1;
+        for (Long courseId : courseIds) {
+            members[i++] = String.valueOf(courseId);
+        }
+        return redisTemplate.opsForSet().isMember(coursesKey(userId), members);
+    }
+
+    /**
+     * 从用户所在分片的订单表（含归档表）加载画像并原子写入 Redis
+     */
+    private Profile load(Long userId) {
+        String generation = readGeneration(userId);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        List<Object[]> rows = shardTemplate.onShard(shardTemplate.shardOfUser(userId), () -> readOnly.execute(status -> {
+            List<Object[]> paid = new ArrayList<>(orderRepository.findPaidCourseAmountsByUserId(userId));
+            paid.addAll(orderArchiveRepository.findPaidCourseAmountsByUserId(userId));
+            return paid;
+        }));
+
+        Set<Long> ownedCourseIds = new HashSet<>();
+        long spendingCents = 0;
+        for (Object[] row : rows) {
+            ownedCourseIds.add((Long) row[0]);
+            spendingCents += toCents((BigDecimal) row[1]);
+        }
+        Profile profile = new Profile(ownedCourseIds, spendingCents);
+
+        if (generation == null) {
+            return profile;
+        }
+        List<String> args = new ArrayList<>(ownedCourseIds.size() + 3);
+        args.add(generation);
+        args.add(String.valueOf(spendingCents));
+        args.add(String.valueOf(Constants.Cache.PURCHASE_PROFILE_EXPIRE_TIME));
+        for (Long courseId : ownedCourseIds) {
+            args.add(String.valueOf(courseId));
+        }
+        try {
+            redisTemplate.execute(LOAD_SCRIPT,
+                    List.of(coursesKey(userId), spendingKey(userId), generationKey(userId)), args.toArray());
+        } catch (DataAccessException e) {
+            log.warn("写入购买画像失败: userId={}, error={}", userId, e.getMessage());
+        }
+        return profile;
+    }
+
+    /**
+     * 读取画像版本号（不存在视为 0）；Redis 不可用时返回 null，本次加载不写缓存
+     */
+    private String readGeneration(Long userId) {
+        try {
+            String generation = redisTemplate.opsForValue().get(generationKey(userId));
+            return generation != null ? generation : "0";
+        } catch (DataAccessException e) {
+            log.warn("读取购买画像版本号失败: userId={}, error={}", userId, e.getMessage());
+            return null;
+        }
+    }
+
+    private static long toCents(BigDecimal amount) {
+        if (amount == null) {
+            return 0;
+        }
+        return amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue();
+    }
+
+    private static String coursesKey(Long userId) {
+        return Constants.Cache.PURCHASE_COURSES_PREFIX + userId;
+    }
+
+    private static String spendingKey(Long userId) {
+        return Constants.Cache.PURCHASE_SPENDING_PREFIX + userId;
+    }
+
+    private static String generationKey(Long userId) {
+        return Constants.Cache.PURCHASE_GENERATION_PREFIX + userId;
+    }
+
+    /**
+     * 从数据库加载的购买画像
+     */
+    private record Profile(Set<Long> ownedCourseIds, long spendingCents) {
+    }
+}
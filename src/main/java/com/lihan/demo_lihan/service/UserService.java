@@ -44,6 +44,7 @@ public class UserService {
     /**
      * 根据ID查找用户
      */
+    @Transactional(readOnly = true)
     public Optional<User> findById(Long id) {
         if (id == null) {
             return Optional.empty();
@@ -54,6 +55,7 @@ public class UserService {
     /**
      * 根据用户名查找用户
      */
+    @Transactional(readOnly = true)
     public Optional<User> findByUsername(String username) {
         if (Utils.isEmpty(username)) {
             return Optional.empty();
@@ -64,6 +66,7 @@ public class UserService {
     /**
      * 根据邮箱查找用户
      */
+    @Transactional(readOnly = true)
     public Optional<User> findByEmail(String email) {
         if (Utils.isEmpty(email)) {
             return Optional.empty();
@@ -74,6 +77,7 @@ public class UserService {
     /**
      * 根据用户名或邮箱查找用户
      */
+    @Transactional(readOnly = true)
     public Optional<User> findByUsernameOrEmail(String usernameOrEmail) {
         if (Utils.isEmpty(usernameOrEmail)) {
             return Optional.empty();
@@ -84,6 +88,7 @@ public class UserService {
     /**
      * 分页查询用户
      */
+    @Transactional(readOnly = true)
     public Page<User> findByKeyword(String keyword, Pageable pageable) {
         return userRepository.findByKeyword(keyword, pageable);
     }
@@ -91,6 +96,7 @@ public class UserService {
     /**
      * 获取所有用户
      */
+    @Transactional(readOnly = true)
     public List<User> findAll() {
         return userRepository.findAll();
     }
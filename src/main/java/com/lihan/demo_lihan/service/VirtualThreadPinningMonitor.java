@@ -0,0 +1,131 @@
+package com.lihan.demo_lihan.service;
+
+import com.lihan.demo_lihan.config.ConcurrencyProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 虚拟线程钉住监控
+ * 通过 JFR 事件流订阅 jdk.VirtualThreadPinned（虚拟线程在 synchronized 块或本地方法中阻塞，
+ * 无法让出载体线程），按业务代码中的调用位置计数；每个位置第一次出现时打印完整栈，之后只计数。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class VirtualThreadPinningMonitor {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final String APP_PACKAGE = "com.lihan.";
+    private static final int MAX_SITES = 200;
+
+    private final ConcurrencyProperties properties;
+
+    private final Map<String, LongAdder> pinnedSites = new ConcurrentHashMap<>();
+    private final LongAdder pinnedCount = new LongAdder();
+    private final AtomicLong maxPinnedMs = new AtomicLong();
+    private RecordingStream stream;
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isPinningMonitorEnabled()) {
+            return;
+        }
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT)
+                .withThreshold(Duration.ofMillis(properties.getPinningThresholdMs()))
+                .withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::onPinned);
+        stream.startAsync();
+        log.info("虚拟线程钉住监控已启动: threshold={}ms", properties.getPinningThresholdMs());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    public boolean isRunning() {
+        return stream != null;
+    }
+
+    public long getPinnedCount() {
+        return pinnedCount.sum();
+    }
+
+    public long getMaxPinnedMs() {
+        return maxPinnedMs.get();
+    }
+
+    /**
+     * 各调用位置的钉住次数（按次数倒序）
+     */
+    public Map<String, Long> getPinnedSites() {
+        Map<String, Long> sites = new LinkedHashMap<>();
+        pinnedSites.entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue().sum(), a.getValue().sum()))
+                .forEach(entry -> sites.put(entry.getKey(), entry.getValue().sum()));
+        return sites;
+    }
+
+    private void onPinned(RecordedEvent event) {
+        long durationMs = event.getDuration().toMillis();
+        pinnedCount.increment();
+        maxPinnedMs.accumulateAndGet(durationMs, Math::max);
+
+        String site = pinnedSite(event.getStackTrace());
+        LongAdder counter = pinnedSites.get(site);
+        if (counter == null) {
+            if (pinnedSites.size() >= MAX_SITES) {
+                return;
+            }
+            counter = pinnedSites.computeIfAbsent(site, key -> new LongAdder());
+            log.warn("虚拟线程钉住载体线程: site={}, duration={}ms, stack:\n{}", site, durationMs,
+                    formatStack(event.getStackTrace()));
+        }
+        counter.increment();
+    }
+
+    /**
+     * 取栈中第一个业务代码帧作为位置，没有业务帧时取栈顶
+     */
+    private static String pinnedSite(RecordedStackTrace stackTrace) {
+        if (stackTrace == null || stackTrace.getFrames().isEmpty()) {
+            return "unknown";
+        }
+        List<RecordedFrame> frames = stackTrace.getFrames();
+        RecordedFrame site = frames.stream()
+                .filter(frame -> frame.getMethod().getType().getName().startsWith(APP_PACKAGE))
+                .findFirst()
+                .orElse(frames.get(0));
+        return site.getMethod().getType().getName() + "." + site.getMethod().getName() + ":" + site.getLineNumber();
+    }
+
+    private static String formatStack(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "";
+        }
+        StringBuilder builder = new StringBuilder();
+        for (RecordedFrame frame : stackTrace.getFrames()) {
+            builder.append("\tat ").append(frame.getMethod().getType().getName()).append('.')
+                    .append(frame.getMethod().getName()).append(':').append(frame.getLineNumber()).append('\n');
+        }
+        return builder.toString();
+    }
+}
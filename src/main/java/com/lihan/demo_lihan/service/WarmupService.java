@@ -0,0 +1,149 @@
+package com.lihan.demo_lihan.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lihan.demo_lihan.common.Result;
+import com.lihan.demo_lihan.config.WarmupProperties;
+import com.lihan.demo_lihan.datasource.RoutingDataSource;
+import com.lihan.demo_lihan.entity.Course;
+import com.lihan.demo_lihan.jwt.JwtTokenUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 启动预热
+ * Spring Boot 在所有 ApplicationRunner 执行完后才把就绪状态切换为 ACCEPTING_TRAFFIC，预热在此之前同步执行：
+ * 先建立数据库连接池中的连接和 Redis 连接，再用固定的合成输入反复执行热点路径
+ * （JWT 签发和校验、课程分页查询、Result&lt;Page&lt;Course&gt;&gt; 序列化、BCrypt 校验），
+ * 让 Hibernate 查询计划缓存、Jackson 序列化器和 JIT 编译在真实流量到达前就绪。只读，不写任何业务数据。
+ * 预热调用同样计入 service 方法耗时指标；任何一步失败只记录警告，不阻止启动
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WarmupService implements ApplicationRunner {
+
+    private static final String USERNAME = "warmup";
+    private static final String PASSWORD = "warmup-password";
+    private static final String ROLE = "STUDENT";
+    private static final String[] KEYWORDS = {null, "java", "spring"};
+
+    private final WarmupProperties properties;
+    private final DataSource dataSource;
+    private final DataSourceStatsService dataSourceStatsService;
+    private final RedisConnectionFactory redisConnectionFactory;
+    private final JwtTokenUtil jwtTokenUtil;
+    private final PasswordEncoder passwordEncoder;
+    private final CourseService courseService;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        long start = System.nanoTime();
+        int connections = fillConnectionPool();
+        boolean redis = connectRedis();
+        long poolMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(properties.getMaxDurationMs());
+        String encodedPassword = passwordEncoder.encode(PASSWORD);
+        List<Long> iterationMicros = new ArrayList<>(properties.getIterations());
+        try {
+            for (int i = 0; i < properties.getIterations() && System.nanoTime() < deadline; i++) {
+                long iterationStart = System.nanoTime();
+                iterate(i, encodedPassword);
+                iterationMicros.add(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - iterationStart));
+            }
+        } catch (Exception e) {
+            log.warn("启动预热中断: iteration={}, {}", iterationMicros.size(), e.toString());
+        }
+
+        log.info("启动预热完成: 耗时 {}ms（连接 {}ms）, 数据库连接 {}, Redis {}, 轮数 {}, 首轮 {}ms, 末 10 轮平均 {}ms, 连接池 {}",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), poolMs, connections,
+                redis ? "已连接" : "不可用", iterationMicros.size(),
+                iterationMicros.isEmpty() ? "-" : millis(iterationMicros.get(0)),
+                iterationMicros.isEmpty() ? "-" : millis(tailAverage(iterationMicros, 10)),
+                dataSourceStatsService.getPoolStats().values());
+    }
+
+    private void iterate(int iteration, String encodedPassword) throws Exception {
+        String token = jwtTokenUtil.generateToken(USERNAME, ROLE, 0L);
+        if (!jwtTokenUtil.validateToken(token) || !USERNAME.equals(jwtTokenUtil.getUsernameFromToken(token))) {
+            throw new IllegalStateException("预热令牌校验失败");
+        }
+        Page<Course> page = courseService.findByKeywordAndStatus(KEYWORDS[iteration % KEYWORDS.length], "PUBLISHED",
+                PageRequest.of(0, 10));
+        objectMapper.writeValueAsBytes(Result.success(page));
+        objectMapper.writeValueAsBytes(Result.success(courseService.findHotCourses()));
+        if (iteration < properties.getBcryptIterations()) {
+            passwordEncoder.matches(PASSWORD, encodedPassword);
+        }
+    }
+
+    /**
+     * 同时借出多个连接，迫使连接池建立物理连接（延迟取连接的数据源需要调用 isValid 才会真正取连接）
+     * 从库、分片的连接池由 Hikari 按 minimumIdle 在后台补足
+     */
+    private int fillConnectionPool() {
+        int target = Math.min(properties.getConnections(), primaryPoolSize());
+        List<Connection> borrowed = new ArrayList<>(target);
+        try {
+            for (int i = 0; i < target; i++) {
+                Connection connection = dataSource.getConnection();
+                borrowed.add(connection);
+                connection.isValid(1);
+            }
+        } catch (SQLException | RuntimeException e) {
+            log.warn("预热数据库连接失败: borrowed={}, {}", borrowed.size(), e.toString());
+        } finally {
+            for (Connection connection : borrowed) {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    // 归还失败的连接由连接池回收
+                }
+            }
+        }
+        return borrowed.size();
+    }
+
+    private int primaryPoolSize() {
+        RoutingDataSource.PoolStats primary = dataSourceStatsService.getPoolStats().get(RoutingDataSource.PRIMARY);
+        return primary != null ? primary.maxSize() : properties.getConnections();
+    }
+
+    private boolean connectRedis() {
+        try (RedisConnection connection = redisConnectionFactory.getConnection()) {
+            connection.ping();
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("预热 Redis 连接失败: {}", e.toString());
+            return false;
+        }
+    }
+
+    private static long tailAverage(List<Long> values, int count) {
+        List<Long> tail = values.subList(Math.max(0, values.size() - count), values.size());
+        return (long) tail.stream().mapToLong(Long::longValue).average().orElse(0);
+    }
+
+    private static String millis(long micros) {
+        return String.format("%.2f", micros / 1000.0);
+    }
+}
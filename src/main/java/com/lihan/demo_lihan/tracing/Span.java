@@ -0,0 +1,150 @@
+package com.lihan.demo_lihan.tracing;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 调用链中的一段操作，由 Tracing.startSpan 创建，finish 时结束并恢复父 span 为当前 span
+ * 当前线程没有进行中的调用链时返回 NOOP，所有方法都不做任何事
+ */
+public class Span {
+
+    public static final Span NOOP = new Span(null, null, null, null, null, 0, 0);
+
+    public static final String KIND_SERVER = "SERVER";
+    public static final String KIND_CLIENT = "CLIENT";
+
+    private final Tracing.Trace trace;
+    private final Span parent;
+    private final String spanId;
+    private final String kind;
+    private String name;
+    private final long timestampMicros;
+    private final long startNanos;
+    private long durationMicros = -1;
+    private Map<String, String> tags;
+    private String remoteService;
+
+    Span(Tracing.Trace trace, Span parent, String spanId, String name, String kind,
+         long timestampMicros, long startNanos) {
+        this.trace = trace;
+        this.parent = parent;
+        this.spanId = spanId;
+        this.name = name;
+        this.kind = kind;
+        this.timestampMicros = timestampMicros;
+        this.startNanos = startNanos;
+    }
+
+    /**
+     * 是否在记录（NOOP 返回 false），标签值需要额外计算时先判断
+     */
+    public boolean isRecording() {
+        return trace != null;
+    }
+
+    public Span tag(String key, Object value) {
+        if (trace != null && value != null) {
+            synchronized (this) {
+                if (tags == null) {
+                    tags = new LinkedHashMap<>();
+                }
+                tags.put(key, value.toString());
+            }
+        }
+        return this;
+    }
+
+    public Span name(String name) {
+        if (trace != null) {
+            this.name = name;
+        }
+        return this;
+    }
+
+    /**
+     * 对端服务名（CLIENT span 的 remoteEndpoint，如 mysql、redis）
+     */
+    public Span remoteService(String remoteService) {
+        if (trace != null) {
+            this.remoteService = remoteService;
+        }
+        return this;
+    }
+
+    /**
+     * 标记出错，整条调用链会被保留
+     */
+    public Span error(Throwable e) {
+        return error(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+    }
+
+    public Span error(String message) {
+        if (trace != null) {
+            tag("error", message);
+            trace.markError();
+        }
+        return this;
+    }
+
+    public void finish() {
+        finish(System.nanoTime());
+    }
+
+    void finish(long endNanos) {
+        if (trace == null || durationMicros >= 0) {
+            return;
+        }
+        durationMicros = Math.max(1, TimeUnit.NANOSECONDS.toMicros(endNanos - startNanos));
+        Tracing.finished(this);
+    }
+
+    public String getTraceId() {
+        return trace == null ? null : trace.getTraceId();
+    }
+
+    public String getSpanId() {
+        return spanId;
+    }
+
+    Tracing.Trace getTrace() {
+        return trace;
+    }
+
+    Span getParent() {
+        return parent;
+    }
+
+    String getParentId() {
+        return parent != null ? parent.spanId : trace.getParentId();
+    }
+
+    String getName() {
+        return name;
+    }
+
+    String getKind() {
+        return kind;
+    }
+
+    long getTimestampMicros() {
+        return timestampMicros;
+    }
+
+    long getStartNanos() {
+        return startNanos;
+    }
+
+    long getDurationMicros() {
+        return durationMicros;
+    }
+
+    synchronized Map<String, String> getTags() {
+        return tags == null ? new LinkedHashMap<>() : new LinkedHashMap<>(tags);
+    }
+
+    String getRemoteService() {
+        return remoteService;
+    }
+}
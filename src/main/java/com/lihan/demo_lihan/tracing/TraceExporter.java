@@ -0,0 +1,187 @@
+package com.lihan.demo_lihan.tracing;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lihan.demo_lihan.common.RingBuffer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 调用链的尾部采样和文件导出
+ * 根 span 结束后决定是否保留：出错、耗时达到阈值或上游要求采样的全部保留，其余按比例抽样；
+ * 保留的调用链放入无锁环形队列，由后台线程定期成批写入文件，每行一条调用链（Zipkin v2 JSON 数组，可直接导入 Zipkin/Jaeger）
+ * 队列满时丢弃，请求线程不等待磁盘；指标 tracing.traces 按 result（exported、sampled_out、dropped）计数
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "tracing", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class TraceExporter {
+
+    public static final String METRIC_NAME = "tracing.traces";
+
+    private final TracingProperties properties;
+    private final ObjectMapper objectMapper;
+    private final RingBuffer<Tracing.Trace> queue;
+    private final long slowThresholdMicros;
+    private final Counter exported;
+    private final Counter sampledOut;
+    private final Counter dropped;
+    private Thread writer;
+
+    public TraceExporter(TracingProperties properties, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.queue = new RingBuffer<>(properties.getQueueCapacity());
+        this.slowThresholdMicros = TimeUnit.MILLISECONDS.toMicros(properties.getSlowThresholdMs());
+        this.exported = meterRegistry.counter(METRIC_NAME, "result", "exported");
+        this.sampledOut = meterRegistry.counter(METRIC_NAME, "result", "sampled_out");
+        this.dropped = meterRegistry.counter(METRIC_NAME, "result", "dropped");
+    }
+
+    @PostConstruct
+    public void start() {
+        writer = Thread.ofPlatform().name("trace-exporter").daemon().start(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    Thread.sleep(properties.getFlushIntervalMs());
+                } catch (InterruptedException e) {
+                    break;
+                }
+                flush();
+            }
+        });
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (writer != null) {
+            writer.interrupt();
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        flush();
+    }
+
+    /**
+     * 调用链完成回调（在结束根 span 的线程上执行）
+     */
+    public void complete(Tracing.Trace trace) {
+        if (!keep(trace)) {
+            sampledOut.increment();
+            return;
+        }
+        if (!queue.offer(trace)) {
+            dropped.increment();
+        }
+    }
+
+    boolean keep(Tracing.Trace trace) {
+        return trace.isError() || trace.isSampled() || trace.getDurationMicros() >= slowThresholdMicros
+                || ThreadLocalRandom.current().nextDouble() < properties.getSampleRate();
+    }
+
+    /**
+     * 把队列中的调用链写入文件（只能由写入线程调用，或在写入线程停止后调用）
+     */
+    int flush() {
+        List<Tracing.Trace> batch = new ArrayList<>(properties.getBatchSize());
+        int written = 0;
+        while (queue.drainTo(batch, properties.getBatchSize()) > 0) {
+            try {
+                write(batch);
+                exported.increment(batch.size());
+                written += batch.size();
+            } catch (IOException e) {
+                log.warn("写入调用链文件失败: {}", e.getMessage());
+                dropped.increment(batch.size());
+            }
+            batch.clear();
+        }
+        return written;
+    }
+
+    private void write(List<Tracing.Trace> batch) throws IOException {
+        Path path = Path.of(properties.getFilePath());
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        if (Files.exists(path) && Files.size(path) > properties.getFileMaxBytes()) {
+            rotate(path);
+        }
+        try (BufferedWriter out = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (Tracing.Trace trace : batch) {
+                out.write(toJson(trace));
+                out.newLine();
+            }
+        }
+    }
+
+    /**
+     * spans.jsonl.1 为最近一次轮转的文件，超过 maxFiles 的删除
+     */
+    private void rotate(Path path) throws IOException {
+        String name = path.getFileName().toString();
+        Files.deleteIfExists(path.resolveSibling(name + "." + properties.getMaxFiles()));
+        for (int i = properties.getMaxFiles() - 1; i >= 1; i--) {
+            Path rotated = path.resolveSibling(name + "." + i);
+            if (Files.exists(rotated)) {
+                Files.move(rotated, path.resolveSibling(name + "." + (i + 1)), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.move(path, path.resolveSibling(name + ".1"), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * 转换为 Zipkin v2 格式的 span 数组
+     */
+    String toJson(Tracing.Trace trace) throws JsonProcessingException {
+        Map<String, String> localEndpoint = Map.of("serviceName", properties.getServiceName());
+        List<Map<String, Object>> spans = new ArrayList<>();
+        for (Span span : trace.getSpans()) {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("traceId", trace.getTraceId());
+            if (span.getParentId() != null) {
+                json.put("parentId", span.getParentId());
+            }
+            json.put("id", span.getSpanId());
+            if (span.getKind() != null) {
+                json.put("kind", span.getKind());
+            }
+            json.put("name", span.getName());
+            json.put("timestamp", span.getTimestampMicros());
+            json.put("duration", span.getDurationMicros());
+            json.put("localEndpoint", localEndpoint);
+            if (span.getRemoteService() != null) {
+                json.put("remoteEndpoint", Map.of("serviceName", span.getRemoteService()));
+            }
+            Map<String, String> tags = span.getTags();
+            if (span.getParent() == null && trace.getDroppedSpans() > 0) {
+                tags.put("dropped_spans", String.valueOf(trace.getDroppedSpans()));
+            }
+            if (!tags.isEmpty()) {
+                json.put("tags", tags);
+            }
+            spans.add(json);
+        }
+        return objectMapper.writeValueAsString(spans);
+    }
+}
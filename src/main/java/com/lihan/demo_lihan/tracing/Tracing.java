@@ -0,0 +1,200 @@
+package com.lihan.demo_lihan.tracing;
+
+import org.slf4j.MDC;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 进程内调用链：当前线程的 span 保存在 ThreadLocal 中，traceId、spanId 同步写入 MDC 供日志输出
+ * 调用链由 TracingFilter 在请求入口开始；没有进行中的调用链时 startSpan 返回 Span.NOOP，开销只有一次 ThreadLocal 读取。
+ * 调用链的 span 先缓存在内存中，根 span 结束后整条交给完成回调（按耗时、错误决定是否导出）。
+ * 不跨线程传播：交给其它线程执行的工作（入队下单的消费者线程、@Async）不计入调用链
+ */
+public final class Tracing {
+
+    public static final String TRACE_ID = "traceId";
+    public static final String SPAN_ID = "spanId";
+
+    private static final ThreadLocal<Span> CURRENT = new ThreadLocal<>();
+
+    private Tracing() {
+    }
+
+    /**
+     * 开始一条调用链，根 span 成为当前 span
+     *
+     * @param traceId    上游传入的 traceId，为空时生成新的
+     * @param parentId   上游的 spanId，可为空
+     * @param sampled    上游要求保留该调用链
+     * @param maxSpans   最多缓存的 span 数，超出的 span 丢弃（只计数）
+     * @param onComplete 根 span 结束时调用
+     */
+    public static Span startTrace(String name, String traceId, String parentId, boolean sampled,
+                                  int maxSpans, Consumer<Trace> onComplete) {
+        Trace trace = new Trace(traceId != null ? traceId : newTraceId(), parentId, sampled, maxSpans, onComplete);
+        Span root = new Span(trace, null, newSpanId(), name, Span.KIND_SERVER, trace.baseMicros, trace.baseNanos);
+        trace.root = root;
+        enter(root);
+        return root;
+    }
+
+    public static Span startSpan(String name) {
+        return startSpan(name, null);
+    }
+
+    /**
+     * 在当前 span 下开始子 span 并成为当前 span；没有进行中的调用链时返回 NOOP
+     */
+    public static Span startSpan(String name, String kind) {
+        Span parent = CURRENT.get();
+        if (parent == null) {
+            return Span.NOOP;
+        }
+        Trace trace = parent.getTrace();
+        long now = System.nanoTime();
+        Span span = new Span(trace, parent, newSpanId(), name, kind, trace.micros(now), now);
+        enter(span);
+        return span;
+    }
+
+    /**
+     * 在当前 span 下补记一段已经结束的操作（不改变当前 span）
+     */
+    public static void recordSpan(String name, long startNanos, long endNanos) {
+        Span parent = CURRENT.get();
+        if (parent == null) {
+            return;
+        }
+        Trace trace = parent.getTrace();
+        new Span(trace, parent, newSpanId(), name, null, trace.micros(startNanos), startNanos).finish(endNanos);
+    }
+
+    public static Span current() {
+        Span span = CURRENT.get();
+        return span != null ? span : Span.NOOP;
+    }
+
+    /**
+     * 解除当前线程与调用链的关联，调用链本身不结束（异步请求由异步回调结束根 span）
+     */
+    public static void detach() {
+        CURRENT.remove();
+        MDC.remove(TRACE_ID);
+        MDC.remove(SPAN_ID);
+    }
+
+    static void finished(Span span) {
+        if (CURRENT.get() == span) {
+            if (span.getParent() != null) {
+                enter(span.getParent());
+            } else {
+                detach();
+            }
+        }
+        span.getTrace().finished(span);
+    }
+
+    private static void enter(Span span) {
+        CURRENT.set(span);
+        MDC.put(TRACE_ID, span.getTraceId());
+        MDC.put(SPAN_ID, span.getSpanId());
+    }
+
+    static String newTraceId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return hex(random.nextLong()) + hex(random.nextLong());
+    }
+
+    static String newSpanId() {
+        return hex(ThreadLocalRandom.current().nextLong());
+    }
+
+    private static String hex(long value) {
+        String hex = Long.toHexString(value);
+        return hex.length() == 16 ? hex : "0".repeat(16 - hex.length()) + hex;
+    }
+
+    /**
+     * 一条调用链：已结束的 span 列表和是否出错；span 可能在不同线程结束（异步请求），修改时加锁
+     */
+    public static final class Trace {
+
+        private final String traceId;
+        private final String parentId;
+        private final boolean sampled;
+        private final int maxSpans;
+        private final Consumer<Trace> onComplete;
+        private final long baseMicros;
+        private final long baseNanos;
+        private final List<Span> spans = new ArrayList<>();
+        private Span root;
+        private int droppedSpans;
+        private volatile boolean error;
+
+        private Trace(String traceId, String parentId, boolean sampled, int maxSpans, Consumer<Trace> onComplete) {
+            this.traceId = traceId;
+            this.parentId = parentId;
+            this.sampled = sampled;
+            this.maxSpans = maxSpans;
+            this.onComplete = onComplete;
+            this.baseMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+            this.baseNanos = System.nanoTime();
+        }
+
+        private long micros(long nanos) {
+            return baseMicros + TimeUnit.NANOSECONDS.toMicros(nanos - baseNanos);
+        }
+
+        private void finished(Span span) {
+            synchronized (this) {
+                if (spans.size() < maxSpans || span == root) {
+                    spans.add(span);
+                } else {
+                    droppedSpans++;
+                }
+            }
+            if (span == root) {
+                onComplete.accept(this);
+            }
+        }
+
+        void markError() {
+            error = true;
+        }
+
+        public String getTraceId() {
+            return traceId;
+        }
+
+        String getParentId() {
+            return parentId;
+        }
+
+        public boolean isSampled() {
+            return sampled;
+        }
+
+        public boolean isError() {
+            return error;
+        }
+
+        /**
+         * 根 span 的耗时（微秒）
+         */
+        public long getDurationMicros() {
+            return root.getDurationMicros();
+        }
+
+        public synchronized List<Span> getSpans() {
+            return new ArrayList<>(spans);
+        }
+
+        public synchronized int getDroppedSpans() {
+            return droppedSpans;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.lihan.demo_lihan.tracing;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * service 公共方法和 repository 方法的 span，名称为“类名.方法名”（repository 取接口名）
+ * 没有进行中的调用链时直接执行，名称按方法缓存
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(prefix = "tracing", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class TracingAspect {
+
+    private static final String REPOSITORY_PACKAGE = "com.lihan.demo_lihan.repository";
+
+    private final Map<Method, String> serviceNames = new ConcurrentHashMap<>();
+    private final Map<Class<?>, String> repositoryNames = new ConcurrentHashMap<>();
+
+    @Around("within(com.lihan.demo_lihan.service..*) && execution(public * *(..))")
+    public Object service(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!Tracing.current().isRecording()) {
+            return joinPoint.proceed();
+        }
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        String name = serviceNames.computeIfAbsent(method,
+                m -> joinPoint.getTarget().getClass().getSimpleName() + "." + m.getName());
+        return trace(joinPoint, name);
+    }
+
+    /**
+     * Spring Data 仓库的代理实现了仓库接口，继承自 JpaRepository 的 save、findById 等方法也会匹配
+     */
+    @Around("execution(* org.springframework.data.repository.Repository+.*(..))")
+    public Object repository(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!Tracing.current().isRecording()) {
+            return joinPoint.proceed();
+        }
+        String type = repositoryNames.computeIfAbsent(joinPoint.getThis().getClass(), TracingAspect::repositoryName);
+        return trace(joinPoint, type + "." + joinPoint.getSignature().getName());
+    }
+
+    private static Object trace(ProceedingJoinPoint joinPoint, String name) throws Throwable {
+        Span span = Tracing.startSpan(name);
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            span.error(e);
+            throw e;
+        } finally {
+            span.finish();
+        }
+    }
+
+    private static String repositoryName(Class<?> proxyClass) {
+        for (Class<?> type : proxyClass.getInterfaces()) {
+            if (type.getPackageName().startsWith(REPOSITORY_PACKAGE)) {
+                return type.getSimpleName();
+            }
+        }
+        return proxyClass.getSimpleName();
+    }
+}
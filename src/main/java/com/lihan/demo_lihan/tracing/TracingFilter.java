@@ -0,0 +1,123 @@
+package com.lihan.demo_lihan.tracing;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 请求入口：开始调用链（根 span），请求结束后按路由模板命名并记录状态码；5xx 或抛出异常的请求标记为出错
+ * 请求头带 W3C traceparent 时沿用上游的 traceId，sampled 标志为 01 时该调用链一定保留；响应头 X-Trace-Id 返回 traceId
+ * 异步请求（下单）在异步处理完成时结束根 span，请求线程只解除关联
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "tracing", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class TracingFilter extends OncePerRequestFilter {
+
+    public static final String TRACEPARENT_HEADER = "traceparent";
+    public static final String TRACE_ID_HEADER = "X-Trace-Id";
+    static final String ROOT_SPAN_ATTRIBUTE = TracingFilter.class.getName() + ".ROOT_SPAN";
+    private static final Pattern TRACEPARENT = Pattern.compile("00-([0-9a-f]{32})-([0-9a-f]{16})-([0-9a-f]{2})");
+    private static final String INVALID_TRACE_ID = "0".repeat(32);
+
+    private final TracingProperties properties;
+    private final TraceExporter exporter;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String traceId = null;
+        String parentId = null;
+        boolean sampled = false;
+        String traceparent = request.getHeader(TRACEPARENT_HEADER);
+        Matcher matcher = traceparent != null ? TRACEPARENT.matcher(traceparent.trim()) : null;
+        if (matcher != null && matcher.matches() && !matcher.group(1).equals(INVALID_TRACE_ID)) {
+            traceId = matcher.group(1);
+            parentId = matcher.group(2);
+            sampled = (Integer.parseInt(matcher.group(3), 16) & 1) == 1;
+        }
+        Span root = Tracing.startTrace(request.getMethod() + " " + request.getRequestURI(), traceId, parentId,
+                sampled, properties.getMaxSpansPerTrace(), exporter::complete);
+        response.setHeader(TRACE_ID_HEADER, root.getTraceId());
+        request.setAttribute(ROOT_SPAN_ATTRIBUTE, root);
+        Throwable error = null;
+        try {
+            filterChain.doFilter(request, response);
+        } catch (Throwable e) {
+            error = e;
+            throw e;
+        } finally {
+            if (request.isAsyncStarted() && error == null) {
+                request.getAsyncContext().addListener(new RootSpanListener(root, request, response));
+            } else {
+                finish(root, request, response, error);
+            }
+            // 未结束的子 span 或异步请求的根 span 不能留在请求线程上
+            Tracing.detach();
+        }
+    }
+
+    private static void finish(Span root, HttpServletRequest request, HttpServletResponse response, Throwable error) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        int status = response.getStatus();
+        root.name(request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI()))
+                .tag("http.method", request.getMethod())
+                .tag("http.path", request.getRequestURI())
+                .tag("http.status_code", status);
+        if (error != null) {
+            root.error(error);
+        } else if (status >= 500) {
+            root.error(String.valueOf(status));
+        }
+        root.finish();
+    }
+
+    private static final class RootSpanListener implements AsyncListener {
+
+        private final Span root;
+        private final HttpServletRequest request;
+        private final HttpServletResponse response;
+        private Throwable error;
+
+        RootSpanListener(Span root, HttpServletRequest request, HttpServletResponse response) {
+            this.root = root;
+            this.request = request;
+            this.response = response;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            finish(root, request, response, error);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            root.tag("timeout", true);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            error = event.getThrowable();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.lihan.demo_lihan.tracing;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+/**
+ * 控制器方法的 span；进入控制器前补记一个 filter-chain span，覆盖从请求入口到控制器的过滤器耗时（含 JWT 认证）
+ * 异步请求在控制器方法返回时结束 span，异步处理的耗时只计入根 span
+ */
+public class TracingInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String SPAN_ATTRIBUTE = TracingInterceptor.class.getName() + ".SPAN";
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod handlerMethod) || !Tracing.current().isRecording()) {
+            return true;
+        }
+        if (request.getAttribute(TracingFilter.ROOT_SPAN_ATTRIBUTE) instanceof Span root) {
+            Tracing.recordSpan("filter-chain", root.getStartNanos(), System.nanoTime());
+        }
+        Span span = Tracing.startSpan(handlerMethod.getBeanType().getSimpleName() + "." + handlerMethod.getMethod().getName());
+        request.setAttribute(SPAN_ATTRIBUTE, span);
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        finish(request, null);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        finish(request, ex);
+    }
+
+    private static void finish(HttpServletRequest request, Exception ex) {
+        if (request.getAttribute(SPAN_ATTRIBUTE) instanceof Span span) {
+            request.removeAttribute(SPAN_ATTRIBUTE);
+            if (ex != null) {
+                span.error(ex);
+            }
+            span.finish();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.lihan.demo_lihan.tracing;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 请求调用链配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "tracing")
+public class TracingProperties {
+
+    /**
+     * 是否记录调用链（过滤器、控制器、service、repository、JDBC、Redis）
+     */
+    private boolean enabled = true;
+
+    /**
+     * 写入文件的服务名（Zipkin localEndpoint.serviceName）
+     */
+    private String serviceName = "demo-lihan";
+
+    /**
+     * 根 span 耗时达到该值（毫秒）的调用链全部保留
+     */
+    private long slowThresholdMs = 500;
+
+    /**
+     * 未出错、未超过耗时阈值的调用链的保留比例
+     */
+    private double sampleRate = 0.01;
+
+    /**
+     * 每条调用链最多记录的 span 数，超出的只计数（批量接口一个请求可能执行上千条语句）
+     */
+    private int maxSpansPerTrace = 500;
+
+    /**
+     * 待写入的调用链队列容量（2 的幂），队列满时丢弃
+     */
+    private int queueCapacity = 4096;
+
+    /**
+     * 每次写入文件的最大调用链数
+     */
+    private int batchSize = 256;
+
+    /**
+     * 写入文件的间隔（毫秒）
+     */
+    private long flushIntervalMs = 1000;
+
+    /**
+     * 调用链文件，每行一条调用链（Zipkin v2 JSON 数组）
+     */
+    private String filePath = "data/traces/spans.jsonl";
+
+    /**
+     * 文件超过该大小时轮转
+     */
+    private long fileMaxBytes = 52428800;
+
+    /**
+     * 保留的轮转文件数（.1 ~ .N）
+     */
+    private int maxFiles = 5;
+}
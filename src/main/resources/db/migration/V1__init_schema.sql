@@ -0,0 +1,120 @@
+-- 初始表结构：与此前 ddl-auto=update 按实体生成的结构一致（约束名为 Hibernate 生成的名称）
+-- 已由 Hibernate 建好表的库不执行本脚本，由 spring.flyway.baseline-on-migrate 记为版本 1，从 V2 开始迁移
+-- 之后新增的表和列各自放在后续版本的脚本里，本脚本保持不变
+-- 显式指定 utf8mb4（MySQL 8 的默认字符集），不依赖目标库的默认设置
+
+CREATE TABLE edu_course (
+    id               BIGINT       NOT NULL AUTO_INCREMENT,
+    category_id      BIGINT       NOT NULL,
+    category_name    VARCHAR(50),
+    cover_image      VARCHAR(255),
+    created_time     DATETIME(6),
+    description      TEXT,
+    duration         INTEGER      NOT NULL,
+    is_free          BIT          NOT NULL,
+    is_hot           BIT          NOT NULL,
+    is_recommended   BIT          NOT NULL,
+    lesson_count     INTEGER      NOT NULL,
+    level            VARCHAR(20),
+    original_price   DECIMAL(10, 2),
+    price            DECIMAL(10, 2) NOT NULL,
+    published_time   DATETIME(6),
+    sort_order       INTEGER      NOT NULL,
+    status           VARCHAR(20)  NOT NULL,
+    student_count    INTEGER      NOT NULL,
+    tags             VARCHAR(255),
+    teacher_id       BIGINT       NOT NULL,
+    teacher_name     VARCHAR(50),
+    title            VARCHAR(100) NOT NULL,
+    updated_time     DATETIME(6),
+    view_count       INTEGER      NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+CREATE TABLE edu_order (
+    id             BIGINT         NOT NULL AUTO_INCREMENT,
+    amount         DECIMAL(10, 2) NOT NULL,
+    cancel_time    DATETIME(6),
+    course_id      BIGINT         NOT NULL,
+    course_title   VARCHAR(100),
+    created_time   DATETIME(6),
+    discount_price DECIMAL(10, 2),
+    expire_time    DATETIME(6),
+    order_number   VARCHAR(50)    NOT NULL,
+    original_price DECIMAL(10, 2) NOT NULL,
+    pay_time       DATETIME(6),
+    payment_method VARCHAR(20),
+    payment_no     VARCHAR(100),
+    refund_time    DATETIME(6),
+    remark         VARCHAR(255),
+    status         VARCHAR(20)    NOT NULL,
+    updated_time   DATETIME(6),
+    user_id        BIGINT         NOT NULL,
+    username       VARCHAR(50),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+CREATE TABLE edu_role (
+    id           BIGINT      NOT NULL AUTO_INCREMENT,
+    created_time DATETIME(6),
+    description  VARCHAR(200),
+    is_enabled   BIT         NOT NULL,
+    role_code    VARCHAR(50) NOT NULL,
+    role_name    VARCHAR(50) NOT NULL,
+    updated_time DATETIME(6),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+CREATE TABLE edu_user (
+    id           BIGINT       NOT NULL AUTO_INCREMENT,
+    avatar       VARCHAR(255),
+    created_time DATETIME(6),
+    email        VARCHAR(100),
+    is_enabled   BIT          NOT NULL,
+    is_locked    BIT          NOT NULL,
+    nickname     VARCHAR(100),
+    password     VARCHAR(255) NOT NULL,
+    phone        VARCHAR(20),
+    updated_time DATETIME(6),
+    username     VARCHAR(50)  NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+CREATE TABLE edu_user_course (
+    user_id   BIGINT NOT NULL,
+    course_id BIGINT NOT NULL,
+    PRIMARY KEY (user_id, course_id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+CREATE TABLE edu_user_role (
+    user_id BIGINT NOT NULL,
+    role_id BIGINT NOT NULL,
+    PRIMARY KEY (user_id, role_id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+CREATE INDEX idx_teacher_id ON edu_course (teacher_id);
+CREATE INDEX idx_category_id ON edu_course (category_id);
+CREATE INDEX idx_status ON edu_course (status);
+CREATE INDEX idx_created_time ON edu_course (created_time);
+
+CREATE INDEX idx_user_id ON edu_order (user_id);
+CREATE INDEX idx_course_id ON edu_order (course_id);
+CREATE INDEX idx_order_number ON edu_order (order_number);
+CREATE INDEX idx_status ON edu_order (status);
+CREATE INDEX idx_created_time ON edu_order (created_time);
+ALTER TABLE edu_order ADD CONSTRAINT UKjor2d39scufyt3vl6nlqwhhd0 UNIQUE (order_number);
+
+ALTER TABLE edu_role ADD CONSTRAINT UKc3ov5kbnum36h0kpkuyg56s89 UNIQUE (role_code);
+ALTER TABLE edu_role ADD CONSTRAINT UK1dckc5wolet34cxc6wdk4dv5p UNIQUE (role_name);
+
+CREATE INDEX idx_username ON edu_user (username);
+CREATE INDEX idx_email ON edu_user (email);
+CREATE INDEX idx_phone ON edu_user (phone);
+ALTER TABLE edu_user ADD CONSTRAINT UKcwxeb2ctciw346a4xiy05wxa3 UNIQUE (email);
+ALTER TABLE edu_user ADD CONSTRAINT UKerxoqyseced4mnjd632m1n550 UNIQUE (phone);
+ALTER TABLE edu_user ADD CONSTRAINT UKhiajm10e2svnnlgyfucgspw3i UNIQUE (username);
+
+ALTER TABLE edu_user_course ADD CONSTRAINT FKllk4vdlhcvgtx57d6n2l3wq45 FOREIGN KEY (course_id) REFERENCES edu_course (id);
+ALTER TABLE edu_user_course ADD CONSTRAINT FKjnw2bbg1uvrtovtbrphuceh9s FOREIGN KEY (user_id) REFERENCES edu_user (id);
+ALTER TABLE edu_user_role ADD CONSTRAINT FKj3g79h2wl7n8op3q659ju4uhe FOREIGN KEY (role_id) REFERENCES edu_role (id);
+ALTER TABLE edu_user_role ADD CONSTRAINT FK2hu8gmm2xsenupswq0r4a3hpr FOREIGN KEY (user_id) REFERENCES edu_user (id);
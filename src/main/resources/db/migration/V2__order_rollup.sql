@@ -0,0 +1,17 @@
+-- 订单汇总表：按时间桶和维度增量维护订单数与金额，同一汇总项拆成多个 slot 分散热点行锁
+-- 建表后由 OrderRollupService.rebuild() 按现有订单全量重建
+
+CREATE TABLE edu_order_rollup (
+    id            BIGINT         NOT NULL AUTO_INCREMENT,
+    amount        DECIMAL(16, 2) NOT NULL,
+    bucket_start  DATETIME(6)    NOT NULL,
+    bucket_type   VARCHAR(10)    NOT NULL,
+    dimension     VARCHAR(20)    NOT NULL,
+    dimension_key VARCHAR(50)    NOT NULL,
+    order_count   BIGINT         NOT NULL,
+    slot          INTEGER        NOT NULL,
+    updated_time  DATETIME(6),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+ALTER TABLE edu_order_rollup ADD CONSTRAINT uk_rollup_bucket UNIQUE (bucket_type, dimension, dimension_key, bucket_start, slot);
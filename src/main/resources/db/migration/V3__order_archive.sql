@@ -0,0 +1,30 @@
+-- 归档订单（冷数据）：结构与 edu_order 相同，另记归档时间；ID 沿用原订单，不自增
+
+CREATE TABLE edu_order_archive (
+    id             BIGINT         NOT NULL,
+    amount         DECIMAL(10, 2) NOT NULL,
+    archived_time  DATETIME(6),
+    cancel_time    DATETIME(6),
+    course_id      BIGINT         NOT NULL,
+    course_title   VARCHAR(100),
+    created_time   DATETIME(6),
+    discount_price DECIMAL(10, 2),
+    expire_time    DATETIME(6),
+    order_number   VARCHAR(50)    NOT NULL,
+    original_price DECIMAL(10, 2) NOT NULL,
+    pay_time       DATETIME(6),
+    payment_method VARCHAR(20),
+    payment_no     VARCHAR(100),
+    refund_time    DATETIME(6),
+    remark         VARCHAR(255),
+    status         VARCHAR(20)    NOT NULL,
+    updated_time   DATETIME(6),
+    user_id        BIGINT         NOT NULL,
+    username       VARCHAR(50),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+CREATE INDEX idx_archive_user_created ON edu_order_archive (user_id, created_time);
+CREATE INDEX idx_archive_order_number ON edu_order_archive (order_number);
+CREATE INDEX idx_archive_pay_time ON edu_order_archive (pay_time, status, amount);
+ALTER TABLE edu_order_archive ADD CONSTRAINT UKav6i7wraq7asij374406t4ded UNIQUE (order_number);
@@ -0,0 +1,11 @@
+-- 事务发件箱：业务事务内写入领域事件，由转发任务按 ID 顺序读取后删除
+
+CREATE TABLE edu_outbox_event (
+    id             BIGINT      NOT NULL AUTO_INCREMENT,
+    aggregate_id   BIGINT      NOT NULL,
+    aggregate_type VARCHAR(20) NOT NULL,
+    created_time   DATETIME(6),
+    event_type     VARCHAR(30) NOT NULL,
+    payload        TEXT        NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
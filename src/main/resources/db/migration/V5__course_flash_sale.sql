@@ -0,0 +1,6 @@
+-- 限量抢购：名额为空表示不限量；可空列追加在末尾，InnoDB 即时加列，不重建表
+
+ALTER TABLE edu_course
+    ADD COLUMN seat_capacity INTEGER,
+    ADD COLUMN flash_sale_price DECIMAL(10, 2),
+    ALGORITHM = INSTANT;
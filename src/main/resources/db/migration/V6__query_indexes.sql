@@ -0,0 +1,51 @@
+-- 按仓储查询调整索引：等值条件列在前、排序或范围列在后，部分索引带上查询只读取的列以避免回表
+-- 只能单列过滤的旧索引由以其开头的组合索引替代后删除；与唯一约束重复的普通索引直接删除
+-- 每张表合并为一条 ALTER，InnoDB 在线建索引，迁移期间不阻塞读写
+
+-- 订单
+--   idx_order_user_created         findByUserId；findByUserIdAndStatus 分页（不限状态）按 created_time 倒序取页，免排序
+--   idx_order_user_status_created  findByUserIdAndStatus 列表与分页（指定状态）、countByUserIdAndStatus（仅读索引）、
+--                                  calculateUserTotalSpending、findPaidCourseAmountsByUserId
+--   idx_order_user_course_status   existsByUserIdAndCourseIdAndPaid（下单前校验是否已购买，仅读索引）、findByUserIdAndCourseId
+--   idx_order_status_expire        findExpiredPendingOrders（status 等值 + expire_time 范围）、findByStatus、countOrdersByStatus
+--   idx_order_course_status        findByCourseId、countSalesByCourseId（仅读索引）
+--   idx_order_pay_time             findByPayTimeBetween、streamByPayTimeBetween；calculateTotalRevenue 只读索引即可求和
+--   idx_order_payment_no           findByPaymentNo（支付回调按第三方流水号查单）
+ALTER TABLE edu_order
+    DROP INDEX idx_user_id,
+    DROP INDEX idx_course_id,
+    DROP INDEX idx_order_number,
+    DROP INDEX idx_status,
+    RENAME INDEX idx_created_time TO idx_order_created_time,
+    ADD INDEX idx_order_user_created (user_id, created_time),
+    ADD INDEX idx_order_user_status_created (user_id, status, created_time),
+    ADD INDEX idx_order_user_course_status (user_id, course_id, status),
+    ADD INDEX idx_order_status_expire (status, expire_time),
+    ADD INDEX idx_order_course_status (course_id, status),
+    ADD INDEX idx_order_pay_time (pay_time, status, amount),
+    ADD INDEX idx_order_payment_no (payment_no),
+    ALGORITHM = INPLACE, LOCK = NONE;
+
+-- 课程（view_count、student_count 随浏览、选课频繁更新，不建在索引里，按其排序的查询在过滤后的小结果集上排序）
+--   idx_course_status_created      findByStatusOrderByCreatedTimeDesc 免排序、findByStatus、countCoursesByStatus
+--   idx_course_status_published    findLatestPublishedCourses 免排序
+--   idx_course_category_status     findByCategoryId、countByCategoryIdAndStatus（仅读索引）
+--   idx_course_recommended         findByIsRecommendedTrueAndStatusOrderBySortOrder 免排序
+ALTER TABLE edu_course
+    DROP INDEX idx_category_id,
+    DROP INDEX idx_status,
+    RENAME INDEX idx_teacher_id TO idx_course_teacher_id,
+    RENAME INDEX idx_created_time TO idx_course_created_time,
+    ADD INDEX idx_course_status_created (status, created_time),
+    ADD INDEX idx_course_status_published (status, published_time),
+    ADD INDEX idx_course_category_status (category_id, status),
+    ADD INDEX idx_course_recommended (is_recommended, status, sort_order),
+    ALGORITHM = INPLACE, LOCK = NONE;
+
+-- 用户：用户名、邮箱、手机号已有唯一索引；findByCreatedTimeBetween 按注册时间范围查询
+ALTER TABLE edu_user
+    DROP INDEX idx_username,
+    DROP INDEX idx_email,
+    DROP INDEX idx_phone,
+    ADD INDEX idx_user_created_time (created_time),
+    ALGORITHM = INPLACE, LOCK = NONE;
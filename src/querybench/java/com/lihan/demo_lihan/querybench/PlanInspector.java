@@ -0,0 +1,154 @@
+package com.lihan.demo_lihan.querybench;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 按数据库取执行计划和扫描行数
+ */
+public interface PlanInspector {
+
+    /**
+     * 当前会话累计读取的行数，执行前后取差值作为实际扫描行数；不支持时返回 -1，改用执行计划中的行数
+     */
+    long rowsRead(Connection connection) throws SQLException;
+
+    /**
+     * 用语句原本的绑定参数执行 EXPLAIN
+     */
+    Plan explain(Connection connection, StatementCapture.Captured statement) throws SQLException;
+
+    static PlanInspector forUrl(String url, ObjectMapper objectMapper) {
+        return url.startsWith("jdbc:h2:") ? new H2() : new MySql(objectMapper);
+    }
+
+    /**
+     * @param fullScans    全表扫描（或全索引扫描）的表
+     * @param filesort     是否需要额外排序
+     * @param rowsExamined 执行计划给出的扫描行数（MySQL 为估算值，H2 为 EXPLAIN ANALYZE 的实际值）
+     */
+    record Plan(String sql, String plan, List<String> fullScans, boolean filesort, long rowsExamined) {
+    }
+
+    private static PreparedStatement prepare(Connection connection, String prefix,
+                                             StatementCapture.Captured statement) throws SQLException {
+        PreparedStatement explain = connection.prepareStatement(prefix + statement.sql());
+        for (int i = 0; i < statement.parameters().size(); i++) {
+            explain.setObject(i + 1, statement.parameters().get(i));
+        }
+        return explain;
+    }
+
+    /**
+     * MySQL：Handler_read_* 会话计数取实际扫描行数，EXPLAIN FORMAT=JSON 中 access_type 为 ALL/index 视为全扫描
+     */
+    class MySql implements PlanInspector {
+
+        private final ObjectMapper objectMapper;
+
+        MySql(ObjectMapper objectMapper) {
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        public long rowsRead(Connection connection) throws SQLException {
+            long rows = 0;
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery("SHOW SESSION STATUS LIKE 'Handler_read%'")) {
+                while (rs.next()) {
+                    rows += rs.getLong(2);
+                }
+            }
+            return rows;
+        }
+
+        @Override
+        public Plan explain(Connection connection, StatementCapture.Captured statement) throws SQLException {
+            try (PreparedStatement explain = prepare(connection, "EXPLAIN FORMAT=JSON ", statement);
+                 ResultSet rs = explain.executeQuery()) {
+                rs.next();
+                JsonNode tree = objectMapper.readTree(rs.getString(1));
+                List<String> fullScans = new ArrayList<>();
+                boolean[] filesort = new boolean[1];
+                long[] rows = new long[1];
+                walk(tree, fullScans, filesort, rows);
+                return new Plan(statement.sql(), tree.toString(), fullScans, filesort[0], rows[0]);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("解析执行计划失败", e);
+            }
+        }
+
+        private static void walk(JsonNode node, List<String> fullScans, boolean[] filesort, long[] rows) {
+            if (node.isArray()) {
+                node.forEach(child -> walk(child, fullScans, filesort, rows));
+                return;
+            }
+            if (!node.isObject()) {
+                return;
+            }
+            String accessType = node.path("access_type").asText("");
+            if (accessType.equals("ALL") || accessType.equals("index")) {
+                String table = node.path("table_name").asText("?");
+                fullScans.add(accessType.equals("ALL") ? table : table + "(index)");
+            }
+            if (node.path("using_filesort").asBoolean(false)) {
+                filesort[0] = true;
+            }
+            rows[0] += node.path("rows_examined_per_scan").asLong(0);
+            for (Iterator<Map.Entry<String, JsonNode>> it = node.fields(); it.hasNext(); ) {
+                walk(it.next().getValue(), fullScans, filesort, rows);
+            }
+        }
+    }
+
+    /**
+     * H2：EXPLAIN ANALYZE 的 scanCount 即实际扫描行数，tableScan 为全表扫描，带 ORDER BY 且未标注 index sorted 视为额外排序
+     */
+    class H2 implements PlanInspector {
+
+        private static final Pattern TABLE_SCAN = Pattern.compile("/\\* ([\\w.]+)\\.tableScan");
+        private static final Pattern SCAN_COUNT = Pattern.compile("scanCount: (\\d+)");
+
+        @Override
+        public long rowsRead(Connection connection) {
+            return -1;
+        }
+
+        @Override
+        public Plan explain(Connection connection, StatementCapture.Captured statement) throws SQLException {
+            try (PreparedStatement explain = prepare(connection, "EXPLAIN ANALYZE ", statement);
+                 ResultSet rs = explain.executeQuery()) {
+                rs.next();
+                String plan = rs.getString(1);
+                List<String> fullScans = new ArrayList<>();
+                Matcher tableScan = TABLE_SCAN.matcher(plan);
+                while (tableScan.find()) {
+                    String table = tableScan.group(1);
+                    fullScans.add(table.substring(table.lastIndexOf('.') + 1));
+                }
+                long rows = 0;
+                Matcher scanCount = SCAN_COUNT.matcher(plan);
+                while (scanCount.find()) {
+                    rows += Long.parseLong(scanCount.group(1));
+                }
+                boolean filesort = statement.sql().toLowerCase(Locale.ROOT).contains(" order by ")
+                        && !plan.contains("index sorted");
+                return new Plan(statement.sql(), plan, fullScans, filesort, rows);
+            }
+        }
+    }
+}
@@ -0,0 +1,399 @@
+package com.lihan.demo_lihan.querybench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.lihan.demo_lihan.datagen.DataGenMain;
+import com.lihan.demo_lihan.datagen.DataGenOptions;
+import com.lihan.demo_lihan.datagen.DatasetModel;
+import com.lihan.demo_lihan.entity.Course;
+import com.lihan.demo_lihan.repository.CourseRepository;
+import com.lihan.demo_lihan.repository.OrderRepository;
+import com.lihan.demo_lihan.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.Page;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * 仓储查询基准入口：mvn -Pquerybench verify [-Dquerybench.args="--scales=10000,100000 --baseline=querybench-baseline.json"]
+ * 按规模依次清空目标库、用 datagen 生成数据，对每个仓储方法测量延迟、扫描行数并抓取执行计划；
+ * 最大规模下出现全表扫描、额外排序，或扫描行数、延迟随数据量线性增长的查询会被标记。
+ * 指定 baseline 时，与基线相比新增的标记视为退化，进程以非零状态退出。
+ */
+@Slf4j
+public class QueryBenchMain {
+
+    /**
+     * 数据量不随规模增长的表，全表扫描不标记
+     */
+    private static final Set<String> STATIC_TABLES = Set.of("edu_role");
+    private static final long GROWTH_MIN_ROWS = 10_000;
+    private static final double GROWTH_MIN_MS = 5;
+
+    private final QueryBenchOptions options;
+    private final TransactionTemplate transactionTemplate;
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final QueryCases.Repositories repositories;
+    private final PlanInspector inspector;
+
+    QueryBenchMain(QueryBenchOptions options, ConfigurableApplicationContext context) {
+        this.options = options;
+        this.transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        this.dataSource = context.getBean(DataSource.class);
+        this.jdbcTemplate = context.getBean(JdbcTemplate.class);
+        this.repositories = new QueryCases.Repositories(context.getBean(CourseRepository.class),
+                context.getBean(OrderRepository.class), context.getBean(UserRepository.class));
+        this.inspector = PlanInspector.forUrl(options.url(), context.getBean(ObjectMapper.class));
+    }
+
+    public static void main(String[] args) throws Exception {
+        QueryBenchOptions options = QueryBenchOptions.parse(args);
+        Map<String, List<String>> regressions;
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(Config.class)
+                .run(springArgs(options))) {
+            regressions = new QueryBenchMain(options, context).run(context.getBean(ObjectMapper.class));
+        }
+        if (!regressions.isEmpty()) {
+            log.error("执行计划相对基线退化: {}", regressions);
+            System.exit(1);
+        }
+    }
+
+    private static String[] springArgs(QueryBenchOptions options) {
+        return new String[]{
+                "--spring.profiles.active=querybench",
+                "--spring.datasource.url=" + options.url(),
+                "--spring.datasource.username=" + options.username(),
+                "--spring.datasource.password=" + options.password(),
+                "--spring.datasource.driver-class-name=" + (options.isH2() ? "org.h2.Driver" : "com.mysql.cj.jdbc.Driver"),
+                "--spring.jpa.properties.hibernate.dialect=" + (options.isH2()
+                        ? "org.hibernate.dialect.H2Dialect" : "org.hibernate.dialect.MySQLDialect"),
+                // MySQL 上由 Flyway 迁移出与生产一致的索引；迁移脚本为 MySQL 语法，H2 冒烟运行由 Hibernate 按实体建表
+                "--spring.flyway.enabled=" + !options.isH2(),
+                "--spring.jpa.hibernate.ddl-auto=" + (options.isH2() ? "create" : "validate"),
+                "--querybench.max-rows=" + options.maxRows()};
+    }
+
+    Map<String, List<String>> run(ObjectMapper objectMapper) throws Exception {
+        Pattern filter = Pattern.compile(options.cases());
+        Map<String, List<ScaleResult>> results = new LinkedHashMap<>();
+        for (long users : options.scales()) {
+            DataGenOptions data = generate(users);
+            for (QueryCases.QueryCase queryCase : QueryCases.all(params(data))) {
+                if (filter.matcher(queryCase.name()).matches()) {
+                    results.computeIfAbsent(queryCase.name(), name -> new ArrayList<>()).add(measure(queryCase, data));
+                }
+            }
+            log.info("规模完成: users={}, courses={}, orders={}", data.users(), data.courses(), data.orders());
+        }
+
+        List<CaseReport> cases = new ArrayList<>();
+        results.forEach((name, scaleResults) -> cases.add(new CaseReport(name, flags(scaleResults), scaleResults)));
+        Map<String, List<String>> regressions = regressions(cases, objectMapper);
+        print(cases, regressions);
+        writeReport(cases, regressions, objectMapper);
+        return regressions;
+    }
+
+    /**
+     * 课程数为用户数的 1/10、订单数为 10 倍，与 datagen 的默认规模比例一致
+     */
+    private DataGenOptions generate(long users) throws Exception {
+        DataGenOptions data = DataGenOptions.parse(new String[]{
+                "--format=jdbc", "--truncate=true", "--url=" + options.url(), "--username=" + options.username(),
+                "--password=" + options.password(), "--seed=" + options.seed(), "--users=" + users,
+                "--courses=" + Math.max(1, users / 10), "--orders=" + users * 10});
+        new DataGenMain(data).run();
+        return data;
+    }
+
+    private QueryCases.Params params(DataGenOptions data) {
+        DatasetModel model = new DatasetModel(data);
+        long hotUser = model.hottestUser();
+        long hotCourse = model.hottestCourse();
+        long teacherId = repositories.courses().findTeacherIdById(hotCourse).orElse(0L);
+        Map<String, Object> order = jdbcTemplate.queryForList("SELECT id, order_number, payment_no FROM edu_order "
+                + "WHERE user_id = ? AND status = 'PAID' ORDER BY id LIMIT 1", hotUser).stream().findFirst()
+                .orElse(Map.of("id", 0L, "order_number", "", "payment_no", ""));
+        return new QueryCases.Params(hotUser, hotCourse, teacherId, ((Number) order.get("id")).longValue(),
+                (String) order.get("order_number"), (String) order.get("payment_no"), data.end());
+    }
+
+    private ScaleResult measure(QueryCases.QueryCase queryCase, DataGenOptions data) {
+        try {
+            for (int i = 0; i < options.warmup(); i++) {
+                execute(queryCase);
+            }
+            Histogram histogram = new Histogram(3);
+            int rows = 0;
+            for (int i = 0; i < options.iterations(); i++) {
+                long start = System.nanoTime();
+                rows = execute(queryCase);
+                histogram.recordValue(System.nanoTime() - start);
+            }
+            Probe probe = probe(queryCase);
+            List<String> fullScans = probe.plans().stream().flatMap(plan -> plan.fullScans().stream()).toList();
+            boolean filesort = probe.plans().stream().anyMatch(PlanInspector.Plan::filesort);
+            return new ScaleResult(data.users(), data.courses(), data.orders(), rows,
+                    histogram.getValueAtPercentile(50) / 1e6, histogram.getValueAtPercentile(99) / 1e6,
+                    histogram.getMaxValue() / 1e6, probe.rowsExamined(), probe.plans().size(), fullScans, filesort,
+                    probe.plans(), null);
+        } catch (RuntimeException e) {
+            log.warn("查询失败: {}, users={}, {}", queryCase.name(), data.users(), e.toString());
+            return new ScaleResult(data.users(), data.courses(), data.orders(), 0, 0, 0, 0, 0, 0, List.of(), false,
+                    List.of(), e.toString());
+        }
+    }
+
+    /**
+     * 在回滚的事务内执行一次，返回结果行数
+     */
+    private int execute(QueryCases.QueryCase queryCase) {
+        Integer rows = transactionTemplate.execute(status -> {
+            status.setRollbackOnly();
+            return count(queryCase.call().apply(repositories));
+        });
+        return rows == null ? 0 : rows;
+    }
+
+    /**
+     * 再执行一次，记录发出的语句和扫描行数，并在同一连接上对每条语句执行 EXPLAIN
+     */
+    private Probe probe(QueryCases.QueryCase queryCase) {
+        return transactionTemplate.execute(status -> {
+            status.setRollbackOnly();
+            Connection connection = DataSourceUtils.getConnection(dataSource);
+            try {
+                // 读取会话计数本身也会累加读取行数，先连续读两次得到这部分开销
+                long overhead = -inspector.rowsRead(connection);
+                long before = inspector.rowsRead(connection);
+                overhead += before;
+                List<StatementCapture.Captured> captured;
+                StatementCapture.begin();
+                try {
+                    count(queryCase.call().apply(repositories));
+                } finally {
+                    captured = StatementCapture.end();
+                }
+                long after = inspector.rowsRead(connection);
+
+                List<PlanInspector.Plan> plans = new ArrayList<>();
+                for (StatementCapture.Captured statement : captured) {
+                    plans.add(explain(connection, statement));
+                }
+                long rowsExamined = before < 0
+                        ? plans.stream().mapToLong(PlanInspector.Plan::rowsExamined).sum()
+                        : Math.max(0, after - before - overhead);
+                return new Probe(rowsExamined, plans);
+            } catch (SQLException e) {
+                throw new IllegalStateException("读取扫描行数失败", e);
+            }
+        });
+    }
+
+    private PlanInspector.Plan explain(Connection connection, StatementCapture.Captured statement) {
+        try {
+            return inspector.explain(connection, statement);
+        } catch (SQLException | RuntimeException e) {
+            return new PlanInspector.Plan(statement.sql(), "EXPLAIN 失败: " + e.getMessage(), List.of(), false, 0);
+        }
+    }
+
+    private static int count(Object result) {
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Page<?> page) {
+            return page.getNumberOfElements();
+        }
+        if (result instanceof Stream<?> stream) {
+            try (stream) {
+                return (int) stream.count();
+            }
+        }
+        if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1 : 0;
+        }
+        return result == null ? 0 : 1;
+    }
+
+    /**
+     * 标记以最大规模的结果为准；增长类标记比较最小、最大两个规模：增长不低于数据量增长的一半视为线性增长
+     */
+    private static List<String> flags(List<ScaleResult> results) {
+        List<ScaleResult> succeeded = results.stream().filter(result -> result.error() == null).toList();
+        if (succeeded.isEmpty()) {
+            return List.of("ERROR");
+        }
+        List<String> flags = new ArrayList<>();
+        ScaleResult first = succeeded.get(0);
+        ScaleResult last = succeeded.get(succeeded.size() - 1);
+        Set<String> fullScans = new TreeSet<>();
+        for (String table : last.fullScans()) {
+            if (!STATIC_TABLES.contains(table.replace("(index)", ""))) {
+                fullScans.add(table);
+            }
+        }
+        if (!fullScans.isEmpty()) {
+            flags.add("FULL_SCAN:" + String.join(",", fullScans));
+        }
+        if (last.filesort()) {
+            flags.add("FILESORT");
+        }
+        if (succeeded.size() > 1) {
+            double dataGrowth = (double) last.users() / first.users();
+            if (last.rowsExamined() >= GROWTH_MIN_ROWS && last.rowsExamined() >= first.rowsExamined() * dataGrowth / 2) {
+                flags.add("ROWS_GROW");
+            }
+            if (last.p50Ms() >= GROWTH_MIN_MS && last.p50Ms() >= first.p50Ms() * dataGrowth / 2) {
+                flags.add("LATENCY_GROW");
+            }
+        }
+        if (succeeded.size() < results.size()) {
+            flags.add("ERROR");
+        }
+        return flags;
+    }
+
+    /**
+     * 与基线报告比较：同名查询出现基线中没有的标记（按冒号前的类型比较）视为退化，基线中没有的查询不比较
+     */
+    private Map<String, List<String>> regressions(List<CaseReport> cases, ObjectMapper objectMapper) throws IOException {
+        if (options.baseline() == null) {
+            return Map.of();
+        }
+        Map<String, Set<String>> baseline = new HashMap<>();
+        for (JsonNode node : objectMapper.readTree(options.baseline().toFile()).path("cases")) {
+            Set<String> kinds = new HashSet<>();
+            node.path("flags").forEach(flag -> kinds.add(kind(flag.asText())));
+            baseline.put(node.path("name").asText(), kinds);
+        }
+        Map<String, List<String>> regressions = new LinkedHashMap<>();
+        for (CaseReport report : cases) {
+            Set<String> known = baseline.get(report.name());
+            if (known == null) {
+                continue;
+            }
+            List<String> added = report.flags().stream().filter(flag -> !known.contains(kind(flag))).toList();
+            if (!added.isEmpty()) {
+                regressions.put(report.name(), added);
+            }
+        }
+        return regressions;
+    }
+
+    private static String kind(String flag) {
+        int separator = flag.indexOf(':');
+        return separator < 0 ? flag : flag.substring(0, separator);
+    }
+
+    private void print(List<CaseReport> cases, Map<String, List<String>> regressions) {
+        StringBuilder table = new StringBuilder(String.format("%n%-64s", "query"));
+        for (long users : options.scales()) {
+            table.append(String.format(" %12s %12s", "p50@" + users, "examined"));
+        }
+        table.append("  flags\n");
+        for (CaseReport report : cases) {
+            table.append(String.format("%-64s", report.name()));
+            for (ScaleResult result : report.results()) {
+                table.append(result.error() == null
+                        ? String.format(" %12.2f %12d", result.p50Ms(), result.rowsExamined())
+                        : String.format(" %12s %12s", "error", "-"));
+            }
+            table.append("  ").append(String.join(" ", report.flags()));
+            if (regressions.containsKey(report.name())) {
+                table.append("  <- 退化");
+            }
+            table.append('\n');
+        }
+        log.info("查询基准结果（延迟单位 ms）:{}", table);
+    }
+
+    private void writeReport(List<CaseReport> cases, Map<String, List<String>> regressions, ObjectMapper objectMapper)
+            throws IOException {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("generatedAt", LocalDateTime.now().toString());
+        report.put("options", Map.of("url", options.url(), "scales", options.scales(),
+                "iterations", options.iterations(), "maxRows", options.maxRows(), "seed", options.seed()));
+        report.put("regressions", regressions);
+        report.put("cases", cases);
+        Files.createDirectories(options.report().toAbsolutePath().getParent());
+        objectMapper.writer(SerializationFeature.INDENT_OUTPUT).writeValue(options.report().toFile(), report);
+        log.info("查询基准报告已写入: {}", options.report().toAbsolutePath());
+    }
+
+    /**
+     * 只启用数据源、JPA 和仓储，不扫描应用的其它组件
+     */
+    @SpringBootConfiguration
+    @EnableAutoConfiguration
+    @EntityScan(basePackageClasses = Course.class)
+    @EnableJpaRepositories(basePackageClasses = CourseRepository.class)
+    static class Config {
+
+        /**
+         * 包装数据源以记录语句和绑定参数，并限制每条语句的返回行数
+         */
+        @Bean
+        static BeanPostProcessor statementCaptureDataSource(Environment environment) {
+            int maxRows = environment.getProperty("querybench.max-rows", Integer.class, 1000);
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource ? StatementCapture.wrap(dataSource, maxRows) : bean;
+                }
+            };
+        }
+    }
+
+    private record Probe(long rowsExamined, List<PlanInspector.Plan> plans) {
+    }
+
+    /**
+     * 某个查询在一个数据规模下的结果
+     *
+     * @param rows         结果行数（受 maxRows 限制）
+     * @param rowsExamined 实际扫描行数（MySQL 取自 Handler_read_* 计数，H2 取自 EXPLAIN ANALYZE）
+     * @param statements   一次调用发出的语句数
+     */
+    record ScaleResult(long users, long courses, long orders, int rows, double p50Ms, double p99Ms, double maxMs,
+                       long rowsExamined, int statements, List<String> fullScans, boolean filesort,
+                       List<PlanInspector.Plan> plans, String error) {
+    }
+
+    record CaseReport(String name, List<String> flags, List<ScaleResult> results) {
+    }
+}
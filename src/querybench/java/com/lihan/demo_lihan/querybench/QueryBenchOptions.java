@@ -0,0 +1,63 @@
+package com.lihan.demo_lihan.querybench;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 仓储查询基准参数，命令行以 --name=value 形式覆盖，例如 -Dquerybench.args="--scales=10000,100000 --iterations=5"
+ *
+ * @param url        目标库（会被清空后按各规模重新生成数据），支持 MySQL 和 H2
+ * @param scales     依次生成的数据规模（用户数），课程数为其 1/10，订单数为其 10 倍
+ * @param iterations 每个查询计时的执行次数
+ * @param warmup     每个查询计时前的预热次数
+ * @param maxRows    每条语句最多返回的行数（JDBC maxRows），避免无界查询在大规模下拖垮进程
+ * @param seed       数据生成的随机种子
+ * @param cases      只运行名称匹配该正则的查询，例如 "OrderRepository\\..*"
+ * @param report     JSON 报告路径
+ * @param baseline   上一次的报告；当前报告出现基线中没有的标记时视为执行计划退化，进程以非零状态退出
+ */
+public record QueryBenchOptions(String url, String username, String password, List<Long> scales,
+                                int iterations, int warmup, int maxRows, long seed, String cases,
+                                Path report, Path baseline) {
+
+    private static final String DEFAULT_URL = "jdbc:mysql://localhost:3306/eduplatform_bench?useSSL=false"
+            + "&serverTimezone=Asia/Shanghai&allowPublicKeyRetrieval=true&useUnicode=true&characterEncoding=utf8"
+            + "&createDatabaseIfNotExist=true";
+
+    public static QueryBenchOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("参数格式应为 --name=value: " + arg);
+            }
+            int separator = arg.indexOf('=');
+            values.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        String baseline = values.get("baseline");
+        return new QueryBenchOptions(
+                values.getOrDefault("url", DEFAULT_URL),
+                values.getOrDefault("username", "root"),
+                values.getOrDefault("password", System.getenv().getOrDefault("DB_PASSWORD", "")),
+                Arrays.stream(values.getOrDefault("scales", "10000,100000,1000000").split(","))
+                        .map(String::trim).map(scale -> Long.parseLong(scale.replace("_", ""))).sorted().toList(),
+                intValue(values, "iterations", 10),
+                intValue(values, "warmup", 2),
+                intValue(values, "max-rows", 1000),
+                Long.parseLong(values.getOrDefault("seed", "42")),
+                values.getOrDefault("cases", ".*"),
+                Path.of(values.getOrDefault("report", "target/querybench-report.json")),
+                baseline == null || baseline.isBlank() ? null : Path.of(baseline));
+    }
+
+    public boolean isH2() {
+        return url.startsWith("jdbc:h2:");
+    }
+
+    private static int intValue(Map<String, String> values, String name, int defaultValue) {
+        String value = values.get(name);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+}
@@ -0,0 +1,148 @@
+package com.lihan.demo_lihan.querybench;
+
+import com.lihan.demo_lihan.common.Constants;
+import com.lihan.demo_lihan.repository.CourseRepository;
+import com.lihan.demo_lihan.repository.OrderRepository;
+import com.lihan.demo_lihan.repository.UserRepository;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 基准覆盖的仓储方法；写操作同样在回滚的事务内执行，只测量语句本身
+ */
+final class QueryCases {
+
+    record Repositories(CourseRepository courses, OrderRepository orders, UserRepository users) {
+    }
+
+    /**
+     * 查询参数，取自当前规模的数据：最活跃的用户、最热门的课程及其教师，以及该用户的一笔已支付订单
+     *
+     * @param now 数据时间范围的结束时刻，按时间过滤的查询以此为“当前时间”
+     */
+    record Params(long hotUser, long hotCourse, long teacherId, long orderId, String orderNumber, String paymentNo,
+                  LocalDateTime now) {
+    }
+
+    record QueryCase(String name, Function<Repositories, Object> call) {
+    }
+
+    private QueryCases() {
+    }
+
+    static List<QueryCase> all(Params p) {
+        String published = Constants.Course.STATUS_PUBLISHED;
+        String paid = Constants.Order.STATUS_PAID;
+        String pending = Constants.Order.STATUS_PENDING;
+        String username = "user" + p.hotUser();
+        LocalDateTime dayAgo = p.now().minusDays(1);
+        List<QueryCase> cases = new ArrayList<>();
+
+        course(cases, "findByStatus", r -> r.courses().findByStatus(published));
+        course(cases, "findByTeacherId", r -> r.courses().findByTeacherId(p.teacherId()));
+        course(cases, "findByCategoryId", r -> r.courses().findByCategoryId(3L));
+        course(cases, "findByStatusOrderByCreatedTimeDesc", r -> r.courses().findByStatusOrderByCreatedTimeDesc(published));
+        course(cases, "findByIsHotTrueAndStatusOrderByViewCountDesc",
+                r -> r.courses().findByIsHotTrueAndStatusOrderByViewCountDesc(published));
+        course(cases, "findByIsRecommendedTrueAndStatusOrderBySortOrder",
+                r -> r.courses().findByIsRecommendedTrueAndStatusOrderBySortOrder(published));
+        course(cases, "findByIsFreeTrueAndStatus", r -> r.courses().findByIsFreeTrueAndStatus(published));
+        course(cases, "findByStatusAndPriceBetween", r -> r.courses().findByStatusAndPriceBetween(published,
+                new BigDecimal("99.00"), new BigDecimal("199.00")));
+        course(cases, "findByStatusAndLevel", r -> r.courses().findByStatusAndLevel(published, "ADVANCED"));
+        course(cases, "findByKeywordAndStatus", r -> r.courses().findByKeywordAndStatus("Redis", published,
+                PageRequest.of(0, 20)));
+        course(cases, "findByKeywordAndStatus[blank]", r -> r.courses().findByKeywordAndStatus("", published,
+                PageRequest.of(0, 20)));
+        course(cases, "findTeacherIdById", r -> r.courses().findTeacherIdById(p.hotCourse()));
+        course(cases, "findByCreatedTimeBetween", r -> r.courses().findByCreatedTimeBetween(p.now().minusDays(7), p.now()));
+        course(cases, "findMostPopularCourses", r -> r.courses().findMostPopularCourses(published, PageRequest.of(0, 10)));
+        course(cases, "findLatestPublishedCourses",
+                r -> r.courses().findLatestPublishedCourses(published, PageRequest.of(0, 10)));
+        course(cases, "countCoursesByStatus", r -> r.courses().countCoursesByStatus());
+        course(cases, "countByTeacherId", r -> r.courses().countByTeacherId(p.teacherId()));
+        course(cases, "countByCategoryIdAndStatus", r -> r.courses().countByCategoryIdAndStatus(3L, published));
+        course(cases, "findByUserId", r -> r.courses().findByUserId(p.hotUser()));
+        course(cases, "incrementViewCount", r -> {
+            r.courses().incrementViewCount(p.hotCourse());
+            return 1;
+        });
+        course(cases, "updateStudentCount", r -> {
+            r.courses().updateStudentCount(p.hotCourse(), 1);
+            return 1;
+        });
+
+        order(cases, "findByOrderNumber", r -> r.orders().findByOrderNumber(p.orderNumber()));
+        order(cases, "existsByOrderNumber", r -> r.orders().existsByOrderNumber(p.orderNumber()));
+        order(cases, "findByUserId", r -> r.orders().findByUserId(p.hotUser()));
+        order(cases, "findByCourseId", r -> r.orders().findByCourseId(p.hotCourse()));
+        order(cases, "findByStatus", r -> r.orders().findByStatus(pending));
+        order(cases, "findByUserIdAndStatus", r -> r.orders().findByUserIdAndStatus(p.hotUser(), paid));
+        order(cases, "findByUserIdAndStatus[page]",
+                r -> r.orders().findByUserIdAndStatus(p.hotUser(), null, PageRequest.of(0, 20)));
+        order(cases, "findByUserIdAndCourseId", r -> r.orders().findByUserIdAndCourseId(p.hotUser(), p.hotCourse()));
+        order(cases, "findByPaymentMethod", r -> r.orders().findByPaymentMethod("BANK_CARD"));
+        order(cases, "findByPaymentNo", r -> r.orders().findByPaymentNo(p.paymentNo()));
+        order(cases, "findByCreatedTimeBetween", r -> r.orders().findByCreatedTimeBetween(dayAgo, p.now()));
+        order(cases, "findByPayTimeBetween", r -> r.orders().findByPayTimeBetween(dayAgo, p.now()));
+        order(cases, "streamByCreatedTimeBetween", r -> r.orders().streamByCreatedTimeBetween(dayAgo, p.now()));
+        order(cases, "streamByPayTimeBetween", r -> r.orders().streamByPayTimeBetween(dayAgo, p.now()));
+        order(cases, "findExpiredPendingOrders", r -> r.orders().findExpiredPendingOrders(p.now()));
+        order(cases, "countByUserIdAndStatus", r -> r.orders().countByUserIdAndStatus(p.hotUser(), paid));
+        order(cases, "countSalesByCourseId", r -> r.orders().countSalesByCourseId(p.hotCourse()));
+        order(cases, "countOrdersByStatus", r -> r.orders().countOrdersByStatus());
+        order(cases, "calculateTotalRevenue", r -> r.orders().calculateTotalRevenue(p.now().minusDays(30), p.now()));
+        order(cases, "calculateUserTotalSpending", r -> r.orders().calculateUserTotalSpending(p.hotUser()));
+        order(cases, "findPaidCourseAmountsByUserId", r -> r.orders().findPaidCourseAmountsByUserId(p.hotUser()));
+        order(cases, "findHotSellingCourses", r -> r.orders().findHotSellingCourses(PageRequest.of(0, 10)));
+        order(cases, "existsByUserIdAndCourseIdAndPaid",
+                r -> r.orders().existsByUserIdAndCourseIdAndPaid(p.hotUser(), p.hotCourse()));
+        order(cases, "transitionToPaid", r -> r.orders().transitionToPaid(p.orderNumber(), pending, paid,
+                "ALIPAY", "PAY-BENCH", p.now()));
+        order(cases, "transitionToCancelled", r -> r.orders().transitionToCancelled(p.orderNumber(), pending,
+                Constants.Order.STATUS_CANCELLED, null, p.now()));
+        order(cases, "transitionToRefunded", r -> r.orders().transitionToRefunded(p.orderNumber(), paid,
+                Constants.Order.STATUS_REFUNDED, "基准测试", p.now()));
+        order(cases, "transitionToExpired", r -> r.orders().transitionToExpired(p.orderId(), pending,
+                Constants.Order.STATUS_EXPIRED, p.now()));
+        order(cases, "lockArchivableIds", r -> r.orders().lockArchivableIds(List.of(paid,
+                Constants.Order.STATUS_CANCELLED, Constants.Order.STATUS_EXPIRED, Constants.Order.STATUS_REFUNDED),
+                p.now().minusMonths(6), 500));
+        order(cases, "deleteByIdIn", r -> r.orders().deleteByIdIn(List.of(p.orderId())));
+
+        user(cases, "findByUsername", r -> r.users().findByUsername(username));
+        user(cases, "findByEmail", r -> r.users().findByEmail(username + "@example.com"));
+        user(cases, "findByPhone", r -> r.users().findByPhone(String.format("13%09d", p.hotUser())));
+        user(cases, "findByUsernameOrEmail", r -> r.users().findByUsernameOrEmail(username));
+        user(cases, "findByIsEnabledTrue", r -> r.users().findByIsEnabledTrue());
+        user(cases, "findByIsLockedFalse", r -> r.users().findByIsLockedFalse());
+        user(cases, "findByIsEnabledTrueAndIsLockedFalse", r -> r.users().findByIsEnabledTrueAndIsLockedFalse());
+        user(cases, "findByRoleCode", r -> r.users().findByRoleCode("TEACHER"));
+        user(cases, "findByKeyword", r -> r.users().findByKeyword("user12", PageRequest.of(0, 20)));
+        user(cases, "findByCreatedTimeBetween", r -> r.users().findByCreatedTimeBetween(dayAgo, p.now()));
+        user(cases, "streamAllForExport", r -> r.users().streamAllForExport());
+        user(cases, "countEnabledUsers", r -> r.users().countEnabledUsers());
+        user(cases, "existsByUsername", r -> r.users().existsByUsername(username));
+        user(cases, "existsByEmail", r -> r.users().existsByEmail(username + "@example.com"));
+        user(cases, "existsByPhone", r -> r.users().existsByPhone(String.format("13%09d", p.hotUser())));
+        user(cases, "findByCourseId", r -> r.users().findByCourseId(p.hotCourse()));
+        return cases;
+    }
+
+    private static void course(List<QueryCase> cases, String method, Function<Repositories, Object> call) {
+        cases.add(new QueryCase("CourseRepository." + method, call));
+    }
+
+    private static void order(List<QueryCase> cases, String method, Function<Repositories, Object> call) {
+        cases.add(new QueryCase("OrderRepository." + method, call));
+    }
+
+    private static void user(List<QueryCase> cases, String method, Function<Repositories, Object> call) {
+        cases.add(new QueryCase("UserRepository." + method, call));
+    }
+}
@@ -0,0 +1,124 @@
+package com.lihan.demo_lihan.querybench;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * 记录当前线程执行的预编译语句及其绑定参数，用于对仓储方法实际发出的 SQL 重新执行 EXPLAIN
+ * 同时给每条语句设置 maxRows，限制无界查询在大数据量下返回的行数
+ */
+final class StatementCapture {
+
+    /**
+     * 一条已执行的语句，parameters 按占位符顺序排列
+     */
+    record Captured(String sql, List<Object> parameters) {
+    }
+
+    private static final ThreadLocal<List<Captured>> CAPTURED = new ThreadLocal<>();
+
+    private StatementCapture() {
+    }
+
+    static void begin() {
+        CAPTURED.set(new ArrayList<>());
+    }
+
+    static List<Captured> end() {
+        List<Captured> captured = CAPTURED.get();
+        CAPTURED.remove();
+        return captured == null ? List.of() : captured;
+    }
+
+    static DataSource wrap(DataSource dataSource, int maxRows) {
+        return new CapturingDataSource(dataSource, maxRows);
+    }
+
+    private static Connection connection(Connection target, int maxRows) throws SQLException {
+        boolean mysql = target.getMetaData().getDatabaseProductName().equals("MySQL");
+        return (Connection) Proxy.newProxyInstance(StatementCapture.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    Object result = invoke(target, method, args);
+                    if (result instanceof PreparedStatement statement && method.getName().equals("prepareStatement")) {
+                        statement.setMaxRows(maxRows);
+                        return preparedStatement(statement, (String) args[0], mysql);
+                    }
+                    return result;
+                });
+    }
+
+    /**
+     * fetchSize 为 Integer.MIN_VALUE 是 MySQL 驱动逐行返回结果的约定，其它数据库会拒绝，非 MySQL 时忽略
+     */
+    private static PreparedStatement preparedStatement(PreparedStatement target, String sql, boolean mysql) {
+        TreeMap<Integer, Object> parameters = new TreeMap<>();
+        return (PreparedStatement) Proxy.newProxyInstance(StatementCapture.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                    String name = method.getName();
+                    if (name.equals("setFetchSize") && (Integer) args[0] < 0 && !mysql) {
+                        return null;
+                    }
+                    if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                        parameters.put(index, name.equals("setNull") ? null : args[1]);
+                    } else if (name.equals("clearParameters")) {
+                        parameters.clear();
+                    } else if (name.startsWith("execute") && (args == null || args.length == 0)) {
+                        List<Captured> captured = CAPTURED.get();
+                        if (captured != null) {
+                            captured.add(new Captured(sql, new ArrayList<>(parameters.values())));
+                        }
+                    }
+                    return invoke(target, method, args);
+                });
+    }
+
+    /**
+     * 包装连接池；实现 Closeable 使容器关闭时仍能关闭被包装的连接池
+     */
+    private static final class CapturingDataSource extends DelegatingDataSource implements Closeable {
+
+        private final int maxRows;
+
+        CapturingDataSource(DataSource target, int maxRows) {
+            super(target);
+            this.maxRows = maxRows;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return connection(super.getConnection(), maxRows);
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return connection(super.getConnection(username, password), maxRows);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (obtainTargetDataSource() instanceof Closeable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.lihan.demo_lihan.common;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AdaptiveLimiterTest {
+
+    private static final long MS = 1_000_000L;
+
+    @Test
+    public void testRejectsBeyondLimit() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("test", 2, 1, 10, 0.2, 1.5, 10);
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse();
+
+        limiter.release(MS, false);
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.stats().rejected()).isEqualTo(1);
+    }
+
+    @Test
+    public void testGrowsWhileLatencyStableAndShrinksWhenLatencyRises() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("test", 10, 2, 100, 0.5, 1.5, 10);
+        for (int window = 0; window < 20; window++) {
+            runSaturatedWindow(limiter, 10 * MS);
+        }
+        int grown = limiter.getLimit();
+        assertThat(grown).isGreaterThan(10);
+
+        // 基线会逐渐跟上新的延迟，这里只验证延迟突增后的收缩
+        runSaturatedWindow(limiter, 100 * MS);
+        assertThat(limiter.getLimit()).isLessThan(grown / 2);
+    }
+
+    @Test
+    public void testBacksOffOnFailures() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("test", 20, 2, 100, 0.2, 1.5, 10);
+        for (int i = 0; i < 10; i++) {
+            assertThat(limiter.tryAcquire()).isTrue();
+            limiter.release(MS, true);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(18);
+    }
+
+    @Test
+    public void testKeepsLimitWhenUnderused() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("test", 20, 2, 100, 0.2, 1.5, 10);
+        for (int i = 0; i < 100; i++) {
+            assertThat(limiter.tryAcquire()).isTrue();
+            limiter.release(i < 50 ? MS : 50 * MS, false);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(20);
+    }
+
+    /**
+     * 占满当前上限后依次释放，凑满一个采样窗口
+     */
+    private static void runSaturatedWindow(AdaptiveLimiter limiter, long rttNanos) {
+        int acquired = 0;
+        while (limiter.tryAcquire()) {
+            acquired++;
+        }
+        int released = 0;
+        while (released < Math.max(acquired, 10)) {
+            if (released >= acquired) {
+                assertThat(limiter.tryAcquire()).isTrue();
+            }
+            limiter.release(rttNanos, false);
+            released++;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.lihan.demo_lihan.common;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BulkheadTest {
+
+    @Test
+    public void testRejectsAfterTimeoutWhenFull() {
+        Bulkhead bulkhead = new Bulkhead("jdbc", 2, 10);
+        assertThat(bulkhead.tryAcquire()).isTrue();
+        assertThat(bulkhead.tryAcquire()).isTrue();
+        assertThat(bulkhead.tryAcquire()).isFalse();
+
+        Bulkhead.Stats stats = bulkhead.stats();
+        assertThat(stats.inUse()).isEqualTo(2);
+        assertThat(stats.peakInUse()).isEqualTo(2);
+        assertThat(stats.acquired()).isEqualTo(2);
+        assertThat(stats.rejected()).isEqualTo(1);
+
+        bulkhead.release();
+        assertThat(bulkhead.tryAcquire()).isTrue();
+    }
+
+    @Test
+    public void testWaiterGetsReleasedPermit() throws InterruptedException {
+        Bulkhead bulkhead = new Bulkhead("redis", 1, 5000);
+        assertThat(bulkhead.tryAcquire()).isTrue();
+
+        boolean[] acquired = new boolean[1];
+        Thread waiter = Thread.ofVirtual().start(() -> acquired[0] = bulkhead.tryAcquire());
+        while (bulkhead.stats().waiting() == 0) {
+            Thread.sleep(1);
+        }
+        bulkhead.release();
+        waiter.join();
+
+        assertThat(acquired[0]).isTrue();
+        assertThat(bulkhead.stats().inUse()).isEqualTo(1);
+    }
+}
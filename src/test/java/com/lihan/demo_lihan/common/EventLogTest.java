@@ -0,0 +1,80 @@
+package com.lihan.demo_lihan.common;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class EventLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testAppendAndReadAcrossSegments() throws IOException {
+        try (EventLog log = new EventLog(directory, 256, 100, false)) {
+            for (int i = 0; i < 50; i++) {
+                log.append(List.of("event-" + i));
+            }
+
+            assertThat(log.segmentCount()).isGreaterThan(1);
+            assertThat(log.endOffset()).isEqualTo(50);
+            List<EventLog.LogRecord> records = log.read(10, 30);
+            assertThat(records).hasSize(30);
+            assertThat(records.get(0)).isEqualTo(new EventLog.LogRecord(10, "event-10"));
+            assertThat(records.get(29)).isEqualTo(new EventLog.LogRecord(39, "event-39"));
+            assertThat(log.read(50, 10)).isEmpty();
+        }
+    }
+
+    @Test
+    public void testRecoverAfterReopen() throws IOException {
+        try (EventLog log = new EventLog(directory, 1024, 10, true)) {
+            log.append(List.of("a", "b", "c"));
+        }
+
+        try (EventLog log = new EventLog(directory, 1024, 10, true)) {
+            assertThat(log.endOffset()).isEqualTo(3);
+            assertThat(log.append(List.of("d"))).isEqualTo(3);
+            assertThat(log.read(0, 10)).extracting(EventLog.LogRecord::payload)
+                    .containsExactly("a", "b", "c", "d");
+        }
+    }
+
+    @Test
+    public void testRejectsEmptyRecord() throws IOException {
+        try (EventLog log = new EventLog(directory, 1024, 10, true)) {
+            log.append(List.of("a"));
+            assertThatThrownBy(() -> log.append(List.of("b", "", "c")))
+                    .isInstanceOf(IllegalArgumentException.class);
+            log.append(List.of("d"));
+        }
+
+        try (EventLog log = new EventLog(directory, 1024, 10, true)) {
+            assertThat(log.read(0, 10)).extracting(EventLog.LogRecord::payload).containsExactly("a", "d");
+        }
+    }
+
+    @Test
+    public void testOldSegmentsAreDropped() throws IOException {
+        try (EventLog log = new EventLog(directory, 128, 2, false)) {
+            List<String> payloads = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                payloads.add("payload-" + i);
+            }
+            log.append(payloads);
+
+            assertThat(log.segmentCount()).isEqualTo(2);
+            assertThat(log.firstOffset()).isGreaterThan(0);
+            List<EventLog.LogRecord> records = log.read(0, 100);
+            assertThat(records.get(0).offset()).isEqualTo(log.firstOffset());
+            assertThat(records.get(records.size() - 1).offset()).isEqualTo(39);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.lihan.demo_lihan.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+public class SpaceSavingSketchTest {
+
+    @Test
+    public void testExactCountsBelowCapacity() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(10);
+        sketch.offer(1L, 3);
+        sketch.offer(2L, 5);
+        sketch.offer(1L, 4);
+
+        List<SpaceSavingSketch.Entry> top = sketch.topK(2);
+
+        assertThat(top).extracting(SpaceSavingSketch.Entry::key).containsExactly(1L, 2L);
+        assertThat(top).extracting(SpaceSavingSketch.Entry::count).containsExactly(7L, 5L);
+        assertThat(top).extracting(SpaceSavingSketch.Entry::error).containsOnly(0L);
+    }
+
+    @Test
+    public void testHeavyHittersSurviveLongTail() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(20);
+        Random random = new Random(42);
+        for (int i = 0; i < 20000; i++) {
+            if (i % 4 == 0) {
+                sketch.offer(100L + (i % 3), 1);
+            } else {
+                sketch.offer(1000L + random.nextInt(5000), 1);
+            }
+        }
+
+        List<SpaceSavingSketch.Entry> top = sketch.topK(3);
+
+        assertThat(top).extracting(SpaceSavingSketch.Entry::key).containsExactlyInAnyOrder(100L, 101L, 102L);
+        assertThat(sketch.size()).isEqualTo(20);
+    }
+
+    @Test
+    public void testDrainResets() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(4);
+        sketch.offer(1L, 1);
+        sketch.offer(2L, 2);
+
+        Map<Long, Long> drained = sketch.drain();
+
+        assertThat(drained).containsEntry(1L, 1L).containsEntry(2L, 2L);
+        assertThat(sketch.isEmpty()).isTrue();
+        sketch.offer(3L, 1);
+        assertThat(sketch.topK(5)).extracting(SpaceSavingSketch.Entry::key).containsExactly(3L);
+    }
+
+    @Test
+    public void testDrainReturnsGuaranteedCounts() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(2);
+        sketch.offer(1L, 5);
+        sketch.offer(2L, 3);
+        // 替换计数为 3 的元素 2，继承 3 作为误差
+        sketch.offer(3L, 4);
+
+        assertThat(sketch.topK(5)).extracting(SpaceSavingSketch.Entry::count).containsExactly(7L, 5L);
+        assertThat(sketch.drain()).containsOnly(entry(1L, 5L), entry(3L, 4L));
+    }
+}
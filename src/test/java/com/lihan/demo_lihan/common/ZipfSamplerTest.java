@@ -0,0 +1,66 @@
+package com.lihan.demo_lihan.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+public class ZipfSamplerTest {
+
+    @Test
+    public void testFrequenciesFollowPowerLaw() {
+        ZipfSampler sampler = new ZipfSampler(10, 1.0);
+        SplittableRandom random = new SplittableRandom(42);
+        int samples = 200_000;
+        long[] counts = new long[11];
+        for (int i = 0; i < samples; i++) {
+            counts[(int) sampler.sample(random)]++;
+        }
+
+        double harmonic = 0;
+        for (int k = 1; k <= 10; k++) {
+            harmonic += 1.0 / k;
+        }
+        for (int k = 1; k <= 10; k++) {
+            assertThat((double) counts[k] / samples).isCloseTo(1.0 / k / harmonic, within(0.01));
+        }
+        assertThat(counts[0]).isZero();
+    }
+
+    @Test
+    public void testLargeNStaysInRangeAndIsSkewed() {
+        ZipfSampler sampler = new ZipfSampler(5_000_000, 0.8);
+        SplittableRandom random = new SplittableRandom(7);
+        int top = 0;
+        for (int i = 0; i < 100_000; i++) {
+            long rank = sampler.sample(random);
+            assertThat(rank).isBetween(1L, 5_000_000L);
+            if (rank <= 50_000) {
+                top++;
+            }
+        }
+
+        // 前 1% 的排名占据远超 1% 的样本
+        assertThat(top).isGreaterThan(20_000);
+    }
+
+    @Test
+    public void testSameSeedSameSequence() {
+        ZipfSampler sampler = new ZipfSampler(1000, 1.2);
+        SplittableRandom first = new SplittableRandom(99);
+        SplittableRandom second = new SplittableRandom(99);
+
+        for (int i = 0; i < 1000; i++) {
+            assertThat(sampler.sample(first)).isEqualTo(sampler.sample(second));
+        }
+    }
+
+    @Test
+    public void testRejectsInvalidArguments() {
+        assertThatThrownBy(() -> new ZipfSampler(0, 1.0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new ZipfSampler(10, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,112 @@
+package com.lihan.demo_lihan.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 读写路由：只读事务走从库，只有提交的读写事务才生成读写一致令牌
+ */
+public class RoutingDataSourceTest {
+
+    private final HikariDataSource primary = mock(HikariDataSource.class);
+    private final HikariDataSource replica = mock(HikariDataSource.class);
+    private RoutingDataSource routingDataSource;
+    private DataSource dataSource;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+    private ReadYourWritesFilter filter;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        when(primary.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        when(replica.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        routingDataSource = new RoutingDataSource(primary, List.of(replica));
+        dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        filter = new ReadYourWritesFilter(new DataSourceRoutingProperties());
+        // LazyConnectionDataSourceProxy 首次使用时取一次连接读取默认属性，先完成这次读取再统计路由次数
+        query();
+    }
+
+    @Test
+    public void testGetWithUserLookupHasNoToken() throws Exception {
+        long primaryBefore = routed(RoutingDataSource.PRIMARY);
+
+        MockHttpServletResponse response = execute("GET", (request, resp) -> {
+            // JWT 过滤器加载用户（只读事务），之后一次事务外的读取
+            readOnly.executeWithoutResult(status -> query());
+            query();
+        });
+
+        assertThat(response.getHeader(ReadYourWritesFilter.TOKEN_HEADER)).isNull();
+        assertThat(routed("replica-0")).isEqualTo(1);
+        assertThat(routed(RoutingDataSource.PRIMARY)).isEqualTo(primaryBefore + 1);
+    }
+
+    @Test
+    public void testCommittedWriteIssuesTokenAndPinsPrimary() throws Exception {
+        MockHttpServletResponse response = execute("POST", (request, resp) -> {
+            readWrite.executeWithoutResult(status -> query());
+            readOnly.executeWithoutResult(status -> query());
+        });
+
+        assertThat(response.getHeader(ReadYourWritesFilter.TOKEN_HEADER)).isNotNull();
+        assertThat(routed("replica-0")).isZero();
+    }
+
+    @Test
+    public void testRolledBackWriteHasNoToken() throws Exception {
+        MockHttpServletResponse response = execute("POST", (request, resp) ->
+                readWrite.executeWithoutResult(status -> {
+                    query();
+                    status.setRollbackOnly();
+                }));
+
+        assertThat(response.getHeader(ReadYourWritesFilter.TOKEN_HEADER)).isNull();
+    }
+
+    private MockHttpServletResponse execute(String method, FilterChain chain) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest(method, "/api/orders"), response, chain);
+        return response;
+    }
+
+    /**
+     * 事务内使用事务连接，事务外取一个新连接
+     */
+    private void query() {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            connection.prepareStatement("SELECT 1");
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    private long routed(String key) {
+        return routingDataSource.poolStats().get(key).routed();
+    }
+}
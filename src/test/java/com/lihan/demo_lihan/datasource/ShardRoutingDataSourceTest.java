@@ -0,0 +1,91 @@
+package com.lihan.demo_lihan.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 分片路由：两个内存库作为 0、1 号分片，按用户写入的订单落在 shardOfUser 对应的库；
+ * 取得连接后再切换分片时拒绝执行语句
+ */
+public class ShardRoutingDataSourceTest {
+
+    private static final String CREATE_TABLE = "CREATE TABLE edu_order (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+            + "order_number VARCHAR(50) NOT NULL, user_id BIGINT NOT NULL)";
+    private static final String INSERT = "INSERT INTO edu_order (order_number, user_id) VALUES (?, ?)";
+
+    private HikariDataSource shard0;
+    private HikariDataSource shard1;
+    private ShardedDataSource dataSource;
+    private ShardTemplate shardTemplate;
+    private TransactionTemplate transactionTemplate;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setUp() {
+        shard0 = pool("shard0");
+        shard1 = pool("shard1");
+        new JdbcTemplate(shard0).execute(CREATE_TABLE);
+        new JdbcTemplate(shard1).execute(CREATE_TABLE);
+
+        dataSource = new ShardedDataSource(new ShardRoutingDataSource(shard0, List.of(shard1)));
+        ShardingProperties properties = new ShardingProperties();
+        properties.setEnabled(true);
+        properties.getShards().add(new ShardingProperties.Shard());
+        shardTemplate = new ShardTemplate(properties);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        shardTemplate.destroy();
+        dataSource.close();
+    }
+
+    @Test
+    public void testUserWritesLandOnShardOfUser() {
+        for (long userId = 1; userId <= 10; userId++) {
+            long user = userId;
+            shardTemplate.onShard(shardTemplate.shardOfUser(user), () -> transactionTemplate.executeWithoutResult(
+                    status -> jdbcTemplate.update(INSERT, shardTemplate.newOrderNumber(user), user)));
+        }
+
+        assertThat(userIds(shard0)).containsExactly(2L, 4L, 6L, 8L, 10L);
+        assertThat(userIds(shard1)).containsExactly(1L, 3L, 5L, 7L, 9L);
+    }
+
+    @Test
+    public void testSwitchShardAfterConnectionBoundFails() {
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status -> {
+            // 先在 0 号分片执行一次读取（如请求前部的查询），连接已绑定到 0 号分片
+            jdbcTemplate.queryForObject("SELECT COUNT(*) FROM edu_order", Long.class);
+            shardTemplate.onShard(shardTemplate.shardOfUser(1L),
+                    () -> jdbcTemplate.update(INSERT, shardTemplate.newOrderNumber(1L), 1L));
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(userIds(shard0)).isEmpty();
+        assertThat(userIds(shard1)).isEmpty();
+    }
+
+    private static List<Long> userIds(HikariDataSource shard) {
+        return new JdbcTemplate(shard).queryForList("SELECT user_id FROM edu_order ORDER BY user_id", Long.class);
+    }
+
+    private static HikariDataSource pool(String name) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setPoolName(name);
+        pool.setJdbcUrl("jdbc:h2:mem:" + name + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        pool.setMaximumPoolSize(2);
+        return pool;
+    }
+}
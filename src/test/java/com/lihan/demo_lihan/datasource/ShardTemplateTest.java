@@ -0,0 +1,70 @@
+package com.lihan.demo_lihan.datasource;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ShardTemplateTest {
+
+    @Test
+    public void testOrderNumbersUniqueUnderConcurrency() throws Exception {
+        ShardTemplate shardTemplate = new ShardTemplate(properties(2, 7));
+        Set<String> numbers = ConcurrentHashMap.newKeySet();
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 20_000; i++) {
+                        numbers.add(shardTemplate.newOrderNumber(5L));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            shardTemplate.destroy();
+        }
+
+        assertThat(numbers).hasSize(160_000);
+    }
+
+    @Test
+    public void testOrderNumberEncodesShardAndNode() {
+        ShardTemplate shardTemplate = new ShardTemplate(properties(2, 7));
+        try {
+            String orderNumber = shardTemplate.newOrderNumber(5L);
+
+            assertThat(orderNumber).hasSize(24).startsWith("ORDER02");
+            assertThat(orderNumber.substring(20, 22)).isEqualTo("07");
+            assertThat(shardTemplate.shardOfOrderNumber(orderNumber)).hasValue(2);
+        } finally {
+            shardTemplate.destroy();
+        }
+    }
+
+    @Test
+    public void testRejectsInvalidNodeId() {
+        assertThatThrownBy(() -> new ShardTemplate(properties(0, 100)))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private static ShardingProperties properties(int extraShards, int nodeId) {
+        ShardingProperties properties = new ShardingProperties();
+        properties.setEnabled(extraShards > 0);
+        properties.setNodeId(nodeId);
+        for (int i = 0; i < extraShards; i++) {
+            properties.getShards().add(new ShardingProperties.Shard());
+        }
+        return properties;
+    }
+}
@@ -0,0 +1,88 @@
+package com.lihan.demo_lihan.jfr;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class JfrRecordingsTest {
+
+    @TempDir
+    Path directory;
+
+    private JfrRecordings recordings;
+
+    @BeforeEach
+    public void setUp() {
+        JfrProperties properties = new JfrProperties();
+        properties.setDirectory(directory.toString());
+        properties.setSettings("default");
+        properties.setMaxRecordings(2);
+        recordings = new JfrRecordings(properties);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        recordings.shutdown();
+    }
+
+    @Test
+    public void testRecordingContainsServiceEvents() throws Exception {
+        JfrRecordings.RecordingInfo info = recordings.start(60, null);
+        assertThat(info.state()).isEqualTo("RUNNING");
+        assertThat(info.settings()).isEqualTo("default");
+
+        ServiceOperationEvent event = new ServiceOperationEvent();
+        event.begin();
+        event.service = "OrderService";
+        event.method = "payOrder";
+        event.ids = "orderNumber=ORD1";
+        event.commit();
+
+        Path file = recordings.stop(info.id());
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                .filter(recorded -> recorded.getEventType().getName().equals("com.lihan.ServiceOperation"))
+                .toList();
+        assertThat(events).hasSize(1);
+        assertThat(events.get(0).getString("ids")).isEqualTo("orderNumber=ORD1");
+        assertThat(recordings.list().get(0).size()).isEqualTo(Files.size(file));
+    }
+
+    @Test
+    public void testOnlyOneRecordingRunsAtATime() throws Exception {
+        recordings.start(60, null);
+
+        assertThatThrownBy(() -> recordings.start(60, null)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> recordings.start(60, "no-such-settings")).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void testUnknownSettingsAreRejected() {
+        assertThatThrownBy(() -> recordings.start(60, "no-such-settings"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testOldRecordingsAreEvictedWithTheirFiles() throws Exception {
+        JfrRecordings.RecordingInfo first = recordings.start(60, null);
+        Path firstFile = recordings.stop(first.id());
+        JfrRecordings.RecordingInfo second = recordings.start(60, null);
+        recordings.stop(second.id());
+        JfrRecordings.RecordingInfo third = recordings.start(60, null);
+
+        assertThat(recordings.list()).extracting(JfrRecordings.RecordingInfo::id)
+                .containsExactly(second.id(), third.id());
+        assertThat(Files.exists(firstFile)).isFalse();
+        assertThat(recordings.stop(first.id())).isNull();
+        assertThat(recordings.delete(third.id())).isTrue();
+    }
+}
@@ -0,0 +1,97 @@
+package com.lihan.demo_lihan.limit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lihan.demo_lihan.common.AdaptiveLimiter;
+import com.lihan.demo_lihan.common.Bulkhead;
+import com.lihan.demo_lihan.common.BusinessException;
+import com.lihan.demo_lihan.common.Constants;
+import com.lihan.demo_lihan.common.GlobalExceptionHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 全局异常处理返回 HTTP 200 的错误结果时，系统异常和下游繁忙仍计为失败并触发退避，业务异常不计
+ */
+public class AdaptiveLimitFilterTest {
+
+    private static final String ORDERS = Constants.Api.API_PREFIX + "/orders";
+    private static final int WINDOW = 10;
+    private static final int INITIAL_LIMIT = 20;
+
+    @RestController
+    static class FailingController {
+
+        @PostMapping(ORDERS + "/error")
+        public void error() {
+            throw new IllegalStateException("database down");
+        }
+
+        @PostMapping(ORDERS + "/busy")
+        public void busy() {
+            throw new Bulkhead.RejectedException("jdbc", 100);
+        }
+
+        @PostMapping(ORDERS + "/business")
+        public void business() {
+            throw new BusinessException("您已购买过该课程");
+        }
+    }
+
+    private AdaptiveLimitFilter filter;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    public void setUp() {
+        AdaptiveLimitProperties properties = new AdaptiveLimitProperties();
+        properties.setEnabled(true);
+        properties.setWindowSize(WINDOW);
+        properties.setOrder(new AdaptiveLimitProperties.Group(INITIAL_LIMIT, 2, 100));
+        filter = new AdaptiveLimitFilter(properties, new ObjectMapper());
+        mockMvc = MockMvcBuilders.standaloneSetup(new FailingController())
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .addFilters(filter)
+                .build();
+    }
+
+    @Test
+    public void testHandledSystemErrorBacksOff() throws Exception {
+        perform("/error");
+
+        assertThat(orderLimiter().getLimit()).isLessThan(INITIAL_LIMIT);
+    }
+
+    @Test
+    public void testHandledBulkheadRejectionBacksOff() throws Exception {
+        perform("/busy");
+
+        assertThat(orderLimiter().getLimit()).isLessThan(INITIAL_LIMIT);
+    }
+
+    @Test
+    public void testBusinessErrorKeepsLimit() throws Exception {
+        perform("/business");
+
+        assertThat(orderLimiter().getLimit()).isEqualTo(INITIAL_LIMIT);
+    }
+
+    /**
+     * 发满一个采样窗口的请求
+     */
+    private void perform(String path) throws Exception {
+        for (int i = 0; i < WINDOW; i++) {
+            mockMvc.perform(post(ORDERS + path)).andExpect(status().isOk());
+        }
+    }
+
+    private AdaptiveLimiter orderLimiter() {
+        return filter.getLimiters().get(2);
+    }
+}
@@ -0,0 +1,86 @@
+package com.lihan.demo_lihan.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AllocationMetricsFilterTest {
+
+    private static final int ALLOCATION = 1 << 20;
+
+    @Test
+    public void testRecordsBytesAllocatedByRequest() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AllocationMetricsFilter filter = new AllocationMetricsFilter(registry, new MetricsProperties());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request(), response, allocatingChain());
+
+        DistributionSummary summary = registry.get(AllocationMetricsFilter.METRIC_NAME)
+                .tag("uri", "/api/v1/courses").summary();
+        assertThat(summary.count()).isEqualTo(1);
+        assertThat(summary.totalAmount()).isGreaterThanOrEqualTo(ALLOCATION);
+        assertThat(response.getHeader(AllocationMetricsFilter.ALLOCATED_BYTES_HEADER)).isNull();
+    }
+
+    @Test
+    public void testHeaderIsWrittenBeforeResponseBody() throws Exception {
+        MetricsProperties properties = new MetricsProperties();
+        properties.setAllocationHeaderEnabled(true);
+        AllocationMetricsFilter filter = new AllocationMetricsFilter(new SimpleMeterRegistry(), properties);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request(), response, allocatingChain());
+
+        assertThat(Long.parseLong(response.getHeader(AllocationMetricsFilter.ALLOCATED_BYTES_HEADER)))
+                .isGreaterThanOrEqualTo(ALLOCATION);
+        assertThat(response.getContentAsString()).isEqualTo("ok");
+    }
+
+    @Test
+    public void testVirtualThreadsAreNotMeasured() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AllocationMetricsFilter filter = new AllocationMetricsFilter(registry, new MetricsProperties());
+        AtomicReference<Exception> error = new AtomicReference<>();
+
+        Thread.ofVirtual().start(() -> {
+            try {
+                filter.doFilter(request(), new MockHttpServletResponse(), allocatingChain());
+            } catch (Exception e) {
+                error.set(e);
+            }
+        }).join();
+
+        assertThat(error.get()).isNull();
+        assertThat(registry.find(AllocationMetricsFilter.METRIC_NAME).summary()).isNull();
+    }
+
+    private static MockHttpServletRequest request() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/courses");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/v1/courses");
+        return request;
+    }
+
+    private static MockFilterChain allocatingChain() {
+        return new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                byte[] buffer = new byte[ALLOCATION];
+                request.setAttribute("buffer", buffer);
+                response.getWriter().write("ok");
+            }
+        });
+    }
+}
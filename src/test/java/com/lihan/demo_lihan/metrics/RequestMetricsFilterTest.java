@@ -0,0 +1,133 @@
+package com.lihan.demo_lihan.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class RequestMetricsFilterTest {
+
+    private static final String SELECT_ROLES = "select r1_0.user_id,r1_1.id from edu_user_role r1_0 where r1_0.user_id=?";
+    private static final String SELECT_COURSES = "select c1_0.id from edu_course c1_0 where c1_0.id in (?,?,?)";
+
+    @SqlBudget(3)
+    static class BudgetedController {
+
+        public void list() {
+        }
+
+        @SqlBudget(-1)
+        public void batch() {
+        }
+    }
+
+    @Test
+    public void testWithinBudgetPasses() throws Exception {
+        RequestMetricsFilter filter = failingFilter();
+
+        filter.doFilter(request("list"), new MockHttpServletResponse(), chain(SELECT_COURSES, SELECT_ROLES));
+    }
+
+    @Test
+    public void testOverBudgetFailsWithRepeatedShapes() {
+        RequestMetricsFilter filter = failingFilter();
+
+        assertThatThrownBy(() -> filter.doFilter(request("list"), new MockHttpServletResponse(),
+                chain(SELECT_ROLES, SELECT_ROLES, SELECT_ROLES, SELECT_COURSES)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("statements=4, budget=3")
+                .hasMessageContaining("3x " + SELECT_ROLES);
+    }
+
+    @Test
+    public void testRepeatedStatementWithinBudgetIsReportedAsNPlusOne() {
+        MetricsProperties properties = new MetricsProperties();
+        properties.setSqlBudgetFail(true);
+        properties.setSqlBudgetDefault(100);
+        properties.setSqlRepeatThreshold(3);
+        RequestMetricsFilter filter = new RequestMetricsFilter(new SimpleMeterRegistry(), properties);
+
+        assertThatThrownBy(() -> filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/users"),
+                new MockHttpServletResponse(), chain(SELECT_ROLES, SELECT_ROLES, SELECT_ROLES)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("N+1");
+    }
+
+    @Test
+    public void testNegativeBudgetDisablesCheck() throws Exception {
+        RequestMetricsFilter filter = failingFilter();
+
+        filter.doFilter(request("batch"), new MockHttpServletResponse(),
+                chain(SELECT_ROLES, SELECT_ROLES, SELECT_ROLES, SELECT_ROLES, SELECT_ROLES));
+    }
+
+    @Test
+    public void testOverBudgetOnlyLogsWhenNotFailing() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RequestMetricsFilter filter = new RequestMetricsFilter(registry, new MetricsProperties());
+        MockHttpServletRequest request = request("list");
+
+        filter.doFilter(request, new MockHttpServletResponse(),
+                chain(SELECT_ROLES, SELECT_ROLES, SELECT_ROLES, SELECT_COURSES));
+
+        assertThat(registry.get(RequestMetricsFilter.METRIC_NAME).summary().totalAmount()).isEqualTo(4);
+    }
+
+    @Test
+    public void testRepeatedMergesInListsOfDifferentLength() {
+        SqlStatementCounter counter = new SqlStatementCounter();
+        SqlStatementCounter.Statements previous = SqlStatementCounter.begin();
+        counter.inspect("select c1_0.id from edu_course c1_0 where c1_0.id in (?,?)");
+        counter.inspect(SELECT_COURSES);
+        counter.inspect(SELECT_ROLES);
+        SqlStatementCounter.Statements statements = SqlStatementCounter.end(previous);
+
+        List<Map.Entry<String, Integer>> repeated = statements.repeated(2);
+        assertThat(statements.count()).isEqualTo(3);
+        assertThat(repeated).hasSize(1);
+        assertThat(repeated.get(0).getKey()).isEqualTo("select c1_0.id from edu_course c1_0 where c1_0.id in (?, ...)");
+        assertThat(repeated.get(0).getValue()).isEqualTo(2);
+        assertThat(SqlStatementCounter.current()).isEqualTo(-1);
+    }
+
+    private static RequestMetricsFilter failingFilter() {
+        MetricsProperties properties = new MetricsProperties();
+        properties.setSqlBudgetFail(true);
+        return new RequestMetricsFilter(new SimpleMeterRegistry(), properties);
+    }
+
+    private static MockHttpServletRequest request(String handlerMethod) throws NoSuchMethodException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/" + handlerMethod);
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/v1/" + handlerMethod);
+        request.setAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE,
+                new HandlerMethod(new BudgetedController(), BudgetedController.class.getMethod(handlerMethod)));
+        return request;
+    }
+
+    /**
+     * 模拟处理请求时 Hibernate 依次执行的语句
+     */
+    private static MockFilterChain chain(String... statements) {
+        SqlStatementCounter counter = new SqlStatementCounter();
+        return new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response) {
+                for (String sql : statements) {
+                    counter.inspect(sql);
+                }
+            }
+        });
+    }
+}
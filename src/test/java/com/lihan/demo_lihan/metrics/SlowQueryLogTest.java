@@ -0,0 +1,135 @@
+package com.lihan.demo_lihan.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SlowQueryLogTest {
+
+    private static final String INSERT_USER =
+            "insert into edu_user (created_time,email,password,username) values (?,?,?,?)";
+    private static final String SELECT_ORDERS =
+            "select o1_0.id from edu_order o1_0 where o1_0.user_id=? and o1_0.status in (?,?) order by o1_0.created_time desc";
+
+    @Test
+    public void testNormalizeReplacesLiteralsAndInLists() {
+        assertThat(SlowQueryLog.normalize("select  *\n from edu_course where id in (?,?,?) and title = 'java' limit 10"))
+                .isEqualTo("select * from edu_course where id in (?, ...) and title = ? limit ?");
+        assertThat(SlowQueryLog.normalize("select c1_0.id from edu_course c1_0 where c1_0.id=?"))
+                .isEqualTo("select c1_0.id from edu_course c1_0 where c1_0.id=?");
+    }
+
+    @Test
+    public void testRedactsSensitiveColumns() {
+        SlowQueryLog slowQueryLog = new SlowQueryLog(failingDataSource(new AtomicInteger()), properties(false));
+
+        assertThat(slowQueryLog.redact(INSERT_USER, Arrays.asList("2025-01-01T00:00", "a@b.com", "$2a$10$hash", "alice")))
+                .containsExactly("2025-01-01T00:00", "***", "***", "alice");
+        assertThat(slowQueryLog.redact("update edu_user set password=?,phone=? where id=?", List.of("$2a$10$hash", "13800000000", 7L)))
+                .containsExactly("***", "***", "7");
+        assertThat(slowQueryLog.redact(SELECT_ORDERS, Arrays.asList(1L, "PAID", null)))
+                .containsExactly("1", "PAID", "null");
+    }
+
+    @Test
+    public void testKeepsMostRecentEntries() {
+        MetricsProperties properties = properties(false);
+        properties.setSlowQueryCapacity(2);
+        SlowQueryLog slowQueryLog = new SlowQueryLog(failingDataSource(new AtomicInteger()), properties);
+
+        for (long i = 1; i <= 3; i++) {
+            slowQueryLog.record(SELECT_ORDERS, List.of(i, "PAID", "PENDING"), 1_000_000 * i, i);
+        }
+
+        assertThat(slowQueryLog.getSlowCount()).isEqualTo(3);
+        assertThat(slowQueryLog.recent()).extracting(SlowQueryLog.SlowQuery::rows).containsExactly(3L, 2L);
+    }
+
+    @Test
+    public void testExplainsEachShapeOnce() throws InterruptedException {
+        AtomicInteger connections = new AtomicInteger();
+        SlowQueryLog slowQueryLog = new SlowQueryLog(failingDataSource(connections), properties(true));
+
+        slowQueryLog.record(SELECT_ORDERS, List.of(1L, "PAID", "PENDING"), 1_000_000, 1);
+        waitForPlan(slowQueryLog);
+        slowQueryLog.record(SELECT_ORDERS.replace("(?,?)", "(?,?,?)"), List.of(1L, "PAID", "PENDING", "CANCELLED"), 1_000_000, 1);
+        slowQueryLog.record(INSERT_USER, List.of("t", "e", "p", "u"), 1_000_000, 1);
+        slowQueryLog.close();
+
+        assertThat(connections.get()).isEqualTo(1);
+        assertThat(slowQueryLog.plans()).hasSize(1);
+        assertThat(slowQueryLog.plans().values().iterator().next().error()).contains("unavailable");
+    }
+
+    @Test
+    public void testDataSourceRecordsSlowUpdates() throws SQLException {
+        MetricsProperties properties = properties(false);
+        properties.setSlowQueryMs(0);
+        SlowQueryLog slowQueryLog = new SlowQueryLog(failingDataSource(new AtomicInteger()), properties);
+        SlowQueryDataSource dataSource = new SlowQueryDataSource(updatingDataSource(), slowQueryLog);
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("update edu_user set password=? where id=?")) {
+            statement.setString(1, "$2a$10$hash");
+            statement.setLong(2, 7L);
+            assertThat(statement.executeUpdate()).isEqualTo(1);
+        }
+
+        SlowQueryLog.SlowQuery entry = slowQueryLog.recent().get(0);
+        assertThat(entry.shape()).isEqualTo("update edu_user set password=? where id=?");
+        assertThat(entry.binds()).containsExactly("***", "7");
+        assertThat(entry.rows()).isEqualTo(1);
+    }
+
+    private static void waitForPlan(SlowQueryLog slowQueryLog) throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            if (slowQueryLog.plans().values().stream().allMatch(plan -> plan.time() != null)) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private static MetricsProperties properties(boolean explain) {
+        MetricsProperties properties = new MetricsProperties();
+        properties.setSlowQueryExplain(explain);
+        return properties;
+    }
+
+    /**
+     * 取连接即失败的数据源，统计 EXPLAIN 取连接的次数
+     */
+    private static DataSource failingDataSource(AtomicInteger connections) {
+        return (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(), new Class<?>[]{DataSource.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("getConnection")) {
+                        connections.incrementAndGet();
+                        throw new SQLException("unavailable");
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    /**
+     * 每条更新语句影响 1 行的数据源
+     */
+    private static DataSource updatingDataSource() {
+        PreparedStatement statement = (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                (proxy, method, args) -> method.getName().equals("executeUpdate") ? 1 : null);
+        Connection connection = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> method.getName().equals("prepareStatement") ? statement : null);
+        return (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(), new Class<?>[]{DataSource.class},
+                (proxy, method, args) -> method.getName().equals("getConnection") ? connection : null);
+    }
+}
@@ -0,0 +1,250 @@
+package com.lihan.demo_lihan.repository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 校验 V6__query_indexes.sql 中的索引被对应的仓储查询选用（MySQL EXPLAIN FORMAT=JSON）
+ * 语句与仓储方法生成的 SQL 条件、排序一致；数据在事务内写入，测试结束回滚
+ */
+@SpringBootTest
+@Transactional
+public class QueryIndexUsageTest {
+
+    private static final long USER_BASE = 900_000_000L;
+    private static final long COURSE_BASE = 900_000_000L;
+    private static final int USERS = 200;
+    private static final int COURSES = 100;
+    private static final int ORDERS = 4000;
+    private static final String[] ORDER_STATUSES = {"PAID", "PAID", "PAID", "PAID", "PAID",
+            "CANCELLED", "CANCELLED", "PENDING", "EXPIRED", "REFUNDED"};
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 1, 1, 0, 0);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    public void seed() {
+        List<Object[]> orders = new ArrayList<>();
+        for (int i = 0; i < ORDERS; i++) {
+            // 同一用户的订单轮流取各个状态和课程
+            String status = ORDER_STATUSES[i / USERS % ORDER_STATUSES.length];
+            LocalDateTime created = NOW.minusHours(ORDERS - i);
+            boolean paid = status.equals("PAID") || status.equals("REFUNDED");
+            orders.add(new Object[]{"IDXTEST" + i, USER_BASE + i % USERS, COURSE_BASE + (i * 7 + i / USERS) % COURSES,
+                    status, Timestamp.valueOf(created), Timestamp.valueOf(created.plusMinutes(30)),
+                    paid ? Timestamp.valueOf(created.plusMinutes(5)) : null, paid ? "PAYTEST" + i : null});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO edu_order (order_number, user_id, course_id, status, created_time, "
+                + "expire_time, pay_time, payment_no, amount, original_price) VALUES (?, ?, ?, ?, ?, ?, ?, ?, 99.00, 99.00)",
+                orders);
+
+        List<Object[]> courses = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            boolean published = i % 10 == 0;
+            LocalDateTime created = NOW.minusHours(1000 - i);
+            courses.add(new Object[]{"IDXTEST" + i, i % 50, published ? "PUBLISHED" : i % 3 == 0 ? "OFFLINE" : "DRAFT",
+                    Timestamp.valueOf(created), published ? Timestamp.valueOf(created.plusHours(1)) : null,
+                    i % 40 == 0, i});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO edu_course (title, category_id, status, created_time, published_time, "
+                + "is_recommended, sort_order, teacher_id, price, duration, lesson_count, student_count, view_count, "
+                + "is_free, is_hot) VALUES (?, ?, ?, ?, ?, ?, ?, 1, 99.00, 0, 0, 0, 0, false, false)", courses);
+
+        List<Object[]> users = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            users.add(new Object[]{"idxtest" + i, Timestamp.valueOf(NOW.minusHours(2000 - i))});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO edu_user (username, password, created_time, is_enabled, is_locked) "
+                + "VALUES (?, 'x', ?, true, false)", users);
+    }
+
+    /**
+     * OrderRepository.findByUserIdAndStatus 分页，不限状态
+     */
+    @Test
+    public void testOrderPageByUserUsesUserCreatedIndex() {
+        JsonNode plan = explain("SELECT * FROM edu_order WHERE user_id = ? ORDER BY created_time DESC LIMIT 20",
+                USER_BASE + 1);
+
+        assertThat(key(plan)).isEqualTo("idx_order_user_created");
+        assertThat(filesort(plan)).isFalse();
+    }
+
+    /**
+     * OrderRepository.findByUserIdAndStatus 分页，指定状态
+     */
+    @Test
+    public void testOrderPageByUserAndStatusUsesUserStatusCreatedIndex() {
+        JsonNode plan = explain("SELECT * FROM edu_order WHERE user_id = ? AND status = ? "
+                + "ORDER BY created_time DESC LIMIT 20", USER_BASE + 1, "PAID");
+
+        assertThat(key(plan)).isEqualTo("idx_order_user_status_created");
+        assertThat(filesort(plan)).isFalse();
+    }
+
+    /**
+     * OrderRepository.countByUserIdAndStatus 只读索引
+     */
+    @Test
+    public void testCountByUserAndStatusIsCoveredByIndex() {
+        JsonNode plan = explain("SELECT COUNT(*) FROM edu_order WHERE user_id = ? AND status = ?",
+                USER_BASE + 1, "PAID");
+
+        assertThat(key(plan)).isEqualTo("idx_order_user_status_created");
+        assertThat(table(plan).path("using_index").asBoolean()).isTrue();
+    }
+
+    /**
+     * OrderRepository.existsByUserIdAndCourseIdAndPaid 只读索引
+     */
+    @Test
+    public void testExistsPaidOrderIsCoveredByUserCourseIndex() {
+        JsonNode plan = explain("SELECT COUNT(*) > 0 FROM edu_order WHERE user_id = ? AND course_id = ? "
+                + "AND status = 'PAID'", USER_BASE + 1, COURSE_BASE + 7);
+
+        assertThat(key(plan)).isEqualTo("idx_order_user_course_status");
+        assertThat(table(plan).path("using_index").asBoolean()).isTrue();
+    }
+
+    /**
+     * OrderRepository.findExpiredPendingOrders
+     */
+    @Test
+    public void testExpiredPendingOrdersUseStatusExpireIndex() {
+        JsonNode plan = explain("SELECT * FROM edu_order WHERE status = 'PENDING' AND expire_time < ?",
+                Timestamp.valueOf(NOW.minusDays(30)));
+
+        assertThat(key(plan)).isEqualTo("idx_order_status_expire");
+        assertThat(table(plan).path("access_type").asText()).isEqualTo("range");
+    }
+
+    /**
+     * OrderRepository.countSalesByCourseId 只读索引
+     */
+    @Test
+    public void testCountSalesByCourseIsCoveredByIndex() {
+        JsonNode plan = explain("SELECT COUNT(*) FROM edu_order WHERE course_id = ? AND status = 'PAID'",
+                COURSE_BASE + 7);
+
+        assertThat(key(plan)).isEqualTo("idx_order_course_status");
+        assertThat(table(plan).path("using_index").asBoolean()).isTrue();
+    }
+
+    /**
+     * OrderRepository.calculateTotalRevenue 只读索引
+     */
+    @Test
+    public void testTotalRevenueIsCoveredByPayTimeIndex() {
+        JsonNode plan = explain("SELECT COALESCE(SUM(amount), 0) FROM edu_order WHERE status = 'PAID' "
+                + "AND pay_time BETWEEN ? AND ?", Timestamp.valueOf(NOW.minusDays(1)), Timestamp.valueOf(NOW));
+
+        assertThat(key(plan)).isEqualTo("idx_order_pay_time");
+        assertThat(table(plan).path("using_index").asBoolean()).isTrue();
+    }
+
+    /**
+     * OrderRepository.findByPaymentNo
+     */
+    @Test
+    public void testFindByPaymentNoUsesPaymentNoIndex() {
+        JsonNode plan = explain("SELECT * FROM edu_order WHERE payment_no = ?", "PAYTEST10");
+
+        assertThat(key(plan)).isEqualTo("idx_order_payment_no");
+    }
+
+    /**
+     * CourseRepository.findByStatusOrderByCreatedTimeDesc
+     */
+    @Test
+    public void testCoursesByStatusUseStatusCreatedIndex() {
+        JsonNode plan = explain("SELECT * FROM edu_course WHERE status = ? ORDER BY created_time DESC", "PUBLISHED");
+
+        assertThat(key(plan)).isEqualTo("idx_course_status_created");
+        assertThat(filesort(plan)).isFalse();
+    }
+
+    /**
+     * CourseRepository.findLatestPublishedCourses
+     */
+    @Test
+    public void testLatestPublishedCoursesUseStatusPublishedIndex() {
+        JsonNode plan = explain("SELECT * FROM edu_course WHERE status = ? AND published_time IS NOT NULL "
+                + "ORDER BY published_time DESC LIMIT 10", "PUBLISHED");
+
+        assertThat(key(plan)).isEqualTo("idx_course_status_published");
+        assertThat(filesort(plan)).isFalse();
+    }
+
+    /**
+     * CourseRepository.countByCategoryIdAndStatus 只读索引
+     */
+    @Test
+    public void testCountByCategoryAndStatusIsCoveredByIndex() {
+        JsonNode plan = explain("SELECT COUNT(*) FROM edu_course WHERE category_id = ? AND status = ?",
+                10, "PUBLISHED");
+
+        assertThat(key(plan)).isEqualTo("idx_course_category_status");
+        assertThat(table(plan).path("using_index").asBoolean()).isTrue();
+    }
+
+    /**
+     * CourseRepository.findByIsRecommendedTrueAndStatusOrderBySortOrder
+     */
+    @Test
+    public void testRecommendedCoursesUseRecommendedIndex() {
+        JsonNode plan = explain("SELECT * FROM edu_course WHERE is_recommended = true AND status = ? "
+                + "ORDER BY sort_order", "PUBLISHED");
+
+        assertThat(key(plan)).isEqualTo("idx_course_recommended");
+        assertThat(filesort(plan)).isFalse();
+    }
+
+    /**
+     * UserRepository.findByCreatedTimeBetween
+     */
+    @Test
+    public void testUsersByCreatedTimeUseCreatedTimeIndex() {
+        JsonNode plan = explain("SELECT * FROM edu_user WHERE created_time BETWEEN ? AND ?",
+                Timestamp.valueOf(NOW.minusDays(1)), Timestamp.valueOf(NOW));
+
+        assertThat(key(plan)).isEqualTo("idx_user_created_time");
+    }
+
+    private JsonNode explain(String sql, Object... args) {
+        String json = jdbcTemplate.queryForObject("EXPLAIN FORMAT=JSON " + sql, String.class, args);
+        try {
+            return objectMapper.readTree(json);
+        } catch (Exception e) {
+            throw new IllegalStateException(json, e);
+        }
+    }
+
+    private static JsonNode table(JsonNode plan) {
+        return plan.findValue("table");
+    }
+
+    private static String key(JsonNode plan) {
+        return table(plan).path("key").asText(null);
+    }
+
+    private static boolean filesort(JsonNode plan) {
+        return plan.findValues("using_filesort").stream().anyMatch(JsonNode::asBoolean);
+    }
+}
@@ -0,0 +1,126 @@
+package com.lihan.demo_lihan.service;
+
+import com.lihan.demo_lihan.entity.Order;
+import com.lihan.demo_lihan.event.OrderStatusChangedEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 校验增量汇总与全量重建结果一致：订单依次经历创建、支付、部分退款，逐次应用增量后与 rebuild() 的结果比较；
+ * 收入统计与直接按订单求和的结果一致
+ * 数据在事务内写入，测试结束回滚
+ */
+@SpringBootTest
+@Transactional
+public class OrderRollupServiceTest {
+
+    private static final int ORDERS = 40;
+    private static final int COURSES = 4;
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 1, 1, 10, 30);
+
+    /**
+     * 汇总行按维度合并 slot，忽略增量抵消后计数为 0 的行（重建不会产生这些行）
+     */
+    private static final String SNAPSHOT_SQL = "SELECT CONCAT_WS('|', bucket_type, dimension, dimension_key, " +
+            "bucket_start, SUM(order_count), SUM(amount)) FROM edu_order_rollup " +
+            "GROUP BY bucket_type, dimension, dimension_key, bucket_start HAVING SUM(order_count) <> 0 " +
+            "ORDER BY bucket_type, dimension, dimension_key, bucket_start";
+
+    @Autowired
+    private OrderRollupService orderRollupService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void testPayRefundDeltasMatchRebuild() {
+        seedOrders();
+
+        List<String> incremental = jdbcTemplate.queryForList(SNAPSHOT_SQL, String.class);
+        orderRollupService.rebuild();
+        List<String> rebuilt = jdbcTemplate.queryForList(SNAPSHOT_SQL, String.class);
+
+        assertThat(incremental).isNotEmpty();
+        assertThat(incremental).containsExactlyElementsOf(rebuilt);
+    }
+
+    /**
+     * 收入统计与按支付时间直接求和一致：范围两端不在整点、跨天、不足一小时、端点恰为支付时间
+     */
+    @Test
+    public void testRevenueMatchesExactSum() {
+        seedOrders();
+
+        List<LocalDateTime[]> ranges = List.of(
+                new LocalDateTime[]{NOW.plusMinutes(20), NOW.plusHours(30).plusMinutes(5)},
+                new LocalDateTime[]{NOW.minusHours(1), NOW.plusDays(2)},
+                new LocalDateTime[]{NOW.plusMinutes(47 * 3), NOW.plusMinutes(47 * 3)},
+                new LocalDateTime[]{NOW.plusMinutes(90), NOW.plusMinutes(110)},
+                new LocalDateTime[]{NOW.plusHours(2).truncatedTo(ChronoUnit.HOURS), NOW.plusMinutes(47 * 6)});
+        for (LocalDateTime[] range : ranges) {
+            BigDecimal exact = jdbcTemplate.queryForObject("SELECT COALESCE(SUM(amount), 0) FROM edu_order " +
+                    "WHERE status = 'PAID' AND pay_time BETWEEN ? AND ?", BigDecimal.class, range[0], range[1]);
+            assertThat(orderRollupService.calculateRevenue(range[0], range[1]))
+                    .as("%s ~ %s", range[0], range[1]).isEqualByComparingTo(exact);
+        }
+    }
+
+    private void seedOrders() {
+        jdbcTemplate.update("DELETE FROM edu_order_rollup");
+        jdbcTemplate.update("DELETE FROM edu_order_archive");
+        jdbcTemplate.update("DELETE FROM edu_order");
+
+        Long[] courseIds = new Long[COURSES];
+        for (int i = 0; i < COURSES; i++) {
+            jdbcTemplate.update("INSERT INTO edu_course (title, category_id, status, created_time, teacher_id, price, "
+                    + "duration, lesson_count, student_count, view_count, is_free, is_hot, is_recommended, sort_order) "
+                    + "VALUES (?, 1, 'PUBLISHED', ?, ?, 99.00, 0, 0, 0, 0, false, false, false, 0)",
+                    "ROLLUPTEST" + i, Timestamp.valueOf(NOW), 800_000_000L + i % 2);
+            courseIds[i] = jdbcTemplate.queryForObject("SELECT LAST_INSERT_ID()", Long.class);
+        }
+
+        for (int i = 0; i < ORDERS; i++) {
+            Order order = new Order();
+            order.setOrderNumber("ROLLUPTEST" + i);
+            order.setUserId(800_000_000L + i % 7);
+            order.setCourseId(courseIds[i % COURSES]);
+            order.setAmount(new BigDecimal("9.90").add(BigDecimal.valueOf(i)));
+            order.setStatus("PENDING");
+            jdbcTemplate.update("INSERT INTO edu_order (order_number, user_id, course_id, status, amount, original_price, "
+                            + "created_time, expire_time) VALUES (?, ?, ?, 'PENDING', ?, ?, ?, ?)",
+                    order.getOrderNumber(), order.getUserId(), order.getCourseId(), order.getAmount(), order.getAmount(),
+                    Timestamp.valueOf(NOW), Timestamp.valueOf(NOW.plusMinutes(30)));
+            order.setId(jdbcTemplate.queryForObject("SELECT LAST_INSERT_ID()", Long.class));
+            orderRollupService.onOrderStatusChanged(new OrderStatusChangedEvent(order, null, "PENDING"));
+
+            if (i % 5 == 4) {
+                continue;
+            }
+            // 支付时间跨越小时和天的边界
+            order.setStatus("PAID");
+            order.setPaymentMethod(i % 3 == 0 ? "WECHAT" : "ALIPAY");
+            order.setPayTime(NOW.plusMinutes(47L * i));
+            jdbcTemplate.update("UPDATE edu_order SET status = 'PAID', payment_method = ?, pay_time = ? WHERE id = ?",
+                    order.getPaymentMethod(), Timestamp.valueOf(order.getPayTime()), order.getId());
+            orderRollupService.onOrderStatusChanged(new OrderStatusChangedEvent(order, "PENDING", "PAID"));
+
+            if (i % 3 == 1) {
+                order.setStatus("REFUNDED");
+                jdbcTemplate.update("UPDATE edu_order SET status = 'REFUNDED', refund_time = ? WHERE id = ?",
+                        Timestamp.valueOf(order.getPayTime().plusHours(1)), order.getId());
+                orderRollupService.onOrderStatusChanged(new OrderStatusChangedEvent(order, "PAID", "REFUNDED"));
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.lihan.demo_lihan.service;
+
+import com.lihan.demo_lihan.common.BusinessException;
+import com.lihan.demo_lihan.common.ResultCode;
+import com.lihan.demo_lihan.entity.Order;
+import com.lihan.demo_lihan.repository.OrderRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class OrderStateMachineTest {
+
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final OrderStateMachine stateMachine = new OrderStateMachine(orderRepository);
+
+    @Test
+    public void testPayWinsWithSingleUpdate() {
+        when(orderRepository.transitionToPaid(eq("ORDER1"), eq("PENDING"), eq("PAID"),
+                eq("ALIPAY"), eq("P1"), any(LocalDateTime.class))).thenReturn(1);
+        Order created = order("PENDING", LocalDateTime.now().plusMinutes(30));
+        created.setId(7L);
+        created.setCourseId(3L);
+        stateMachine.remember(created);
+
+        Order paid = stateMachine.pay("ORDER1", "ALIPAY", "P1");
+
+        verify(orderRepository, never()).findByOrderNumber(anyString());
+        assertThat(paid.getId()).isEqualTo(7L);
+        assertThat(paid.getCourseId()).isEqualTo(3L);
+        assertThat(paid.getStatus()).isEqualTo("PAID");
+        assertThat(paid.getPaymentMethod()).isEqualTo("ALIPAY");
+        assertThat(paid.getPayTime()).isNotNull();
+        assertThat(created.getStatus()).isEqualTo("PENDING");
+    }
+
+    @Test
+    public void testRefundAfterPayUsesSnapshot() {
+        when(orderRepository.transitionToPaid(anyString(), anyString(), anyString(),
+                anyString(), anyString(), any(LocalDateTime.class))).thenReturn(1);
+        when(orderRepository.transitionToRefunded(anyString(), anyString(), anyString(),
+                isNull(), any(LocalDateTime.class))).thenReturn(1);
+        Order created = order("PENDING", null);
+        created.setId(7L);
+        stateMachine.remember(created);
+        stateMachine.pay("ORDER1", "ALIPAY", "P1");
+
+        Order refunded = stateMachine.refund("ORDER1", "");
+
+        verify(orderRepository, never()).findByOrderNumber(anyString());
+        assertThat(refunded.getStatus()).isEqualTo("REFUNDED");
+        assertThat(refunded.getPaymentMethod()).isEqualTo("ALIPAY");
+        assertThat(refunded.getPayTime()).isNotNull();
+    }
+
+    @Test
+    public void testRefundWithPendingSnapshotReadsPayFacts() {
+        when(orderRepository.transitionToRefunded(anyString(), anyString(), anyString(),
+                isNull(), any(LocalDateTime.class))).thenReturn(1);
+        Order created = order("PENDING", null);
+        created.setId(7L);
+        stateMachine.remember(created);
+        // 在其它节点支付，本节点缓存仍是 PENDING
+        Order row = order("REFUNDED", null);
+        row.setId(7L);
+        row.setPaymentMethod("WECHAT");
+        row.setPayTime(LocalDateTime.of(2026, 1, 1, 10, 0));
+        when(orderRepository.findByOrderNumber("ORDER1")).thenReturn(Optional.of(row));
+
+        Order refunded = stateMachine.refund("ORDER1", "");
+
+        verify(orderRepository).findByOrderNumber("ORDER1");
+        assertThat(refunded.getStatus()).isEqualTo("REFUNDED");
+        assertThat(refunded.getPaymentMethod()).isEqualTo("WECHAT");
+        assertThat(refunded.getPayTime()).isEqualTo(LocalDateTime.of(2026, 1, 1, 10, 0));
+    }
+
+    @Test
+    public void testCancelWithoutSnapshotReadsOnce() {
+        when(orderRepository.transitionToCancelled(anyString(), anyString(), anyString(),
+                isNull(), any(LocalDateTime.class))).thenReturn(1);
+        when(orderRepository.findByOrderNumber("ORDER1")).thenReturn(Optional.of(order("CANCELLED", null)));
+
+        Order cancelled = stateMachine.cancel("ORDER1", null);
+
+        verify(orderRepository).findByOrderNumber("ORDER1");
+        assertThat(cancelled.getStatus()).isEqualTo("CANCELLED");
+    }
+
+    @Test
+    public void testPayLosesToConcurrentCancel() {
+        when(orderRepository.transitionToPaid(anyString(), anyString(), anyString(),
+                anyString(), anyString(), any(LocalDateTime.class))).thenReturn(0);
+        when(orderRepository.findByOrderNumber("ORDER1")).thenReturn(Optional.of(order("CANCELLED", null)));
+
+        assertThatThrownBy(() -> stateMachine.pay("ORDER1", "ALIPAY", "P1"))
+                .isInstanceOf(BusinessException.class)
+                .extracting("code").isEqualTo(ResultCode.ORDER_STATUS_CONFLICT.getCode());
+    }
+
+    @Test
+    public void testPayExpiredOrder() {
+        when(orderRepository.transitionToPaid(anyString(), anyString(), anyString(),
+                anyString(), anyString(), any(LocalDateTime.class))).thenReturn(0);
+        when(orderRepository.findByOrderNumber("ORDER1"))
+                .thenReturn(Optional.of(order("PENDING", LocalDateTime.now().minusMinutes(1))));
+
+        assertThatThrownBy(() -> stateMachine.pay("ORDER1", "ALIPAY", "P1"))
+                .isInstanceOf(BusinessException.class)
+                .extracting("code").isEqualTo(ResultCode.ORDER_EXPIRED.getCode());
+    }
+
+    @Test
+    public void testRefundUnknownOrder() {
+        when(orderRepository.transitionToRefunded(anyString(), anyString(), anyString(),
+                isNull(), any(LocalDateTime.class))).thenReturn(0);
+        when(orderRepository.findByOrderNumber("MISSING")).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> stateMachine.refund("MISSING", ""))
+                .isInstanceOf(BusinessException.class)
+                .extracting("code").isEqualTo(ResultCode.ORDER_NOT_FOUND.getCode());
+    }
+
+    @Test
+    public void testExpireLosesRaceSilently() {
+        when(orderRepository.transitionToExpired(eq(1L), eq("PENDING"), eq("EXPIRED"),
+                any(LocalDateTime.class))).thenReturn(0);
+
+        assertThat(stateMachine.expire(1L)).isFalse();
+    }
+
+    private Order order(String status, LocalDateTime expireTime) {
+        Order order = new Order();
+        order.setOrderNumber("ORDER1");
+        order.setStatus(status);
+        order.setExpireTime(expireTime);
+        return order;
+    }
+}
@@ -0,0 +1,145 @@
+package com.lihan.demo_lihan.tracing;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TraceExporterTest {
+
+    private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+    private static final String PARENT_ID = "00f067aa0ba902b7";
+
+    @TempDir
+    Path directory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @AfterEach
+    public void tearDown() {
+        Tracing.detach();
+    }
+
+    @Test
+    public void testSpansNestAndRestoreMdc() {
+        List<Tracing.Trace> completed = new ArrayList<>();
+        Span root = Tracing.startTrace("GET /courses", null, null, false, 100, completed::add);
+        assertThat(MDC.get(Tracing.SPAN_ID)).isEqualTo(root.getSpanId());
+
+        Span child = Tracing.startSpan("CourseService.list");
+        assertThat(MDC.get(Tracing.TRACE_ID)).isEqualTo(root.getTraceId());
+        assertThat(MDC.get(Tracing.SPAN_ID)).isEqualTo(child.getSpanId());
+        Tracing.startSpan("jdbc", Span.KIND_CLIENT).finish();
+        child.finish();
+        assertThat(Tracing.current()).isSameAs(root);
+        assertThat(MDC.get(Tracing.SPAN_ID)).isEqualTo(root.getSpanId());
+
+        root.finish();
+        assertThat(Tracing.current().isRecording()).isFalse();
+        assertThat(MDC.get(Tracing.TRACE_ID)).isNull();
+        assertThat(completed).hasSize(1);
+        List<Span> spans = completed.get(0).getSpans();
+        assertThat(spans).extracting(Span::getName).containsExactly("jdbc", "CourseService.list", "GET /courses");
+        assertThat(spans.get(0).getParentId()).isEqualTo(child.getSpanId());
+        assertThat(spans.get(1).getParentId()).isEqualTo(root.getSpanId());
+        assertThat(spans.get(2).getParentId()).isNull();
+    }
+
+    @Test
+    public void testNoActiveTraceReturnsNoop() {
+        Span span = Tracing.startSpan("CourseService.list");
+
+        assertThat(span.isRecording()).isFalse();
+        span.tag("key", "value").error("ignored").finish();
+        assertThat(MDC.get(Tracing.TRACE_ID)).isNull();
+    }
+
+    @Test
+    public void testTailSamplingKeepsSlowAndErrorTraces() throws Exception {
+        TracingProperties properties = properties();
+        properties.setSampleRate(0);
+        properties.setSlowThresholdMs(50);
+        TraceExporter exporter = new TraceExporter(properties, objectMapper, new SimpleMeterRegistry());
+
+        Tracing.startTrace("GET /fast", null, null, false, 100, exporter::complete).finish();
+        Span failed = Tracing.startTrace("GET /failed", null, null, false, 100, exporter::complete);
+        Tracing.startSpan("OrderService.create").error(new IllegalStateException("boom")).finish();
+        failed.finish();
+        Span slow = Tracing.startTrace("GET /slow", null, null, false, 100, exporter::complete);
+        slow.finish(slow.getStartNanos() + 60_000_000L);
+        Tracing.startTrace("GET /sampled", TRACE_ID, PARENT_ID, true, 100, exporter::complete).finish();
+
+        assertThat(exporter.flush()).isEqualTo(3);
+        List<String> lines = Files.readAllLines(Path.of(properties.getFilePath()));
+        assertThat(lines).hasSize(3);
+        assertThat(lines).noneMatch(line -> line.contains("GET /fast"));
+    }
+
+    @Test
+    public void testExportsZipkinJson() throws Exception {
+        TracingProperties properties = properties();
+        properties.setMaxSpansPerTrace(2);
+        TraceExporter exporter = new TraceExporter(properties, objectMapper, new SimpleMeterRegistry());
+
+        Span root = Tracing.startTrace("GET /orders", TRACE_ID, PARENT_ID, true, 2, exporter::complete);
+        Tracing.startSpan("get", Span.KIND_CLIENT).remoteService("redis").tag("redis.key", "course:1").finish();
+        Tracing.startSpan("OrderRepository.findByUserId").finish();
+        Tracing.startSpan("OrderRepository.save").finish();
+        root.tag("http.status_code", 200).finish();
+        exporter.flush();
+
+        JsonNode spans = objectMapper.readTree(Files.readString(Path.of(properties.getFilePath())));
+        assertThat(spans).hasSize(3);
+        JsonNode redis = spans.get(0);
+        assertThat(redis.get("traceId").asText()).isEqualTo(TRACE_ID);
+        assertThat(redis.get("parentId").asText()).isEqualTo(root.getSpanId());
+        assertThat(redis.get("kind").asText()).isEqualTo("CLIENT");
+        assertThat(redis.get("remoteEndpoint").get("serviceName").asText()).isEqualTo("redis");
+        assertThat(redis.get("localEndpoint").get("serviceName").asText()).isEqualTo("demo-lihan");
+        assertThat(redis.get("tags").get("redis.key").asText()).isEqualTo("course:1");
+        assertThat(redis.get("timestamp").asLong()).isGreaterThanOrEqualTo(spans.get(2).get("timestamp").asLong());
+        JsonNode server = spans.get(2);
+        assertThat(server.get("parentId").asText()).isEqualTo(PARENT_ID);
+        assertThat(server.get("kind").asText()).isEqualTo("SERVER");
+        assertThat(server.get("tags").get("dropped_spans").asText()).isEqualTo("1");
+        assertThat(server.get("duration").asLong()).isPositive();
+    }
+
+    @Test
+    public void testFilterContinuesIncomingTraceparent() throws Exception {
+        TracingProperties properties = properties();
+        properties.setSampleRate(0);
+        TraceExporter exporter = new TraceExporter(properties, objectMapper, new SimpleMeterRegistry());
+        TracingFilter filter = new TracingFilter(properties, exporter);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/courses");
+        request.addHeader(TracingFilter.TRACEPARENT_HEADER, "00-" + TRACE_ID + "-" + PARENT_ID + "-01");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, new MockFilterChain());
+
+        assertThat(response.getHeader(TracingFilter.TRACE_ID_HEADER)).isEqualTo(TRACE_ID);
+        assertThat(Tracing.current().isRecording()).isFalse();
+        assertThat(exporter.flush()).isEqualTo(1);
+        assertThat(Files.readString(Path.of(properties.getFilePath())))
+                .contains("\"name\":\"GET /api/v1/courses\"", "\"http.status_code\":\"200\"");
+    }
+
+    private TracingProperties properties() {
+        TracingProperties properties = new TracingProperties();
+        properties.setFilePath(directory.resolve("spans.jsonl").toString());
+        return properties;
+    }
+}